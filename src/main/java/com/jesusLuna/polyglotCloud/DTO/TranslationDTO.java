@@ -5,7 +5,6 @@ import java.util.UUID;
 
 import com.jesusLuna.polyglotCloud.models.enums.TranslationStatus;
 
-import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Size;
 
@@ -18,7 +17,7 @@ public class TranslationDTO {
         @NotNull(message = "Target language is required")
         UUID targetLanguageId,
         
-        @NotBlank(message = "Manual translation is required")
+        // Opcional solo con un motor real (o allow-simulated): sin ella se encola una traducción automática
         @Size(max = 50000, message = "Manual translation cannot exceed 50000 characters")
         String manualTranslation,
         
@@ -48,6 +48,13 @@ public class TranslationVoteDTO {
                 Instant createdAt
         ) {}
 
+        public record TranslatorRanking(
+                int rank,
+                UUID userId,
+                String username,
+                long totalScore
+        ) {}
+
         public record TopVersions(
             UUID translationId,
             VersionWithVotes bestRated,
@@ -167,6 +167,28 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(429).headers(headers).body(response);
     }
 
+    /**
+     * Maneja la saturación temporal de un recurso limitado (p. ej. el pool de hashing de contraseñas)
+     */
+    @ExceptionHandler(ServiceUnavailableException.class)
+    public ResponseEntity<UserDTO.ErrorResponse> handleServiceUnavailableException(
+            ServiceUnavailableException ex, WebRequest request) {
+        
+        UserDTO.ErrorResponse error = new UserDTO.ErrorResponse(
+            ex.getMessage(),
+            "Service temporarily unavailable",
+            request.getDescription(false).replace("uri=", ""),
+            Instant.now()
+        );
+        
+        log.warn("Service unavailable: {}", ex.getMessage());
+        
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("Retry-After", String.valueOf(ex.getRetryAfterSeconds()));
+        
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).headers(headers).body(error);
+    }
+
     /**
      * Maneja excepciones de acceso denegado de Spring Security (@PreAuthorize)
      */
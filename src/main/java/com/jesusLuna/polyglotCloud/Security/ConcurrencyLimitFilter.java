@@ -0,0 +1,100 @@
+package com.jesusLuna.polyglotCloud.security;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Límite de peticiones en curso por nodo.
+ * Con hilos virtuales Tomcat ya no limita la concurrencia (no hay pool de hilos que se agote):
+ * miles de peticiones simultáneas acabarían esperando en el pool de Hikari hasta su timeout.
+ * Este filtro deja pasar max-concurrent a la vez, hace esperar como mucho max-wait-ms al resto
+ * y responde 503 si no hay hueco. Se ejecuta antes que Spring Security para que una petición
+ * rechazada no cueste nada.
+ */
+@Slf4j
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+    private final boolean enabled;
+    private final int maxConcurrent;
+    private final long maxWaitMs;
+    private final Semaphore permits;
+    private final Counter rejected;
+
+    public ConcurrencyLimitFilter(MeterRegistry meterRegistry,
+                                  @Value("${app.web.concurrency-limit.enabled:${spring.threads.virtual.enabled:false}}") boolean enabled,
+                                  @Value("${app.web.concurrency-limit.max-concurrent:40}") int maxConcurrent,
+                                  @Value("${app.web.concurrency-limit.max-wait-ms:2000}") long maxWaitMs) {
+        this.enabled = enabled;
+        this.maxConcurrent = maxConcurrent;
+        this.maxWaitMs = maxWaitMs;
+        this.permits = new Semaphore(maxConcurrent, true);
+        this.rejected = Counter.builder("http.concurrency.rejected")
+                .description("Requests rejected because the concurrency limit was reached")
+                .register(meterRegistry);
+        Gauge.builder("http.concurrency.in-flight", permits, p -> maxConcurrent - p.availablePermits())
+                .description("Requests currently holding a concurrency permit")
+                .register(meterRegistry);
+
+        log.info("Request concurrency limit: enabled={}, maxConcurrent={}, maxWait={}ms", enabled, maxConcurrent, maxWaitMs);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        // Los health checks no deben rechazarse por carga
+        return !enabled || request.getRequestURI().startsWith("/actuator");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(maxWaitMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+
+        if (!acquired) {
+            rejected.increment();
+            log.warn("Concurrency limit of {} reached, rejecting {} {}", maxConcurrent, request.getMethod(), request.getRequestURI());
+            sendOverloadedResponse(response);
+            return;
+        }
+
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            permits.release();
+        }
+    }
+
+    private void sendOverloadedResponse(HttpServletResponse response) throws IOException {
+        response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+        response.setHeader("Content-Type", "application/json");
+        response.setHeader("Retry-After", "1");
+        response.getWriter().write(String.format(
+            "{\"error\":\"Server is busy, please retry shortly\",\"status\":503,\"timestamp\":\"%s\"}",
+            Instant.now()
+        ));
+    }
+}
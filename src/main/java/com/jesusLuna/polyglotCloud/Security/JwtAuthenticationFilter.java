@@ -25,6 +25,7 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtTokenProvider jwtTokenProvider;
     private final UserDetailsService userDetailsService;
+    private final PrincipalCache principalCache;
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, 
@@ -32,7 +33,6 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         
         final String authHeader = request.getHeader("Authorization");
         final String jwt;
-        final UUID userId;
 
         // Verificar si hay token Bearer
         if (authHeader == null || !authHeader.startsWith("Bearer ")) {
@@ -43,25 +43,32 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         jwt = authHeader.substring(7); // Quitar "Bearer "
         
         try {
-            // Validar token primero
-            if (jwtTokenProvider.validateToken(jwt)) {
-                userId = jwtTokenProvider.getUserIdFromToken(jwt);
+            // Validar y parsear el token una sola vez
+            JwtTokenProvider.TokenClaims claims = jwtTokenProvider.parseToken(jwt).orElse(null);
+            if (claims != null) {
+                UUID userId = claims.userId();
                 
                 // Si hay usuario válido y no hay autenticación previa
                 if (userId != null && SecurityContextHolder.getContext().getAuthentication() == null) {
                     
-                    // Cargar detalles del usuario
-                    UserDetails userDetails = this.userDetailsService.loadUserByUsername(userId.toString());
-                    
-                    UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
-                            userDetails,
-                            null,
-                            userDetails.getAuthorities()
-                    );
-                    authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                    SecurityContextHolder.getContext().setAuthentication(authToken);
-                    
-                    log.debug("JWT authentication successful for user: {}", userId);
+                    // Modo stateless: principal desde los claims + caché; la BD solo en un fallo de caché
+                    UserDetails userDetails = principalCache.isEnabled()
+                            ? principalCache.resolve(userId, claims.username()).orElse(null)
+                            : this.userDetailsService.loadUserByUsername(userId.toString());
+
+                    if (userDetails != null) {
+                        UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
+                                userDetails,
+                                null,
+                                userDetails.getAuthorities()
+                        );
+                        authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                        SecurityContextHolder.getContext().setAuthentication(authToken);
+                        
+                        log.debug("JWT authentication successful for user: {}", userId);
+                    } else {
+                        log.debug("JWT rejected for unavailable account: {}", userId);
+                    }
                 }
             }
         } catch (Exception e) {
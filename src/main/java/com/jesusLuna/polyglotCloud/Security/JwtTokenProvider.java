@@ -1,21 +1,33 @@
 package com.jesusLuna.polyglotCloud.security;
 
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.Instant;
 import java.util.Date;
+import java.util.HexFormat;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
 import javax.crypto.SecretKey;
 
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import com.jesusLuna.polyglotCloud.models.enums.Role;
 
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.MalformedJwtException;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import lombok.extern.slf4j.Slf4j;
 
 @Component
@@ -26,28 +38,80 @@ public class JwtTokenProvider {
     private final long expirationMs;
     private final long refreshExpirationMs;
     private final String issuer;
+    private final JwtParser parser;
+    private final Cache<String, TokenClaims> verifiedTokens;
+
+    /**
+     * Claims de un token ya verificado (firma, emisor y expiración), parseados una sola vez
+     */
+    public record TokenClaims(UUID userId, String username, String email, Role role, String type, Instant expiresAt) {
+
+        public boolean isAccessToken() {
+            return "access".equals(type);
+        }
+    }
+
+    /**
+     * Token recién firmado junto con su expiración, para no tener que volver a parsearlo
+     */
+    public record IssuedToken(String value, Instant expiresAt) {}
 
     public JwtTokenProvider(
             @Value("${app.jwt.secret}") String secret,
             @Value("${app.jwt.expiration-ms}") long expirationMs,
             @Value("${app.jwt.refresh-expiration:604800000}") long refreshExpirationMs,
-            @Value("${app.jwt.issuer}") String issuer) {
+            @Value("${app.jwt.issuer}") String issuer,
+            @Value("${app.jwt.verified-cache.max-size:50000}") long verifiedCacheMaxSize,
+            MeterRegistry meterRegistry) {
         
         // Generate secret key from configured string
         this.secretKey = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
         this.expirationMs = expirationMs;
         this.refreshExpirationMs = refreshExpirationMs;
         this.issuer = issuer;
+
+        // El parser es inmutable y thread-safe: se construye una vez y se reutiliza
+        this.parser = Jwts.parser()
+                .verifyWith(secretKey)
+                .requireIssuer(issuer)
+                .build();
+
+        // Tokens verificados por hash, cada uno solo durante el tiempo que le queda de vida
+        this.verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(verifiedCacheMaxSize)
+                .expireAfter(new Expiry<String, TokenClaims>() {
+                    @Override
+                    public long expireAfterCreate(String key, TokenClaims claims, long currentTime) {
+                        return remainingNanos(claims);
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, TokenClaims claims, long currentTime, long currentDuration) {
+                        return remainingNanos(claims);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, TokenClaims claims, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, verifiedTokens, "jwt-verified-tokens");
         
         log.info("JwtTokenProvider initialized with issuer: {}, access expiration: {}ms, refresh expiration: {}ms", 
                 issuer, expirationMs, refreshExpirationMs);
     }
 
     public String generateToken(UUID userId, String username, String email, Role role) {
+        return issueToken(userId, username, email, role).value();
+    }
+
+    public IssuedToken issueToken(UUID userId, String username, String email, Role role) {
         Instant now = Instant.now();
         Instant expiryDate = now.plusMillis(expirationMs);
 
-        return Jwts.builder()
+        String token = Jwts.builder()
                 .subject(userId.toString())
                 .claim("userId", userId.toString())
                 .claim("username", username)
@@ -59,6 +123,9 @@ public class JwtTokenProvider {
                 .expiration(Date.from(expiryDate))
                 .signWith(secretKey)
                 .compact();
+
+        // La fecha del token va en segundos: la truncamos igual que la leería un parse
+        return new IssuedToken(token, Instant.ofEpochSecond(expiryDate.getEpochSecond()));
     }
 
     public String generateRefreshToken(UUID userId) {
@@ -69,6 +136,7 @@ public class JwtTokenProvider {
                 .subject(userId.toString())
                 .claim("userId", userId.toString())
                 .claim("type", "refresh")
+                .id(UUID.randomUUID().toString()) // Dos refresh tokens del mismo segundo no deben coincidir
                 .issuer(issuer)
                 .issuedAt(Date.from(now))
                 .expiration(Date.from(expiryDate))
@@ -80,57 +148,101 @@ public class JwtTokenProvider {
         return refreshExpirationMs;
     }
 
-    public boolean validateToken(String token) {
+    /**
+     * Verifica el token y devuelve sus claims. Un token ya verificado se sirve desde la caché
+     * sin volver a comprobar la firma ni parsear el JSON.
+     *
+     * @return vacío si el token no es válido o ha expirado
+     */
+    public Optional<TokenClaims> parseToken(String token) {
+        if (token == null || token.isBlank()) {
+            return Optional.empty();
+        }
+
+        String key = tokenHash(token);
+        TokenClaims cached = verifiedTokens.getIfPresent(key);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+
         try {
-            Jwts.parser()
-                    .verifyWith(secretKey)
-                    .requireIssuer(issuer)
-                    .build()
-                    .parseSignedClaims(token);
-            return true;
+            TokenClaims claims = toTokenClaims(parser.parseSignedClaims(token).getPayload());
+            verifiedTokens.put(key, claims);
+            return Optional.of(claims);
         } catch (JwtException ex) {
             //TODO: Diferenciar entre tipos de excepciones si es necesario
             log.error("Invalid JWT token: {}", ex.getMessage());
         } catch (IllegalArgumentException ex) {
-            log.error("JWT claims string is empty: {}", ex.getMessage());
+            log.error("Invalid JWT claims: {}", ex.getMessage());
         }
-        return false;
+        return Optional.empty();
+    }
+
+    public boolean validateToken(String token) {
+        return parseToken(token).isPresent();
     }
 
     public UUID getUserIdFromToken(String token) {
-        Claims claims = getClaims(token);
-        String userIdStr = claims.get("userId", String.class);
-        return UUID.fromString(userIdStr);
+        return getClaims(token).userId();
     }
 
     public String getUsernameFromToken(String token) {
-        Claims claims = getClaims(token);
-        return claims.get("username", String.class);
+        return getClaims(token).username();
     }
 
     public String getEmailFromToken(String token) {
-        Claims claims = getClaims(token);
-        return claims.get("email", String.class);
+        return getClaims(token).email();
     }
 
     public Role getRoleFromToken(String token) {
-        Claims claims = getClaims(token);
-        String roleStr = claims.get("role", String.class);
-        return Role.valueOf(roleStr);
+        return getClaims(token).role();
     }
 
     public Instant getExpirationFromToken(String token) {
-        Claims claims = getClaims(token);
-        return claims.getExpiration().toInstant();
+        return getClaims(token).expiresAt();
     }
 
-    private Claims getClaims(String token) {
-        return Jwts.parser()
-                .verifyWith(secretKey)
-                .requireIssuer(issuer)
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+    private TokenClaims getClaims(String token) {
+        return parseToken(token)
+                .orElseThrow(() -> new JwtException("Invalid JWT token"));
+    }
+
+    /**
+     * Un token firmado por nosotros siempre lleva userId y exp; si falta alguno se trata como
+     * inválido en vez de dejar escapar un NullPointerException del filtro
+     */
+    private static TokenClaims toTokenClaims(Claims claims) {
+        String userId = claims.get("userId", String.class);
+        Date expiration = claims.getExpiration();
+        if (userId == null || expiration == null) {
+            throw new MalformedJwtException("JWT is missing the userId or exp claim");
+        }
+        String role = claims.get("role", String.class);
+        return new TokenClaims(
+                UUID.fromString(userId),
+                claims.get("username", String.class),
+                claims.get("email", String.class),
+                role != null ? Role.valueOf(role) : null,
+                claims.get("type", String.class),
+                expiration.toInstant()
+        );
+    }
+
+    private static long remainingNanos(TokenClaims claims) {
+        long remainingMs = claims.expiresAt().toEpochMilli() - System.currentTimeMillis();
+        return TimeUnit.MILLISECONDS.toNanos(Math.max(0, remainingMs));
+    }
+
+    /**
+     * SHA-256 en hex del token (clave de la caché y de los refresh tokens en BD)
+     */
+    public static String tokenHash(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
     }
 
 }
\ No newline at end of file
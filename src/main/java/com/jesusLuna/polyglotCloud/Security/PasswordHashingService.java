@@ -0,0 +1,160 @@
+package com.jesusLuna.polyglotCloud.security;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.jesusLuna.polyglotCloud.exception.ServiceUnavailableException;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Pool acotado para los hashes Argon2 (64 MB cada uno).
+ * Los hilos de Tomcat solo esperan el resultado: como mucho hay "threads" hashes en memoria a la vez,
+ * y si la cola está llena la petición falla rápido con 503 en lugar de llenar el heap.
+ * BouncyCastle reserva la memoria de Argon2 en cada init() (el salt va en los parámetros), así que
+ * no se puede reutilizar entre hashes; limitar la concurrencia es lo que acota el heap.
+ */
+@Slf4j
+@Component
+public class PasswordHashingService implements DisposableBean {
+
+    private static final String SATURATED_MESSAGE = "Too many concurrent authentication requests, please retry shortly";
+
+    private final PostQuantumPasswordEncoder encoder;
+    private final ThreadPoolExecutor executor;
+    private final long timeoutMs;
+
+    private final Timer queueWait;
+    private final Timer encodeTime;
+    private final Timer matchTime;
+    private final Counter rejectedSaturated;
+    private final Counter rejectedTimeout;
+
+    public PasswordHashingService(PostQuantumPasswordEncoder encoder,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${app.security.hashing.threads:0}") int threads,
+                                  @Value("${app.security.hashing.queue-capacity:64}") int queueCapacity,
+                                  @Value("${app.security.hashing.timeout-ms:5000}") long timeoutMs) {
+        this.encoder = encoder;
+        this.timeoutMs = timeoutMs;
+
+        int poolSize = threads > 0 ? threads : defaultPoolSize(encoder.getMemoryCostKb());
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(
+                poolSize, poolSize,
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hash-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+
+        this.queueWait = Timer.builder("password.hashing.queue.wait")
+                .description("Time a password hash waits for a hashing thread")
+                .register(meterRegistry);
+        this.encodeTime = hashTimer(meterRegistry, "encode");
+        this.matchTime = hashTimer(meterRegistry, "matches");
+        this.rejectedSaturated = rejectedCounter(meterRegistry, "saturated");
+        this.rejectedTimeout = rejectedCounter(meterRegistry, "timeout");
+        Gauge.builder("password.hashing.queue.depth", executor, pool -> pool.getQueue().size())
+                .description("Password hashes waiting for a hashing thread")
+                .register(meterRegistry);
+        Gauge.builder("password.hashing.active", executor, ThreadPoolExecutor::getActiveCount)
+                .description("Password hashes currently running")
+                .register(meterRegistry);
+
+        log.info("Password hashing pool initialized: threads={}, queueCapacity={}, timeout={}ms (max {} MB in use)",
+                poolSize, queueCapacity, timeoutMs, (long) poolSize * encoder.getMemoryCostKb() / 1024);
+    }
+
+    public String encode(String rawPassword) {
+        return execute(encodeTime, () -> encoder.encode(rawPassword));
+    }
+
+    public boolean matches(String rawPassword, String encodedPassword) {
+        return execute(matchTime, () -> encoder.matches(rawPassword, encodedPassword));
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdown();
+    }
+
+    private <T> T execute(Timer hashTimer, Callable<T> task) {
+        long enqueuedAt = System.nanoTime();
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                long startedAt = System.nanoTime();
+                queueWait.record(startedAt - enqueuedAt, TimeUnit.NANOSECONDS);
+                try {
+                    return task.call();
+                } finally {
+                    hashTimer.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejectedSaturated.increment();
+            throw new ServiceUnavailableException(SATURATED_MESSAGE);
+        }
+
+        try {
+            return future.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            // Si aún está en cola ya no se ejecutará; si está en marcha terminará y se descarta
+            future.cancel(true);
+            rejectedTimeout.increment();
+            throw new ServiceUnavailableException(SATURATED_MESSAGE);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            throw new ServiceUnavailableException(SATURATED_MESSAGE);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Password hashing failed", e.getCause());
+        }
+    }
+
+    /**
+     * Tantos hilos como núcleos, sin que los hashes en curso pasen de una cuarta parte del heap
+     */
+    private static int defaultPoolSize(int memoryCostKb) {
+        long hashBytes = (long) memoryCostKb * 1024;
+        long byHeap = Runtime.getRuntime().maxMemory() / 4 / hashBytes;
+        int byCpu = Runtime.getRuntime().availableProcessors();
+        return (int) Math.max(1, Math.min(byCpu, byHeap));
+    }
+
+    private static Timer hashTimer(MeterRegistry registry, String operation) {
+        return Timer.builder("password.hashing.duration")
+                .description("Argon2 hashing time, excluding queue wait")
+                .tag("operation", operation)
+                .register(registry);
+    }
+
+    private static Counter rejectedCounter(MeterRegistry registry, String reason) {
+        return Counter.builder("password.hashing.rejected")
+                .description("Password hashes rejected by admission control")
+                .tag("reason", reason)
+                .register(registry);
+    }
+}
@@ -8,25 +8,80 @@ import java.util.Base64;
 import org.bouncycastle.crypto.digests.SHAKEDigest;
 import org.bouncycastle.crypto.generators.Argon2BytesGenerator;
 import org.bouncycastle.crypto.params.Argon2Parameters;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import lombok.extern.slf4j.Slf4j;
+
 /**
  * Implementación de password encoder con consideraciones post-cuánticas
  * Usa Argon2id + SHAKE-256 para máxima resistencia cuántica
+ *
+ * Formato del hash: "$pq1$m={KB},t={iteraciones},p={carriles}${salt}${hash}" (Base64 sin padding).
+ * Los hashes antiguos (Base64 de salt + hash, sin prefijo) usan siempre m=65536, t=3, p=1.
  */
+@Slf4j
 @Component
 public class PostQuantumPasswordEncoder {
     
     private static final int SALT_LENGTH = 32; // 256 bits
     private static final int HASH_LENGTH = 64; // 512 bits para resistencia cuántica
-    private static final int MEMORY_COST = 65536; // 64 MB
-    private static final int TIME_COST = 3; // 3 iteraciones
-    private static final int PARALLELISM = 1; // 1 thread (puedes aumentar)
+    private static final String FORMAT_PREFIX = "$pq1$";
+    private static final HashParameters LEGACY_PARAMETERS = new HashParameters(65536, 3, 1); // 64 MB, 3 iteraciones, 1 carril
+    private static final int CALIBRATION_RUNS = 2;
     
     private final SecureRandom secureRandom;
+    private final HashParameters currentParameters;
+    private final HashParameters minimumParameters;
+
+    /**
+     * Coste de Argon2 guardado dentro de cada hash
+     */
+    public record HashParameters(int memoryKb, int iterations, int parallelism) {
+
+        String encode() {
+            return "m=" + memoryKb + ",t=" + iterations + ",p=" + parallelism;
+        }
+
+        static HashParameters decode(String value) {
+            int memoryKb = 0, iterations = 0, parallelism = 0;
+            for (String part : value.split(",")) {
+                String[] pair = part.split("=", 2);
+                int number = Integer.parseInt(pair[1]);
+                switch (pair[0]) {
+                    case "m" -> memoryKb = number;
+                    case "t" -> iterations = number;
+                    case "p" -> parallelism = number;
+                    default -> throw new IllegalArgumentException("Unknown Argon2 parameter: " + pair[0]);
+                }
+            }
+            if (memoryKb <= 0 || iterations <= 0 || parallelism <= 0) {
+                throw new IllegalArgumentException("Incomplete Argon2 parameters: " + value);
+            }
+            return new HashParameters(memoryKb, iterations, parallelism);
+        }
+    }
     
-    public PostQuantumPasswordEncoder() {
+    public PostQuantumPasswordEncoder(
+            @Value("${app.security.hashing.memory-kb:65536}") int memoryKb,
+            @Value("${app.security.hashing.min-iterations:3}") int minIterations,
+            @Value("${app.security.hashing.max-iterations:10}") int maxIterations,
+            @Value("${app.security.hashing.parallelism:0}") int parallelism,
+            @Value("${app.security.hashing.calibration.enabled:false}") boolean calibrate,
+            @Value("${app.security.hashing.calibration.target-ms:250}") long targetMs) {
         this.secureRandom = new SecureRandom();
+
+        // 0 = un carril por núcleo, hasta 4
+        int lanes = parallelism > 0 ? parallelism : Math.min(4, Runtime.getRuntime().availableProcessors());
+        HashParameters floor = new HashParameters(memoryKb, minIterations, lanes);
+        this.minimumParameters = floor;
+        // Opcional: el resultado depende de cada máquina, así que cada nodo puede elegir otro t
+        this.currentParameters = calibrate
+                ? calibrate(floor, Math.max(minIterations, maxIterations), targetMs)
+                : floor;
+
+        log.info("Password encoder parameters: {} (calibrated: {}, target: {}ms)",
+                currentParameters.encode(), calibrate, targetMs);
     }
 
     /**
@@ -74,87 +129,143 @@ public class PostQuantumPasswordEncoder {
     }
     
     /**
-     * Hashea una contraseña usando Argon2id + SHAKE-256
+     * Hashea una contraseña usando Argon2id + SHAKE-256 con los parámetros actuales
      * @param rawPassword contraseña en texto plano
-     * @return hash en formato base64 con salt incluido
+     * @return hash versionado con parámetros y salt incluidos
      */
     public String encode(String rawPassword) {
         // Generar salt criptográficamente seguro
         byte[] salt = new byte[SALT_LENGTH];
         secureRandom.nextBytes(salt);
         
-        // Configurar Argon2id (resistente a ataques GPU y timing)
-        Argon2Parameters params = new Argon2Parameters.Builder(Argon2Parameters.ARGON2_id)
-                .withVersion(Argon2Parameters.ARGON2_VERSION_13)
-                .withMemoryAsKB(MEMORY_COST)
-                .withIterations(TIME_COST)
-                .withParallelism(PARALLELISM)
-                .withSalt(salt)
-                .build();
-        
-        // Generar hash con Argon2
-        Argon2BytesGenerator generator = new Argon2BytesGenerator();
-        generator.init(params);
-        
-        byte[] argon2Hash = new byte[HASH_LENGTH / 2]; // 32 bytes
-        byte[] passwordBytes = rawPassword.getBytes(StandardCharsets.UTF_8);
-        generator.generateBytes(passwordBytes, argon2Hash);
+        byte[] finalHash = hash(rawPassword.getBytes(StandardCharsets.UTF_8), salt, currentParameters);
         
-        // Aplicar SHAKE-256 para resistencia cuántica adicional
-        byte[] finalHash = applySHAKE256(argon2Hash, passwordBytes);
-        
-        // Combinar salt + hash para almacenamiento
-        byte[] combined = new byte[salt.length + finalHash.length];
-        System.arraycopy(salt, 0, combined, 0, salt.length);
-        System.arraycopy(finalHash, 0, combined, salt.length, finalHash.length);
-        
-        return Base64.getEncoder().encodeToString(combined);
+        Base64.Encoder encoder = Base64.getEncoder().withoutPadding();
+        return FORMAT_PREFIX + currentParameters.encode()
+                + "$" + encoder.encodeToString(salt)
+                + "$" + encoder.encodeToString(finalHash);
     }
     
     /**
-     * Verifica si una contraseña coincide con el hash almacenado
+     * Verifica si una contraseña coincide con el hash almacenado (formato versionado o antiguo)
      * @param rawPassword contraseña en texto plano
-     * @param encodedPassword hash almacenado (base64)
+     * @param encodedPassword hash almacenado
      * @return true si coinciden
      */
     public boolean matches(String rawPassword, String encodedPassword) {
         try {
-            // Decodificar el hash almacenado
-            byte[] combined = Base64.getDecoder().decode(encodedPassword);
-            
-            // Extraer salt y hash
-            byte[] salt = new byte[SALT_LENGTH];
-            byte[] storedHash = new byte[combined.length - SALT_LENGTH];
-            
-            System.arraycopy(combined, 0, salt, 0, SALT_LENGTH);
-            System.arraycopy(combined, SALT_LENGTH, storedHash, 0, storedHash.length);
-            
-            // Recalcular hash con el mismo salt
-            Argon2Parameters params = new Argon2Parameters.Builder(Argon2Parameters.ARGON2_id)
-                    .withVersion(Argon2Parameters.ARGON2_VERSION_13)
-                    .withMemoryAsKB(MEMORY_COST)
-                    .withIterations(TIME_COST)
-                    .withParallelism(PARALLELISM)
-                    .withSalt(salt)
-                    .build();
-            
-            Argon2BytesGenerator generator = new Argon2BytesGenerator();
-            generator.init(params);
+            StoredHash stored = StoredHash.parse(encodedPassword);
             
-            byte[] argon2Hash = new byte[HASH_LENGTH / 2];
-            byte[] passwordBytes = rawPassword.getBytes(StandardCharsets.UTF_8);
-            generator.generateBytes(passwordBytes, argon2Hash);
-            
-            // Aplicar SHAKE-256
-            byte[] calculatedHash = applySHAKE256(argon2Hash, passwordBytes);
+            // Recalcular hash con el mismo salt y los parámetros con los que se creó
+            byte[] calculatedHash = hash(rawPassword.getBytes(StandardCharsets.UTF_8), stored.salt(), stored.parameters());
             
             // Comparación time-constant para evitar timing attacks
-            return constantTimeEquals(storedHash, calculatedHash);
+            return constantTimeEquals(stored.hash(), calculatedHash);
             
         } catch (Exception e) {
             return false;
         }
     }
+
+    /**
+     * true si el hash está en el formato antiguo (sin parámetros guardados) o es más débil que el mínimo
+     * configurado (memoria o iteraciones) y conviene regenerarlo.
+     * Se compara con el mínimo y no con los parámetros actuales: con calibración o distinto número de
+     * núcleos cada nodo usa otros parámetros, y un hash igual de fuerte o más no debe regenerarse
+     * en cada login según el nodo que lo atienda.
+     */
+    public boolean needsRehash(String encodedPassword) {
+        try {
+            StoredHash parsed = StoredHash.parse(encodedPassword);
+            if (!encodedPassword.startsWith(FORMAT_PREFIX)) {
+                // Formato antiguo: pasa al versionado con los parámetros de este nodo
+                return true;
+            }
+            HashParameters stored = parsed.parameters();
+            return stored.memoryKb() < minimumParameters.memoryKb()
+                    || stored.iterations() < minimumParameters.iterations();
+        } catch (Exception e) {
+            return false; // Ilegible: no se puede verificar, así que tampoco regenerar
+        }
+    }
+
+    public HashParameters getCurrentParameters() {
+        return currentParameters;
+    }
+
+    /**
+     * Salt, hash y parámetros extraídos de un hash guardado
+     */
+    private record StoredHash(HashParameters parameters, byte[] salt, byte[] hash) {
+
+        static StoredHash parse(String encodedPassword) {
+            if (encodedPassword.startsWith(FORMAT_PREFIX)) {
+                String[] parts = encodedPassword.substring(FORMAT_PREFIX.length()).split("\\$");
+                if (parts.length != 3) {
+                    throw new IllegalArgumentException("Malformed password hash");
+                }
+                Base64.Decoder decoder = Base64.getDecoder();
+                return new StoredHash(HashParameters.decode(parts[0]), decoder.decode(parts[1]), decoder.decode(parts[2]));
+            }
+
+            // Formato antiguo: Base64(salt + hash) con los parámetros fijos de entonces
+            byte[] combined = Base64.getDecoder().decode(encodedPassword);
+            byte[] salt = new byte[SALT_LENGTH];
+            byte[] hash = new byte[combined.length - SALT_LENGTH];
+            System.arraycopy(combined, 0, salt, 0, SALT_LENGTH);
+            System.arraycopy(combined, SALT_LENGTH, hash, 0, hash.length);
+            return new StoredHash(LEGACY_PARAMETERS, salt, hash);
+        }
+    }
+
+    /**
+     * Argon2id (resistente a ataques GPU y timing) seguido de SHAKE-256
+     */
+    private byte[] hash(byte[] passwordBytes, byte[] salt, HashParameters parameters) {
+        Argon2Parameters params = new Argon2Parameters.Builder(Argon2Parameters.ARGON2_id)
+                .withVersion(Argon2Parameters.ARGON2_VERSION_13)
+                .withMemoryAsKB(parameters.memoryKb())
+                .withIterations(parameters.iterations())
+                .withParallelism(parameters.parallelism())
+                .withSalt(salt)
+                .build();
+        
+        Argon2BytesGenerator generator = new Argon2BytesGenerator();
+        generator.init(params);
+        
+        byte[] argon2Hash = new byte[HASH_LENGTH / 2]; // 32 bytes
+        generator.generateBytes(passwordBytes, argon2Hash);
+        
+        // Aplicar SHAKE-256 para resistencia cuántica adicional
+        return applySHAKE256(argon2Hash, passwordBytes);
+    }
+
+    /**
+     * Elige el mayor número de iteraciones que cabe en el tiempo objetivo en esta máquina.
+     * Nunca baja de la memoria ni de las iteraciones mínimas configuradas: en máquinas lentas
+     * se queda en el mínimo aunque tarde más que el objetivo.
+     */
+    private HashParameters calibrate(HashParameters floor, int maxIterations, long targetMs) {
+        byte[] password = "calibration-password".getBytes(StandardCharsets.UTF_8);
+        byte[] salt = new byte[SALT_LENGTH];
+        secureRandom.nextBytes(salt);
+
+        hash(password, salt, floor); // Calentamiento (JIT)
+        long start = System.nanoTime();
+        for (int i = 0; i < CALIBRATION_RUNS; i++) {
+            hash(password, salt, floor);
+        }
+        double floorMs = (System.nanoTime() - start) / 1_000_000.0 / CALIBRATION_RUNS;
+
+        // El coste de Argon2 crece de forma lineal con las iteraciones
+        double perIterationMs = floorMs / floor.iterations();
+        int iterations = (int) Math.floor(targetMs / perIterationMs);
+        iterations = Math.max(floor.iterations(), Math.min(maxIterations, iterations));
+
+        log.info("Argon2 calibration: {} took {}ms, choosing t={} for a {}ms target",
+                floor.encode(), Math.round(floorMs), iterations, targetMs);
+        return new HashParameters(floor.memoryKb(), iterations, floor.parallelism());
+    }
     
     /**
      * Aplica SHAKE-256 para resistencia cuántica adicional
@@ -189,13 +300,20 @@ public class PostQuantumPasswordEncoder {
         return result == 0;
     }
     
+    /**
+     * Memoria que reserva cada hash (KB), para dimensionar el pool de hashing
+     */
+    public int getMemoryCostKb() {
+        return currentParameters.memoryKb();
+    }
+
     /**
      * Información sobre la configuración actual
      */
     public String getAlgorithmInfo() {
         return String.format(
             "Post-Quantum Password Encoder: Argon2id(m=%d,t=%d,p=%d) + SHAKE-256(%d bits)",
-            MEMORY_COST, TIME_COST, PARALLELISM, HASH_LENGTH * 8
+            currentParameters.memoryKb(), currentParameters.iterations(), currentParameters.parallelism(), HASH_LENGTH * 8
         );
     }
 }
\ No newline at end of file
@@ -0,0 +1,176 @@
+package com.jesusLuna.polyglotCloud.security;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.jesusLuna.polyglotCloud.models.CustomUserPrincipal;
+import com.jesusLuna.polyglotCloud.models.User;
+import com.jesusLuna.polyglotCloud.models.enums.Role;
+import com.jesusLuna.polyglotCloud.repository.UserRepository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Caché corta de principals para el filtro JWT (modo stateless).
+ * Solo el id sale del token ya verificado; el estado de la cuenta (username, rol, email, activo,
+ * bloqueo), que puede cambiar mientras el token siga vigente, se guarda aquí y solo se lee de la BD
+ * en un fallo.
+ * Las modificaciones del usuario invalidan la entrada tras el commit y avisan al resto de nodos por pub/sub.
+ */
+@Slf4j
+@Component
+public class PrincipalCache implements MessageListener {
+
+    private final UserRepository userRepository;
+    private final StringRedisTemplate redisTemplate;
+    private final boolean enabled;
+    private final String channel;
+    private final String instanceId = UUID.randomUUID().toString();
+    private final Cache<UUID, AccountState> states;
+
+    /**
+     * Estado mutable de la cuenta necesario para autorizar una petición
+     */
+    public record AccountState(String username, String email, Role role, boolean active, boolean emailVerified,
+                               Instant lockedUntil) {
+
+        static AccountState of(User user) {
+            return new AccountState(user.getUsername(), user.getEmail(), user.getRole(), user.isActive(),
+                    user.isEmailVerified(), user.getLockedUntil());
+        }
+
+        boolean canAuthenticate() {
+            return active && (lockedUntil == null || lockedUntil.isBefore(Instant.now()));
+        }
+    }
+
+    public PrincipalCache(UserRepository userRepository,
+                          StringRedisTemplate redisTemplate,
+                          MeterRegistry meterRegistry,
+                          @Value("${app.jwt.stateless-auth.enabled:true}") boolean enabled,
+                          @Value("${app.jwt.stateless-auth.ttl-seconds:30}") long ttlSeconds,
+                          @Value("${app.jwt.stateless-auth.max-size:100000}") long maxSize,
+                          @Value("${app.jwt.stateless-auth.channel:auth:principal:evict}") String channel) {
+        this.userRepository = userRepository;
+        this.redisTemplate = redisTemplate;
+        this.enabled = enabled;
+        this.channel = channel;
+        this.states = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, states, "auth-principals");
+        log.info("Principal cache initialized: statelessAuth={}, ttl={}s, maxSize={}", enabled, ttlSeconds, maxSize);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public String getChannel() {
+        return channel;
+    }
+
+    /**
+     * Construye el principal a partir del id verificado y del estado cacheado.
+     * El claim username solo distingue tokens de acceso; el username del principal es el de la BD,
+     * ya que puede haber cambiado desde que se emitió el token.
+     * Vacío si el usuario no existe, está borrado, desactivado o bloqueado, o si el token no es de acceso.
+     */
+    public Optional<CustomUserPrincipal> resolve(UUID userId, String tokenUsername) {
+        if (tokenUsername == null) {
+            return Optional.empty(); // Los refresh tokens no llevan username
+        }
+
+        AccountState state = states.get(userId, this::load);
+        if (state == null || !state.canAuthenticate()) {
+            return Optional.empty();
+        }
+
+        User user = User.builder()
+                .id(userId)
+                .username(state.username())
+                .email(state.email())
+                .role(state.role())
+                .active(state.active())
+                .emailVerified(state.emailVerified())
+                .lockedUntil(state.lockedUntil())
+                .build();
+        return Optional.of(new CustomUserPrincipal(user));
+    }
+
+    /**
+     * Guarda el estado recién leído (p. ej. tras el login) para que la primera petición no vaya a la BD
+     */
+    public void prime(User user) {
+        AccountState state = AccountState.of(user);
+        UUID userId = user.getId();
+        afterCommit(() -> states.put(userId, state));
+    }
+
+    /**
+     * Invalida el principal del usuario en todo el clúster cuando la transacción actual confirme
+     */
+    public void evict(UUID userId) {
+        afterCommit(() -> {
+            states.invalidate(userId);
+            try {
+                redisTemplate.convertAndSend(channel, instanceId + "|" + userId);
+            } catch (Exception e) {
+                // Los demás nodos caducarán la entrada por TTL
+                log.error("Error publishing principal eviction for user {}", userId, e);
+            }
+        });
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        String[] parts = body.split("\\|", 2);
+        if (parts.length < 2 || instanceId.equals(parts[0])) {
+            return; // Mensaje mal formado o enviado por este mismo nodo
+        }
+        try {
+            states.invalidate(UUID.fromString(parts[1]));
+        } catch (IllegalArgumentException e) {
+            log.warn("Unknown principal eviction message: {}", body);
+        }
+    }
+
+    private AccountState load(UUID userId) {
+        log.debug("Principal cache miss for user: {}", userId);
+        return userRepository.findByIdAndDeletedAtIsNull(userId)
+                .map(AccountState::of)
+                .orElse(null);
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
@@ -64,8 +64,9 @@ public class SecurityConfig {
                 "/auth/**"  // ✅ Cambio: permite TODOS los endpoints de /auth/*
             ).permitAll()
             
-            // 📊 ACTUATOR - Acceso público (solo para desarrollo)
-            .requestMatchers("/actuator/**").permitAll()
+            // 📊 ACTUATOR - Solo health es público; métricas e info requieren ADMIN
+            .requestMatchers("/actuator/health", "/actuator/health/**").permitAll()
+            .requestMatchers("/actuator/**").hasRole("ADMIN")
             
             // 🔒 TODO LO DEMÁS REQUIERE AUTENTICACIÓN
             .anyRequest().authenticated()
@@ -1,25 +1,15 @@
 package com.jesusLuna.polyglotCloud.config;
 
-import java.util.concurrent.Executor;
-
-import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.annotation.EnableAsync;
-import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
+/**
+ * Habilita @Async con el executor que crea Spring Boot (applicationTaskExecutor, configurable con
+ * spring.task.execution.* y con hilos virtuales si spring.threads.virtual.enabled).
+ * No se declara ningún Executor propio: cualquier bean Executor hace que Boot deje de crear el suyo.
+ * Las traducciones automáticas no usan @Async, las procesa TranslationJobWorker desde la cola.
+ */
 @Configuration
 @EnableAsync
 public class AsyncConfig {
-    @Bean(name = "translationExecutor")
-    public Executor translationExecutor() {
-        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
-        executor.setCorePoolSize(2);
-        executor.setMaxPoolSize(5);
-        executor.setQueueCapacity(100);
-        executor.setThreadNamePrefix("translation-");
-        executor.setWaitForTasksToCompleteOnShutdown(true);
-        executor.setAwaitTerminationSeconds(60);
-        executor.initialize();
-        return executor;
-    }
-}
\ No newline at end of file
+}
@@ -0,0 +1,57 @@
+package com.jesusLuna.polyglotCloud.config;
+
+import java.util.List;
+
+import org.springframework.beans.factory.DisposableBean;
+
+import io.github.bucket4j.distributed.proxy.ProxyManager;
+import io.lettuce.core.RedisClient;
+import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.core.resource.ClientResources;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Un ProxyManager de Bucket4j por conexión Lettuce. Cada clave de bucket va siempre a la misma
+ * conexión, de modo que el tráfico CAS se reparte sin perder el orden por bucket.
+ * Es dueño del cliente y sus recursos: se cierran con el contexto de Spring.
+ */
+@Slf4j
+public class BucketProxyManagers implements DisposableBean {
+
+    private final RedisClient redisClient;
+    private final ClientResources clientResources;
+    private final List<StatefulRedisConnection<String, byte[]>> connections;
+    private final List<ProxyManager<String>> proxyManagers;
+
+    public BucketProxyManagers(RedisClient redisClient,
+                               ClientResources clientResources,
+                               List<StatefulRedisConnection<String, byte[]>> connections,
+                               List<ProxyManager<String>> proxyManagers) {
+        this.redisClient = redisClient;
+        this.clientResources = clientResources;
+        this.connections = List.copyOf(connections);
+        this.proxyManagers = List.copyOf(proxyManagers);
+    }
+
+    public ProxyManager<String> forKey(String bucketKey) {
+        return proxyManagers.get(Math.floorMod(bucketKey.hashCode(), proxyManagers.size()));
+    }
+
+    public int size() {
+        return proxyManagers.size();
+    }
+
+    @Override
+    public void destroy() {
+        for (StatefulRedisConnection<String, byte[]> connection : connections) {
+            try {
+                connection.close();
+            } catch (Exception e) {
+                log.warn("Error closing rate limit Redis connection", e);
+            }
+        }
+        redisClient.shutdown();
+        clientResources.shutdown();
+        log.info("Closed {} rate limit Redis connections", connections.size());
+    }
+}
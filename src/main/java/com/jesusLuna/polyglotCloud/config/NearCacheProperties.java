@@ -0,0 +1,39 @@
+package com.jesusLuna.polyglotCloud.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import lombok.Data;
+
+/**
+ * Configuration properties for the in-process (L1) cache that sits in front of Redis
+ */
+@Configuration
+@ConfigurationProperties(prefix = "app.cache.near")
+@Data
+public class NearCacheProperties {
+
+    /**
+     * Enables the in-process tier. When disabled every lookup goes straight to Redis
+     * Default: true
+     */
+    private boolean enabled = true;
+
+    /**
+     * Maximum size of the L1 tier in megabytes (weighted by serialized entry size)
+     * Default: 64 MB
+     */
+    private int maxSizeMb = 64;
+
+    /**
+     * Time-to-live of L1 entries in seconds. Bounds staleness if an invalidation message is lost
+     * Default: 60 seconds
+     */
+    private int ttlSeconds = 60;
+
+    /**
+     * Redis pub/sub channel used to propagate evictions to every instance
+     * Default: cache:invalidation
+     */
+    private String invalidationChannel = "cache:invalidation";
+}
@@ -1,5 +1,7 @@
 package com.jesusLuna.polyglotCloud.config;
 
+import java.time.Duration;
+
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
 
@@ -31,6 +33,42 @@ public class RateLimitConfig {
     @Value("${app.rate-limit.anonymous.requests-per-minute:2}")
     private int anonymousRequestsPerMinute;
 
+    // ⚡ MODO HÍBRIDO: bucket local por nodo que se sincroniza con Redis cada N tokens o M ms.
+    // Exceso máximo sobre el límite global = max-unsynchronized-tokens por nodo. 0 = siempre Redis.
+    @Value("${app.rate-limit.global.local-sync.max-unsynchronized-tokens:20}")
+    private long globalMaxUnsynchronizedTokens;
+
+    @Value("${app.rate-limit.global.local-sync.max-delay-ms:500}")
+    private long globalMaxSyncDelayMs;
+
+    @Value("${app.rate-limit.translation.local-sync.max-unsynchronized-tokens:0}")
+    private long translationMaxUnsynchronizedTokens;
+
+    @Value("${app.rate-limit.translation.local-sync.max-delay-ms:500}")
+    private long translationMaxSyncDelayMs;
+
+    @Value("${app.rate-limit.auth.local-sync.max-unsynchronized-tokens:0}")
+    private long authMaxUnsynchronizedTokens;
+
+    @Value("${app.rate-limit.auth.local-sync.max-delay-ms:500}")
+    private long authMaxSyncDelayMs;
+
+    @Value("${app.rate-limit.anonymous.local-sync.max-unsynchronized-tokens:2}")
+    private long anonymousMaxUnsynchronizedTokens;
+
+    @Value("${app.rate-limit.anonymous.local-sync.max-delay-ms:500}")
+    private long anonymousMaxSyncDelayMs;
+
+    /**
+     * Parámetros de sincronización del bucket local de una clase de endpoint
+     */
+    public record LocalSync(long maxUnsynchronizedTokens, Duration maxDelay) {
+
+        public boolean isEnabled() {
+            return maxUnsynchronizedTokens > 0;
+        }
+    }
+
     // Getters
     public int getGlobalRequestsPerMinute() {
         return globalRequestsPerMinute;
@@ -55,4 +93,20 @@ public class RateLimitConfig {
     public int getAnonymousRequestsPerMinute() {
         return anonymousRequestsPerMinute;
     }
-}
\ No newline at end of file
+
+    public LocalSync getGlobalLocalSync() {
+        return new LocalSync(globalMaxUnsynchronizedTokens, Duration.ofMillis(globalMaxSyncDelayMs));
+    }
+
+    public LocalSync getTranslationLocalSync() {
+        return new LocalSync(translationMaxUnsynchronizedTokens, Duration.ofMillis(translationMaxSyncDelayMs));
+    }
+
+    public LocalSync getAuthLocalSync() {
+        return new LocalSync(authMaxUnsynchronizedTokens, Duration.ofMillis(authMaxSyncDelayMs));
+    }
+
+    public LocalSync getAnonymousLocalSync() {
+        return new LocalSync(anonymousMaxUnsynchronizedTokens, Duration.ofMillis(anonymousMaxSyncDelayMs));
+    }
+}
@@ -0,0 +1,45 @@
+package com.jesusLuna.polyglotCloud.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import lombok.Data;
+
+/**
+ * Conexiones Lettuce dedicadas al rate limiting (Bucket4j)
+ */
+@Configuration
+@ConfigurationProperties(prefix = "app.rate-limit.redis")
+@Data
+public class RateLimitRedisProperties {
+
+    /**
+     * Conexiones multiplexadas; cada bucket se asigna siempre a la misma por hash de su clave
+     * Default: 4
+     */
+    private int connections = 4;
+
+    /**
+     * Timeout por comando. Si Redis no responde a tiempo la petición falla en lugar de colgar el hilo de Tomcat
+     * Default: 500 ms
+     */
+    private long commandTimeoutMs = 500;
+
+    /**
+     * Timeout de conexión
+     * Default: 2000 ms
+     */
+    private long connectTimeoutMs = 2000;
+
+    /**
+     * Hilos de I/O de Netty para este cliente (0 = número de CPUs)
+     * Default: 0
+     */
+    private int ioThreads = 0;
+
+    /**
+     * Publicar histogramas de latencia por comando (lettuce.command.completion / firstresponse)
+     * Default: true
+     */
+    private boolean latencyHistogram = true;
+}
@@ -1,27 +1,48 @@
 package com.jesusLuna.polyglotCloud.config;
 
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.cache.BatchStrategies;
 import org.springframework.data.redis.cache.RedisCacheConfiguration;
 import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.cache.RedisCacheWriter;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
+import com.jesusLuna.polyglotCloud.security.PrincipalCache;
+import com.jesusLuna.polyglotCloud.service.BlocklistFilterService;
+import com.jesusLuna.polyglotCloud.service.NearCacheService;
+import com.jesusLuna.polyglotCloud.service.TranslationDeduplicationService;
+
 import io.github.bucket4j.distributed.proxy.ProxyManager;
 import io.github.bucket4j.redis.lettuce.cas.LettuceBasedProxyManager;
+import io.lettuce.core.ClientOptions;
 import io.lettuce.core.RedisClient;
+import io.lettuce.core.RedisURI;
+import io.lettuce.core.SocketOptions;
+import io.lettuce.core.TimeoutOptions;
 import io.lettuce.core.api.StatefulRedisConnection;
 import io.lettuce.core.codec.ByteArrayCodec;
 import io.lettuce.core.codec.RedisCodec;
 import io.lettuce.core.codec.StringCodec;
+import io.lettuce.core.metrics.MicrometerCommandLatencyRecorder;
+import io.lettuce.core.metrics.MicrometerOptions;
+import io.lettuce.core.resource.ClientResources;
+import io.lettuce.core.resource.DefaultClientResources;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
 
 @Slf4j
@@ -29,6 +50,9 @@ import lombok.extern.slf4j.Slf4j;
 @EnableCaching
 public class RedisConfig {
 
+    /** Claves por SCAN al vaciar una caché (Cache.clear / @CacheEvict allEntries) */
+    private static final int CACHE_CLEAR_SCAN_BATCH = 1000;
+
     @Value("${spring.data.redis.host:localhost}")
     private String redisHost;
 
@@ -38,8 +62,21 @@ public class RedisConfig {
     @Value("${spring.data.redis.password:}")
     private String redisPassword;
 
+    @Value("${app.translation.dedup.index-ttl-hours:24}")
+    private long dedupIndexTtlHours;
+
+    /**
+     * Serializador JSON de valores compartido por RedisTemplate, la caché de Spring y L1 (NearCacheService):
+     * lo que se puede guardar en Redis se puede guardar en L1, y se lee igual en los dos niveles
+     */
     @Bean
-    public RedisTemplate<String, Object> redisTemplate(RedisConnectionFactory connectionFactory) {
+    public RedisSerializer<Object> redisValueSerializer() {
+        return new GenericJackson2JsonRedisSerializer();
+    }
+
+    @Bean
+    public RedisTemplate<String, Object> redisTemplate(RedisConnectionFactory connectionFactory,
+                                                       RedisSerializer<Object> redisValueSerializer) {
         RedisTemplate<String, Object> template = new RedisTemplate<>();
         template.setConnectionFactory(connectionFactory);
         
@@ -48,69 +85,116 @@ public class RedisConfig {
         template.setHashKeySerializer(new StringRedisSerializer());
         
         // Usar JSON para los valores
-        GenericJackson2JsonRedisSerializer serializer = new GenericJackson2JsonRedisSerializer();
-        template.setValueSerializer(serializer);
-        template.setHashValueSerializer(serializer);
+        template.setValueSerializer(redisValueSerializer);
+        template.setHashValueSerializer(redisValueSerializer);
         
         template.afterPropertiesSet();
         return template;
     }
 
     @Bean
-    public CacheManager cacheManager(RedisConnectionFactory connectionFactory) {
+    public CacheManager cacheManager(RedisConnectionFactory connectionFactory, NearCacheService nearCacheService,
+                                     RedisSerializer<Object> redisValueSerializer) {
         RedisCacheConfiguration config = RedisCacheConfiguration.defaultCacheConfig()
                 .entryTtl(Duration.ofMinutes(10))  // TTL por defecto
                 .serializeKeysWith(
                     RedisSerializationContext.SerializationPair.fromSerializer(new StringRedisSerializer())
                 )
                 .serializeValuesWith(
-                    RedisSerializationContext.SerializationPair.fromSerializer(new GenericJackson2JsonRedisSerializer())
+                    RedisSerializationContext.SerializationPair.fromSerializer(redisValueSerializer)
                 )
                 .disableCachingNullValues();
+        // Índice de duplicados: entradas pequeñas, se invalidan explícitamente; TTL largo
+        RedisCacheConfiguration dedupConfig = config.entryTtl(Duration.ofHours(dedupIndexTtlHours));
+        // Vaciar una caché recorre sus claves con SCAN; la estrategia por defecto usa KEYS y bloquea Redis
+        RedisCacheWriter cacheWriter = RedisCacheWriter.nonLockingRedisCacheWriter(
+                connectionFactory, BatchStrategies.scan(CACHE_CLEAR_SCAN_BATCH));
 
-        return RedisCacheManager.builder(connectionFactory)
+        if (!nearCacheService.isEnabled()) {
+            return RedisCacheManager.builder(cacheWriter)
+                    .cacheDefaults(config)
+                    .withCacheConfiguration(TranslationDeduplicationService.DEDUP_CACHE, dedupConfig)
+                    .transactionAware()
+                    .build();
+        }
+
+        // L1 en memoria delante de Redis; TwoTierCacheManager se encarga de la parte transaccional
+        RedisCacheManager redisCacheManager = RedisCacheManager.builder(cacheWriter)
                 .cacheDefaults(config)
-                .transactionAware()
+                .withCacheConfiguration(TranslationDeduplicationService.DEDUP_CACHE, dedupConfig)
                 .build();
+        redisCacheManager.afterPropertiesSet();
+        return new TwoTierCacheManager(redisCacheManager, nearCacheService);
     }
 
+    /**
+     * Suscripciones pub/sub: invalidaciones de L1, bloqueos nuevos para el filtro de la blocklist
+     * e invalidaciones de la caché de principals
+     */
     @Bean
-    public ProxyManager<String> proxyManager() {
-            // Construir URL de Redis usando las propiedades
-            String redisUrl = buildRedisUrl();
-            log.info("Connecting to Redis for Bucket4j: {}", sanitizeUrlForLogging(redisUrl));
-            
-            RedisClient redisClient = RedisClient.create(redisUrl);
-            
-            // Usar codec específico: String para keys, byte[] para values
-            StatefulRedisConnection<String, byte[]> redisConnection = redisClient
-                    .connect(RedisCodec.of(StringCodec.UTF8, ByteArrayCodec.INSTANCE));
-
-            return LettuceBasedProxyManager.builderFor(redisConnection)
-                    .build();
-        }
+    public RedisMessageListenerContainer redisMessageListenerContainer(
+            RedisConnectionFactory connectionFactory,
+            NearCacheService nearCacheService,
+            NearCacheProperties nearCacheProperties,
+            BlocklistFilterService blocklistFilterService,
+            PrincipalCache principalCache) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(nearCacheService, new ChannelTopic(nearCacheProperties.getInvalidationChannel()));
+        container.addMessageListener(blocklistFilterService, new ChannelTopic(blocklistFilterService.getChannel()));
+        container.addMessageListener(principalCache, new ChannelTopic(principalCache.getChannel()));
+        return container;
+    }
 
     /**
-     * Construye la URL de conexión a Redis basada en las propiedades
+     * Cliente Lettuce propio para Bucket4j (el de Spring no admite el codec String/byte[]).
+     * Varias conexiones multiplexadas con timeouts, métricas de latencia y cierre ligado al contexto.
+     * Los ClientResources no se publican como bean para no sustituir los de Spring Data Redis.
      */
-    private String buildRedisUrl() {
-        StringBuilder urlBuilder = new StringBuilder("redis://");
-        
-        /// Solo agregar password si no está vacío o null
+    @Bean
+    public BucketProxyManagers bucketProxyManagers(RateLimitRedisProperties properties, MeterRegistry meterRegistry) {
+        DefaultClientResources.Builder resourcesBuilder = DefaultClientResources.builder()
+                .commandLatencyRecorder(new MicrometerCommandLatencyRecorder(meterRegistry,
+                        MicrometerOptions.builder().histogram(properties.isLatencyHistogram()).build()));
+        if (properties.getIoThreads() > 0) {
+            resourcesBuilder.ioThreadPoolSize(properties.getIoThreads());
+        }
+        ClientResources clientResources = resourcesBuilder.build();
+
+        RedisURI.Builder uriBuilder = RedisURI.builder()
+                .withHost(redisHost)
+                .withPort(redisPort)
+                .withTimeout(Duration.ofMillis(properties.getCommandTimeoutMs()));
+        // Solo agregar password si no está vacío o null
         if (redisPassword != null && !redisPassword.trim().isEmpty()) {
-            urlBuilder.append(":").append(redisPassword).append("@");
+            uriBuilder.withPassword(redisPassword.toCharArray());
         }
-        
-        // Agregar host y puerto
-        urlBuilder.append(redisHost).append(":").append(redisPort);
-        
-        return urlBuilder.toString();
-    }
 
-    /**
-     * Sanitiza la URL para logging (oculta password)
-     */
-    private String sanitizeUrlForLogging(String url) {
-        return url.replaceAll(":[^:@]*@", ":***@");
+        RedisClient redisClient = RedisClient.create(clientResources, uriBuilder.build());
+        redisClient.setOptions(ClientOptions.builder()
+                .autoReconnect(true)
+                .disconnectedBehavior(ClientOptions.DisconnectedBehavior.REJECT_COMMANDS)
+                .timeoutOptions(TimeoutOptions.enabled(Duration.ofMillis(properties.getCommandTimeoutMs())))
+                .socketOptions(SocketOptions.builder()
+                        .connectTimeout(Duration.ofMillis(properties.getConnectTimeoutMs()))
+                        .keepAlive(true)
+                        .build())
+                .build());
+
+        int connectionCount = Math.max(1, properties.getConnections());
+        log.info("Connecting to Redis for Bucket4j: {}:{} ({} connections, command timeout {}ms)",
+                redisHost, redisPort, connectionCount, properties.getCommandTimeoutMs());
+
+        List<StatefulRedisConnection<String, byte[]>> connections = new ArrayList<>();
+        List<ProxyManager<String>> proxyManagers = new ArrayList<>();
+        for (int i = 0; i < connectionCount; i++) {
+            // Usar codec específico: String para keys, byte[] para values
+            StatefulRedisConnection<String, byte[]> connection = redisClient
+                    .connect(RedisCodec.of(StringCodec.UTF8, ByteArrayCodec.INSTANCE));
+            connections.add(connection);
+            proxyManagers.add(LettuceBasedProxyManager.builderFor(connection).build());
+        }
+
+        return new BucketProxyManagers(redisClient, clientResources, connections, proxyManagers);
     }
-}
\ No newline at end of file
+}
@@ -36,4 +36,11 @@ public class SecurityProperties {
      * Default: 1 day
      */
     private int lockoutDurationDays = 1;
+
+    /**
+     * Hours without new failures after which the failed login counter expires in Redis
+     * (it never expires once the permanent lockout threshold is reached)
+     * Default: 24 hours
+     */
+    private int failedAttemptsWindowHours = 24;
 }
\ No newline at end of file
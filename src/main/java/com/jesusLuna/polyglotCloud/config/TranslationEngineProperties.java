@@ -0,0 +1,98 @@
+package com.jesusLuna.polyglotCloud.config;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import lombok.Data;
+
+/**
+ * Configuration properties for the machine-translation engines: which engine is active and the
+ * limits the gateway enforces on each one
+ */
+@Configuration
+@ConfigurationProperties(prefix = "app.translation.engine")
+@Data
+public class TranslationEngineProperties {
+
+    /**
+     * Name of the engine used by the queue workers (TranslationEngine.name())
+     * Default: mock
+     */
+    private String active = "mock";
+
+    /**
+     * Accept requests without a manual translation when the active engine is simulated (mock, fake),
+     * e.g. for load tests. Simulated output is never reused as a duplicate
+     * Default: false
+     */
+    private boolean allowSimulated = false;
+
+    /**
+     * Limits for engines without a specific entry
+     */
+    private Limits defaults = new Limits();
+
+    /**
+     * Limits per engine name (e.g. fake: {max-batch-size: 64}). An entry replaces the defaults entirely
+     */
+    private Map<String, Limits> limits = new HashMap<>();
+
+    public Limits limitsFor(String engineName) {
+        return limits.getOrDefault(engineName, defaults);
+    }
+
+    @Data
+    public static class Limits {
+
+        /**
+         * Concurrent calls to the engine from this instance
+         * Default: 4
+         */
+        private int maxConcurrency = 4;
+
+        /**
+         * Calls per second to the engine from this instance, 0 for no limit. A batch counts as one call
+         * Default: 0
+         */
+        private int requestsPerSecond = 0;
+
+        /**
+         * Maximum wait for a concurrency permit or a rate-limit token before the call is deferred
+         * Default: 5000 ms
+         */
+        private long maxWaitMs = 5000;
+
+        /**
+         * Timeout of a single engine call (a whole batch)
+         * Default: 60000 ms
+         */
+        private long timeoutMs = 60000;
+
+        /**
+         * Maximum snippets per call
+         * Default: 16
+         */
+        private int maxBatchSize = 16;
+
+        /**
+         * Maximum source characters per call; a snippet larger than this is sent alone
+         * Default: 100000
+         */
+        private int maxBatchChars = 100_000;
+
+        /**
+         * Consecutive failed calls that open the circuit
+         * Default: 5
+         */
+        private int failureThreshold = 5;
+
+        /**
+         * Time the circuit stays open before a single probe call is allowed
+         * Default: 30 seconds
+         */
+        private long openSeconds = 30;
+    }
+}
@@ -0,0 +1,71 @@
+package com.jesusLuna.polyglotCloud.config;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import lombok.Data;
+
+/**
+ * Configuration properties for the persistent machine-translation job queue
+ */
+@Configuration
+@ConfigurationProperties(prefix = "app.translation.queue")
+@Data
+public class TranslationQueueProperties {
+
+    /**
+     * Enables the queue workers on this instance (jobs are still enqueued when disabled)
+     * Default: true
+     */
+    private boolean enabled = true;
+
+    /**
+     * How often each worker polls for due jobs, in milliseconds
+     * Default: 500 ms
+     */
+    private long pollIntervalMs = 500;
+
+    /**
+     * Concurrent engine calls (batches) per target language on this instance when the language has no specific entry
+     * Default: 2
+     */
+    private int defaultConcurrency = 2;
+
+    /**
+     * Concurrent engine calls (batches) per target language, keyed by language code (e.g. python: 4)
+     */
+    private Map<String, Integer> concurrency = new HashMap<>();
+
+    /**
+     * Time a claimed job stays invisible to other workers. If the worker dies, the job is retried after it
+     * Default: 300 seconds
+     */
+    private long visibilityTimeoutSeconds = 300;
+
+    /**
+     * Attempts before a job is marked FAILED
+     * Default: 5
+     */
+    private int maxAttempts = 5;
+
+    /**
+     * First retry delay in seconds, doubled on every attempt
+     * Default: 10 seconds
+     */
+    private long initialBackoffSeconds = 10;
+
+    /**
+     * Upper bound for the retry delay in seconds
+     * Default: 600 seconds
+     */
+    private long maxBackoffSeconds = 600;
+
+    public int concurrencyFor(String languageCode) {
+        return languageCode != null
+                ? concurrency.getOrDefault(languageCode.toLowerCase(), defaultConcurrency)
+                : defaultConcurrency;
+    }
+}
@@ -0,0 +1,115 @@
+package com.jesusLuna.polyglotCloud.config;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+import com.jesusLuna.polyglotCloud.service.NearCacheService;
+
+/**
+ * Cache de Spring con dos niveles: L1 en memoria ({@link NearCacheService}) y L2 en Redis.
+ * Las claves de L1 usan el mismo formato que RedisCache ("nombre::clave") para que
+ * CacheService.delete("translation::" + id) invalide también este nivel.
+ */
+public class TwoTierCache implements Cache {
+
+    private final Cache redisCache;
+    private final NearCacheService nearCacheService;
+
+    public TwoTierCache(Cache redisCache, NearCacheService nearCacheService) {
+        this.redisCache = redisCache;
+        this.nearCacheService = nearCacheService;
+    }
+
+    @Override
+    public String getName() {
+        return redisCache.getName();
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return redisCache.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        String localKey = localKey(key);
+
+        Object local = nearCacheService.get(localKey);
+        if (local != null) {
+            return new SimpleValueWrapper(local);
+        }
+
+        long stamp = nearCacheService.invalidationStamp(localKey);
+        ValueWrapper remote = redisCache.get(key);
+        nearCacheService.recordRemoteLookup(remote != null);
+        if (remote != null) {
+            nearCacheService.putIfNotInvalidated(localKey, remote.get(), stamp);
+        }
+        return remote;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper wrapper = get(key);
+        Object value = wrapper != null ? wrapper.get() : null;
+        if (value != null && type != null && !type.isInstance(value)) {
+            throw new IllegalStateException(
+                "Cached value is not of required type [" + type.getName() + "]: " + value);
+        }
+        return (T) value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        ValueWrapper wrapper = get(key);
+        if (wrapper != null) {
+            return (T) wrapper.get();
+        }
+        String localKey = localKey(key);
+        long stamp = nearCacheService.invalidationStamp(localKey);
+        T value = redisCache.get(key, valueLoader);
+        nearCacheService.putIfNotInvalidated(localKey, value, stamp);
+        return value;
+    }
+
+    @Override
+    public CompletableFuture<?> retrieve(Object key) {
+        return redisCache.retrieve(key);
+    }
+
+    @Override
+    public <T> CompletableFuture<T> retrieve(Object key, Supplier<CompletableFuture<T>> valueLoader) {
+        return redisCache.retrieve(key, valueLoader);
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        String localKey = localKey(key);
+        redisCache.put(key, value);
+        // Los demás nodos descartan su copia; este nodo guarda la nueva
+        nearCacheService.invalidate(localKey);
+        nearCacheService.put(localKey, value);
+    }
+
+    @Override
+    public void evict(Object key) {
+        redisCache.evict(key);
+        nearCacheService.invalidate(localKey(key));
+    }
+
+    @Override
+    public void clear() {
+        redisCache.clear();
+        nearCacheService.invalidatePrefix(getName() + "::");
+    }
+
+    private String localKey(Object key) {
+        return getName() + "::" + key;
+    }
+}
@@ -0,0 +1,44 @@
+package com.jesusLuna.polyglotCloud.config;
+
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheDecorator;
+
+import com.jesusLuna.polyglotCloud.service.NearCacheService;
+
+/**
+ * CacheManager que envuelve cada cache de Redis en un {@link TwoTierCache}.
+ * Mantiene el comportamiento transaccional del RedisCacheManager original:
+ * put/evict se aplican a ambos niveles después del commit.
+ */
+public class TwoTierCacheManager implements CacheManager {
+
+    private final CacheManager redisCacheManager;
+    private final NearCacheService nearCacheService;
+    private final ConcurrentMap<String, Cache> caches = new ConcurrentHashMap<>();
+
+    public TwoTierCacheManager(CacheManager redisCacheManager, NearCacheService nearCacheService) {
+        this.redisCacheManager = redisCacheManager;
+        this.nearCacheService = nearCacheService;
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        return caches.computeIfAbsent(name, cacheName -> {
+            Cache redisCache = redisCacheManager.getCache(cacheName);
+            if (redisCache == null) {
+                return null;
+            }
+            return new TransactionAwareCacheDecorator(new TwoTierCache(redisCache, nearCacheService));
+        });
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return redisCacheManager.getCacheNames();
+    }
+}
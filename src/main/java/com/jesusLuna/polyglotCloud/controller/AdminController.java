@@ -1,11 +1,9 @@
 package com.jesusLuna.polyglotCloud.controller;
 
-import java.time.Instant;
 import java.util.UUID;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
 import org.springframework.data.web.PageableDefault;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -57,7 +55,7 @@ public class AdminController {
         @ApiResponse(responseCode = "403", description = "Access denied - Admin role required")
     })
     public ResponseEntity<Page<UserDTO.SecurityAlertResponse>> getSecurityAlerts(
-            @PageableDefault(size = 20, sort = "failedLoginAttempts", direction = Sort.Direction.DESC) Pageable pageable,
+            @PageableDefault(size = 20) Pageable pageable,
             @AuthenticationPrincipal UserDetails userDetails) {
 
         // Validate authentication
@@ -65,27 +63,8 @@ public class AdminController {
             throw new ForbiddenAccessException("Authentication required");
         }
 
-        // Get users with failed login attempts
-        Page<User> users = userService.getUsersWithFailedLoginAttempts(pageable);
-
-        // Map to SecurityAlertResponse DTO
-        Page<UserDTO.SecurityAlertResponse> response = users.map(user -> {
-            boolean isLocked = user.getLockedUntil() != null && 
-                                user.getLockedUntil().isAfter(Instant.now());
-            
-            return new UserDTO.SecurityAlertResponse(
-                user.getId(),
-                user.getUsername(),
-                user.getEmail(),
-                user.getFailedLoginAttempts(),
-                user.getLockedUntil(),
-                user.getLastLoginAt(),
-                user.getLastLoginIp(),
-                isLocked,
-                user.isActive(),
-                user.getCreatedAt()
-            );
-        });
+        // Get users with failed login attempts (live counters from Redis)
+        Page<UserDTO.SecurityAlertResponse> response = userService.getSecurityAlerts(pageable);
 
         log.info("Security alerts retrieved: {} users with failed login attempts", response.getTotalElements());
         return ResponseEntity.ok(response);
@@ -123,21 +102,7 @@ public class AdminController {
         User updated = userService.resetFailedLoginAttempts(id, admin.getId());
 
         // Map to SecurityAlertResponse
-        boolean isLocked = updated.getLockedUntil() != null && 
-                          updated.getLockedUntil().isAfter(Instant.now());
-        
-        UserDTO.SecurityAlertResponse response = new UserDTO.SecurityAlertResponse(
-            updated.getId(),
-            updated.getUsername(),
-            updated.getEmail(),
-            updated.getFailedLoginAttempts(),
-            updated.getLockedUntil(),
-            updated.getLastLoginAt(),
-            updated.getLastLoginIp(),
-            isLocked,
-            updated.isActive(),
-            updated.getCreatedAt()
-        );
+        UserDTO.SecurityAlertResponse response = userService.toSecurityAlert(updated, null);
 
         log.info("Failed login attempts reset for user {} by admin {}", id, admin.getId());
         return ResponseEntity.ok(response);
@@ -0,0 +1,50 @@
+package com.jesusLuna.polyglotCloud.controller;
+
+import java.util.Map;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.jesusLuna.polyglotCloud.service.CacheService;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/admin/cache")
+@Tag(name = "Cache Administration", description = "Administrative cache purge endpoints")
+@PreAuthorize("hasRole('ADMIN')")
+public class CacheAdminController {
+
+    private final CacheService cacheService;
+
+    @DeleteMapping
+    @Operation(
+        summary = "Purge cache keys by pattern",
+        description = "Deletes every Redis key matching the glob pattern using incremental SCAN. " +
+                     "The pattern must start with a cache prefix ('snippet:', 'translation::', 'users::', " +
+                     "'translation-dedup::'); other keys such as lockouts or rate limits cannot be purged. " +
+                     "O(N) over the keyspace: intended for ad-hoc maintenance, not for regular invalidation."
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Keys purged"),
+        @ApiResponse(responseCode = "400", description = "Pattern outside the cache prefixes"),
+        @ApiResponse(responseCode = "403", description = "Access denied - Admin role required")
+    })
+    public ResponseEntity<Map<String, Object>> purgeByPattern(@RequestParam String pattern) {
+        // CacheService rechaza patrones fuera de los prefijos de caché (BusinessRuleException -> 400)
+        long deleted = cacheService.deletePattern(pattern);
+        log.info("Cache purge by pattern {} removed {} keys", pattern, deleted);
+        return ResponseEntity.ok(Map.of("pattern", pattern, "deleted", deleted));
+    }
+}
@@ -1,5 +1,6 @@
 package com.jesusLuna.polyglotCloud.controller;
 
+import java.util.List;
 import java.util.UUID;
 
 import org.springframework.data.domain.Page;
@@ -12,6 +13,7 @@ import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.jesusLuna.polyglotCloud.dto.TranslationVoteDTO;
@@ -60,6 +62,40 @@ public class TranslationRankingController {
         return ResponseEntity.ok(topVersions);
     }
 
+    @GetMapping("/leaderboards/languages/{sourceLanguageId}/{targetLanguageId}")
+    @Operation(
+        summary = "Get top versions for a language pair",
+        description = "Retrieves the best-rated translation versions across all translations between two languages"
+    )
+    @ApiResponse(responseCode = "200", description = "Leaderboard retrieved successfully")
+    public ResponseEntity<List<TranslationVoteDTO.VersionWithVotes>> getTopVersionsByLanguagePair(
+            @PathVariable UUID sourceLanguageId,
+            @PathVariable UUID targetLanguageId,
+            @RequestParam(defaultValue = "10") int limit,
+            @Parameter(hidden = true) @AuthenticationPrincipal UserDetails userDetails) {
+
+        UUID currentUserId = userDetails != null
+                ? userRepository.findByUsernameOrEmailAndDeletedAtIsNull(userDetails.getUsername(), userDetails.getUsername())
+                        .map(User::getId)
+                        .orElse(null)
+                : null;
+
+        return ResponseEntity.ok(voteService.getTopVersionsByLanguagePair(
+                sourceLanguageId, targetLanguageId, limit, currentUserId));
+    }
+
+    @GetMapping("/leaderboards/translators")
+    @Operation(
+        summary = "Get top translators",
+        description = "Retrieves the authors with the highest accumulated score across their translation versions"
+    )
+    @ApiResponse(responseCode = "200", description = "Leaderboard retrieved successfully")
+    public ResponseEntity<List<TranslationVoteDTO.TranslatorRanking>> getTopTranslators(
+            @RequestParam(defaultValue = "10") int limit) {
+
+        return ResponseEntity.ok(voteService.getTopTranslators(limit));
+    }
+
     @GetMapping("/users/{userId}/votes")
     @Operation(
         summary = "Get user votes",
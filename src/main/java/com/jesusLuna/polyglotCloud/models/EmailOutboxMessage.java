@@ -0,0 +1,114 @@
+package com.jesusLuna.polyglotCloud.models;
+
+import java.time.Instant;
+import java.util.UUID;
+
+import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.jpa.domain.support.AuditingEntityListener;
+
+import com.jesusLuna.polyglotCloud.models.enums.EmailStatus;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Email pendiente de envío (outbox transaccional). El cuerpo se guarda ya renderizado.
+ */
+@Entity
+@Table(name = "email_outbox")
+@EntityListeners(AuditingEntityListener.class)
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class EmailOutboxMessage {
+
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    @Column(updatable = false, nullable = false)
+    private UUID id;
+
+    @NotBlank
+    @Column(nullable = false)
+    private String recipient;
+
+    @NotBlank
+    @Column(nullable = false)
+    private String subject;
+
+    @NotBlank
+    @Column(name = "html_body", nullable = false, columnDefinition = "TEXT")
+    private String htmlBody;
+
+    @NotBlank
+    @Column(nullable = false, length = 100)
+    private String template;
+
+    @NotNull
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    @Builder.Default
+    private EmailStatus status = EmailStatus.PENDING;
+
+    @Column(nullable = false)
+    @Builder.Default
+    private int attempts = 0;
+
+    @NotNull
+    @Column(name = "next_attempt_at", nullable = false)
+    @Builder.Default
+    private Instant nextAttemptAt = Instant.now();
+
+    @Column(name = "last_error", columnDefinition = "TEXT")
+    private String lastError;
+
+    @CreatedDate
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private Instant createdAt;
+
+    @Column(name = "sent_at")
+    private Instant sentAt;
+
+    /**
+     * Reclama el mensaje para un envío; si el nodo cae, vuelve a estar disponible en leaseUntil
+     */
+    public void claim(Instant leaseUntil) {
+        this.status = EmailStatus.SENDING;
+        this.attempts++;
+        this.nextAttemptAt = leaseUntil;
+    }
+
+    public void markSent(Instant now) {
+        this.status = EmailStatus.SENT;
+        this.sentAt = now;
+        this.lastError = null;
+    }
+
+    /**
+     * Registra un envío fallido: reintento en retryAt, o FAILED si retryAt es null
+     */
+    public void markFailed(String error, Instant retryAt) {
+        this.lastError = error != null && error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error;
+        if (retryAt == null) {
+            this.status = EmailStatus.FAILED;
+        } else {
+            this.status = EmailStatus.PENDING;
+            this.nextAttemptAt = retryAt;
+        }
+    }
+}
@@ -14,6 +14,7 @@ import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.Index;
 import jakarta.persistence.Table;
+import jakarta.persistence.Transient;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import lombok.AllArgsConstructor;
@@ -24,7 +25,7 @@ import lombok.NoArgsConstructor;
 @Entity
 @Table(name = "refresh_tokens", indexes = {
     @Index(name = "idx_refresh_tokens_user_id", columnList = "user_id"),
-    @Index(name = "idx_refresh_tokens_token", columnList = "token", unique = true),
+    @Index(name = "idx_refresh_tokens_token_hash", columnList = "token_hash", unique = true),
     @Index(name = "idx_refresh_tokens_expires_at", columnList = "expires_at")
 })
 @EntityListeners(AuditingEntityListener.class)
@@ -39,8 +40,14 @@ public class RefreshToken {
     @Column(updatable = false, nullable = false)
     private UUID id;
 
-    @NotBlank(message = "Token is required")
-    @Column(nullable = false, unique = true, length = 512)
+    @NotBlank(message = "Token hash is required")
+    @Column(name = "token_hash", nullable = false, unique = true, length = 64)
+    private String tokenHash;
+
+    /**
+     * JWT en claro: solo disponible en el token recién emitido, en BD se guarda su hash
+     */
+    @Transient
     private String token;
 
     @NotNull(message = "User ID is required")
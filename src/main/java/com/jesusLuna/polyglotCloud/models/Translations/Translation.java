@@ -118,6 +118,19 @@ public class Translation {
     @Column(name = "content_hash", length = 64, nullable = false)
     private String contentHash;
 
+    /**
+     * Código producido por un motor simulado (mock/fake): nunca se reutiliza como duplicado
+     */
+    @Column(name = "simulated", nullable = false)
+    @Builder.Default
+    private boolean simulated = false;
+
+    /**
+     * Traducción idéntica en curso de la que esta espera el resultado (single-flight); null si es la líder
+     */
+    @Column(name = "coalesced_with")
+    private UUID coalescedWith;
+
         public void changeStatus(TranslationStatus newStatus, User reviewer, String notes) {
         if (!this.status.canTransitionTo(newStatus)) {
             throw new IllegalStateException(
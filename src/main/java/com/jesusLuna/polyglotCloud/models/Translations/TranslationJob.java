@@ -0,0 +1,122 @@
+package com.jesusLuna.polyglotCloud.models.Translations;
+
+import java.time.Instant;
+import java.util.UUID;
+
+import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.jpa.domain.support.AuditingEntityListener;
+
+import com.jesusLuna.polyglotCloud.models.enums.TranslationJobStatus;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Trabajo de traducción automática en la cola persistente (uno por traducción PENDING)
+ */
+@Entity
+@Table(name = "translation_jobs")
+@EntityListeners(AuditingEntityListener.class)
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TranslationJob {
+
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    @Column(updatable = false, nullable = false)
+    private UUID id;
+
+    @NotNull
+    @Column(name = "translation_id", nullable = false, updatable = false, unique = true)
+    private UUID translationId;
+
+    @NotNull
+    @Column(name = "target_language_id", nullable = false, updatable = false)
+    private UUID targetLanguageId;
+
+    /**
+     * Carril de prioridad (ver TranslationJobPriority): menor valor se atiende antes
+     */
+    @Column(nullable = false)
+    private int priority;
+
+    @NotNull
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    @Builder.Default
+    private TranslationJobStatus status = TranslationJobStatus.QUEUED;
+
+    @Column(nullable = false)
+    @Builder.Default
+    private int attempts = 0;
+
+    @NotNull
+    @Column(name = "next_attempt_at", nullable = false)
+    @Builder.Default
+    private Instant nextAttemptAt = Instant.now();
+
+    @Column(name = "last_error", length = MAX_ERROR_LENGTH)
+    private String lastError;
+
+    @CreatedDate
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private Instant createdAt;
+
+    @LastModifiedDate
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt;
+
+    /**
+     * Reclama el trabajo para un worker; si el worker cae vuelve a la cola en visibleAgainAt
+     */
+    public void claim(Instant visibleAgainAt) {
+        this.status = TranslationJobStatus.RUNNING;
+        this.attempts++;
+        this.nextAttemptAt = visibleAgainAt;
+    }
+
+    /**
+     * Devuelve el trabajo a la cola para reintentarlo en retryAt
+     */
+    public void retryAt(Instant retryAt, String error) {
+        this.status = TranslationJobStatus.QUEUED;
+        this.nextAttemptAt = retryAt;
+        this.lastError = truncate(error);
+    }
+
+    /**
+     * Devuelve el trabajo a la cola sin contar el intento: la llamada al motor no llegó a hacerse
+     */
+    public void defer(Instant retryAt, String reason) {
+        this.status = TranslationJobStatus.QUEUED;
+        this.attempts = Math.max(0, this.attempts - 1);
+        this.nextAttemptAt = retryAt;
+        this.lastError = truncate(reason);
+    }
+
+    public void fail(String error) {
+        this.status = TranslationJobStatus.FAILED;
+        this.lastError = truncate(error);
+    }
+
+    private static String truncate(String error) {
+        return error != null && error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error;
+    }
+}
@@ -102,21 +102,6 @@ public class TranslationVersion {
         this.isCurrentVersion = false;
     }
 
-    /**
-     * Recalcula las puntuaciones basándose en los votos
-     */
-    public void recalculateScores() {
-        this.upvotesCount = (int) votes.stream()
-                .filter(vote -> vote.getVoteType().isUpvote())
-                .count();
-        
-        this.downvotesCount = (int) votes.stream()
-                .filter(vote -> vote.getVoteType().isDownvote())
-                .count();
-        
-        this.totalScore = upvotesCount - downvotesCount;
-    }
-
     /**
      * Obtiene la puntuación neta (upvotes - downvotes)
      */
@@ -146,6 +131,13 @@ public class TranslationVersion {
      * Verifica si esta versión tiene suficiente puntuación para auto-aprobación
      */
     public boolean hasHighEnoughScoreForAutoApproval(int threshold) {
+        return meetsAutoApprovalThreshold(totalScore, upvotesCount, threshold);
+    }
+
+    /**
+     * Regla de auto-aprobación sobre contadores sueltos (p. ej. tras un incremento atómico)
+     */
+    public static boolean meetsAutoApprovalThreshold(int totalScore, int upvotesCount, int threshold) {
         return totalScore >= threshold && upvotesCount >= 3; // Mínimo 3 votos positivos
     }
 }
\ No newline at end of file
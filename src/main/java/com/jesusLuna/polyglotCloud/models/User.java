@@ -250,6 +250,17 @@ public class User {
         this.passwordResetExpires = null;
     }
 
+    /**
+     * Sustituye el hash por otro de la misma contraseña con parámetros más recientes.
+     * No es un cambio de contraseña: no toca lastPasswordChange ni los tokens de reset.
+     */
+    public void upgradePasswordHash(String rehashedPassword) {
+        if (rehashedPassword == null || rehashedPassword.isBlank()) {
+            throw new IllegalArgumentException("Password hash cannot be null or empty");
+        }
+        this.passwordHash = rehashedPassword;
+    }
+
     /**
      * Genera token de verificación usando criptografía post-cuántica
      */
@@ -0,0 +1,23 @@
+package com.jesusLuna.polyglotCloud.models.enums;
+
+public enum EmailStatus {
+    /**
+     * En cola, pendiente de envío (o de reintento a partir de nextAttemptAt)
+     */
+    PENDING,
+
+    /**
+     * Reclamado por un dispatcher; si no se confirma antes de nextAttemptAt vuelve a reclamarse
+     */
+    SENDING,
+
+    /**
+     * Entregado al servidor SMTP
+     */
+    SENT,
+
+    /**
+     * Reintentos agotados
+     */
+    FAILED
+}
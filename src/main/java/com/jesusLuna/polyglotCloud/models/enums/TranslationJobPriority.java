@@ -0,0 +1,35 @@
+package com.jesusLuna.polyglotCloud.models.enums;
+
+public enum TranslationJobPriority {
+    /**
+     * Traductores, moderadores y administradores
+     */
+    HIGH(0),
+
+    /**
+     * Peticiones de usuarios
+     */
+    NORMAL(1),
+
+    /**
+     * Reprocesos y trabajos masivos
+     */
+    LOW(2);
+
+    private final int lane;
+
+    TranslationJobPriority(int lane) {
+        this.lane = lane;
+    }
+
+    /**
+     * Carril en la cola: menor valor se atiende antes
+     */
+    public int getLane() {
+        return lane;
+    }
+
+    public static TranslationJobPriority forRole(Role role) {
+        return role != null && role.hasPermission(Role.TRANSLATOR) ? HIGH : NORMAL;
+    }
+}
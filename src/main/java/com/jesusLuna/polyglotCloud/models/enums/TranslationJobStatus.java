@@ -0,0 +1,18 @@
+package com.jesusLuna.polyglotCloud.models.enums;
+
+public enum TranslationJobStatus {
+    /**
+     * En cola (o esperando reintento a partir de nextAttemptAt)
+     */
+    QUEUED,
+
+    /**
+     * Reclamado por un worker; si no termina antes de nextAttemptAt vuelve a reclamarse
+     */
+    RUNNING,
+
+    /**
+     * Reintentos agotados
+     */
+    FAILED
+}
@@ -0,0 +1,30 @@
+package com.jesusLuna.polyglotCloud.repository;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.jesusLuna.polyglotCloud.models.EmailOutboxMessage;
+
+@Repository
+public interface EmailOutboxRepository extends JpaRepository<EmailOutboxMessage, UUID> {
+
+    /**
+     * Mensajes listos para enviar (pendientes o con el envío anterior caducado), bloqueados para
+     * esta transacción. SKIP LOCKED: varios nodos reclaman lotes distintos sin esperarse.
+     */
+    @Query(value = """
+            SELECT * FROM email_outbox
+            WHERE status IN ('PENDING', 'SENDING')
+            AND next_attempt_at <= :now
+            ORDER BY next_attempt_at
+            LIMIT :limit
+            FOR UPDATE SKIP LOCKED
+            """, nativeQuery = true)
+    List<EmailOutboxMessage> lockDueMessages(@Param("now") Instant now, @Param("limit") int limit);
+}
@@ -1,6 +1,7 @@
 package com.jesusLuna.polyglotCloud.repository.specification;
 
 import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -16,7 +17,7 @@ import com.jesusLuna.polyglotCloud.models.RefreshToken;
 @Repository
 public interface RefreshTokenRepository extends JpaRepository<RefreshToken, UUID> {
 
-        Optional<RefreshToken> findByToken(String token);
+        Optional<RefreshToken> findByTokenHash(String tokenHash);
 
         @Query("SELECT rt FROM RefreshToken rt WHERE rt.userId = :userId AND rt.revoked = false")
         List<RefreshToken> findActiveByUserId(@Param("userId") UUID userId);
@@ -25,6 +26,34 @@ public interface RefreshTokenRepository extends JpaRepository<RefreshToken, UUID
         @Query("UPDATE RefreshToken rt SET rt.revoked = true WHERE rt.userId = :userId AND rt.revoked = false")
         int revokeAllByUserId(@Param("userId") UUID userId);
 
+        /**
+         * Revoca un token si sigue activo. 0 = ya estaba revocado (p. ej. rotación concurrente)
+         */
+        @Modifying
+        @Query("UPDATE RefreshToken rt SET rt.revoked = true WHERE rt.tokenHash = :tokenHash AND rt.revoked = false")
+        int revokeByTokenHash(@Param("tokenHash") String tokenHash);
+
+        @Modifying
+        @Query("UPDATE RefreshToken rt SET rt.revoked = true WHERE rt.tokenHash IN :tokenHashes AND rt.revoked = false")
+        int revokeAllByTokenHashIn(@Param("tokenHashes") Collection<String> tokenHashes);
+
+        /**
+         * Revoca en una sola sentencia las sesiones activas del usuario que exceden las keepCount más recientes
+         */
+        @Modifying
+        @Query(value = """
+        UPDATE refresh_tokens SET is_revoked = true
+        WHERE id IN (
+            SELECT id FROM refresh_tokens
+            WHERE user_id = :userId
+            AND is_revoked = false
+            AND expires_at > :now
+            ORDER BY created_at DESC
+            OFFSET :keepCount
+        )
+        """, nativeQuery = true)
+        int revokeActiveBeyond(@Param("userId") UUID userId, @Param("now") Instant now, @Param("keepCount") int keepCount);
+
         @Modifying
         @Query("DELETE FROM RefreshToken rt WHERE rt.expiresAt < :now")
         int deleteExpiredTokens(@Param("now") Instant now);
@@ -36,11 +65,11 @@ public interface RefreshTokenRepository extends JpaRepository<RefreshToken, UUID
         @Query("""
         SELECT CASE WHEN COUNT(rt) > 0 THEN true ELSE false END
         FROM RefreshToken rt
-        WHERE rt.token = :token
+        WHERE rt.tokenHash = :tokenHash
         AND rt.revoked = false
         AND rt.expiresAt > CURRENT_TIMESTAMP
         """)
-        boolean isTokenValid(@Param("token") String token);
+        boolean isTokenValid(@Param("tokenHash") String tokenHash);
 
         @Query("""
         SELECT COUNT(rt)
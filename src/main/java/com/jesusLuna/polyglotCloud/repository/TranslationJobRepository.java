@@ -0,0 +1,74 @@
+package com.jesusLuna.polyglotCloud.repository;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.jesusLuna.polyglotCloud.models.Translations.TranslationJob;
+import com.jesusLuna.polyglotCloud.models.enums.TranslationJobStatus;
+
+@Repository
+public interface TranslationJobRepository extends JpaRepository<TranslationJob, UUID> {
+
+    /**
+     * Idiomas destino con trabajos listos (en cola o con el timeout de visibilidad vencido)
+     */
+    @Query(value = """
+            SELECT DISTINCT target_language_id FROM translation_jobs
+            WHERE status IN ('QUEUED', 'RUNNING')
+            AND next_attempt_at <= :now
+            """, nativeQuery = true)
+    List<UUID> findLanguagesWithDueJobs(@Param("now") Instant now);
+
+    /**
+     * Trabajos listos de un idioma por orden de prioridad, bloqueados para esta transacción.
+     * SKIP LOCKED: varios nodos reclaman trabajos distintos sin esperarse.
+     */
+    @Query(value = """
+            SELECT * FROM translation_jobs
+            WHERE target_language_id = :languageId
+            AND status IN ('QUEUED', 'RUNNING')
+            AND next_attempt_at <= :now
+            ORDER BY priority, next_attempt_at
+            LIMIT :limit
+            FOR UPDATE SKIP LOCKED
+            """, nativeQuery = true)
+    List<TranslationJob> lockDueJobs(@Param("languageId") UUID languageId,
+                                     @Param("now") Instant now,
+                                     @Param("limit") int limit);
+
+    @Modifying
+    @Query("DELETE FROM TranslationJob j WHERE j.id = :id")
+    int deleteJob(@Param("id") UUID id);
+
+    /**
+     * Guarda el resultado de un intento solo si el trabajo sigue reclamado por ese intento (RUNNING
+     * con claimedAttempts): 0 si ya se completó y borró o si otro worker lo reclamó al vencer el
+     * timeout de visibilidad. Nunca reinserta una fila borrada, a diferencia de save().
+     */
+    @Modifying
+    @Query("""
+            UPDATE TranslationJob j
+            SET j.status = :status, j.attempts = :attempts, j.nextAttemptAt = :nextAttemptAt,
+                j.lastError = :lastError, j.updatedAt = :now
+            WHERE j.id = :id AND j.attempts = :claimedAttempts AND j.status = 'RUNNING'
+            """)
+    int recordAttemptIfClaimed(@Param("id") UUID id,
+                               @Param("claimedAttempts") int claimedAttempts,
+                               @Param("status") TranslationJobStatus status,
+                               @Param("attempts") int attempts,
+                               @Param("nextAttemptAt") Instant nextAttemptAt,
+                               @Param("lastError") String lastError,
+                               @Param("now") Instant now);
+
+    default int recordAttemptIfClaimed(TranslationJob job, int claimedAttempts) {
+        return recordAttemptIfClaimed(job.getId(), claimedAttempts, job.getStatus(), job.getAttempts(),
+                job.getNextAttemptAt(), job.getLastError(), Instant.now());
+    }
+}
@@ -1,5 +1,6 @@
 package com.jesusLuna.polyglotCloud.repository;
 
+import java.time.Instant;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -8,6 +9,7 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -40,13 +42,19 @@ public interface TranslationRepository extends JpaRepository<Translation, UUID>
 
     @Query("SELECT t FROM Translation t " +
            "WHERE t.contentHash = :contentHash " +
-           "AND t.status = 'COMPLETED' " +
+           "AND t.status = 'COMPLETED' AND t.simulated = false " +
            "AND t.createdAt = (" +
                "SELECT MAX(t2.createdAt) FROM Translation t2 " +
-               "WHERE t2.contentHash = :contentHash AND t2.status = 'COMPLETED'" +
+               "WHERE t2.contentHash = :contentHash AND t2.status = 'COMPLETED' AND t2.simulated = false" +
            ")")
     Optional<Translation> findCompletedByContentHash(@Param("contentHash") String contentHash);
 
+    /**
+     * Traducción completada y reutilizable por id, sin cargar snippet ni idiomas (acierto del índice de duplicados)
+     */
+    @Query("SELECT t FROM Translation t WHERE t.id = :id AND t.status = 'COMPLETED' AND t.simulated = false")
+    Optional<Translation> findCompletedById(@Param("id") UUID id);
+
     /**
      * Encuentra todas las traducciones con el mismo hash (para detectar duplicados)
      */
@@ -58,4 +66,59 @@ public interface TranslationRepository extends JpaRepository<Translation, UUID>
      */
     @Query("SELECT CASE WHEN COUNT(t) > 0 THEN true ELSE false END FROM Translation t WHERE t.contentHash = :contentHash AND t.status = 'COMPLETED'")
     boolean existsCompletedByContentHash(@Param("contentHash") String contentHash);
-}
\ No newline at end of file
+
+    /**
+     * Lock de Postgres por hash hasta el fin de la transacción: serializa entre nodos la
+     * decisión líder/seguidora y la finalización de la líder
+     */
+    @Query(value = "SELECT 1 FROM (SELECT pg_advisory_xact_lock(:key)) AS l", nativeQuery = true)
+    Integer lockContentHash(@Param("key") long key);
+
+    /**
+     * Traducción líder en curso (PENDING/PROCESSING) para un hash; única por el índice idx_translations_inflight_hash
+     */
+    @Query("SELECT t FROM Translation t WHERE t.contentHash = :contentHash " +
+           "AND t.status IN ('PENDING', 'PROCESSING') AND t.coalescedWith IS NULL")
+    Optional<Translation> findInFlightByContentHash(@Param("contentHash") String contentHash);
+
+    /**
+     * Traducciones enlazadas a una líder que aún esperan su resultado
+     */
+    @Query("SELECT t FROM Translation t WHERE t.coalescedWith = :leaderId AND t.status IN ('PENDING', 'PROCESSING')")
+    List<Translation> findWaitingFollowers(@Param("leaderId") UUID leaderId);
+
+    /**
+     * Guarda el resultado del motor solo si la traducción sigue PROCESSING: 0 si otro worker ya la
+     * completó o dejó de esperar una traducción automática
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("""
+        UPDATE Translation t
+        SET t.translatedCode = :translatedCode, t.status = 'COMPLETED', t.errorMessage = NULL,
+            t.processingTimeMs = :processingTimeMs, t.simulated = :simulated, t.completedAt = :now, t.updatedAt = :now
+        WHERE t.id = :id AND t.status = 'PROCESSING'
+        """)
+    int completeIfProcessing(@Param("id") UUID id,
+                             @Param("translatedCode") String translatedCode,
+                             @Param("processingTimeMs") long processingTimeMs,
+                             @Param("simulated") boolean simulated,
+                             @Param("now") Instant now);
+
+    /**
+     * Registra un intento fallido (PENDING para reintentar o FAILED) solo si la traducción sigue en
+     * curso (PENDING si falló antes de arrancar, o PROCESSING): una COMPLETED o FAILED nunca vuelve atrás
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("""
+        UPDATE Translation t
+        SET t.status = :status, t.errorMessage = :error, t.processingTimeMs = :processingTimeMs,
+            t.completedAt = :completedAt, t.updatedAt = :now
+        WHERE t.id = :id AND t.status IN ('PENDING', 'PROCESSING')
+        """)
+    int recordFailureIfInProgress(@Param("id") UUID id,
+                                  @Param("status") TranslationStatus status,
+                                  @Param("error") String error,
+                                  @Param("processingTimeMs") long processingTimeMs,
+                                  @Param("completedAt") Instant completedAt,
+                                  @Param("now") Instant now);
+}
@@ -1,5 +1,6 @@
 package com.jesusLuna.polyglotCloud.repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -21,6 +22,9 @@ public interface TranslationVersionRepository extends JpaRepository<TranslationV
     @EntityGraph(attributePaths = {"translation", "author"})
     Optional<TranslationVersion> findById(UUID id);
 
+    @EntityGraph(attributePaths = {"author"})
+    List<TranslationVersion> findByIdIn(Collection<UUID> ids);
+
     @EntityGraph(attributePaths = {"author"})
     List<TranslationVersion> findByTranslationIdOrderByVersionNumberAsc(@Param("translationId") UUID translationId);
 
@@ -44,4 +48,135 @@ public interface TranslationVersionRepository extends JpaRepository<TranslationV
 
     @Query("SELECT tv FROM TranslationVersion tv WHERE tv.author.id = :authorId ORDER BY tv.createdAt DESC")
     Page<TranslationVersion> findByAuthorIdOrderByCreatedAtDesc(@Param("authorId") UUID authorId, Pageable pageable);
-}
\ No newline at end of file
+
+    // ======================================
+    // RANKINGS (solo columnas de ordenación, sin translatedCode)
+    // ======================================
+
+    @Query("SELECT tv.id, tv.totalScore, tv.createdAt FROM TranslationVersion tv WHERE tv.translation.id = :translationId")
+    List<Object[]> findRankingRowsByTranslationId(@Param("translationId") UUID translationId);
+
+    @Query("""
+        SELECT tv.id, tv.totalScore
+        FROM TranslationVersion tv
+        WHERE tv.translation.sourceLanguage.id = :sourceLanguageId
+          AND tv.translation.targetLanguage.id = :targetLanguageId
+    """)
+    List<Object[]> findScoresByLanguagePair(
+            @Param("sourceLanguageId") UUID sourceLanguageId,
+            @Param("targetLanguageId") UUID targetLanguageId
+    );
+
+    @Query("SELECT tv.author.id, SUM(tv.totalScore) FROM TranslationVersion tv GROUP BY tv.author.id")
+    List<Object[]> sumScoresByAuthor();
+
+    /**
+     * Claves de ranking y puntuación guardada de unas versiones.
+     * Cada fila: id, traducción, lenguaje origen, lenguaje destino, autor, total_score
+     */
+    @Query("""
+        SELECT tv.id, t.id, t.sourceLanguage.id, t.targetLanguage.id, tv.author.id, tv.totalScore
+        FROM TranslationVersion tv JOIN tv.translation t
+        WHERE tv.id IN :versionIds
+    """)
+    List<Object[]> findRankingKeysByIds(@Param("versionIds") Collection<UUID> versionIds);
+
+    @Query("SELECT tv.author.id, SUM(tv.totalScore) FROM TranslationVersion tv WHERE tv.author.id IN :authorIds GROUP BY tv.author.id")
+    List<Object[]> sumScoresByAuthorIds(@Param("authorIds") Collection<UUID> authorIds);
+
+    /**
+     * Aplica un incremento atómico a los contadores de votos (O(1), sin cargar los votos)
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("""
+        UPDATE TranslationVersion tv
+        SET tv.upvotesCount = tv.upvotesCount + :upvoteDelta,
+            tv.downvotesCount = tv.downvotesCount + :downvoteDelta,
+            tv.totalScore = tv.totalScore + :upvoteDelta - :downvoteDelta
+        WHERE tv.id = :versionId
+    """)
+    int applyVoteDelta(
+            @Param("versionId") UUID versionId,
+            @Param("upvoteDelta") int upvoteDelta,
+            @Param("downvoteDelta") int downvoteDelta
+    );
+
+    /**
+     * Época de los contadores de la versión, con bloqueo compartido hasta el fin de la transacción.
+     * FOR KEY SHARE: ni los votos ni el UPDATE del volcado write-behind (FOR NO KEY UPDATE) se
+     * esperan entre sí, pero el recuento (FOR UPDATE) espera a que los votos confirmen:
+     * un voto leído con la época E está incluido en cualquier recuento que pase a E + 1.
+     */
+    @Query(value = "SELECT vote_epoch FROM translation_versions WHERE id = :versionId FOR KEY SHARE",
+           nativeQuery = true)
+    long lockVoteEpoch(@Param("versionId") UUID versionId);
+
+    /**
+     * Incremento diferido (write-behind). Solo se aplica si no ha habido un recuento desde que se
+     * votó: si la época cambió, el recuento ya contó esos votos y el incremento se descarta.
+     */
+    @Modifying
+    @Query(value = """
+        UPDATE translation_versions
+        SET upvotes_count = upvotes_count + :upvoteDelta,
+            downvotes_count = downvotes_count + :downvoteDelta,
+            total_score = total_score + :upvoteDelta - :downvoteDelta
+        WHERE id = :versionId AND vote_epoch = :epoch
+    """, nativeQuery = true)
+    int applyBufferedVoteDelta(
+            @Param("versionId") UUID versionId,
+            @Param("epoch") long epoch,
+            @Param("upvoteDelta") int upvoteDelta,
+            @Param("downvoteDelta") int downvoteDelta
+    );
+
+    /**
+     * Versiones cuyos contadores no coinciden con translation_votes.
+     * Cada fila: id, upvotes_count, downvotes_count, total_score, upvotes reales, downvotes reales
+     */
+    @Query(value = """
+        SELECT tv.id, tv.upvotes_count, tv.downvotes_count, tv.total_score,
+               COALESCE(v.upvotes, 0), COALESCE(v.downvotes, 0)
+        FROM translation_versions tv
+        LEFT JOIN (
+            SELECT translation_version_id,
+                   COUNT(*) FILTER (WHERE vote_type = 'UPVOTE') AS upvotes,
+                   COUNT(*) FILTER (WHERE vote_type = 'DOWNVOTE') AS downvotes
+            FROM translation_votes
+            GROUP BY translation_version_id
+        ) v ON v.translation_version_id = tv.id
+        WHERE tv.upvotes_count <> COALESCE(v.upvotes, 0)
+           OR tv.downvotes_count <> COALESCE(v.downvotes, 0)
+           OR tv.total_score <> COALESCE(v.upvotes, 0) - COALESCE(v.downvotes, 0)
+        LIMIT :limit
+    """, nativeQuery = true)
+    List<Object[]> findVoteCountDrift(@Param("limit") int limit);
+
+    /**
+     * Bloquea las filas de las versiones para que ningún voto en curso aplique su
+     * incremento mientras se recalculan los contadores
+     */
+    @Query(value = "SELECT id FROM translation_versions WHERE id IN (:versionIds) ORDER BY id FOR UPDATE",
+           nativeQuery = true)
+    List<UUID> lockForVoteRecount(@Param("versionIds") List<UUID> versionIds);
+
+    @Modifying
+    @Query(value = """
+        UPDATE translation_versions tv
+        SET upvotes_count = c.upvotes,
+            downvotes_count = c.downvotes,
+            total_score = c.upvotes - c.downvotes,
+            vote_epoch = tv.vote_epoch + 1
+        FROM (
+            SELECT t.id,
+                   COUNT(v.id) FILTER (WHERE v.vote_type = 'UPVOTE') AS upvotes,
+                   COUNT(v.id) FILTER (WHERE v.vote_type = 'DOWNVOTE') AS downvotes
+            FROM translation_versions t
+            LEFT JOIN translation_votes v ON v.translation_version_id = t.id
+            WHERE t.id IN (:versionIds)
+            GROUP BY t.id
+        ) c
+        WHERE tv.id = c.id
+    """, nativeQuery = true)
+    int recountVotes(@Param("versionIds") List<UUID> versionIds);
+}
@@ -8,6 +8,7 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -15,6 +16,8 @@ import org.springframework.stereotype.Repository;
 import com.jesusLuna.polyglotCloud.models.Translations.TranslationVote;
 import com.jesusLuna.polyglotCloud.models.enums.VoteType;
 
+import jakarta.persistence.LockModeType;
+
 @Repository
 public interface TranslationVoteRepository extends JpaRepository<TranslationVote, UUID> {
 
@@ -27,6 +30,17 @@ public interface TranslationVoteRepository extends JpaRepository<TranslationVote
             @Param("userId") UUID userId
     );
 
+    /**
+     * Igual que findByTranslationVersionIdAndUserId pero bloqueando la fila: el tipo de voto
+     * leído es el que se usa para calcular el incremento de los contadores
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT tv FROM TranslationVote tv WHERE tv.translationVersion.id = :versionId AND tv.user.id = :userId")
+    Optional<TranslationVote> findForUpdate(
+            @Param("versionId") UUID versionId,
+            @Param("userId") UUID userId
+    );
+
     @EntityGraph(attributePaths = {"user"})
     List<TranslationVote> findByTranslationVersionIdOrderByCreatedAtDesc(
             @Param("versionId") UUID versionId
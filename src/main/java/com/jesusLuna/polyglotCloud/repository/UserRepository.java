@@ -1,5 +1,6 @@
 package com.jesusLuna.polyglotCloud.repository;
 
+import java.time.Instant;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -8,6 +9,7 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -98,4 +100,21 @@ public interface UserRepository extends JpaRepository<User, UUID>, JpaSpecificat
     @Query("SELECT u FROM User u WHERE u.failedLoginAttempts > 0 AND u.deletedAt IS NULL ORDER BY u.failedLoginAttempts DESC, u.lastLoginAt DESC NULLS LAST")
     Page<User> findUsersWithFailedLoginAttempts(Pageable pageable);
 
+    /**
+     * Persist the lockout state tracked in Redis (LoginLockoutService).
+     * A permanent lockout also deactivates the account; lifting it is left to an administrator.
+     */
+    @Modifying
+    @Query("""
+            UPDATE User u
+            SET u.failedLoginAttempts = :attempts,
+                u.lockedUntil = :lockedUntil,
+                u.active = CASE WHEN :disable = true THEN false ELSE u.active END
+            WHERE u.id = :userId
+            """)
+    int persistLockState(@Param("userId") UUID userId,
+                         @Param("attempts") int attempts,
+                         @Param("lockedUntil") Instant lockedUntil,
+                         @Param("disable") boolean disable);
+
 }
\ No newline at end of file
@@ -2,10 +2,14 @@ package com.jesusLuna.polyglotCloud.service;
 
 import java.time.Duration;
 import java.time.Instant;
+import java.util.List;
 import java.util.UUID;
 import java.util.concurrent.TimeUnit;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
 import org.springframework.stereotype.Service;
 
 import com.jesusLuna.polyglotCloud.dto.RateLimitsDTO.AbuseStats;
@@ -19,33 +23,80 @@ import lombok.extern.slf4j.Slf4j;
 public class AbuseDetectionService {
 
     private final RedisTemplate<String, Object> redisTemplate;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final BlocklistFilterService blocklistFilter;
     private static final String ABUSE_KEY_PREFIX = "abuse:";
     private static final String BLOCK_KEY_PREFIX = "blocked:";
-    
-    private static final int ABUSE_THRESHOLD = 5; // 5 intentos de abuso = bloqueo temporal
-    private static final Duration ABUSE_WINDOW = Duration.ofHours(1); // Ventana de detección
-    private static final Duration BLOCK_DURATION = Duration.ofHours(2); // Tiempo de bloqueo
+
+    private static final long NOT_BLOCKED = 0;
+    private static final long NEWLY_BLOCKED = 2;
+
+    /**
+     * INCR + EXPIRE + umbral + bloqueo en una sola llamada atómica.
+     * KEYS[1] contador, KEYS[2] clave de bloqueo
+     * ARGV[1] ventana (s), ARGV[2] umbral, ARGV[3] duración del bloqueo (s), ARGV[4] timestamp
+     * Devuelve {contador, 0 = sin bloqueo | 1 = ya bloqueado (se renueva) | 2 = bloqueo nuevo}
+     */
+    @SuppressWarnings("rawtypes")
+    private static final DefaultRedisScript<List> RECORD_ABUSE_SCRIPT = new DefaultRedisScript<>("""
+            local count = redis.call('INCR', KEYS[1])
+            if count == 1 or redis.call('TTL', KEYS[1]) < 0 then
+                redis.call('EXPIRE', KEYS[1], ARGV[1])
+            end
+            local blocked = 0
+            if count >= tonumber(ARGV[2]) then
+                blocked = 2 - redis.call('EXISTS', KEYS[2])
+                redis.call('SET', KEYS[2], ARGV[4], 'EX', ARGV[3])
+            end
+            return {count, blocked}
+            """, List.class);
+
+    @Value("${app.abuse-detection.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.abuse-detection.threshold:5}")
+    private int abuseThreshold; // 5 intentos de abuso = bloqueo temporal
+
+    @Value("${app.abuse-detection.window-hours:1}")
+    private long abuseWindowHours; // Ventana de detección
+
+    @Value("${app.abuse-detection.block-duration-hours:2}")
+    private long blockDurationHours; // Tiempo de bloqueo
 
     /**
-     * Registra un intento de abuso
+     * Registra un intento de abuso (una sola ida y vuelta a Redis)
      */
     public void recordAbuse(String identifier, String abuseType, String endpoint) {
-        String abuseKey = ABUSE_KEY_PREFIX + abuseType + ":" + identifier;
-        
-        // Incrementar contador de abuso
-        Long abuseCount = redisTemplate.opsForValue().increment(abuseKey);
-        
-        if (abuseCount == 1) {
-            // Primera infracción, establecer TTL
-            redisTemplate.expire(abuseKey, ABUSE_WINDOW.getSeconds(), TimeUnit.SECONDS);
+        if (!enabled) {
+            return;
         }
-        
+
+        String abuseKey = ABUSE_KEY_PREFIX + abuseType + ":" + identifier;
+        String blockKey = blockKey(identifier, abuseType);
+        Duration blockDuration = Duration.ofHours(blockDurationHours);
+
+        List<?> result = stringRedisTemplate.execute(
+                RECORD_ABUSE_SCRIPT,
+                List.of(abuseKey, blockKey),
+                String.valueOf(Duration.ofHours(abuseWindowHours).getSeconds()),
+                String.valueOf(abuseThreshold),
+                String.valueOf(blockDuration.getSeconds()),
+                Instant.now().toString());
+
+        long abuseCount = ((Number) result.get(0)).longValue();
+        long blockState = ((Number) result.get(1)).longValue();
+
         log.warn("Abuse recorded: type={}, identifier={}, endpoint={}, count={}", 
                 abuseType, identifier, endpoint, abuseCount);
-        
-        // Si supera el threshold, bloquear temporalmente
-        if (abuseCount >= ABUSE_THRESHOLD) {
-            blockTemporarily(identifier, abuseType);
+
+        if (blockState != NOT_BLOCKED) {
+            log.error("Temporary block applied: identifier={}, type={}, duration={}", 
+                    identifier, abuseType, blockDuration);
+            if (blockState == NEWLY_BLOCKED) {
+                blocklistFilter.publishBlocked(blockKey);
+                // Notificar a administradores solo en el primer bloqueo, no en cada renovación
+                notifyAdmins(identifier, abuseType);
+            }
         }
         
         // Log detallado para monitoreo
@@ -56,32 +107,37 @@ public class AbuseDetectionService {
      * Verifica si un usuario está bloqueado
      */
     public boolean isUserBlocked(UUID userId) {
-        String blockKey = BLOCK_KEY_PREFIX + "user:" + userId;
-        return Boolean.TRUE.equals(redisTemplate.hasKey(blockKey));
+        return isBlocked(BLOCK_KEY_PREFIX + "user:" + userId);
     }
 
     /**
      * Verifica si una IP está bloqueada
      */
     public boolean isIpBlocked(String ipAddress) {
-        String blockKey = BLOCK_KEY_PREFIX + "ip:" + ipAddress;
-        return Boolean.TRUE.equals(redisTemplate.hasKey(blockKey));
+        return isBlocked(BLOCK_KEY_PREFIX + "ip:" + ipAddress);
     }
 
     /**
-     * Bloquea temporalmente un identificador
+     * El filtro local descarta sin ir a Redis los identificadores que nunca se han bloqueado
      */
-    private void blockTemporarily(String identifier, String abuseType) {
-        String blockKey = BLOCK_KEY_PREFIX + abuseType.toLowerCase() + ":" + identifier;
-        
-        redisTemplate.opsForValue().set(blockKey, Instant.now().toString(), 
-                BLOCK_DURATION.getSeconds(), TimeUnit.SECONDS);
-        
-        log.error("Temporary block applied: identifier={}, type={}, duration={}", 
-                identifier, abuseType, BLOCK_DURATION);
-        
-        // Notificar a administradores (opcional)
-        notifyAdmins(identifier, abuseType);
+    private boolean isBlocked(String blockKey) {
+        if (!blocklistFilter.mightBeBlocked(blockKey)) {
+            return false;
+        }
+        boolean blocked = Boolean.TRUE.equals(redisTemplate.hasKey(blockKey));
+        blocklistFilter.recordLookup(blocked);
+        return blocked;
+    }
+
+    /**
+     * Clave de bloqueo según el tipo de abuso: los IP_* bloquean la IP y los USER_* al usuario,
+     * que son las claves que consultan isIpBlocked / isUserBlocked
+     */
+    private String blockKey(String identifier, String abuseType) {
+        String scope = abuseType.startsWith("IP_") ? "ip"
+                : abuseType.startsWith("USER_") ? "user"
+                : abuseType.toLowerCase();
+        return BLOCK_KEY_PREFIX + scope + ":" + identifier;
     }
 
     /**
@@ -89,9 +145,10 @@ public class AbuseDetectionService {
      */
     public AbuseStats getAbuseStats(String identifier, String abuseType) {
         String abuseKey = ABUSE_KEY_PREFIX + abuseType + ":" + identifier;
-        String blockKey = BLOCK_KEY_PREFIX + abuseType.toLowerCase() + ":" + identifier;
+        String blockKey = blockKey(identifier, abuseType);
         
-        Integer abuseCount = (Integer) redisTemplate.opsForValue().get(abuseKey);
+        String storedCount = stringRedisTemplate.opsForValue().get(abuseKey);
+        Integer abuseCount = storedCount != null ? Integer.valueOf(storedCount) : null;
         boolean isBlocked = Boolean.TRUE.equals(redisTemplate.hasKey(blockKey));
         Long blockTtl = isBlocked ? redisTemplate.getExpire(blockKey, TimeUnit.SECONDS) : null;
         
@@ -13,10 +13,13 @@ import com.jesusLuna.polyglotCloud.dto.UserDTO.AuthResponseWithCookies;
 import com.jesusLuna.polyglotCloud.exception.BusinessRuleException;
 import com.jesusLuna.polyglotCloud.exception.LoginFailedException;
 import com.jesusLuna.polyglotCloud.exception.ResourceNotFoundException;
+import com.jesusLuna.polyglotCloud.exception.ServiceUnavailableException;
 import com.jesusLuna.polyglotCloud.models.User;
 import com.jesusLuna.polyglotCloud.repository.UserRepository;
 import com.jesusLuna.polyglotCloud.security.JwtTokenProvider;
+import com.jesusLuna.polyglotCloud.security.PasswordHashingService;
 import com.jesusLuna.polyglotCloud.security.PostQuantumPasswordEncoder;
+import com.jesusLuna.polyglotCloud.security.PrincipalCache;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -28,11 +31,14 @@ public class AuthService {
 
     private final UserRepository userRepository;
     private final PostQuantumPasswordEncoder passwordEncoder;
+    private final PasswordHashingService passwordHashingService;
     private final RefreshTokenService refreshTokenService;
     private final JwtTokenProvider jwtTokenProvider;
     private final EmailService emailService;
     private final UserAuditService userAuditService;
     private final SecurityProperties securityProperties;
+    private final PrincipalCache principalCache;
+    private final LoginLockoutService loginLockoutService;
 
     //TODO: Agregar readonly en @Transactional(readOnly = true) a los métodos que no modifiquen datos (en el service)
 
@@ -61,7 +67,7 @@ public class AuthService {
                 .build();
         
         // Hash password con post-quantum security
-        user.changePassword(passwordEncoder.encode(request.password()));
+        user.changePassword(passwordHashingService.encode(request.password()));
         
         // Generate post-quantum email verification token
         String verificationToken = user.generateEmailVerificationToken(passwordEncoder);
@@ -109,14 +115,22 @@ public class AuthService {
                 throw new BusinessRuleException("Account is disabled");
             }
             
-            // Verificar si la cuenta está bloqueada
-            if (!user.isAccountNonLocked()) {
+            // Verificar si la cuenta está bloqueada (Redis primero; la fila de users cubre bloqueos ya persistidos)
+            LoginLockoutService.LockoutState lockout = loginLockoutService.currentState(userId);
+            if (lockout != null && lockout.disabled()) {
+                userAuditService.recordFailedLoginAttempt(userId, ipAddress, userAgent, "Account is disabled");
+                throw new BusinessRuleException("Account is disabled");
+            }
+            boolean lockedInRedis = lockout != null && lockout.isLocked();
+            if (lockedInRedis || !user.isAccountNonLocked()) {
                 userAuditService.recordFailedLoginAttempt(userId, ipAddress, userAgent, "Account is locked");
                 
+                Instant lockedUntil = latest(user.getLockedUntil(), lockedInRedis ? lockout.lockedUntil() : null);
+                
                 // Calculate minutes remaining until unlock
                 long minutesRemaining = 0;
-                if (user.getLockedUntil() != null) {
-                    minutesRemaining = java.time.Duration.between(Instant.now(), user.getLockedUntil()).toMinutes();
+                if (lockedUntil != null) {
+                    minutesRemaining = java.time.Duration.between(Instant.now(), lockedUntil).toMinutes();
                     if (minutesRemaining < 0) {
                         minutesRemaining = 0;
                     }
@@ -129,21 +143,23 @@ public class AuthService {
                 throw new LoginFailedException(
                     message,
                     null, // No remaining attempts when already locked
-                    user.getLockedUntil(),
+                    lockedUntil,
                     true, // accountLocked
                     !user.isActive() // accountDisabled
                 );
             }
             
             // Verificar contraseña manualmente (más control)
-            if (!passwordEncoder.matches(password, user.getPasswordHash())) {
-                // Record failed attempt (this increments failedLoginAttempts and returns updated user)
-                User updatedUser = userAuditService.recordFailedLoginAttempt(userId, ipAddress, userAgent, "Invalid password");
+            if (!passwordHashingService.matches(password, user.getPasswordHash())) {
+                // Record failed attempt (increments the lockout counter and returns the new state)
+                LoginLockoutService.LockoutState state = userAuditService.recordFailedLoginAttempt(userId, ipAddress, userAgent, "Invalid password");
                 
                 // Calculate remaining attempts before temporary lock using configured threshold
-                // If user was updated, use updated user; otherwise use current user
-                User userForAttempts = updatedUser != null ? updatedUser : user;
-                int remainingAttempts = userForAttempts.getRemainingAttemptsBeforeTempLock(
+                // If the counter could not be updated, fall back to the current user row
+                if (state == null) {
+                    state = new LoginLockoutService.LockoutState(user.getFailedLoginAttempts(), user.getLockedUntil(), !user.isActive());
+                }
+                int remainingAttempts = state.remainingAttemptsBeforeTempLock(
                     securityProperties.getMaxFailedAttemptsTemp()
                 );
                 
@@ -151,9 +167,9 @@ public class AuthService {
                 throw new LoginFailedException(
                     "Invalid credentials",
                     remainingAttempts,
-                    userForAttempts.getLockedUntil(),
-                    !userForAttempts.isAccountNonLocked(),
-                    !userForAttempts.isActive()
+                    state.lockedUntil(),
+                    state.isLocked(),
+                    state.disabled()
                 );
             }
             
@@ -175,20 +191,23 @@ public class AuthService {
             
             // Record successful login
             user.recordSuccessfulLogin(ipAddress);
+            upgradePasswordHashIfNeeded(user, password);
             userRepository.save(user);
+            loginLockoutService.clear(userId);
+            principalCache.prime(user); // El login ya trae el estado: las primeras peticiones no van a la BD
             
             // Record successful login attempt in audit table
             userAuditService.recordSuccessfulLoginAttempt(userId, ipAddress, userAgent);
             
             // Generate JWT token
-            String token = jwtTokenProvider.generateToken(
+            JwtTokenProvider.IssuedToken issued = jwtTokenProvider.issueToken(
                     user.getId(),
                     user.getUsername(),
                     user.getEmail(),
                     user.getRole()
             );
-            
-            Instant expiresAt = jwtTokenProvider.getExpirationFromToken(token);
+            String token = issued.value();
+            Instant expiresAt = issued.expiresAt();
             
             log.info("Login successful for user: {}", user.getUsername());
             
@@ -212,6 +231,9 @@ public class AuthService {
         } catch (LoginFailedException ex) {
             // LoginFailedException is already handled above with proper audit logging and remaining attempts
             throw ex;
+        } catch (ServiceUnavailableException ex) {
+            // Pool de hashing saturado: no es un intento de login, no se audita
+            throw ex;
         } catch (BadCredentialsException | BusinessRuleException ex) {
             // These exceptions are already handled above with proper audit logging
             // All failed login attempts for existing users are recorded before throwing these exceptions
@@ -265,6 +287,7 @@ public class AuthService {
         }
         
         userRepository.save(user);
+        principalCache.evict(user.getId());
         
         log.info("Email verified successfully for user: {}", user.getUsername());
         
@@ -277,7 +300,7 @@ public class AuthService {
         User user = userRepository.findByUsernameOrEmailAndDeletedAtIsNull(request.login(), request.login())
             .orElseThrow(() -> new ResourceNotFoundException("User not found"));
 
-        if (!passwordEncoder.matches(request.password(), user.getPasswordHash())) {
+        if (!passwordHashingService.matches(request.password(), user.getPasswordHash())) {
             throw new BusinessRuleException("Invalid credentials");
         }
 
@@ -287,6 +310,7 @@ public class AuthService {
                 throw new BusinessRuleException("Invalid or expired verification token");
             }
             userRepository.save(user);
+            principalCache.evict(user.getId());
             emailService.sendWelcomeEmail(user.getEmail(), user.getUsername());
         } else {
             throw new BusinessRuleException("Email is already verified");
@@ -310,14 +334,14 @@ public class AuthService {
         }
         
         // Generate new access token
-        String accessToken = jwtTokenProvider.generateToken(
+        JwtTokenProvider.IssuedToken issued = jwtTokenProvider.issueToken(
                 user.getId(),
                 user.getUsername(),
                 user.getEmail(),
                 user.getRole()
         );
-        
-        Instant expiresAt = jwtTokenProvider.getExpirationFromToken(accessToken);
+        String accessToken = issued.value();
+        Instant expiresAt = issued.expiresAt();
         
         log.info("Tokens refreshed successfully for user: {}", user.getUsername());
         
@@ -337,6 +361,29 @@ public class AuthService {
 
 
 
+    /**
+     * Regenera el hash si es más débil que el mínimo, aprovechando que el login trae la contraseña en claro.
+     * Si el pool de hashing está saturado se deja para el siguiente login.
+     */
+    private void upgradePasswordHashIfNeeded(User user, String rawPassword) {
+        if (!passwordEncoder.needsRehash(user.getPasswordHash())) {
+            return;
+        }
+        try {
+            user.upgradePasswordHash(passwordHashingService.encode(rawPassword));
+            log.info("Password hash upgraded to current parameters for user: {}", user.getUsername());
+        } catch (ServiceUnavailableException ex) {
+            log.debug("Skipping password hash upgrade for user {}: hashing pool saturated", user.getUsername());
+        }
+    }
+
+    private static Instant latest(Instant a, Instant b) {
+        if (a == null) {
+            return b;
+        }
+        return b == null || a.isAfter(b) ? a : b;
+    }
+
     private UserDTO.UserResponse toUserResponse(User user) {
         return new UserDTO.UserResponse(
                 user.getId(),
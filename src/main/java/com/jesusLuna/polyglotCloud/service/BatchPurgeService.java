@@ -0,0 +1,234 @@
+package com.jesusLuna.polyglotCloud.service;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Purgas de tablas grandes por lotes.
+ * En lugar de un DELETE masivo en una sola transacción (bloqueos durante minutos y picos de
+ * lag de replicación) borra trozos acotados recorriendo la clave primaria (keyset), cada uno en
+ * su propia sentencia autocommit, con pausas entre lotes y un tope de filas por segundo.
+ * Un lock en Redis garantiza que solo un nodo del clúster ejecuta cada purga a la vez.
+ */
+@Slf4j
+@Service
+public class BatchPurgeService {
+
+    private static final String LOCK_PREFIX = "maintenance:purge:lock:";
+
+    private static final DefaultRedisScript<Long> RENEW_SCRIPT = new DefaultRedisScript<>("""
+            if redis.call('GET', KEYS[1]) == ARGV[1] then
+                return redis.call('PEXPIRE', KEYS[1], ARGV[2])
+            end
+            return 0
+            """, Long.class);
+
+    private static final DefaultRedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>("""
+            if redis.call('GET', KEYS[1]) == ARGV[1] then
+                return redis.call('DEL', KEYS[1])
+            end
+            return 0
+            """, Long.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final StringRedisTemplate redisTemplate;
+    private final MeterRegistry meterRegistry;
+    private final String instanceId = UUID.randomUUID().toString();
+
+    @Value("${app.maintenance.purge.chunk-size:1000}")
+    private int chunkSize;
+
+    @Value("${app.maintenance.purge.pause-ms:200}")
+    private long pauseMs;
+
+    @Value("${app.maintenance.purge.max-rows-per-second:2000}")
+    private int maxRowsPerSecond;
+
+    @Value("${app.maintenance.purge.max-duration-minutes:30}")
+    private long maxDurationMinutes;
+
+    @Value("${app.maintenance.purge.lock-ttl-seconds:60}")
+    private long lockTtlSeconds;
+
+    public BatchPurgeService(JdbcTemplate jdbcTemplate, StringRedisTemplate redisTemplate, MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.redisTemplate = redisTemplate;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Tabla a purgar. table y condition son SQL fijo definido en código (nunca entrada de usuario);
+     * condition lleva un único parámetro: el instante de corte.
+     *
+     * @param name      nombre de la purga (lock, métricas y logs)
+     * @param table     tabla con clave primaria "id" de tipo UUID
+     * @param condition filas a borrar, p. ej. "attempt_timestamp < ?"
+     */
+    public record PurgeTarget(String name, String table, String condition) {}
+
+    /**
+     * Resultado de una ejecución
+     */
+    public record PurgeResult(long deleted, int chunks, boolean completed) {
+
+        static final PurgeResult SKIPPED = new PurgeResult(0, 0, false);
+    }
+
+    /**
+     * Borra por lotes las filas de target que cumplen la condición respecto a cutoff.
+     * Si otro nodo tiene el lock no hace nada; si se agota max-duration-minutes se detiene y
+     * la siguiente ejecución continúa donde quede.
+     */
+    public PurgeResult purge(PurgeTarget target, Instant cutoff) {
+        String lockKey = LOCK_PREFIX + target.name();
+        if (!acquireLock(lockKey)) {
+            log.info("Purge {} skipped: running on another instance", target.name());
+            return PurgeResult.SKIPPED;
+        }
+
+        Counter rows = Counter.builder("maintenance.purge.rows")
+                .description("Rows deleted by batched purges")
+                .tag("target", target.name())
+                .register(meterRegistry);
+        Timer chunkTimer = Timer.builder("maintenance.purge.chunk.duration")
+                .description("Duration of each purge chunk DELETE")
+                .tag("target", target.name())
+                .register(meterRegistry);
+
+        String sql = chunkSql(target);
+        Timestamp cutoffTs = Timestamp.from(cutoff);
+        long deadline = System.nanoTime() + Duration.ofMinutes(maxDurationMinutes).toNanos();
+        UUID lastId = new UUID(0, 0);
+        long deleted = 0;
+        int chunks = 0;
+        boolean completed = false;
+
+        log.info("Purge {} started (cutoff {}, chunk size {}, max {} rows/s)",
+                target.name(), cutoff, chunkSize, maxRowsPerSecond);
+        try {
+            while (true) {
+                long start = System.nanoTime();
+                Chunk chunk = jdbcTemplate.queryForObject(sql,
+                        (rs, rowNum) -> new Chunk(rs.getInt("deleted"), rs.getObject("last_id", UUID.class)),
+                        cutoffTs, lastId, chunkSize);
+                long elapsedNanos = System.nanoTime() - start;
+                chunkTimer.record(Duration.ofNanos(elapsedNanos));
+
+                if (chunk == null || chunk.lastId() == null) {
+                    completed = true;
+                    break;
+                }
+                lastId = chunk.lastId();
+                deleted += chunk.deleted();
+                chunks++;
+                rows.increment(chunk.deleted());
+
+                if (chunks % 100 == 0) {
+                    log.info("Purge {} progress: {} rows deleted in {} chunks", target.name(), deleted, chunks);
+                }
+                if (System.nanoTime() > deadline) {
+                    log.warn("Purge {} stopped after {} minutes, remaining rows will be purged on the next run",
+                            target.name(), maxDurationMinutes);
+                    break;
+                }
+                if (!renewLock(lockKey)) {
+                    log.warn("Purge {} lost its cluster lock, stopping", target.name());
+                    break;
+                }
+                throttle(chunk.deleted(), elapsedNanos);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Purge {} interrupted", target.name());
+        } finally {
+            releaseLock(lockKey);
+        }
+
+        meterRegistry.counter("maintenance.purge.runs", "target", target.name(),
+                "outcome", completed ? "completed" : "partial").increment();
+        log.info("Purge {} finished: {} rows deleted in {} chunks{}",
+                target.name(), deleted, chunks, completed ? "" : " (incomplete)");
+        return new PurgeResult(deleted, chunks, completed);
+    }
+
+    private record Chunk(int deleted, UUID lastId) {}
+
+    /**
+     * Un lote: los siguientes chunkSize ids que cumplen la condición a partir del cursor,
+     * su DELETE y el último id del lote (nuevo cursor; null = no quedan filas)
+     */
+    private static String chunkSql(PurgeTarget target) {
+        return """
+                WITH batch AS (
+                    SELECT id FROM %1$s
+                    WHERE %2$s AND id > ?
+                    ORDER BY id
+                    LIMIT ?
+                ),
+                removed AS (
+                    DELETE FROM %1$s t USING batch WHERE t.id = batch.id RETURNING t.id
+                )
+                SELECT (SELECT COUNT(*) FROM removed) AS deleted,
+                       (SELECT id FROM batch ORDER BY id DESC LIMIT 1) AS last_id
+                """.formatted(target.table(), target.condition());
+    }
+
+    /**
+     * Pausa mínima entre lotes y, además, la necesaria para no superar max-rows-per-second
+     */
+    private void throttle(int deletedRows, long elapsedNanos) throws InterruptedException {
+        long sleepMs = pauseMs;
+        if (maxRowsPerSecond > 0) {
+            long budgetMs = deletedRows * 1000L / maxRowsPerSecond;
+            sleepMs = Math.max(sleepMs, budgetMs - Duration.ofNanos(elapsedNanos).toMillis());
+        }
+        if (sleepMs > 0) {
+            Thread.sleep(sleepMs);
+        }
+    }
+
+    private boolean acquireLock(String lockKey) {
+        try {
+            Boolean acquired = redisTemplate.opsForValue()
+                    .setIfAbsent(lockKey, instanceId, Duration.ofSeconds(lockTtlSeconds));
+            return Boolean.TRUE.equals(acquired);
+        } catch (Exception e) {
+            // Sin Redis no hay forma de garantizar un único nodo: se deja para la siguiente ejecución
+            log.error("Error acquiring purge lock {}", lockKey, e);
+            return false;
+        }
+    }
+
+    private boolean renewLock(String lockKey) {
+        try {
+            Long renewed = redisTemplate.execute(RENEW_SCRIPT, List.of(lockKey),
+                    instanceId, String.valueOf(Duration.ofSeconds(lockTtlSeconds).toMillis()));
+            return renewed != null && renewed > 0;
+        } catch (Exception e) {
+            log.error("Error renewing purge lock {}", lockKey, e);
+            return false;
+        }
+    }
+
+    private void releaseLock(String lockKey) {
+        try {
+            redisTemplate.execute(RELEASE_SCRIPT, List.of(lockKey), instanceId);
+        } catch (Exception e) {
+            log.error("Error releasing purge lock {}, it will expire on its own", lockKey, e);
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package com.jesusLuna.polyglotCloud.service;
+
+import java.nio.charset.StandardCharsets;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.jesusLuna.polyglotCloud.util.BloomFilter;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Caché negativa por nodo de las claves "blocked:*".
+ * Si el filtro de Bloom dice que una clave no está, no hace falta preguntar a Redis; si dice
+ * que puede estar, Redis decide (así se cubren los falsos positivos y los bloqueos caducados).
+ * Los bloqueos nuevos llegan al resto de nodos por pub/sub y el filtro se reconstruye
+ * periódicamente con SCAN para olvidar los caducados y recuperar mensajes perdidos.
+ */
+@Slf4j
+@Service
+public class BlocklistFilterService implements MessageListener {
+
+    private static final String BLOCK_KEY_PATTERN = "blocked:*";
+
+    private final StringRedisTemplate redisTemplate;
+    private final long expectedEntries;
+    private final double falsePositiveRate;
+    private final String channel;
+
+    private volatile BloomFilter filter;
+    private volatile BloomFilter rebuilding;
+    private volatile boolean ready = false;
+    private volatile long entries = 0;
+
+    private final Counter skippedLookups;
+    private final Counter blockedLookups;
+    private final Counter falsePositives;
+
+    public BlocklistFilterService(StringRedisTemplate redisTemplate,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${app.abuse-detection.blocklist-filter.expected-entries:100000}") long expectedEntries,
+                                  @Value("${app.abuse-detection.blocklist-filter.false-positive-rate:0.001}") double falsePositiveRate,
+                                  @Value("${app.abuse-detection.blocklist-filter.channel:abuse:blocked}") String channel) {
+        this.redisTemplate = redisTemplate;
+        this.expectedEntries = expectedEntries;
+        this.falsePositiveRate = falsePositiveRate;
+        this.channel = channel;
+        this.filter = new BloomFilter(expectedEntries, falsePositiveRate);
+
+        this.skippedLookups = lookupCounter(meterRegistry, "skipped");
+        this.blockedLookups = lookupCounter(meterRegistry, "blocked");
+        this.falsePositives = lookupCounter(meterRegistry, "false_positive");
+        Gauge.builder("blocklist.filter.entries", this, service -> service.entries)
+                .description("Blocked identifiers loaded in the local bloom filter at the last rebuild")
+                .register(meterRegistry);
+    }
+
+    public String getChannel() {
+        return channel;
+    }
+
+    /**
+     * false = seguro que no está bloqueado (sin ir a Redis). Hasta la primera carga siempre devuelve true.
+     */
+    public boolean mightBeBlocked(String blockKey) {
+        if (!ready || filter.mightContain(blockKey)) {
+            return true;
+        }
+        skippedLookups.increment();
+        return false;
+    }
+
+    /**
+     * Resultado de la consulta a Redis tras un positivo del filtro, para medir falsos positivos
+     */
+    public void recordLookup(boolean blocked) {
+        if (blocked) {
+            blockedLookups.increment();
+        } else if (ready) {
+            falsePositives.increment();
+        }
+    }
+
+    /**
+     * Registra un bloqueo nuevo en este nodo y lo anuncia al resto
+     */
+    public void publishBlocked(String blockKey) {
+        add(blockKey);
+        try {
+            redisTemplate.convertAndSend(channel, blockKey);
+        } catch (Exception e) {
+            // Los demás nodos lo verán en la siguiente reconstrucción
+            log.error("Error publishing block for {}", blockKey, e);
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        add(new String(message.getBody(), StandardCharsets.UTF_8));
+    }
+
+    @Scheduled(fixedDelayString = "${app.abuse-detection.blocklist-filter.rebuild-interval-ms:60000}")
+    public void rebuild() {
+        BloomFilter next = new BloomFilter(expectedEntries, falsePositiveRate);
+        synchronized (this) {
+            rebuilding = next; // Los bloqueos que lleguen durante el SCAN van a ambos filtros
+        }
+        long loaded = 0;
+
+        ScanOptions options = ScanOptions.scanOptions().match(BLOCK_KEY_PATTERN).count(1000).build();
+        try (Cursor<String> cursor = redisTemplate.scan(options)) {
+            while (cursor.hasNext()) {
+                next.put(cursor.next());
+                loaded++;
+            }
+        } catch (Exception e) {
+            // Conservar el filtro actual; si nunca se cargó, seguir consultando siempre a Redis
+            log.error("Error rebuilding blocklist filter, keeping previous one", e);
+            synchronized (this) {
+                rebuilding = null;
+            }
+            return;
+        }
+
+        // Mismo monitor que add(): un bloqueo nunca cae solo en el filtro que se descarta
+        synchronized (this) {
+            filter = next;
+            rebuilding = null;
+        }
+        entries = loaded;
+        ready = true;
+
+        if (loaded > expectedEntries) {
+            log.warn("Blocklist filter holds {} entries (expected {}); false positive rate will rise", loaded, expectedEntries);
+        }
+        log.debug("Blocklist filter rebuilt with {} blocked identifiers", loaded);
+    }
+
+    /**
+     * Sincronizado con el cambio de filtro; los bloqueos nuevos son raros y las lecturas no bloquean
+     */
+    private synchronized void add(String blockKey) {
+        filter.put(blockKey);
+        BloomFilter next = rebuilding;
+        if (next != null) {
+            next.put(blockKey);
+        }
+    }
+
+    private static Counter lookupCounter(MeterRegistry registry, String result) {
+        return Counter.builder("blocklist.filter.lookups")
+                .description("Block checks by outcome (skipped = answered locally without Redis)")
+                .tag("result", result)
+                .register(registry);
+    }
+}
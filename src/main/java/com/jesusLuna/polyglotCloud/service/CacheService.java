@@ -1,10 +1,16 @@
 package com.jesusLuna.polyglotCloud.service;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 
+import org.springframework.data.redis.core.Cursor;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
 import org.springframework.stereotype.Service;
 
+import com.jesusLuna.polyglotCloud.exception.BusinessRuleException;
+
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
@@ -13,11 +19,27 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 public class CacheService {
 
+    /**
+     * Prefijos de claves de caché que se pueden purgar. El resto del keyspace
+     * (bloqueos de login, rate limit, sesiones...) nunca se toca desde aquí.
+     */
+    public static final List<String> PURGEABLE_PREFIXES = List.of(
+            "snippet:",
+            "translation::",
+            "users::",
+            TranslationDeduplicationService.DEDUP_CACHE + "::");
+
+    private static final int SCAN_BATCH_SIZE = 500;
+
     private final RedisTemplate<String, Object> redisTemplate;
+    private final NearCacheService nearCacheService;
 
     public void save(String key, Object value, long timeout, TimeUnit unit) {
         try {
             redisTemplate.opsForValue().set(key, value, timeout, unit);
+            // Los demás nodos descartan su copia; este nodo guarda la nueva (igual que TwoTierCache.put)
+            nearCacheService.invalidate(key);
+            nearCacheService.put(key, value);
             log.debug("Cached data with key: {}", key);
         } catch (Exception e) {
             log.error("Error caching data with key: {}", key, e);
@@ -25,8 +47,18 @@ public class CacheService {
     }
 
     public Object get(String key) {
+        // Primero L1 (en memoria), después Redis
+        Object local = nearCacheService.get(key);
+        if (local != null) {
+            return local;
+        }
+
         try {
-            return redisTemplate.opsForValue().get(key);
+            long stamp = nearCacheService.invalidationStamp(key);
+            Object value = redisTemplate.opsForValue().get(key);
+            nearCacheService.recordRemoteLookup(value != null);
+            nearCacheService.putIfNotInvalidated(key, value, stamp);
+            return value;
         } catch (Exception e) {
             log.error("Error retrieving cached data with key: {}", key, e);
             return null;
@@ -39,18 +71,78 @@ public class CacheService {
             log.debug("Deleted cache with key: {}", key);
         } catch (Exception e) {
             log.error("Error deleting cached data with key: {}", key, e);
+        } finally {
+            nearCacheService.invalidate(key);
         }
     }
 
-    public void deletePattern(String pattern) {
-        try {
-            var keys = redisTemplate.keys(pattern);
-            if (keys != null && !keys.isEmpty()) {
-                redisTemplate.delete(keys);
-                log.debug("Deleted {} cache entries matching pattern: {}", keys.size(), pattern);
+    // ======================================
+    // PURGAS AD-HOC (SCAN)
+    // ======================================
+
+    /**
+     * Borra las claves que cumplen el patrón recorriendo Redis con SCAN por lotes.
+     * No bloquea el servidor como KEYS, pero sigue siendo O(N): solo para purgas
+     * administrativas. En el hot path borrar claves exactas con {@link #delete(String)}.
+     *
+     * @return número de claves borradas
+     */
+    public long deletePattern(String pattern) {
+        if (!isPurgeable(pattern)) {
+            throw new BusinessRuleException("Pattern must start with one of the cache prefixes: " + PURGEABLE_PREFIXES);
+        }
+
+        long deleted = 0;
+        ScanOptions options = ScanOptions.scanOptions()
+                .match(pattern)
+                .count(SCAN_BATCH_SIZE)
+                .build();
+
+        try (Cursor<String> cursor = redisTemplate.scan(options)) {
+            List<String> batch = new ArrayList<>(SCAN_BATCH_SIZE);
+            while (cursor.hasNext()) {
+                batch.add(cursor.next());
+                if (batch.size() >= SCAN_BATCH_SIZE) {
+                    deleted += unlink(batch);
+                }
             }
+            deleted += unlink(batch);
+            log.info("Deleted {} cache entries matching pattern: {}", deleted, pattern);
         } catch (Exception e) {
             log.error("Error deleting cached data with pattern: {}", pattern, e);
+        } finally {
+            invalidateNearCachePattern(pattern);
+        }
+        return deleted;
+    }
+
+    /**
+     * El patrón debe empezar literalmente por un prefijo conocido, así no puede alcanzar otras claves
+     */
+    public static boolean isPurgeable(String pattern) {
+        return pattern != null && PURGEABLE_PREFIXES.stream().anyMatch(pattern::startsWith);
+    }
+
+    private long unlink(List<String> keys) {
+        if (keys.isEmpty()) {
+            return 0;
+        }
+        Long removed = redisTemplate.unlink(keys);
+        keys.clear();
+        return removed != null ? removed : 0;
+    }
+
+    /**
+     * L1 solo entiende prefijos ("snippets:*"); cualquier otro patrón vacía L1 por completo
+     */
+    private void invalidateNearCachePattern(String pattern) {
+        if (pattern.endsWith("*")) {
+            String prefix = pattern.substring(0, pattern.length() - 1);
+            if (prefix.indexOf('*') < 0 && prefix.indexOf('?') < 0 && prefix.indexOf('[') < 0) {
+                nearCacheService.invalidatePrefix(prefix);
+                return;
+            }
         }
+        nearCacheService.invalidateAll();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,217 @@
+package com.jesusLuna.polyglotCloud.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.jesusLuna.polyglotCloud.models.EmailOutboxMessage;
+import com.jesusLuna.polyglotCloud.repository.EmailOutboxRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.mail.internet.MimeMessage;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Envía los emails del outbox en segundo plano.
+ * Cada pasada reclama un lote (FOR UPDATE SKIP LOCKED, seguro con varios nodos), lo reparte entre
+ * un número fijo de workers y cada worker envía su parte por una única conexión SMTP.
+ * Los fallos se reintentan con backoff exponencial hasta max-attempts.
+ */
+@Slf4j
+@Service
+public class EmailOutboxDispatcher implements DisposableBean {
+
+    private static final BatchPurgeService.PurgeTarget SENT_PURGE = new BatchPurgeService.PurgeTarget(
+            "email-outbox", "email_outbox", "(status = 'SENT' AND sent_at < ?)");
+
+    private final EmailOutboxRepository emailOutboxRepository;
+    private final EmailService emailService;
+    private final JavaMailSender mailSender;
+    private final TransactionTemplate transactionTemplate;
+    private final BatchPurgeService batchPurgeService;
+    private final ExecutorService workers;
+    private final int workerCount;
+
+    private final Counter sent;
+    private final Counter retried;
+    private final Counter failed;
+    private final Timer sessionTime;
+
+    @Value("${app.email.outbox.batch-size:50}")
+    private int batchSize;
+
+    @Value("${app.email.outbox.max-attempts:8}")
+    private int maxAttempts;
+
+    @Value("${app.email.outbox.initial-backoff-seconds:30}")
+    private long initialBackoffSeconds;
+
+    @Value("${app.email.outbox.max-backoff-seconds:3600}")
+    private long maxBackoffSeconds;
+
+    @Value("${app.email.outbox.lease-seconds:300}")
+    private long leaseSeconds;
+
+    @Value("${app.email.outbox.retention-days:14}")
+    private int retentionDays;
+
+    public EmailOutboxDispatcher(EmailOutboxRepository emailOutboxRepository,
+                                 EmailService emailService,
+                                 JavaMailSender mailSender,
+                                 TransactionTemplate transactionTemplate,
+                                 BatchPurgeService batchPurgeService,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${app.email.outbox.workers:2}") int workers) {
+        this.emailOutboxRepository = emailOutboxRepository;
+        this.emailService = emailService;
+        this.mailSender = mailSender;
+        this.transactionTemplate = transactionTemplate;
+        this.batchPurgeService = batchPurgeService;
+        this.workerCount = Math.max(1, workers);
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(workerCount, runnable -> {
+            Thread thread = new Thread(runnable, "email-sender-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        this.sent = outcomeCounter(meterRegistry, "sent");
+        this.retried = outcomeCounter(meterRegistry, "retry");
+        this.failed = outcomeCounter(meterRegistry, "failed");
+        this.sessionTime = Timer.builder("email.outbox.session.duration")
+                .description("Time spent sending a batch of emails over one SMTP connection")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${app.email.outbox.poll-interval-ms:1000}")
+    public void dispatch() {
+        List<EmailOutboxMessage> claimed = transactionTemplate.execute(status -> claimBatch());
+        if (claimed == null || claimed.isEmpty()) {
+            return;
+        }
+
+        // Un trozo por worker: cada uno abre una sola conexión SMTP para todos sus mensajes
+        int chunkSize = (claimed.size() + workerCount - 1) / workerCount;
+        List<CompletableFuture<Void>> sessions = new ArrayList<>();
+        for (int from = 0; from < claimed.size(); from += chunkSize) {
+            List<EmailOutboxMessage> chunk = claimed.subList(from, Math.min(from + chunkSize, claimed.size()));
+            sessions.add(CompletableFuture.runAsync(() -> sendSession(chunk), workers));
+        }
+        CompletableFuture.allOf(sessions.toArray(CompletableFuture[]::new)).join();
+
+        transactionTemplate.executeWithoutResult(status -> emailOutboxRepository.saveAll(claimed));
+        log.debug("Email outbox batch processed: {} messages", claimed.size());
+    }
+
+    /**
+     * Borra por lotes los emails enviados más antiguos que retention-days
+     */
+    @Scheduled(cron = "${app.email.outbox.purge-cron:0 45 2 * * *}")
+    public void purgeSentMessages() {
+        var result = batchPurgeService.purge(SENT_PURGE, Instant.now().minus(Duration.ofDays(retentionDays)));
+        log.info("Sent emails older than {} days purged: {} rows", retentionDays, result.deleted());
+    }
+
+    @Override
+    public void destroy() {
+        workers.shutdown();
+    }
+
+    private List<EmailOutboxMessage> claimBatch() {
+        Instant now = Instant.now();
+        List<EmailOutboxMessage> due = emailOutboxRepository.lockDueMessages(now, batchSize);
+        Instant leaseUntil = now.plusSeconds(leaseSeconds);
+        due.forEach(email -> email.claim(leaseUntil));
+        return due;
+    }
+
+    /**
+     * Envía los mensajes por una sola conexión (JavaMailSender.send(MimeMessage...)) y anota el resultado de cada uno
+     */
+    private void sendSession(List<EmailOutboxMessage> emails) {
+        Map<MimeMessage, EmailOutboxMessage> byMessage = new IdentityHashMap<>();
+        for (EmailOutboxMessage email : emails) {
+            try {
+                byMessage.put(emailService.toMimeMessage(email), email);
+            } catch (Exception e) {
+                recordFailure(email, "Invalid message: " + e.getMessage());
+            }
+        }
+        if (byMessage.isEmpty()) {
+            return;
+        }
+
+        Map<Object, Exception> failures = Map.of();
+        Timer.Sample sample = Timer.start();
+        try {
+            mailSender.send(byMessage.keySet().toArray(MimeMessage[]::new));
+        } catch (MailSendException e) {
+            // Sin fallos por mensaje falló la conexión entera; con ellos, el resto sí se envió
+            if (e.getFailedMessages().isEmpty()) {
+                log.warn("SMTP session failed for {} emails: {}", byMessage.size(), e.getMessage());
+                byMessage.values().forEach(email -> recordFailure(email, e.getMessage()));
+                return;
+            }
+            failures = e.getFailedMessages();
+        } catch (MailException e) {
+            log.warn("SMTP session failed for {} emails: {}", byMessage.size(), e.getMessage());
+            byMessage.values().forEach(email -> recordFailure(email, e.getMessage()));
+            return;
+        } finally {
+            sample.stop(sessionTime);
+        }
+
+        Instant now = Instant.now();
+        for (Map.Entry<MimeMessage, EmailOutboxMessage> entry : byMessage.entrySet()) {
+            Exception error = failures.get(entry.getKey());
+            if (error != null) {
+                recordFailure(entry.getValue(), error.getMessage());
+            } else {
+                entry.getValue().markSent(now);
+                sent.increment();
+            }
+        }
+    }
+
+    private void recordFailure(EmailOutboxMessage email, String error) {
+        if (email.getAttempts() >= maxAttempts) {
+            email.markFailed(error, null);
+            failed.increment();
+            log.error("Email {} to {} failed permanently after {} attempts: {}",
+                    email.getId(), email.getRecipient(), email.getAttempts(), error);
+            return;
+        }
+
+        long backoff = Math.min(maxBackoffSeconds, initialBackoffSeconds << Math.min(email.getAttempts() - 1, 20));
+        email.markFailed(error, Instant.now().plusSeconds(backoff));
+        retried.increment();
+        log.warn("Email {} to {} failed (attempt {}), retrying in {}s: {}",
+                email.getId(), email.getRecipient(), email.getAttempts(), backoff, error);
+    }
+
+    private static Counter outcomeCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("email.outbox.messages")
+                .description("Outbox emails processed by outcome")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
@@ -9,11 +9,24 @@ import org.springframework.stereotype.Service;
 import org.thymeleaf.TemplateEngine;
 import org.thymeleaf.context.Context;
 
+import com.jesusLuna.polyglotCloud.models.EmailOutboxMessage;
+import com.jesusLuna.polyglotCloud.repository.EmailOutboxRepository;
+
 import jakarta.mail.MessagingException;
 import jakarta.mail.internet.MimeMessage;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
+/**
+ * Emails transaccionales. Los métodos send* renderizan la plantilla (cacheada por Thymeleaf)
+ * y encolan el email en el outbox dentro de la transacción del llamador: el SMTP queda fuera
+ * de la petición y el email solo sale si la transacción confirma. El envío real lo hace
+ * {@link EmailOutboxDispatcher}.
+ *
+ * Los send* no son @Transactional: un fallo al renderizar no pasa por ningún interceptor, así que
+ * no marca la transacción del llamador como rollback-only y el llamador puede capturarlo
+ * (AuthService.register no falla por un email). Solo el INSERT del outbox participa en ella.
+ */
 @Slf4j
 @Service
 @RequiredArgsConstructor
@@ -21,78 +34,71 @@ public class EmailService {
 
     private final JavaMailSender mailSender;
     private final TemplateEngine templateEngine;
-    
+    private final EmailOutboxRepository emailOutboxRepository;
+
     @Value("${app.email.from}")
     private String fromEmail;
-    
+
     @Value("${app.email.verification-url}")
     private String verificationBaseUrl;
-    
+
     @Value("${app.email.support-email}")
     private String supportEmail;
 
     /**
-     * Envía email de verificación con template HTML bonito
+     * Encola el email de verificación con template HTML bonito
      */
     public void sendEmailVerification(String toEmail, String username, String verificationToken) {
-        log.info("Sending email verification to: {}", toEmail);
-        
-        try {
-            // Crear contexto para template
-            Context context = new Context();
-            context.setVariable("username", username);
-            context.setVariable("verificationUrl", verificationBaseUrl + "?token=" + verificationToken);
-            context.setVariable("supportEmail", supportEmail);
-            
-            // Procesar template HTML
-            String htmlContent = templateEngine.process("emails/verification", context);
-            
-            // Crear y enviar email
-            MimeMessage message = mailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
-            
-            helper.setFrom(fromEmail, "PolyglotCloud");
-            helper.setTo(toEmail);
-            helper.setSubject("Verifica tu cuenta en PolyglotCloud");
-            helper.setText(htmlContent, true);
-            
-            mailSender.send(message);
-            
-            log.info("Email verification sent successfully to: {}", toEmail);
-            
-        } catch (MessagingException | UnsupportedEncodingException e) {  // ✅ AGREGAR UnsupportedEncodingException
-            log.error("Failed to send email verification to: {}", toEmail, e);
-            throw new RuntimeException("Failed to send verification email", e);
-        }
+        log.info("Queueing email verification to: {}", toEmail);
+
+        // Crear contexto para template
+        Context context = new Context();
+        context.setVariable("username", username);
+        context.setVariable("verificationUrl", verificationBaseUrl + "?token=" + verificationToken);
+        context.setVariable("supportEmail", supportEmail);
+
+        enqueue(toEmail, "Verifica tu cuenta en PolyglotCloud", "emails/verification", context);
     }
-    
+
     /**
-     * Envía email de bienvenida después de verificar
+     * Encola el email de bienvenida después de verificar
      */
     public void sendWelcomeEmail(String toEmail, String username) {
-        log.info("Sending welcome email to: {}", toEmail);
-        
-        try {
-            Context context = new Context();
-            context.setVariable("username", username);
-            context.setVariable("supportEmail", supportEmail);
-            
-            String htmlContent = templateEngine.process("emails/welcome", context);
-            
-            MimeMessage message = mailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
-            
-            helper.setFrom(fromEmail, "PolyglotCloud");
-            helper.setTo(toEmail);
-            helper.setSubject("¡Bienvenido a PolyglotCloud! 🎉");
-            helper.setText(htmlContent, true);
-            
-            mailSender.send(message);
-            
-            log.info("Welcome email sent successfully to: {}", toEmail);
-            
-        } catch (MessagingException | UnsupportedEncodingException e) {  // ✅ AGREGAR UnsupportedEncodingException
-            log.error("Failed to send welcome email to: {}", toEmail, e);
-        }
+        log.info("Queueing welcome email to: {}", toEmail);
+
+        Context context = new Context();
+        context.setVariable("username", username);
+        context.setVariable("supportEmail", supportEmail);
+
+        enqueue(toEmail, "¡Bienvenido a PolyglotCloud! 🎉", "emails/welcome", context);
+    }
+
+    /**
+     * Construye el MimeMessage de un email del outbox (lo usa el dispatcher al enviar)
+     */
+    public MimeMessage toMimeMessage(EmailOutboxMessage email) throws MessagingException, UnsupportedEncodingException {
+        MimeMessage message = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
+
+        helper.setFrom(fromEmail, "PolyglotCloud");
+        helper.setTo(email.getRecipient());
+        helper.setSubject(email.getSubject());
+        helper.setText(email.getHtmlBody(), true);
+        return message;
+    }
+
+    private void enqueue(String toEmail, String subject, String template, Context context) {
+        // Procesar template HTML (Thymeleaf reutiliza la plantilla ya parseada) antes de tocar la BD
+        String htmlContent = templateEngine.process(template, context);
+
+        EmailOutboxMessage email = EmailOutboxMessage.builder()
+                .recipient(toEmail)
+                .subject(subject)
+                .htmlBody(htmlContent)
+                .template(template)
+                .build();
+        emailOutboxRepository.save(email);
+
+        log.debug("Email {} queued for: {}", template, toEmail);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,448 @@
+package com.jesusLuna.polyglotCloud.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.DefaultTypedTuple;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.jesusLuna.polyglotCloud.models.Translations.Translation;
+import com.jesusLuna.polyglotCloud.models.Translations.TranslationVersion;
+import com.jesusLuna.polyglotCloud.repository.TranslationVersionRepository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Rankings en sorted sets de Redis.
+ * - leaderboard:translation:{id}:score   versiones de una traducción por puntuación
+ * - leaderboard:translation:{id}:recent  versiones de una traducción por fecha de creación
+ * - leaderboard:pair:{origen}:{destino}  versiones por puntuación para un par de lenguajes
+ * - leaderboard:translators              autores por puntuación acumulada de sus versiones
+ *
+ * Se actualizan de forma incremental al votar / crear versiones. Si una clave no existe se
+ * reconstruye desde la base de datos (solo id y puntuación, nunca translatedCode) y caduca
+ * tras el TTL para corregir cualquier desviación.
+ * Cada clave tiene una época ({clave}:epoch) que sube con cada actualización: la reconstrucción
+ * solo se instala si la época no cambió desde antes de leer la BD, así un voto confirmado
+ * mientras tanto no se pierde bajo una foto antigua. Una sola reconstrucción por clave y nodo;
+ * los rankings vacíos guardan un marcador para no volver a la BD en cada lectura.
+ * En modo write-behind la BD va por detrás de los rankings hasta el flush: cada flush (y cada
+ * recuento de la conciliación) vuelve a fijar en Redis la puntuación guardada de las versiones
+ * afectadas, de modo que una reconstrucción que leyó contadores atrasados se corrige en ese momento.
+ * Si Redis no responde, los rankings globales se calculan desde la base de datos; los de una
+ * traducción lanzan la excepción y TranslationVoteService recurre a su consulta original.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class LeaderboardService {
+
+    private static final String PREFIX = "leaderboard:";
+    private static final String TRANSLATORS_KEY = PREFIX + "translators";
+
+    private static final String EPOCH_SUFFIX = ":epoch";
+    // Miembro de los rankings sin entradas (un sorted set vacío no existe en Redis)
+    private static final String EMPTY_MARKER = "empty";
+    private static final int REBUILD_ATTEMPTS = 3;
+
+    // Solo se modifica un ranking ya construido; si no existe se reconstruirá completo al leerlo.
+    // La época sube siempre: invalida cualquier reconstrucción que leyó la BD antes de este cambio
+    private static final DefaultRedisScript<Long> INCREMENT_IF_EXISTS = new DefaultRedisScript<>(
+            "redis.call('INCR', KEYS[2]) redis.call('EXPIRE', KEYS[2], ARGV[3]) " +
+            "if redis.call('EXISTS', KEYS[1]) == 1 then " +
+            "  redis.call('ZINCRBY', KEYS[1], ARGV[1], ARGV[2]) return 1 " +
+            "end return 0", Long.class);
+
+    private static final DefaultRedisScript<Long> ADD_IF_EXISTS = new DefaultRedisScript<>(
+            "redis.call('INCR', KEYS[2]) redis.call('EXPIRE', KEYS[2], ARGV[3]) " +
+            "if redis.call('EXISTS', KEYS[1]) == 1 then " +
+            "  return redis.call('ZADD', KEYS[1], 'NX', ARGV[1], ARGV[2]) " +
+            "end return 0", Long.class);
+
+    // Fija la puntuación de un miembro ya presente (valor absoluto, no incremento) y sube la época
+    private static final DefaultRedisScript<Long> SET_IF_MEMBER = new DefaultRedisScript<>(
+            "redis.call('INCR', KEYS[2]) redis.call('EXPIRE', KEYS[2], ARGV[3]) " +
+            "if redis.call('EXISTS', KEYS[1]) == 1 then " +
+            "  return redis.call('ZADD', KEYS[1], 'XX', 'CH', ARGV[1], ARGV[2]) " +
+            "end return 0", Long.class);
+
+    // Instala la reconstrucción (renombrar + TTL en un paso) solo si la época no cambió
+    private static final DefaultRedisScript<Long> INSTALL_IF_EPOCH = new DefaultRedisScript<>(
+            "if (redis.call('GET', KEYS[3]) or '0') ~= ARGV[1] then " +
+            "  redis.call('DEL', KEYS[1]) return 0 " +
+            "end " +
+            "redis.call('RENAME', KEYS[1], KEYS[2]) " +
+            "redis.call('EXPIRE', KEYS[2], ARGV[2]) return 1", Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final TranslationVersionRepository versionRepository;
+    private final ConcurrentHashMap<String, CompletableFuture<Map<String, Set<ZSetOperations.TypedTuple<String>>>>>
+            rebuildsInFlight = new ConcurrentHashMap<>();
+
+    @Value("${app.leaderboard.ttl-minutes:60}")
+    private long ttlMinutes;
+
+    /**
+     * Puntuación con la que se ordena un ranking
+     */
+    public record Entry(UUID id, long score) {}
+
+    // ======================================
+    // ACTUALIZACIÓN INCREMENTAL
+    // ======================================
+
+    public void recordScoreDelta(TranslationVersion version, int scoreDelta) {
+        if (scoreDelta == 0) {
+            return;
+        }
+        // Claves resueltas aquí, con la sesión de Hibernate todavía activa
+        Translation translation = version.getTranslation();
+        String scoreKey = scoreKey(translation.getId());
+        String pairKey = pairKey(translation.getSourceLanguage().getId(), translation.getTargetLanguage().getId());
+        String versionId = version.getId().toString();
+        String authorId = version.getAuthor().getId().toString();
+        String delta = String.valueOf(scoreDelta);
+
+        afterCommit(() -> {
+            incrementIfExists(scoreKey, delta, versionId);
+            incrementIfExists(pairKey, delta, versionId);
+            incrementIfExists(TRANSLATORS_KEY, delta, authorId);
+        });
+    }
+
+    public void recordNewVersion(TranslationVersion version) {
+        Translation translation = version.getTranslation();
+        String scoreKey = scoreKey(translation.getId());
+        String recentKey = recentKey(translation.getId());
+        String pairKey = pairKey(translation.getSourceLanguage().getId(), translation.getTargetLanguage().getId());
+        String versionId = version.getId().toString();
+        long score = version.getTotalScore();
+        Instant createdAt = version.getCreatedAt() != null ? version.getCreatedAt() : Instant.now();
+
+        afterCommit(() -> {
+            addIfExists(scoreKey, score, versionId);
+            addIfExists(recentKey, createdAt.toEpochMilli(), versionId);
+            addIfExists(pairKey, score, versionId);
+        });
+    }
+
+    /**
+     * Fija en los rankings la puntuación guardada en BD de unas versiones (y la suma de sus autores),
+     * tras el flush write-behind o un recuento. Corrige un ranking reconstruido con contadores que aún
+     * no incluían los votos acumulados; la época sube, así que una reconstrucción en curso con la foto
+     * anterior tampoco se instala. Redis se toca después del commit, como el resto de actualizaciones.
+     *
+     * @param pendingScore incremento de cada versión aún en memoria en este nodo (la BD no lo incluye)
+     */
+    public void refreshScores(Collection<UUID> versionIds, ToLongFunction<UUID> pendingScore) {
+        if (versionIds.isEmpty()) {
+            return;
+        }
+        List<Object[]> rows = versionRepository.findRankingKeysByIds(versionIds);
+        if (rows.isEmpty()) {
+            return;
+        }
+        Map<UUID, Long> authorPending = new HashMap<>();
+        List<String[]> updates = new ArrayList<>();
+        for (Object[] row : rows) {
+            UUID versionId = (UUID) row[0];
+            long pending = pendingScore.applyAsLong(versionId);
+            String score = String.valueOf(((Number) row[5]).longValue() + pending);
+            updates.add(new String[] {scoreKey((UUID) row[1]), score, versionId.toString()});
+            updates.add(new String[] {pairKey((UUID) row[2], (UUID) row[3]), score, versionId.toString()});
+            authorPending.merge((UUID) row[4], pending, Long::sum);
+        }
+        for (Object[] row : versionRepository.sumScoresByAuthorIds(authorPending.keySet())) {
+            UUID authorId = (UUID) row[0];
+            long total = (row[1] != null ? ((Number) row[1]).longValue() : 0) + authorPending.get(authorId);
+            updates.add(new String[] {TRANSLATORS_KEY, String.valueOf(total), authorId.toString()});
+        }
+
+        afterCommit(() -> {
+            for (String[] update : updates) {
+                redisTemplate.execute(SET_IF_MEMBER, List.of(update[0], epochKey(update[0])),
+                        update[1], update[2], epochTtlSeconds());
+            }
+        });
+    }
+
+    // ======================================
+    // LECTURA (top-K)
+    // ======================================
+
+    public List<UUID> topVersionsByScore(UUID translationId, int limit) {
+        return topIds(scoreKey(translationId), limit, () -> rebuildTranslation(translationId));
+    }
+
+    public List<UUID> mostRecentVersions(UUID translationId, int limit) {
+        return topIds(recentKey(translationId), limit, () -> rebuildTranslation(translationId));
+    }
+
+    public List<UUID> topVersionsByLanguagePair(UUID sourceLanguageId, UUID targetLanguageId, int limit) {
+        String key = pairKey(sourceLanguageId, targetLanguageId);
+        try {
+            return topIds(key, limit, () -> rebuild(key, List.of(key), () -> Map.of(key,
+                    toTuples(versionRepository.findScoresByLanguagePair(sourceLanguageId, targetLanguageId), 1))));
+        } catch (Exception e) {
+            log.warn("Leaderboard {} unavailable, ranking from the database", key, e);
+            return topFromRows(versionRepository.findScoresByLanguagePair(sourceLanguageId, targetLanguageId), limit)
+                    .stream()
+                    .map(Entry::id)
+                    .toList();
+        }
+    }
+
+    public List<Entry> topTranslators(int limit) {
+        try {
+            Set<ZSetOperations.TypedTuple<String>> tuples = null;
+            if (!exists(TRANSLATORS_KEY)) {
+                tuples = rebuild(TRANSLATORS_KEY, List.of(TRANSLATORS_KEY),
+                        () -> Map.of(TRANSLATORS_KEY, toTuples(versionRepository.sumScoresByAuthor(), 1)))
+                        .get(TRANSLATORS_KEY);
+            }
+            if (tuples == null) {
+                tuples = redisTemplate.opsForZSet().reverseRangeWithScores(TRANSLATORS_KEY, 0, limit - 1L);
+            }
+
+            List<Entry> entries = new ArrayList<>();
+            if (tuples != null) {
+                for (ZSetOperations.TypedTuple<String> tuple : sortedByScore(tuples)) {
+                    if (entries.size() == limit) {
+                        break;
+                    }
+                    double score = tuple.getScore() != null ? tuple.getScore() : 0;
+                    entries.add(new Entry(UUID.fromString(tuple.getValue()), Math.round(score)));
+                }
+            }
+            return entries;
+        } catch (Exception e) {
+            log.warn("Leaderboard {} unavailable, ranking from the database", TRANSLATORS_KEY, e);
+            return topFromRows(versionRepository.sumScoresByAuthor(), limit);
+        }
+    }
+
+    /**
+     * Ranking calculado en memoria a partir de filas (id, puntuación), como el sorted set
+     */
+    private static List<Entry> topFromRows(List<Object[]> rows, int limit) {
+        return rows.stream()
+                .map(row -> new Entry((UUID) row[0], row[1] != null ? ((Number) row[1]).longValue() : 0))
+                .sorted(Comparator.comparingLong(Entry::score).reversed())
+                .limit(limit)
+                .toList();
+    }
+
+    // ======================================
+    // RECONSTRUCCIÓN
+    // ======================================
+
+    /**
+     * Lee el top del ranking; si no existe lo reconstruye y, si no se pudo instalar, responde
+     * con las entradas leídas de la BD
+     */
+    private List<UUID> topIds(String key, int limit,
+                              Supplier<Map<String, Set<ZSetOperations.TypedTuple<String>>>> rebuilder) {
+        if (!exists(key)) {
+            Set<ZSetOperations.TypedTuple<String>> notInstalled = rebuilder.get().get(key);
+            if (notInstalled != null) {
+                return sortedByScore(notInstalled).stream()
+                        .limit(limit)
+                        .map(tuple -> UUID.fromString(tuple.getValue()))
+                        .toList();
+            }
+        }
+        return toIds(redisTemplate.opsForZSet().reverseRange(key, 0, limit - 1L));
+    }
+
+    private Map<String, Set<ZSetOperations.TypedTuple<String>>> rebuildTranslation(UUID translationId) {
+        String scoreKey = scoreKey(translationId);
+        String recentKey = recentKey(translationId);
+        return rebuild(scoreKey, List.of(scoreKey, recentKey), () -> {
+            List<Object[]> rows = versionRepository.findRankingRowsByTranslationId(translationId);
+            Set<ZSetOperations.TypedTuple<String>> recent = new HashSet<>();
+            for (Object[] row : rows) {
+                Instant createdAt = (Instant) row[2];
+                recent.add(new DefaultTypedTuple<>(row[0].toString(), (double) createdAt.toEpochMilli()));
+            }
+            log.debug("Rebuilding leaderboards for translation {} ({} versions)", translationId, rows.size());
+            return Map.of(scoreKey, toTuples(rows, 1), recentKey, recent);
+        });
+    }
+
+    /**
+     * Reconstruye las claves desde la BD. Las lecturas concurrentes de este nodo comparten una
+     * sola reconstrucción en vez de lanzar cada una la misma consulta de agregación.
+     *
+     * @return las entradas de las claves que no se pudieron instalar porque siguieron llegando
+     *         cambios; vacío si todas quedaron en Redis
+     */
+    private Map<String, Set<ZSetOperations.TypedTuple<String>>> rebuild(
+            String flightKey, List<String> keys,
+            Supplier<Map<String, Set<ZSetOperations.TypedTuple<String>>>> loader) {
+        CompletableFuture<Map<String, Set<ZSetOperations.TypedTuple<String>>>> flight = new CompletableFuture<>();
+        CompletableFuture<Map<String, Set<ZSetOperations.TypedTuple<String>>>> running =
+                rebuildsInFlight.putIfAbsent(flightKey, flight);
+        if (running != null) {
+            return running.join();
+        }
+        try {
+            Map<String, Set<ZSetOperations.TypedTuple<String>>> notInstalled = rebuildAndInstall(keys, loader);
+            flight.complete(notInstalled);
+            return notInstalled;
+        } catch (RuntimeException e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            rebuildsInFlight.remove(flightKey, flight);
+        }
+    }
+
+    private Map<String, Set<ZSetOperations.TypedTuple<String>>> rebuildAndInstall(
+            List<String> keys, Supplier<Map<String, Set<ZSetOperations.TypedTuple<String>>>> loader) {
+        Map<String, Set<ZSetOperations.TypedTuple<String>>> notInstalled = new HashMap<>();
+        for (int attempt = 1; attempt <= REBUILD_ATTEMPTS; attempt++) {
+            // Época antes de leer la BD: cualquier cambio posterior a la foto la habrá subido
+            List<String> epochs = redisTemplate.opsForValue()
+                    .multiGet(keys.stream().map(LeaderboardService::epochKey).toList());
+            Map<String, Set<ZSetOperations.TypedTuple<String>>> snapshot = loader.get();
+
+            notInstalled.clear();
+            for (int i = 0; i < keys.size(); i++) {
+                String key = keys.get(i);
+                String epoch = epochs != null ? Objects.requireNonNullElse(epochs.get(i), "0") : "0";
+                if (!install(key, snapshot.get(key), epoch)) {
+                    notInstalled.put(key, snapshot.get(key));
+                }
+            }
+            if (notInstalled.isEmpty()) {
+                return Map.of();
+            }
+        }
+        log.debug("Leaderboards {} kept changing during rebuild, serving from the database", notInstalled.keySet());
+        return notInstalled;
+    }
+
+    /**
+     * Escribe el ranking en una clave temporal y la renombra con su TTL en un solo script,
+     * para que nunca se lea a medias ni quede sin caducidad
+     */
+    private boolean install(String key, Set<ZSetOperations.TypedTuple<String>> tuples, String epoch) {
+        Set<ZSetOperations.TypedTuple<String>> members = tuples;
+        if (members.isEmpty()) {
+            members = Set.of(new DefaultTypedTuple<>(EMPTY_MARKER, -Double.MAX_VALUE));
+        }
+        String tmpKey = key + ":rebuild:" + UUID.randomUUID();
+        redisTemplate.opsForZSet().add(tmpKey, members);
+        // Si el nodo cae antes de renombrar, la clave temporal no se queda para siempre
+        redisTemplate.expire(tmpKey, Duration.ofMinutes(1));
+        Long installed = redisTemplate.execute(INSTALL_IF_EPOCH, List.of(tmpKey, key, epochKey(key)),
+                epoch, String.valueOf(Duration.ofMinutes(ttlMinutes).toSeconds()));
+        return installed != null && installed == 1;
+    }
+
+    private static List<ZSetOperations.TypedTuple<String>> sortedByScore(Set<ZSetOperations.TypedTuple<String>> tuples) {
+        return tuples.stream()
+                .filter(tuple -> !EMPTY_MARKER.equals(tuple.getValue()))
+                .sorted(Comparator.comparing(
+                        (ZSetOperations.TypedTuple<String> tuple) -> tuple.getScore() != null ? tuple.getScore() : 0)
+                        .reversed())
+                .toList();
+    }
+
+    private static Set<ZSetOperations.TypedTuple<String>> toTuples(List<Object[]> rows, int scoreColumn) {
+        Set<ZSetOperations.TypedTuple<String>> tuples = new HashSet<>();
+        for (Object[] row : rows) {
+            double score = row[scoreColumn] != null ? ((Number) row[scoreColumn]).doubleValue() : 0;
+            tuples.add(new DefaultTypedTuple<>(row[0].toString(), score));
+        }
+        return tuples;
+    }
+
+    private static List<UUID> toIds(Set<String> members) {
+        if (members == null) {
+            return List.of();
+        }
+        return members.stream()
+                .filter(member -> !EMPTY_MARKER.equals(member))
+                .map(UUID::fromString)
+                .toList();
+    }
+
+    private boolean exists(String key) {
+        return Boolean.TRUE.equals(redisTemplate.hasKey(key));
+    }
+
+    private void incrementIfExists(String key, String delta, String member) {
+        redisTemplate.execute(INCREMENT_IF_EXISTS, List.of(key, epochKey(key)), delta, member, epochTtlSeconds());
+    }
+
+    private void addIfExists(String key, long score, String member) {
+        redisTemplate.execute(ADD_IF_EXISTS, List.of(key, epochKey(key)), String.valueOf(score), member, epochTtlSeconds());
+    }
+
+    // Sobrevive al ranking: la época no puede desaparecer mientras una reconstrucción la compara
+    private String epochTtlSeconds() {
+        return String.valueOf(Duration.ofMinutes(ttlMinutes * 2).toSeconds());
+    }
+
+    /**
+     * Los rankings se tocan solo si la transacción confirma; un fallo de Redis no rompe el voto
+     */
+    private void afterCommit(Runnable update) {
+        Runnable safeUpdate = () -> {
+            try {
+                update.run();
+            } catch (Exception e) {
+                log.error("Error updating leaderboards, they will be rebuilt after expiring", e);
+            }
+        };
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    safeUpdate.run();
+                }
+            });
+        } else {
+            safeUpdate.run();
+        }
+    }
+
+    private static String epochKey(String key) {
+        return key + EPOCH_SUFFIX;
+    }
+
+    private static String scoreKey(UUID translationId) {
+        return PREFIX + "translation:" + translationId + ":score";
+    }
+
+    private static String recentKey(UUID translationId) {
+        return PREFIX + "translation:" + translationId + ":recent";
+    }
+
+    private static String pairKey(UUID sourceLanguageId, UUID targetLanguageId) {
+        return PREFIX + "pair:" + sourceLanguageId + ":" + targetLanguageId;
+    }
+}
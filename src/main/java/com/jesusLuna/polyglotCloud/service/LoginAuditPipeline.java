@@ -0,0 +1,493 @@
+package com.jesusLuna.polyglotCloud.service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.Types;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Pipeline asíncrono de auditoría de logins.
+ * Los intentos se encolan en una cola sin bloqueos y un hilo dedicado los inserta en login_attempts
+ * por lotes JDBC, cuando se junta un lote o pasa el intervalo de flush: el login no espera al INSERT
+ * ni ocupa una segunda conexión del pool.
+ *
+ * Con el spool activado el mismo hilo añade los eventos a un fichero local (append-only) en cuanto
+ * los recoge: una escritura, y un único force con sync-writes, por cada grupo de eventos llegados
+ * mientras tanto (group commit). Con sync-writes, record() espera a que el force de su grupo termine,
+ * sin ningún lock compartido entre logins. Cada flush rota el fichero y lo borra cuando su lote está
+ * en base de datos; los ficheros que quedan (caída del proceso o fallo de la BD) se reinsertan al
+ * arrancar y en los siguientes flush; cada evento lleva su id, así que reinsertar un lote ya guardado
+ * no duplica filas. Si un append falla, los eventos de ese grupo no están en ningún fichero: si además
+ * falla su INSERT se cuentan como descartados.
+ */
+@Slf4j
+@Service
+public class LoginAuditPipeline {
+
+    private static final String INSERT_SQL = """
+            INSERT INTO login_attempts
+                (id, user_id, attempt_timestamp, ip_address, user_agent, success, failure_reason, created_at)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?)
+            ON CONFLICT (id) DO NOTHING
+            """;
+    private static final String SEGMENT_PREFIX = "login-audit-";
+    private static final String SEGMENT_SUFFIX = ".spool";
+    private static final String NULL_FIELD = "\\N";
+    private static final int MAX_IP_LENGTH = 45;
+    private static final int MAX_REASON_LENGTH = 100;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Queue<Event> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pending = new AtomicInteger(); // Encolados o recogidos y aún sin guardar
+    private final int bufferSize;
+    private final int batchSize;
+    private final long flushIntervalMs;
+    private final boolean spoolEnabled;
+    private final Path spoolDirectory;
+    private final boolean syncWrites;
+
+    // Grupo de eventos que el próximo force dejará en disco; el hilo escritor lo renueva en cada recogida
+    private final AtomicReference<CompletableFuture<Void>> spoolGroup = new AtomicReference<>(new CompletableFuture<>());
+    private final AtomicLong segmentSequence = new AtomicLong();
+
+    // Solo los usa el hilo escritor
+    private final List<Event> unsaved = new ArrayList<>();
+    private int unspooled; // Cuántos de unsaved no llegaron al segmento actual (todos si no hay spool)
+    private FileChannel currentSegment;
+    private Path currentSegmentPath;
+    private boolean orphanSegments = true; // Al arrancar puede haber ficheros de una ejecución anterior
+
+    private volatile boolean running = false;
+    private volatile Thread writer;
+
+    private final Counter written;
+    private final Counter dropped;
+    private final Counter failedBatches;
+
+    /**
+     * Intento de login pendiente de guardar
+     */
+    public record Event(UUID id, UUID userId, Instant timestamp, String ipAddress, String userAgent,
+                        boolean success, String failureReason) {
+
+        public static Event success(UUID userId, String ipAddress, String userAgent) {
+            return new Event(UUID.randomUUID(), userId, Instant.now(), ipAddress, userAgent, true, null);
+        }
+
+        public static Event failure(UUID userId, String ipAddress, String userAgent, String failureReason) {
+            return new Event(UUID.randomUUID(), userId, Instant.now(), ipAddress, userAgent, false,
+                    truncate(failureReason, MAX_REASON_LENGTH));
+        }
+    }
+
+    public LoginAuditPipeline(JdbcTemplate jdbcTemplate,
+                              TransactionTemplate transactionTemplate,
+                              MeterRegistry meterRegistry,
+                              @Value("${app.security.audit.buffer-size:10000}") int bufferSize,
+                              @Value("${app.security.audit.batch-size:500}") int batchSize,
+                              @Value("${app.security.audit.flush-interval-ms:1000}") long flushIntervalMs,
+                              @Value("${app.security.audit.spool.enabled:false}") boolean spoolEnabled,
+                              @Value("${app.security.audit.spool.directory:${java.io.tmpdir}/polyglotcloud-login-audit}") String spoolDirectory,
+                              @Value("${app.security.audit.spool.sync-writes:false}") boolean syncWrites) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.bufferSize = bufferSize;
+        this.batchSize = batchSize;
+        this.flushIntervalMs = flushIntervalMs;
+        this.spoolEnabled = spoolEnabled;
+        this.spoolDirectory = Path.of(spoolDirectory);
+        this.syncWrites = syncWrites;
+
+        this.written = Counter.builder("login.audit.written")
+                .description("Login attempts inserted by the audit pipeline")
+                .register(meterRegistry);
+        this.dropped = Counter.builder("login.audit.dropped")
+                .description("Login attempts lost because the buffer was full or the insert failed and they were not spooled")
+                .register(meterRegistry);
+        this.failedBatches = Counter.builder("login.audit.failed-batches")
+                .description("Audit batches that could not be inserted")
+                .register(meterRegistry);
+        Gauge.builder("login.audit.pending", pending, AtomicInteger::get)
+                .description("Login attempts waiting to be inserted by the audit pipeline")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        if (spoolEnabled) {
+            Files.createDirectories(spoolDirectory);
+        }
+        running = true;
+        writer = new Thread(this::runWriter, "login-audit-writer");
+        writer.setDaemon(true);
+        writer.start();
+        log.info("Login audit pipeline started: batchSize={}, flushInterval={}ms, spool={}",
+                batchSize, flushIntervalMs, spoolEnabled ? spoolDirectory : "disabled");
+    }
+
+    /**
+     * Encola un intento sin bloquear. Si el buffer está lleno el evento se descarta (y se cuenta).
+     * Con spool y sync-writes espera (como mucho un intervalo de flush) a que su grupo esté en disco.
+     */
+    public void record(Event event) {
+        if (pending.incrementAndGet() > bufferSize) {
+            pending.decrementAndGet();
+            dropped.increment();
+            log.warn("Login audit buffer full, dropping attempt for user {}", event.userId());
+            return;
+        }
+        queue.offer(event);
+
+        if (!spoolEnabled) {
+            if (pending.get() >= batchSize) {
+                LockSupport.unpark(writer);
+            }
+            return;
+        }
+
+        // Leído después de encolar: el grupo que se retire a partir de aquí ya incluye este evento
+        CompletableFuture<Void> group = spoolGroup.get();
+        LockSupport.unpark(writer);
+        if (syncWrites) {
+            awaitSpooled(group);
+        }
+    }
+
+    private void awaitSpooled(CompletableFuture<Void> group) {
+        try {
+            group.get(flushIntervalMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            // El evento sigue en memoria; solo se pierde la garantía ante una caída o un fallo del INSERT
+            log.debug("Login audit spool write not confirmed in {}ms", flushIntervalMs);
+        }
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        LockSupport.unpark(writer);
+        writer.join(TimeUnit.SECONDS.toMillis(30));
+        if (pending.get() > 0) {
+            log.warn("{} login attempts still pending at shutdown{}", pending.get(),
+                    spoolEnabled ? "; they will be replayed from the spool" : " and were lost");
+        }
+    }
+
+    private void runWriter() {
+        long flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+        long nextFlush = System.nanoTime() + flushIntervalNanos;
+        while (running) {
+            try {
+                collect();
+                if (unsaved.size() >= batchSize || System.nanoTime() - nextFlush >= 0) {
+                    flush();
+                    nextFlush = System.nanoTime() + flushIntervalNanos;
+                } else if (queue.isEmpty()) {
+                    // Hasta el siguiente evento (con spool), un lote completo o el intervalo de flush
+                    LockSupport.parkNanos(this, nextFlush - System.nanoTime());
+                }
+            } catch (Exception e) {
+                log.error("Unexpected error in login audit writer", e);
+            }
+        }
+        // Último vaciado al parar
+        collect();
+        flush();
+        closeCurrentSegment();
+    }
+
+    /**
+     * Pasa lo encolado a la lista del escritor y, con spool, lo escribe en un único append por grupo
+     */
+    private void collect() {
+        // El grupo se retira aunque la cola esté vacía: quien lo leyó tarde ya tiene su evento en disco
+        CompletableFuture<Void> group = spoolEnabled ? spoolGroup.getAndSet(new CompletableFuture<>()) : null;
+        int from = unsaved.size();
+        Event event;
+        while ((event = queue.poll()) != null) {
+            unsaved.add(event);
+        }
+        int collected = unsaved.size() - from;
+        if (group == null) {
+            unspooled += collected;
+        } else if (collected == 0 || appendToSpool(unsaved.subList(from, unsaved.size()))) {
+            group.complete(null);
+        } else {
+            unspooled += collected;
+            group.completeExceptionally(new IOException("Login audit spool write failed"));
+        }
+    }
+
+    private void flush() {
+        if (orphanSegments) {
+            replayOrphanSegments();
+        }
+        if (unsaved.isEmpty()) {
+            return;
+        }
+
+        // El segmento actual contiene lo recogido salvo los grupos cuyo append falló
+        List<Event> events = new ArrayList<>(unsaved);
+        int notSpooled = unspooled;
+        unsaved.clear();
+        unspooled = 0;
+        Path segment = rotateSegment();
+
+        if (insert(events)) {
+            deleteSegment(segment);
+        } else {
+            if (segment != null) {
+                orphanSegments = true; // Lo que llegó al fichero se reintenta desde él
+            }
+            if (notSpooled > 0) {
+                dropped.increment(notSpooled);
+                log.warn("{} login attempts lost: insert failed and they were not in the spool", notSpooled);
+            }
+        }
+        pending.addAndGet(-events.size());
+    }
+
+    private boolean insert(List<Event> events) {
+        try {
+            Instant now = Instant.now();
+            transactionTemplate.executeWithoutResult(status ->
+                    jdbcTemplate.batchUpdate(INSERT_SQL, events, batchSize, (ps, event) -> {
+                        ps.setObject(1, event.id());
+                        ps.setObject(2, event.userId(), Types.OTHER);
+                        ps.setObject(3, event.timestamp().atOffset(ZoneOffset.UTC));
+                        ps.setString(4, truncate(event.ipAddress(), MAX_IP_LENGTH));
+                        ps.setString(5, event.userAgent());
+                        ps.setBoolean(6, event.success());
+                        ps.setString(7, event.failureReason());
+                        ps.setObject(8, now.atOffset(ZoneOffset.UTC));
+                    }));
+            written.increment(events.size());
+            log.debug("Inserted {} login attempts", events.size());
+            return true;
+        } catch (Exception e) {
+            failedBatches.increment();
+            log.error("Error inserting {} login attempts", events.size(), e);
+            return false;
+        }
+    }
+
+    // ======================================
+    // SPOOL LOCAL (append-only)
+    // ======================================
+
+    /**
+     * @return false si el grupo no llegó (entero) al fichero
+     */
+    private boolean appendToSpool(List<Event> events) {
+        try {
+            if (currentSegment == null) {
+                currentSegmentPath = spoolDirectory.resolve(
+                        SEGMENT_PREFIX + System.currentTimeMillis() + "-" + segmentSequence.incrementAndGet() + SEGMENT_SUFFIX);
+                currentSegment = FileChannel.open(currentSegmentPath,
+                        StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            }
+            StringBuilder lines = new StringBuilder(events.size() * 128);
+            for (Event event : events) {
+                lines.append(toLine(event));
+            }
+            ByteBuffer bytes = ByteBuffer.wrap(lines.toString().getBytes(StandardCharsets.UTF_8));
+            while (bytes.hasRemaining()) {
+                currentSegment.write(bytes);
+            }
+            if (syncWrites) {
+                currentSegment.force(false);
+            }
+            return true;
+        } catch (IOException e) {
+            // Los eventos siguen en memoria hasta el próximo flush, pero ya no sobreviven a un fallo del INSERT
+            log.error("Error writing login audit spool {}", currentSegmentPath, e);
+            return false;
+        }
+    }
+
+    /**
+     * Cierra el segmento actual y devuelve su ruta (null si no había); el siguiente evento abre otro
+     */
+    private Path rotateSegment() {
+        Path rotated = currentSegmentPath;
+        closeCurrentSegment();
+        currentSegment = null;
+        currentSegmentPath = null;
+        return rotated;
+    }
+
+    private void closeCurrentSegment() {
+        if (currentSegment == null) {
+            return;
+        }
+        try {
+            currentSegment.close();
+        } catch (IOException e) {
+            log.warn("Error closing login audit spool {}", currentSegmentPath, e);
+        }
+    }
+
+    private void deleteSegment(Path segment) {
+        if (segment == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(segment);
+        } catch (IOException e) {
+            log.warn("Error deleting login audit spool {}", segment, e);
+        }
+    }
+
+    /**
+     * Reinserta los segmentos que quedaron en disco; se detiene en el primer fallo para reintentar después
+     */
+    private void replayOrphanSegments() {
+        if (!spoolEnabled) {
+            orphanSegments = false;
+            return;
+        }
+
+        List<Path> segments = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(spoolDirectory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for (Path segment : stream) {
+                if (!segment.equals(currentSegmentPath)) {
+                    segments.add(segment);
+                }
+            }
+        } catch (IOException e) {
+            log.error("Error listing login audit spool directory {}", spoolDirectory, e);
+            return;
+        }
+
+        segments.sort(null);
+        for (Path segment : segments) {
+            List<Event> events = readSegment(segment);
+            if (events == null) {
+                continue;
+            }
+            if (!events.isEmpty() && !insert(events)) {
+                return;
+            }
+            deleteSegment(segment);
+            log.info("Replayed {} login attempts from spool {}", events.size(), segment.getFileName());
+        }
+        orphanSegments = false;
+    }
+
+    private List<Event> readSegment(Path segment) {
+        List<Event> events = new ArrayList<>();
+        try {
+            for (String line : Files.readAllLines(segment, StandardCharsets.UTF_8)) {
+                if (line.isEmpty()) {
+                    continue;
+                }
+                try {
+                    events.add(fromLine(line));
+                } catch (RuntimeException e) {
+                    // Una línea a medias (caída durante la escritura) no invalida el resto
+                    log.warn("Skipping unreadable login audit spool line in {}", segment.getFileName());
+                }
+            }
+            return events;
+        } catch (IOException e) {
+            log.error("Error reading login audit spool {}", segment, e);
+            return null;
+        }
+    }
+
+    // Formato de línea: campos separados por tabulador, "\N" = null, \t \n \\ escapados
+
+    private static String toLine(Event event) {
+        return String.join("\t",
+                event.id().toString(),
+                String.valueOf(event.timestamp().toEpochMilli()),
+                event.userId() != null ? event.userId().toString() : NULL_FIELD,
+                event.success() ? "1" : "0",
+                escape(event.ipAddress()),
+                escape(event.userAgent()),
+                escape(event.failureReason())) + "\n";
+    }
+
+    private static Event fromLine(String line) {
+        String[] fields = line.split("\t", -1);
+        if (fields.length != 7) {
+            throw new IllegalArgumentException("Expected 7 fields, found " + fields.length);
+        }
+        return new Event(
+                UUID.fromString(fields[0]),
+                fields[2].equals(NULL_FIELD) ? null : UUID.fromString(fields[2]),
+                Instant.ofEpochMilli(Long.parseLong(fields[1])),
+                unescape(fields[4]),
+                unescape(fields[5]),
+                fields[3].equals("1"),
+                unescape(fields[6]));
+    }
+
+    private static String escape(String value) {
+        if (value == null) {
+            return NULL_FIELD;
+        }
+        return value.replace("\\", "\\\\").replace("\t", "\\t").replace("\n", "\\n").replace("\r", "\\r");
+    }
+
+    private static String unescape(String value) {
+        if (value.equals(NULL_FIELD)) {
+            return null;
+        }
+        StringBuilder result = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '\\' && i + 1 < value.length()) {
+                char next = value.charAt(++i);
+                switch (next) {
+                    case 't' -> result.append('\t');
+                    case 'n' -> result.append('\n');
+                    case 'r' -> result.append('\r');
+                    default -> result.append(next);
+                }
+            } else {
+                result.append(c);
+            }
+        }
+        return result.toString();
+    }
+
+    private static String truncate(String value, int maxLength) {
+        return value != null && value.length() > maxLength ? value.substring(0, maxLength) : value;
+    }
+}
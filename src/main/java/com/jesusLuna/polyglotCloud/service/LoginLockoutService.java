@@ -0,0 +1,282 @@
+package com.jesusLuna.polyglotCloud.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations.TypedTuple;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.jesusLuna.polyglotCloud.config.SecurityProperties;
+import com.jesusLuna.polyglotCloud.repository.UserRepository;
+import com.jesusLuna.polyglotCloud.security.PrincipalCache;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Contadores de logins fallidos y bloqueos en Redis.
+ * Un ataque contra una cuenta ya no serializa en su fila de users ni genera WAL por cada contraseña
+ * mala: el contador y el bloqueo viven en Redis (con TTL igual a la duración del bloqueo) y solo el
+ * estado final del bloqueo se copia a users periódicamente. Si Redis no responde, los métodos
+ * devuelven null y el llamador usa la fila de users como antes.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class LoginLockoutService {
+
+    private static final String PREFIX = "login:";
+    private static final String INDEX_KEY = PREFIX + "failures:index";
+    private static final String LAST_FAILURE_KEY = PREFIX + "failures:last";
+    private static final String DIRTY_KEY = PREFIX + "lock:dirty";
+    private static final int PERSIST_BATCH_SIZE = 500;
+    private static final int MAX_PERSISTED_ATTEMPTS = 50; // CHECK de users.failed_login_attempts
+
+    /**
+     * INCR del contador + bloqueo temporal/permanente + índice para el panel de administración.
+     * KEYS[1] contador, KEYS[2] bloqueo, KEYS[3] índice (ZSET), KEYS[4] pendientes de persistir (SET),
+     * KEYS[5] último fallo por usuario (ZSET, +inf si el contador ya no caduca)
+     * ARGV[1] userId, ARGV[2] umbral temporal, ARGV[3] umbral permanente, ARGV[4] bloqueo temporal (ms),
+     * ARGV[5] bloqueo permanente (ms), ARGV[6] ahora (ms), ARGV[7] ventana del contador (ms)
+     * Devuelve {contador, bloqueado hasta (ms, 0 = sin bloqueo)}
+     */
+    @SuppressWarnings("rawtypes")
+    private static final DefaultRedisScript<List> RECORD_FAILURE_SCRIPT = new DefaultRedisScript<>("""
+            local count = redis.call('INCR', KEYS[1])
+            local lockedUntil = 0
+            if count >= tonumber(ARGV[3]) then
+                lockedUntil = tonumber(ARGV[6]) + tonumber(ARGV[5])
+                redis.call('PERSIST', KEYS[1])
+                redis.call('SET', KEYS[2], lockedUntil, 'PX', ARGV[5])
+            elseif count >= tonumber(ARGV[2]) then
+                lockedUntil = tonumber(ARGV[6]) + tonumber(ARGV[4])
+                redis.call('PEXPIRE', KEYS[1], ARGV[7])
+                redis.call('SET', KEYS[2], lockedUntil, 'PX', ARGV[4])
+            else
+                redis.call('PEXPIRE', KEYS[1], ARGV[7])
+            end
+            redis.call('ZADD', KEYS[3], count, ARGV[1])
+            if count >= tonumber(ARGV[3]) then
+                redis.call('ZADD', KEYS[5], '+inf', ARGV[1])
+            else
+                redis.call('ZADD', KEYS[5], ARGV[6], ARGV[1])
+            end
+            if lockedUntil > 0 then
+                redis.call('SADD', KEYS[4], ARGV[1])
+            end
+            return {count, lockedUntil}
+            """, List.class);
+
+    /**
+     * Quita del índice a los usuarios sin fallos dentro de la ventana (su contador ya caducó).
+     * Atómico con RECORD_FAILURE_SCRIPT: un fallo nuevo nunca se borra a medias.
+     * KEYS[1] índice, KEYS[2] último fallo; ARGV[1] límite (ms), ARGV[2] máximo por pasada
+     */
+    private static final DefaultRedisScript<Long> TRIM_INDEX_SCRIPT = new DefaultRedisScript<>("""
+            local stale = redis.call('ZRANGEBYSCORE', KEYS[2], '-inf', ARGV[1], 'LIMIT', 0, ARGV[2])
+            if #stale > 0 then
+                redis.call('ZREM', KEYS[1], unpack(stale))
+                redis.call('ZREM', KEYS[2], unpack(stale))
+            end
+            return #stale
+            """, Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final UserRepository userRepository;
+    private final SecurityProperties securityProperties;
+    private final PrincipalCache principalCache;
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * Estado de bloqueo de una cuenta
+     */
+    public record LockoutState(int failedAttempts, Instant lockedUntil, boolean disabled) {
+
+        public static final LockoutState NONE = new LockoutState(0, null, false);
+
+        public boolean isLocked() {
+            return lockedUntil != null && lockedUntil.isAfter(Instant.now());
+        }
+
+        public int remainingAttemptsBeforeTempLock(int maxAttemptsTemp) {
+            return Math.max(0, maxAttemptsTemp - failedAttempts);
+        }
+    }
+
+    /**
+     * Usuario con intentos fallidos en el índice, para las alertas de seguridad
+     */
+    public record FailureEntry(UUID userId, LockoutState state) {}
+
+    /**
+     * Registra una contraseña incorrecta. null si Redis no está disponible.
+     */
+    public LockoutState recordFailure(UUID userId) {
+        long now = System.currentTimeMillis();
+        try {
+            List<?> result = redisTemplate.execute(
+                    RECORD_FAILURE_SCRIPT,
+                    List.of(counterKey(userId), lockKey(userId), INDEX_KEY, DIRTY_KEY, LAST_FAILURE_KEY),
+                    userId.toString(),
+                    String.valueOf(securityProperties.getMaxFailedAttemptsTemp()),
+                    String.valueOf(securityProperties.getMaxFailedAttemptsPerm()),
+                    String.valueOf(Duration.ofMinutes(securityProperties.getLockoutDurationMinutes()).toMillis()),
+                    String.valueOf(Duration.ofDays(securityProperties.getLockoutDurationDays()).toMillis()),
+                    String.valueOf(now),
+                    String.valueOf(Duration.ofHours(securityProperties.getFailedAttemptsWindowHours()).toMillis()));
+            if (result == null || result.size() < 2) {
+                return null;
+            }
+
+            int attempts = ((Number) result.get(0)).intValue();
+            long lockedUntil = ((Number) result.get(1)).longValue();
+            return toState(attempts, lockedUntil > 0 ? lockedUntil : null);
+        } catch (Exception e) {
+            log.error("Error recording failed login in Redis for user {}", userId, e);
+            return null;
+        }
+    }
+
+    /**
+     * Estado actual en Redis. null si Redis no está disponible.
+     */
+    public LockoutState currentState(UUID userId) {
+        try {
+            List<String> values = redisTemplate.opsForValue().multiGet(List.of(counterKey(userId), lockKey(userId)));
+            if (values == null) {
+                return null;
+            }
+            int attempts = values.get(0) != null ? Integer.parseInt(values.get(0)) : 0;
+            Long lockedUntil = values.get(1) != null ? Long.parseLong(values.get(1)) : null;
+            return toState(attempts, lockedUntil);
+        } catch (Exception e) {
+            log.error("Error reading login lockout state for user {}", userId, e);
+            return null;
+        }
+    }
+
+    /**
+     * Borra contador y bloqueo (login correcto o reset por un administrador)
+     */
+    public void clear(UUID userId) {
+        try {
+            redisTemplate.delete(List.of(counterKey(userId), lockKey(userId)));
+            redisTemplate.opsForZSet().remove(INDEX_KEY, userId.toString());
+            redisTemplate.opsForZSet().remove(LAST_FAILURE_KEY, userId.toString());
+            redisTemplate.opsForSet().remove(DIRTY_KEY, userId.toString());
+        } catch (Exception e) {
+            log.error("Error clearing login lockout state for user {}", userId, e);
+        }
+    }
+
+    /**
+     * Usuarios con intentos fallidos vivos, de más a menos intentos.
+     * Las entradas cuyo contador ya caducó se eliminan del índice al encontrarlas.
+     */
+    public Page<FailureEntry> findUsersWithFailures(Pageable pageable) {
+        Long total = redisTemplate.opsForZSet().zCard(INDEX_KEY);
+        Set<TypedTuple<String>> range = redisTemplate.opsForZSet().reverseRangeWithScores(
+                INDEX_KEY, pageable.getOffset(), pageable.getOffset() + pageable.getPageSize() - 1);
+
+        List<FailureEntry> entries = new ArrayList<>();
+        if (range != null) {
+            for (TypedTuple<String> tuple : range) {
+                UUID userId = UUID.fromString(tuple.getValue());
+                LockoutState state = currentState(userId);
+                if (state == null) {
+                    continue;
+                }
+                if (state.failedAttempts() == 0) {
+                    redisTemplate.opsForZSet().remove(INDEX_KEY, tuple.getValue());
+                    continue;
+                }
+                entries.add(new FailureEntry(userId, state));
+            }
+        }
+        return new PageImpl<>(entries, pageable, total != null ? total : 0);
+    }
+
+    /**
+     * Copia a users el estado de los bloqueos aplicados desde la última pasada
+     * (bloqueo, intentos y desactivación permanente) e invalida el principal cacheado.
+     * También recorta el índice, que si no crecería sin límite durante un ataque contra muchas cuentas.
+     */
+    @Scheduled(fixedDelayString = "${app.security.lockout.persist-interval-ms:10000}")
+    public void persistLockState() {
+        trimIndex();
+
+        List<String> userIds;
+        try {
+            userIds = redisTemplate.opsForSet().pop(DIRTY_KEY, PERSIST_BATCH_SIZE);
+        } catch (Exception e) {
+            log.error("Error reading pending lockout states from Redis", e);
+            return;
+        }
+        if (userIds == null || userIds.isEmpty()) {
+            return;
+        }
+
+        for (String id : userIds) {
+            UUID userId = UUID.fromString(id);
+            LockoutState state = currentState(userId);
+            if (state == null) {
+                redisTemplate.opsForSet().add(DIRTY_KEY, id);
+                continue;
+            }
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    userRepository.persistLockState(
+                            userId,
+                            Math.min(state.failedAttempts(), MAX_PERSISTED_ATTEMPTS),
+                            state.lockedUntil(),
+                            state.disabled());
+                    principalCache.evict(userId);
+                });
+            } catch (Exception e) {
+                redisTemplate.opsForSet().add(DIRTY_KEY, id);
+                log.error("Error persisting lockout state for user {}, will retry", userId, e);
+            }
+        }
+        log.debug("Persisted lockout state for {} users", userIds.size());
+    }
+
+    private void trimIndex() {
+        long cutoff = System.currentTimeMillis()
+                - Duration.ofHours(securityProperties.getFailedAttemptsWindowHours()).toMillis();
+        try {
+            Long trimmed = redisTemplate.execute(TRIM_INDEX_SCRIPT, List.of(INDEX_KEY, LAST_FAILURE_KEY),
+                    String.valueOf(cutoff), String.valueOf(PERSIST_BATCH_SIZE));
+            if (trimmed != null && trimmed > 0) {
+                log.debug("Trimmed {} expired entries from the failed login index", trimmed);
+            }
+        } catch (Exception e) {
+            log.error("Error trimming the failed login index", e);
+        }
+    }
+
+    private LockoutState toState(int attempts, Long lockedUntilMs) {
+        return new LockoutState(
+                attempts,
+                lockedUntilMs != null ? Instant.ofEpochMilli(lockedUntilMs) : null,
+                attempts >= securityProperties.getMaxFailedAttemptsPerm());
+    }
+
+    private static String counterKey(UUID userId) {
+        return PREFIX + "failures:" + userId;
+    }
+
+    private static String lockKey(UUID userId) {
+        return PREFIX + "locked:" + userId;
+    }
+}
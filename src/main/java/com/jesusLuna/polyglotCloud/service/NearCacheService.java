@@ -0,0 +1,249 @@
+package com.jesusLuna.polyglotCloud.service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.stereotype.Service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.jesusLuna.polyglotCloud.config.NearCacheProperties;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Caché en memoria (L1) delante de Redis.
+ * Guarda los valores serializados con el mismo serializador que Redis, para que cada lectura devuelva
+ * una copia independiente con la misma semántica que L2, y propaga las invalidaciones al resto de
+ * nodos vía pub/sub.
+ */
+@Slf4j
+@Service
+public class NearCacheService implements MessageListener {
+
+    private static final String KEY_MESSAGE = "K";
+    private static final String PREFIX_MESSAGE = "P";
+    private static final String CLEAR_MESSAGE = "C";
+    private static final int INVALIDATION_STRIPES = 1024;
+
+    private final NearCacheProperties properties;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final RedisSerializer<Object> serializer;
+    private final String instanceId = UUID.randomUUID().toString();
+    private final Cache<String, byte[]> localCache;
+    // Contadores de invalidaciones (por franja de claves y de prefijo/vaciado) para no reinsertar
+    // en L1 un valor leído de Redis antes de una invalidación que llegó mientras se leía
+    private final AtomicLongArray keyInvalidations = new AtomicLongArray(INVALIDATION_STRIPES);
+    private final AtomicLong bulkInvalidations = new AtomicLong();
+
+    private final Counter localHits;
+    private final Counter localMisses;
+    private final Counter remoteHits;
+    private final Counter remoteMisses;
+    private final Counter unserializable;
+
+    public NearCacheService(NearCacheProperties properties,
+                            StringRedisTemplate stringRedisTemplate,
+                            RedisSerializer<Object> redisValueSerializer,
+                            MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.serializer = redisValueSerializer;
+        this.localCache = Caffeine.newBuilder()
+                .maximumWeight((long) properties.getMaxSizeMb() * 1024 * 1024)
+                .weigher((String key, byte[] value) -> key.length() + value.length)
+                .expireAfterWrite(Duration.ofSeconds(properties.getTtlSeconds()))
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, localCache, "near-cache");
+        this.localHits = tierCounter(meterRegistry, "local", "hit");
+        this.localMisses = tierCounter(meterRegistry, "local", "miss");
+        this.remoteHits = tierCounter(meterRegistry, "redis", "hit");
+        this.remoteMisses = tierCounter(meterRegistry, "redis", "miss");
+        this.unserializable = Counter.builder("cache.near.unserializable")
+                .description("Values that could not be serialized and were left out of the near cache")
+                .register(meterRegistry);
+
+        log.info("Near cache initialized: enabled={}, maxSize={}MB, ttl={}s",
+                properties.isEnabled(), properties.getMaxSizeMb(), properties.getTtlSeconds());
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    /**
+     * Devuelve una copia del valor guardado en L1, o null si no está
+     */
+    public Object get(String key) {
+        if (!properties.isEnabled()) {
+            return null;
+        }
+        byte[] bytes = localCache.getIfPresent(key);
+        if (bytes == null) {
+            localMisses.increment();
+            return null;
+        }
+        try {
+            Object value = serializer.deserialize(bytes);
+            localHits.increment();
+            return value;
+        } catch (Exception e) {
+            log.warn("Discarding unreadable near cache entry: {}", key, e);
+            localCache.invalidate(key);
+            localMisses.increment();
+            return null;
+        }
+    }
+
+    public void put(String key, Object value) {
+        if (!properties.isEnabled() || value == null) {
+            return;
+        }
+        byte[] bytes = serialize(key, value);
+        if (bytes != null) {
+            localCache.put(key, bytes);
+        }
+    }
+
+    /**
+     * Marca a tomar antes de leer de Redis y pasar a {@link #putIfNotInvalidated}.
+     * Ambos contadores solo crecen: la suma cambia si y solo si hubo alguna invalidación que
+     * afecte a la clave (o a otra de su franja, que solo cuesta un fallo de L1)
+     */
+    public long invalidationStamp(String key) {
+        return keyInvalidations.get(stripe(key)) + bulkInvalidations.get();
+    }
+
+    /**
+     * Guarda en L1 un valor leído de Redis, salvo que la clave se haya invalidado desde que se tomó
+     * la marca: el valor podría ser justo el que la invalidación quería quitar.
+     * La comprobación va dentro de compute, atómica respecto al borrado de la clave.
+     */
+    public void putIfNotInvalidated(String key, Object value, long stamp) {
+        if (!properties.isEnabled() || value == null) {
+            return;
+        }
+        byte[] bytes = serialize(key, value);
+        if (bytes == null) {
+            return;
+        }
+        localCache.asMap().compute(key, (k, current) -> invalidationStamp(k) == stamp ? bytes : current);
+    }
+
+    private byte[] serialize(String key, Object value) {
+        try {
+            return serializer.serialize(value);
+        } catch (Exception e) {
+            unserializable.increment();
+            log.warn("Value for key {} ({}) is not serializable, skipping near cache",
+                    key, value.getClass().getName(), e);
+            return null;
+        }
+    }
+
+    /**
+     * Registra el resultado de una lectura en Redis (L2) para las métricas por nivel
+     */
+    public void recordRemoteLookup(boolean hit) {
+        if (hit) {
+            remoteHits.increment();
+        } else {
+            remoteMisses.increment();
+        }
+    }
+
+    /**
+     * Invalida una clave en este nodo y en el resto del clúster
+     */
+    public void invalidate(String key) {
+        invalidateLocal(key);
+        publish(KEY_MESSAGE, key);
+    }
+
+    /**
+     * Invalida todas las claves que empiezan por el prefijo dado, en todo el clúster
+     */
+    public void invalidatePrefix(String prefix) {
+        invalidateLocalPrefix(prefix);
+        publish(PREFIX_MESSAGE, prefix);
+    }
+
+    /**
+     * Vacía L1 en todo el clúster
+     */
+    public void invalidateAll() {
+        invalidateLocalAll();
+        publish(CLEAR_MESSAGE, "");
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        String[] parts = body.split("\\|", 3);
+        if (parts.length < 3 || instanceId.equals(parts[0])) {
+            return; // Mensaje mal formado o enviado por este mismo nodo
+        }
+
+        switch (parts[1]) {
+            case KEY_MESSAGE -> invalidateLocal(parts[2]);
+            case PREFIX_MESSAGE -> invalidateLocalPrefix(parts[2]);
+            case CLEAR_MESSAGE -> invalidateLocalAll();
+            default -> log.warn("Unknown near cache invalidation message: {}", body);
+        }
+        log.debug("Applied remote near cache invalidation: {}", body);
+    }
+
+    private void invalidateLocal(String key) {
+        // Primero el contador y después el borrado: una lectura que inserte entre medias ya ve la marca cambiada
+        keyInvalidations.incrementAndGet(stripe(key));
+        localCache.invalidate(key);
+    }
+
+    private void invalidateLocalPrefix(String prefix) {
+        bulkInvalidations.incrementAndGet();
+        localCache.asMap().keySet().removeIf(key -> key.startsWith(prefix));
+    }
+
+    private void invalidateLocalAll() {
+        bulkInvalidations.incrementAndGet();
+        localCache.invalidateAll();
+    }
+
+    private static int stripe(String key) {
+        return (key.hashCode() & Integer.MAX_VALUE) % INVALIDATION_STRIPES;
+    }
+
+    private void publish(String type, String payload) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        try {
+            stringRedisTemplate.convertAndSend(
+                    properties.getInvalidationChannel(),
+                    instanceId + "|" + type + "|" + payload);
+        } catch (Exception e) {
+            // Los demás nodos caducarán la entrada por TTL
+            log.error("Error publishing near cache invalidation for: {}", payload, e);
+        }
+    }
+
+    private static Counter tierCounter(MeterRegistry registry, String tier, String result) {
+        return Counter.builder("cache.tier.gets")
+                .description("Cache lookups per tier (local = in-process L1, redis = L2)")
+                .tag("tier", tier)
+                .tag("result", result)
+                .register(registry);
+    }
+}
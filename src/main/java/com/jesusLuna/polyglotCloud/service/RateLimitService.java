@@ -2,16 +2,23 @@ package com.jesusLuna.polyglotCloud.service;
 
 import java.time.Duration;
 import java.util.UUID;
+import java.util.function.Function;
 
 import org.springframework.stereotype.Service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.jesusLuna.polyglotCloud.config.BucketProxyManagers;
 import com.jesusLuna.polyglotCloud.config.RateLimitConfig;
 import com.jesusLuna.polyglotCloud.dto.RateLimitsDTO.RateLimitStats;
 import com.jesusLuna.polyglotCloud.exception.RateLimitExceededException;
 
 import io.github.bucket4j.Bucket;
 import io.github.bucket4j.BucketConfiguration;
-import io.github.bucket4j.distributed.proxy.ProxyManager;
+import io.github.bucket4j.distributed.BucketProxy;
+import io.github.bucket4j.distributed.proxy.optimization.DelayParameters;
+import io.github.bucket4j.distributed.proxy.optimization.Optimizations;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
@@ -20,18 +27,19 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 public class RateLimitService {
 
-    private final ProxyManager<String> proxyManager;
+    private final BucketProxyManagers proxyManagers;
     private final RateLimitConfig rateLimitConfig;
     private final AbuseDetectionService abuseDetectionService;
 
+    private static final long MAX_CACHED_BUCKETS = 100_000;
+
+    private Profiles profiles;
+
     /**
      * Verifica rate limiting general para usuarios autenticados
      */
     public void checkGeneralUserRateLimit(UUID userId) {
-        String bucketKey = "rate_limit:user:" + userId + ":general";
-        
-        Bucket bucket = proxyManager.builder()
-                .build(bucketKey, getGeneralUserBucketConfiguration());
+        Bucket bucket = profiles.general().bucket(userId);
         
         if (!bucket.tryConsume(1)) {
             log.warn("Rate limit exceeded for user {}", userId);
@@ -47,10 +55,7 @@ public class RateLimitService {
      * Verifica rate limiting para traducciones (más restrictivo)
      */
     public void checkTranslationRateLimit(UUID userId) {
-        String bucketKey = "rate_limit:user:" + userId + ":translations";
-        
-        Bucket bucket = proxyManager.builder()
-                .build(bucketKey, getTranslationBucketConfiguration());
+        Bucket bucket = profiles.translation().bucket(userId);
         
         if (!bucket.tryConsume(1)) {
             log.warn("Translation rate limit exceeded for user {}", userId);
@@ -67,10 +72,7 @@ public class RateLimitService {
      * Verifica rate limiting para autenticación (más restrictivo)
      */
     public void checkAuthRateLimit(String ipAddress) {
-        String bucketKey = "rate_limit:auth:ip:" + ipAddress;
-        
-        Bucket bucket = proxyManager.builder()
-                .build(bucketKey, getAuthBucketConfiguration());
+        Bucket bucket = profiles.auth().bucket(ipAddress);
         
         if (!bucket.tryConsume(1)) {
             log.warn("Auth rate limit exceeded for IP {}", ipAddress);
@@ -87,10 +89,15 @@ public class RateLimitService {
      * Verifica rate limiting para direcciones IP (usuarios anónimos)
      */
     public void checkIpRateLimit(String ipAddress, String endpoint) {
-        String bucketKey = "rate_limit:ip:" + ipAddress + ":" + endpoint;
-        
-        Bucket bucket = proxyManager.builder()
-                .build(bucketKey, getIpBucketConfiguration());
+        Bucket bucket = switch (endpoint) {
+            case "translations" -> profiles.anonymousTranslations().bucket(ipAddress);
+            case "general" -> profiles.anonymous().bucket(ipAddress);
+            default -> {
+                String bucketKey = "rate_limit:ip:" + ipAddress + ":" + endpoint;
+                yield proxyManagers.forKey(bucketKey).builder()
+                        .build(bucketKey, () -> profiles.anonymous().configuration());
+            }
+        };
         
         if (!bucket.tryConsume(1)) {
             log.warn("IP rate limit exceeded for IP {} on endpoint {}", ipAddress, endpoint);
@@ -140,7 +147,7 @@ public class RateLimitService {
         String bucketKey = "rate_limit:user:" + userId + ":" + endpoint;
         BucketConfiguration config = getConfigurationForEndpoint(endpoint);
         
-        Bucket bucket = proxyManager.builder().build(bucketKey, config);
+        Bucket bucket = proxyManagers.forKey(bucketKey).builder().build(bucketKey, () -> config);
         
         long capacity = getCapacityForEndpoint(endpoint);
         long available = bucket.getAvailableTokens();
@@ -153,6 +160,82 @@ public class RateLimitService {
         );
     }
 
+    // ======================================
+    // PERFILES PRECALCULADOS
+    // ======================================
+
+    /**
+     * Configuración inmutable de una clase de límite más la caché de sus buckets, indexada por
+     * identidad (UUID o IP) para no construir la clave ni el proxy en cada petición.
+     * Con local-sync activo el bucket consume en memoria y solo habla con Redis cada
+     * maxUnsynchronizedTokens tokens o maxDelay; reutilizar la instancia conserva ese estado.
+     * Al expulsar un bucket de la caché se pierden como mucho sus tokens sin sincronizar.
+     */
+    private final class LimitProfile {
+
+        private final String keyPrefix;
+        private final String keySuffix;
+        private final BucketConfiguration configuration;
+        private final RateLimitConfig.LocalSync localSync;
+        private final Function<Object, BucketProxy> loader = this::createBucket;
+        private final Cache<Object, BucketProxy> buckets = Caffeine.newBuilder()
+                .maximumSize(MAX_CACHED_BUCKETS)
+                .expireAfterAccess(Duration.ofMinutes(5))
+                .build();
+
+        private LimitProfile(String keyPrefix, String keySuffix,
+                             BucketConfiguration configuration, RateLimitConfig.LocalSync localSync) {
+            this.keyPrefix = keyPrefix;
+            this.keySuffix = keySuffix;
+            this.configuration = configuration;
+            this.localSync = localSync;
+        }
+
+        BucketConfiguration configuration() {
+            return configuration;
+        }
+
+        BucketProxy bucket(Object identity) {
+            return buckets.get(identity, loader);
+        }
+
+        private BucketProxy createBucket(Object identity) {
+            String bucketKey = keyPrefix + identity + keySuffix;
+            var builder = proxyManagers.forKey(bucketKey).builder();
+            if (localSync.isEnabled()) {
+                builder = builder.withOptimization(Optimizations.delaying(
+                        new DelayParameters(localSync.maxUnsynchronizedTokens(), localSync.maxDelay())));
+            }
+            return builder.build(bucketKey, () -> configuration);
+        }
+    }
+
+    private record Profiles(
+            LimitProfile general,
+            LimitProfile translation,
+            LimitProfile auth,
+            LimitProfile anonymous,
+            LimitProfile anonymousTranslations) {
+    }
+
+    /**
+     * Los límites se fijan al arrancar; cambiarlos requiere reiniciar el nodo
+     */
+    @PostConstruct
+    void buildProfiles() {
+        profiles = new Profiles(
+                new LimitProfile("rate_limit:user:", ":general",
+                        getGeneralUserBucketConfiguration(), rateLimitConfig.getGlobalLocalSync()),
+                new LimitProfile("rate_limit:user:", ":translations",
+                        getTranslationBucketConfiguration(), rateLimitConfig.getTranslationLocalSync()),
+                new LimitProfile("rate_limit:auth:ip:", "",
+                        getAuthBucketConfiguration(), rateLimitConfig.getAuthLocalSync()),
+                new LimitProfile("rate_limit:ip:", ":general",
+                        getIpBucketConfiguration(), rateLimitConfig.getAnonymousLocalSync()),
+                new LimitProfile("rate_limit:ip:", ":translations",
+                        getIpBucketConfiguration(), rateLimitConfig.getAnonymousLocalSync()));
+    }
+
     // ======================================
     // CONFIGURACIONES DE BUCKETS
     // ======================================
@@ -216,9 +299,9 @@ public class RateLimitService {
     // Métodos auxiliares
     private BucketConfiguration getConfigurationForEndpoint(String endpoint) {
         return switch (endpoint) {
-            case "translations" -> getTranslationBucketConfiguration();
-            case "auth" -> getAuthBucketConfiguration();
-            default -> getGeneralUserBucketConfiguration();
+            case "translations" -> profiles.translation().configuration();
+            case "auth" -> profiles.auth().configuration();
+            default -> profiles.general().configuration();
         };
     }
 
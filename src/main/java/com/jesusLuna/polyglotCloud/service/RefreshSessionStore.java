@@ -0,0 +1,153 @@
+package com.jesusLuna.polyglotCloud.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Service;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Sesiones activas (refresh tokens) de cada usuario en un sorted set de Redis:
+ * miembro = hash del token, score = momento de emisión. Aplicar el límite por usuario
+ * es O(log n) y no depende de cuántos tokens históricos tenga el usuario en la BD.
+ * Si Redis no responde los métodos devuelven null y el llamador aplica el límite en la BD.
+ */
+@Slf4j
+@Service
+public class RefreshSessionStore {
+
+    private static final String KEY_PREFIX = "auth:sessions:";
+
+    /**
+     * Alta de una sesión y expulsión de las más antiguas por encima del límite.
+     * KEYS[1] sesiones del usuario
+     * ARGV[1] hash del token, ARGV[2] emitido (ms), ARGV[3] caducadas antes de (ms),
+     * ARGV[4] máximo de sesiones, ARGV[5] vida de un refresh token (ms)
+     * Devuelve los expulsados como {hash, emitido, hash, emitido...}
+     */
+    @SuppressWarnings("rawtypes")
+    private static final DefaultRedisScript<List> REGISTER_SCRIPT = new DefaultRedisScript<>("""
+            redis.call('ZREMRANGEBYSCORE', KEYS[1], '-inf', ARGV[3])
+            redis.call('ZADD', KEYS[1], ARGV[2], ARGV[1])
+            local evicted = {}
+            local excess = redis.call('ZCARD', KEYS[1]) - tonumber(ARGV[4])
+            if excess > 0 then
+                evicted = redis.call('ZRANGE', KEYS[1], 0, excess - 1, 'WITHSCORES')
+                redis.call('ZREMRANGEBYRANK', KEYS[1], 0, excess - 1)
+            end
+            redis.call('PEXPIRE', KEYS[1], ARGV[5])
+            return evicted
+            """, List.class);
+
+    /**
+     * Deshace un alta cuya transacción hizo rollback: quita la sesión nueva y devuelve las expulsadas.
+     * KEYS[1] sesiones del usuario; ARGV[1] hash de la sesión nueva, después pares {emitido, hash}
+     */
+    private static final DefaultRedisScript<Long> UNDO_REGISTER_SCRIPT = new DefaultRedisScript<>("""
+            redis.call('ZREM', KEYS[1], ARGV[1])
+            for i = 2, #ARGV, 2 do
+                redis.call('ZADD', KEYS[1], ARGV[i], ARGV[i + 1])
+            end
+            return 1
+            """, Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final boolean enabled;
+
+    /**
+     * Sesión expulsada por el límite, con su momento de emisión para poder devolverla
+     */
+    public record Session(String tokenHash, long issuedAtMs) {}
+
+    public RefreshSessionStore(StringRedisTemplate redisTemplate,
+                               @Value("${app.refresh-token.session-store.enabled:true}") boolean enabled) {
+        this.redisTemplate = redisTemplate;
+        this.enabled = enabled;
+    }
+
+    /**
+     * Registra la sesión y devuelve las sesiones expulsadas por el límite.
+     * null si el store está desactivado o Redis no está disponible.
+     */
+    public List<Session> register(UUID userId, String tokenHash, long issuedAtMs, long lifetimeMs, int maxSessions) {
+        if (!enabled) {
+            return null;
+        }
+        try {
+            List<?> evicted = redisTemplate.execute(
+                    REGISTER_SCRIPT,
+                    List.of(key(userId)),
+                    tokenHash,
+                    String.valueOf(issuedAtMs),
+                    String.valueOf(issuedAtMs - lifetimeMs),
+                    String.valueOf(maxSessions),
+                    String.valueOf(lifetimeMs));
+            if (evicted == null) {
+                return List.of();
+            }
+            List<Session> sessions = new ArrayList<>(evicted.size() / 2);
+            for (int i = 0; i + 1 < evicted.size(); i += 2) {
+                long issuedAt = (long) Double.parseDouble(evicted.get(i + 1).toString());
+                sessions.add(new Session(evicted.get(i).toString(), issuedAt));
+            }
+            return sessions;
+        } catch (Exception e) {
+            log.error("Error registering refresh session for user {}", userId, e);
+            return null;
+        }
+    }
+
+    /**
+     * Deshace {@link #register}: la sesión nueva nunca llegó a la BD y las expulsadas siguen
+     * activas allí, así que vuelven al sorted set (el límite las expulsará en el siguiente alta)
+     */
+    public void undoRegister(UUID userId, String tokenHash, List<Session> evicted) {
+        if (!enabled) {
+            return;
+        }
+        List<String> args = new ArrayList<>(1 + evicted.size() * 2);
+        args.add(tokenHash);
+        for (Session session : evicted) {
+            args.add(String.valueOf(session.issuedAtMs()));
+            args.add(session.tokenHash());
+        }
+        try {
+            redisTemplate.execute(UNDO_REGISTER_SCRIPT, List.of(key(userId)), args.toArray());
+        } catch (Exception e) {
+            // La sesión fantasma solo ocupa hueco hasta que la expulse el límite o caduque
+            log.error("Error undoing refresh session registration for user {}", userId, e);
+        }
+    }
+
+    public void remove(UUID userId, String tokenHash) {
+        if (!enabled) {
+            return;
+        }
+        try {
+            redisTemplate.opsForZSet().remove(key(userId), tokenHash);
+        } catch (Exception e) {
+            // Una entrada huérfana solo ocupa hueco hasta que la expulse el límite o caduque
+            log.error("Error removing refresh session for user {}", userId, e);
+        }
+    }
+
+    public void removeAll(UUID userId) {
+        if (!enabled) {
+            return;
+        }
+        try {
+            redisTemplate.delete(key(userId));
+        } catch (Exception e) {
+            log.error("Error removing refresh sessions for user {}", userId, e);
+        }
+    }
+
+    private static String key(UUID userId) {
+        return KEY_PREFIX + userId;
+    }
+}
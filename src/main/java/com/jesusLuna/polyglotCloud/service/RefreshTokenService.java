@@ -1,12 +1,15 @@
 package com.jesusLuna.polyglotCloud.service;
 
 import java.time.Instant;
+import java.util.List;
 import java.util.UUID;
 
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import com.jesusLuna.polyglotCloud.security.JwtTokenProvider;
 import com.jesusLuna.polyglotCloud.exception.BusinessRuleException;
@@ -22,8 +25,13 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 public class RefreshTokenService {
 
+    private static final BatchPurgeService.PurgeTarget PURGE_TARGET = new BatchPurgeService.PurgeTarget(
+            "refresh-tokens", "refresh_tokens", "(expires_at < ? OR is_revoked = true)");
+
     private final RefreshTokenRepository refreshTokenRepository;
     private final JwtTokenProvider jwtTokenProvider;
+    private final RefreshSessionStore refreshSessionStore;
+    private final BatchPurgeService batchPurgeService;
 
     @Value("${app.refresh-token.max-per-user:5}")
     private int maxTokensPerUser;
@@ -34,18 +42,13 @@ public class RefreshTokenService {
 
         // Generate JWT refresh token
         String tokenString = jwtTokenProvider.generateRefreshToken(userId);
-        Instant expiresAt = Instant.now().plusMillis(jwtTokenProvider.getRefreshExpirationMs());
-
-        // Check if user has too many active tokens
-        long activeTokenCount = refreshTokenRepository.countActiveTokensByUserId(userId, Instant.now());
-        if (activeTokenCount >= maxTokensPerUser) {
-            log.warn("User {} has {} active tokens, revoking oldest ones", userId, activeTokenCount);
-            revokeOldestTokens(userId, maxTokensPerUser - 1);
-        }
+        String tokenHash = JwtTokenProvider.tokenHash(tokenString);
+        Instant now = Instant.now();
+        Instant expiresAt = now.plusMillis(jwtTokenProvider.getRefreshExpirationMs());
 
-        // Create and save refresh token
+        // Create and save refresh token (only its digest is stored)
         RefreshToken refreshToken = RefreshToken.builder()
-                .token(tokenString)
+                .tokenHash(tokenHash)
                 .userId(userId)
                 .expiresAt(expiresAt)
                 .ipAddress(ipAddress)
@@ -53,6 +56,9 @@ public class RefreshTokenService {
                 .build();
 
         refreshToken = refreshTokenRepository.save(refreshToken);
+        refreshToken.setToken(tokenString);
+
+        enforceSessionLimit(userId, tokenHash, now);
 
         log.info("Refresh token created for user: {}, expires at: {}", userId, expiresAt);
         return refreshToken;
@@ -62,8 +68,7 @@ public class RefreshTokenService {
     public RefreshToken validateRefreshToken(String tokenString) {
         log.debug("Validating refresh token");
 
-        RefreshToken refreshToken = refreshTokenRepository.findByToken(tokenString)
-                .orElseThrow(() -> new ResourceNotFoundException("Refresh token not found"));
+        RefreshToken refreshToken = findByToken(tokenString);
 
         if (refreshToken.isRevoked()) {
             log.warn("Attempted to use revoked refresh token for user: {}", refreshToken.getUserId());
@@ -86,13 +91,16 @@ public class RefreshTokenService {
         // Validate old token
         RefreshToken oldToken = validateRefreshToken(oldTokenString);
 
+        // Revoke old token; a concurrent rotation with the same token loses here
+        if (refreshTokenRepository.revokeByTokenHash(oldToken.getTokenHash()) == 0) {
+            log.warn("Refresh token for user {} was revoked concurrently", oldToken.getUserId());
+            throw new BusinessRuleException("Refresh token has been revoked");
+        }
+        afterCommit(() -> refreshSessionStore.remove(oldToken.getUserId(), oldToken.getTokenHash()));
+
         // Create new token
         RefreshToken newToken = createRefreshToken(oldToken.getUserId(), ipAddress, userAgent);
 
-        // Revoke old token
-        oldToken.revoke();
-        refreshTokenRepository.save(oldToken);
-
         log.info("Refresh token rotated for user: {}", oldToken.getUserId());
         return newToken;
     }
@@ -101,11 +109,10 @@ public class RefreshTokenService {
     public void revokeRefreshToken(String tokenString) {
         log.info("Revoking refresh token");
 
-        RefreshToken refreshToken = refreshTokenRepository.findByToken(tokenString)
-                .orElseThrow(() -> new ResourceNotFoundException("Refresh token not found"));
+        RefreshToken refreshToken = findByToken(tokenString);
 
-        refreshToken.revoke();
-        refreshTokenRepository.save(refreshToken);
+        refreshTokenRepository.revokeByTokenHash(refreshToken.getTokenHash());
+        afterCommit(() -> refreshSessionStore.remove(refreshToken.getUserId(), refreshToken.getTokenHash()));
 
         log.info("Refresh token revoked for user: {}", refreshToken.getUserId());
     }
@@ -115,38 +122,84 @@ public class RefreshTokenService {
         log.info("Revoking all refresh tokens for user: {}", userId);
 
         int revokedCount = refreshTokenRepository.revokeAllByUserId(userId);
+        afterCommit(() -> refreshSessionStore.removeAll(userId));
 
         log.info("Revoked {} refresh tokens for user: {}", revokedCount, userId);
     }
 
+    /**
+     * Revoca las sesiones activas más antiguas del usuario dejando keepCount, en una sola sentencia
+     */
     @Transactional
     public void revokeOldestTokens(UUID userId, int keepCount) {
-        var activeTokens = refreshTokenRepository.findActiveByUserId(userId);
-        
-        if (activeTokens.size() <= keepCount) {
+        int revoked = refreshTokenRepository.revokeActiveBeyond(userId, Instant.now(), keepCount);
+        if (revoked > 0) {
+            log.info("Revoked {} oldest tokens for user: {}", revoked, userId);
+        }
+    }
+
+    /**
+     * Aplica el límite de sesiones por usuario: en Redis (O(log n)) y revocando en bloque los
+     * tokens expulsados; si Redis no está disponible, con una única UPDATE en la BD.
+     * Si la transacción hace rollback el alta en Redis se deshace: el token nuevo no existe y las
+     * revocaciones se perdieron, así que las sesiones expulsadas vuelven a contar para el límite.
+     */
+    private void enforceSessionLimit(UUID userId, String tokenHash, Instant issuedAt) {
+        List<RefreshSessionStore.Session> evicted = refreshSessionStore.register(
+                userId, tokenHash, issuedAt.toEpochMilli(), jwtTokenProvider.getRefreshExpirationMs(), maxTokensPerUser);
+
+        if (evicted == null) {
+            revokeOldestTokens(userId, maxTokensPerUser);
             return;
         }
-    // Sort by creation date and revoke oldest
-        activeTokens.stream()
-                .sorted((t1, t2) -> t1.getCreatedAt().compareTo(t2.getCreatedAt()))
-                .limit(activeTokens.size() - keepCount)
-                .forEach(token -> {
-                    token.revoke();
-                    refreshTokenRepository.save(token);
-                });
-
-        log.info("Revoked {} oldest tokens for user: {}", activeTokens.size() - keepCount, userId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        refreshSessionStore.undoRegister(userId, tokenHash, evicted);
+                    }
+                }
+            });
+        }
+        if (!evicted.isEmpty()) {
+            int revoked = refreshTokenRepository.revokeAllByTokenHashIn(
+                    evicted.stream().map(RefreshSessionStore.Session::tokenHash).toList());
+            log.warn("User {} exceeded {} active sessions, revoked {} oldest tokens", userId, maxTokensPerUser, revoked);
+        }
     }
 
-    @Scheduled(cron = "0 0 2 * * *")
-    @Transactional
+    /**
+     * Las bajas en Redis solo cuando la revocación ya es definitiva: si la transacción hiciera
+     * rollback el token seguiría activo pero fuera del límite de sesiones
+     */
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private RefreshToken findByToken(String tokenString) {
+        return refreshTokenRepository.findByTokenHash(JwtTokenProvider.tokenHash(tokenString))
+                .orElseThrow(() -> new ResourceNotFoundException("Refresh token not found"));
+    }
+
+    /**
+     * Purga por lotes de tokens caducados o revocados (un solo nodo del clúster, ver {@link BatchPurgeService})
+     */
+    @Scheduled(cron = "${app.maintenance.purge.refresh-tokens.cron:0 0 2 * * *}")
     public void cleanupExpiredTokens() {
         log.info("Starting cleanup of expired and revoked refresh tokens");
 
-        int expiredCount = refreshTokenRepository.deleteExpiredTokens(Instant.now());
-        int revokedCount = refreshTokenRepository.deleteRevokedTokens();
+        var result = batchPurgeService.purge(PURGE_TARGET, Instant.now());
 
-        log.info("Cleanup completed: {} expired tokens, {} revoked tokens deleted", expiredCount, revokedCount);
+        log.info("Cleanup completed: {} expired or revoked tokens deleted", result.deleted());
     }
-    
 }
\ No newline at end of file
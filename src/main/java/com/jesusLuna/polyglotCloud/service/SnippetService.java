@@ -178,6 +178,7 @@ public class SnippetService {
 
         Snippet updated = snippetRepository.save(snippet);
         log.info("Snippet updated successfully with id: {}", updated.getId());
+        cacheService.delete("snippet:" + id);
         return updated;
     }
 
@@ -194,6 +195,7 @@ public class SnippetService {
         snippet.publish(makePublic);
         Snippet published = snippetRepository.save(snippet);
         log.info("Snippet published successfully with id: {}", published.getId());
+        cacheService.delete("snippet:" + id);
         return published;
     }
 
@@ -211,7 +213,6 @@ public class SnippetService {
         snippetRepository.save(snippet);
         log.info("Snippet soft deleted successfully with id: {}", id);
         cacheService.delete("snippet:" + id);
-        cacheService.deletePattern("snippets:*"); // Invalidar listas
     }
 
     @Transactional
@@ -227,6 +228,7 @@ public class SnippetService {
         snippet.archive();
         Snippet archived = snippetRepository.save(snippet);
         log.info("Snippet archived successfully with id: {}", archived.getId());
+        cacheService.delete("snippet:" + id);
         return archived;
     }
 
@@ -3,9 +3,15 @@ package com.jesusLuna.polyglotCloud.service;
 import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.CRC32C;
 
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -13,17 +19,45 @@ import com.jesusLuna.polyglotCloud.exception.BusinessRuleException;
 import com.jesusLuna.polyglotCloud.models.Translations.Translation;
 import com.jesusLuna.polyglotCloud.models.enums.TranslationStatus;
 import com.jesusLuna.polyglotCloud.repository.TranslationRepository;
+import com.jesusLuna.polyglotCloud.util.CodeNormalizer;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
+/**
+ * Detección de traducciones duplicadas por content_hash.
+ * El índice de duplicados (caché "translation-dedup": L1 en memoria + Redis) guarda para cada hash
+ * la traducción completada y una huella del código normalizado, de modo que una petición repetida
+ * se resuelve sin la consulta por hash ni cargar el código fuente guardado. Se rellena al completar
+ * una traducción y al verificar un duplicado en la BD, y se invalida cuando la traducción deja de
+ * estar COMPLETED (revisión, rechazo).
+ */
 @Service
 @RequiredArgsConstructor
 @Slf4j
 @Transactional(readOnly = true)
 public class TranslationDeduplicationService {
 
+    public static final String DEDUP_CACHE = "translation-dedup";
+
+    // Pool acotado y no por hilo: con hilos virtuales un ThreadLocal crearía un hasher por petición.
+    // El trabajo es solo CPU, así que no hacen falta más instancias que núcleos; si se agota se crea una suelta
+    private static final BlockingQueue<ContentHasher> HASHERS =
+            new ArrayBlockingQueue<>(Runtime.getRuntime().availableProcessors());
+
     private final TranslationRepository translationRepository;
+    private final CacheManager cacheManager;
+
+    /**
+     * Hash de deduplicación y huella del código normalizado (longitud en bytes UTF-8 + CRC32C),
+     * calculados en la misma pasada
+     */
+    public record ContentKey(String contentHash, String fingerprint) {}
+
+    /**
+     * Entrada del índice de duplicados: lo necesario para validar un acierto sin ir a la BD
+     */
+    public record DedupEntry(UUID translationId, UUID sourceLanguageId, UUID targetLanguageId, String fingerprint) {}
 
     /**
      * Busca si existe una traducción completada idéntica
@@ -37,13 +71,45 @@ public class TranslationDeduplicationService {
             UUID targetLanguageId, 
             String sourceCode) {
         
+        return findExistingTranslation(sourceLanguageId, targetLanguageId, sourceCode,
+                computeContentKey(sourceLanguageId, targetLanguageId, sourceCode));
+    }
+
+    /**
+     * Igual que {@link #findExistingTranslation(UUID, UUID, String)} con el hash ya calculado
+     */
+    public Optional<Translation> findExistingTranslation(
+            UUID sourceLanguageId,
+            UUID targetLanguageId,
+            String sourceCode,
+            ContentKey contentKey) {
+
+        String contentHash = contentKey.contentHash();
         log.debug("Searching for existing translation from {} to {} with code hash", 
                 sourceLanguageId, targetLanguageId);
+
+        // 1. Índice de duplicados: sin consulta por hash ni carga del código guardado
+        DedupEntry indexed = lookupIndex(contentHash);
+        if (indexed != null) {
+            if (!indexed.sourceLanguageId().equals(sourceLanguageId)
+                    || !indexed.targetLanguageId().equals(targetLanguageId)
+                    || !indexed.fingerprint().equals(contentKey.fingerprint())) {
+                log.warn("Hash collision detected for content hash: {}. Proceeding with new translation.", 
+                        contentHash);
+                return Optional.empty();
+            }
+
+            Optional<Translation> translation = translationRepository.findCompletedById(indexed.translationId());
+            if (translation.isPresent()) {
+                log.info("Found existing completed translation {} in dedup index for hash: {}",
+                        indexed.translationId(), contentHash);
+                return translation;
+            }
+            // Entrada obsoleta (la traducción ya no está COMPLETED): ir a la BD
+            evictIndex(contentHash);
+        }
         
-        // Generar hash del contenido
-        String contentHash = generateContentHash(sourceLanguageId, targetLanguageId, sourceCode);
-        
-        // Buscar traducción existente completada con el mismo hash
+        // 2. Buscar traducción existente completada con el mismo hash
         Optional<Translation> existing = translationRepository
                 .findCompletedByContentHash(contentHash);
         
@@ -54,6 +120,8 @@ public class TranslationDeduplicationService {
             // Validación defensiva contra colisiones
             Translation translation = existing.get();
             if (isActualDuplicate(translation, sourceLanguageId, targetLanguageId, sourceCode)) {
+                putIndex(contentHash, new DedupEntry(translation.getId(), sourceLanguageId, targetLanguageId,
+                        contentKey.fingerprint()));
                 return existing;
             } else {
                 log.warn("Hash collision detected for content hash: {}. Proceeding with new translation.", 
@@ -73,37 +141,51 @@ public class TranslationDeduplicationService {
      * @return Hash SHA-256 en formato hexadecimal
      */
     public String generateContentHash(UUID sourceLanguageId, UUID targetLanguageId, String sourceCode) {
+        return computeContentKey(sourceLanguageId, targetLanguageId, sourceCode).contentHash();
+    }
+
+    /**
+     * Hash de deduplicación y huella del código en una sola pasada
+     */
+    public ContentKey computeContentKey(UUID sourceLanguageId, UUID targetLanguageId, String sourceCode) {
+        // Combinar: sourceLanguageId + "|" + targetLanguageId + "|" + código normalizado, directamente al digest
+        ContentHasher hasher = borrowHasher();
         try {
-            MessageDigest digest = MessageDigest.getInstance("SHA-256");
-            
-            // Normalizar el código (remover espacios y saltos de línea extra)
-            String normalizedCode = normalizecode(sourceCode);
-            
-            // Combinar: sourceLanguageId + targetLanguageId + normalizedCode
-            String combined = sourceLanguageId.toString() + 
-                             "|" + targetLanguageId.toString() + 
-                             "|" + normalizedCode;
-            
-            byte[] hash = digest.digest(combined.getBytes(StandardCharsets.UTF_8));
-            
-            // Convertir a hexadecimal
-            StringBuilder hexString = new StringBuilder();
-            for (byte b : hash) {
-                String hex = Integer.toHexString(0xff & b);
-                if (hex.length() == 1) {
-                    hexString.append('0');
-                }
-                hexString.append(hex);
-            }
-            
-            return hexString.toString();
-            
-        } catch (NoSuchAlgorithmException e) {
-            log.error("SHA-256 algorithm not available", e);
-            throw new BusinessRuleException("Hash generation failed");
+            return hasher.hash(sourceLanguageId, targetLanguageId, sourceCode);
+        } finally {
+            HASHERS.offer(hasher);
         }
     }
 
+    /**
+     * Registra en el índice una traducción recién completada (se publica tras el commit)
+     * @param sourceCode código fuente del que salió la traducción
+     */
+    public void indexCompleted(Translation translation, String sourceCode) {
+        indexCompleted(translation, computeContentKey(
+                translation.getSourceLanguage().getId(), translation.getTargetLanguage().getId(), sourceCode));
+    }
+
+    /**
+     * Igual que {@link #indexCompleted(Translation, String)} con la clave ya calculada
+     */
+    public void indexCompleted(Translation translation, ContentKey contentKey) {
+        if (!contentKey.contentHash().equals(translation.getContentHash())) {
+            // El snippet cambió desde la petición: el hash guardado ya no describe este código
+            log.debug("Translation {} not indexed: source changed since it was requested", translation.getId());
+            return;
+        }
+        putIndex(contentKey.contentHash(), new DedupEntry(translation.getId(),
+                translation.getSourceLanguage().getId(), translation.getTargetLanguage().getId(), contentKey.fingerprint()));
+    }
+
+    /**
+     * Quita del índice el hash de una traducción que deja de ser reutilizable
+     */
+    public void evictFromIndex(Translation translation) {
+        evictIndex(translation.getContentHash());
+    }
+
     /**
      * Crea una copia de una traducción existente para un nuevo usuario
      * @param existingTranslation Traducción existente a reutilizar
@@ -138,26 +220,37 @@ public class TranslationDeduplicationService {
         return saved;
     }
 
-    /**
-     * Normaliza el código para generar hashes consistentes
-     * @param code Código original
-     * @return Código normalizado
-     */
-    private String normalizecode(String code) {
-        if (code == null) {
-            return "";
+    private DedupEntry lookupIndex(String contentHash) {
+        try {
+            Cache cache = cacheManager.getCache(DEDUP_CACHE);
+            return cache != null ? cache.get(contentHash, DedupEntry.class) : null;
+        } catch (RuntimeException e) {
+            // Sin Redis se sigue por la BD
+            log.warn("Dedup index lookup failed for hash {}: {}", contentHash, e.getMessage());
+            return null;
+        }
+    }
+
+    private void putIndex(String contentHash, DedupEntry entry) {
+        try {
+            Cache cache = cacheManager.getCache(DEDUP_CACHE);
+            if (cache != null) {
+                cache.put(contentHash, entry);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Dedup index update failed for hash {}: {}", contentHash, e.getMessage());
+        }
+    }
+
+    private void evictIndex(String contentHash) {
+        try {
+            Cache cache = cacheManager.getCache(DEDUP_CACHE);
+            if (cache != null) {
+                cache.evict(contentHash);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Dedup index eviction failed for hash {}: {}", contentHash, e.getMessage());
         }
-        
-        return code
-                // Normalizar saltos de línea
-                .replaceAll("\\r\\n", "\n")
-                .replaceAll("\\r", "\n")
-                // Remover espacios extra al final de líneas
-                .replaceAll("[ \\t]+\\n", "\n")
-                // Remover líneas vacías múltiples consecutivas
-                .replaceAll("\\n\\s*\\n\\s*\\n", "\n\n")
-                // Trimear el inicio y final
-                .strip();
     }
 
     /**
@@ -172,12 +265,151 @@ public class TranslationDeduplicationService {
         
         boolean languageMatch = existing.getSourceLanguage().getId().equals(sourceLanguageId) &&
                                 existing.getTargetLanguage().getId().equals(targetLanguageId);
+        if (!languageMatch) {
+            return false;
+        }
         
         String existingSourceCode = existing.getSourceSnippet().getContent(); // Usa el método auxiliar
 
-        boolean codeMatch = normalizecode(existingSourceCode)
-                            .equals(normalizecode(sourceCode));
-        
-        return languageMatch && codeMatch;
+        // Normaliza ambos en un buffer reutilizable y para en la primera diferencia
+        ContentHasher hasher = borrowHasher();
+        try {
+            return hasher.normalizer.normalizedEquals(existingSourceCode, sourceCode);
+        } finally {
+            HASHERS.offer(hasher);
+        }
+    }
+
+    private static ContentHasher borrowHasher() {
+        ContentHasher hasher = HASHERS.poll();
+        return hasher != null ? hasher : new ContentHasher();
+    }
+
+    /**
+     * SHA-256 del contenido normalizado sin cadenas intermedias: el normalizador entrega los caracteres,
+     * se codifican a UTF-8 en un buffer reutilizable y el buffer alimenta el digest (y el CRC32C de la huella).
+     * Mismos bytes que "uuid|uuid|" + normalizado en UTF-8 (los hashes ya guardados siguen valiendo).
+     * Cada instancia la usa un solo hilo a la vez (se toma del pool): MessageDigest y los buffers no son thread-safe.
+     */
+    private static final class ContentHasher implements CodeNormalizer.CharSink {
+
+        private static final byte[] HEX_DIGITS = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+        private static final HexFormat HEX = HexFormat.of();
+
+        private final MessageDigest digest;
+        private final CRC32C checksum = new CRC32C();
+        private final CodeNormalizer normalizer = new CodeNormalizer();
+        private final byte[] buffer = new byte[8192];
+        private int position;
+        private int contentStart;
+        private long contentBytes;
+        private char pendingHighSurrogate;
+
+        private ContentHasher() {
+            try {
+                this.digest = MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+                log.error("SHA-256 algorithm not available", e);
+                throw new BusinessRuleException("Hash generation failed");
+            }
+        }
+
+        ContentKey hash(UUID sourceLanguageId, UUID targetLanguageId, String sourceCode) {
+            digest.reset();
+            checksum.reset();
+            position = 0;
+            contentStart = 0;
+            contentBytes = 0;
+            pendingHighSurrogate = 0;
+
+            putUuid(sourceLanguageId);
+            put('|');
+            putUuid(targetLanguageId);
+            put('|');
+            // La huella cubre solo el código (el prefijo siempre cabe en el primer buffer)
+            contentStart = position;
+            normalizer.normalize(sourceCode, this);
+            if (pendingHighSurrogate != 0) {
+                put('?');
+            }
+            flush();
+
+            return new ContentKey(HEX.formatHex(digest.digest()),
+                    contentBytes + ":" + Long.toHexString(checksum.getValue()));
+        }
+
+        /**
+         * Codifica a UTF-8 igual que String.getBytes (un surrogate sin pareja se codifica como '?')
+         */
+        @Override
+        public boolean accept(char c) {
+            if (pendingHighSurrogate != 0) {
+                char high = pendingHighSurrogate;
+                pendingHighSurrogate = 0;
+                if (Character.isLowSurrogate(c)) {
+                    int codePoint = Character.toCodePoint(high, c);
+                    put(0xF0 | (codePoint >>> 18));
+                    put(0x80 | ((codePoint >>> 12) & 0x3F));
+                    put(0x80 | ((codePoint >>> 6) & 0x3F));
+                    put(0x80 | (codePoint & 0x3F));
+                    return true;
+                }
+                put('?');
+            }
+
+            if (c < 0x80) {
+                put(c);
+            } else if (c < 0x800) {
+                put(0xC0 | (c >>> 6));
+                put(0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c)) {
+                pendingHighSurrogate = c;
+            } else if (Character.isLowSurrogate(c)) {
+                put('?');
+            } else {
+                put(0xE0 | (c >>> 12));
+                put(0x80 | ((c >>> 6) & 0x3F));
+                put(0x80 | (c & 0x3F));
+            }
+            return true;
+        }
+
+        /**
+         * Mismo texto que UUID.toString() (8-4-4-4-12 en minúsculas) sin crear la cadena
+         */
+        private void putUuid(UUID id) {
+            long msb = id.getMostSignificantBits();
+            long lsb = id.getLeastSignificantBits();
+            putHex(msb >>> 32, 8);
+            put('-');
+            putHex(msb >>> 16, 4);
+            put('-');
+            putHex(msb, 4);
+            put('-');
+            putHex(lsb >>> 48, 4);
+            put('-');
+            putHex(lsb, 12);
+        }
+
+        private void putHex(long value, int digits) {
+            for (int shift = (digits - 1) * 4; shift >= 0; shift -= 4) {
+                put(HEX_DIGITS[(int) (value >>> shift) & 0xF]);
+            }
+        }
+
+        private void put(int b) {
+            if (position == buffer.length) {
+                flush();
+            }
+            buffer[position++] = (byte) b;
+        }
+
+        private void flush() {
+            digest.update(buffer, 0, position);
+            checksum.update(buffer, contentStart, position - contentStart);
+            contentBytes += position - contentStart;
+            position = 0;
+            contentStart = 0;
+        }
     }
 }
\ No newline at end of file
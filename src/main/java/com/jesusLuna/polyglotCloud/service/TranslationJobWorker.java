@@ -0,0 +1,352 @@
+package com.jesusLuna.polyglotCloud.service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.jesusLuna.polyglotCloud.config.TranslationQueueProperties;
+import com.jesusLuna.polyglotCloud.exception.ServiceUnavailableException;
+import com.jesusLuna.polyglotCloud.models.Language;
+import com.jesusLuna.polyglotCloud.models.Translations.TranslationJob;
+import com.jesusLuna.polyglotCloud.repository.LanguageRepository;
+import com.jesusLuna.polyglotCloud.repository.TranslationJobRepository;
+import com.jesusLuna.polyglotCloud.service.engine.TranslationEngine.TranslationResult;
+import com.jesusLuna.polyglotCloud.service.engine.TranslationEngine.TranslationTask;
+import com.jesusLuna.polyglotCloud.service.engine.TranslationEngineGateway;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Workers de la cola persistente de traducciones (translation_jobs).
+ * En cada pasada, por cada idioma destino con trabajos listos, reclama en orden de prioridad hasta
+ * (huecos libres × max-batch-size del motor) trabajos y los reparte en lotes, uno por hueco: cada
+ * lote es una sola llamada al motor a través de {@link TranslationEngineGateway}, porque el coste
+ * fijo por llamada domina con snippets pequeños. Un trabajo reclamado queda invisible durante el
+ * timeout de visibilidad: si el nodo cae, otro lo retoma. Los fallos se reintentan con backoff
+ * exponencial hasta max-attempts y después la traducción queda FAILED; si el gateway rechaza la
+ * llamada (circuito abierto, motor saturado) el lote vuelve a la cola sin consumir intento.
+ * Todos los resultados se guardan con UPDATE/DELETE condicionales: un worker cuyo trabajo ya
+ * completó o reclamó otro no escribe nada.
+ */
+@Slf4j
+@Service
+public class TranslationJobWorker implements DisposableBean {
+
+    /**
+     * Un trabajo ya arrancado junto con lo que se envía al motor
+     */
+    private record PendingJob(TranslationJob job, TranslationTask task) {}
+
+    private final TranslationJobRepository jobRepository;
+    private final LanguageRepository languageRepository;
+    private final TranslationService translationService;
+    private final TranslationEngineGateway engineGateway;
+    private final TranslationQueueProperties properties;
+    private final TransactionTemplate transactionTemplate;
+    private final ExecutorService executor;
+
+    private final Map<UUID, AtomicInteger> inFlight = new ConcurrentHashMap<>();
+    private final Map<UUID, String> languageCodes = new ConcurrentHashMap<>();
+    private final AtomicInteger totalInFlight = new AtomicInteger();
+
+    private final Counter completed;
+    private final Counter retried;
+    private final Counter deferred;
+    private final Counter failed;
+    private final Counter discarded;
+    private final Timer jobTime;
+
+    public TranslationJobWorker(TranslationJobRepository jobRepository,
+                                LanguageRepository languageRepository,
+                                TranslationService translationService,
+                                TranslationEngineGateway engineGateway,
+                                TranslationQueueProperties properties,
+                                TransactionTemplate transactionTemplate,
+                                MeterRegistry meterRegistry,
+                                @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.jobRepository = jobRepository;
+        this.languageRepository = languageRepository;
+        this.translationService = translationService;
+        this.engineGateway = engineGateway;
+        this.properties = properties;
+        this.transactionTemplate = transactionTemplate;
+
+        // La concurrencia la limitan los huecos por idioma, no el executor
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = virtualThreads
+                ? Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("translation-job-", 1).factory())
+                : Executors.newCachedThreadPool(runnable -> {
+                    Thread thread = new Thread(runnable, "translation-job-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+
+        this.completed = outcomeCounter(meterRegistry, "completed");
+        this.retried = outcomeCounter(meterRegistry, "retry");
+        this.deferred = outcomeCounter(meterRegistry, "deferred");
+        this.failed = outcomeCounter(meterRegistry, "failed");
+        this.discarded = outcomeCounter(meterRegistry, "discarded");
+        this.jobTime = Timer.builder("translation.jobs.duration")
+                .description("Time from claiming a translation job to its outcome")
+                .register(meterRegistry);
+        Gauge.builder("translation.jobs.in-flight", totalInFlight, AtomicInteger::get)
+                .description("Translation jobs running on this instance")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${app.translation.queue.poll-interval-ms:500}")
+    public void poll() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        if (!engineGateway.isAvailable()) {
+            // Circuito abierto: no reclamar trabajo que solo volvería a la cola
+            log.debug("Translation engine '{}' unavailable, skipping poll", engineGateway.engineName());
+            return;
+        }
+
+        int maxBatchSize = engineGateway.maxBatchSize();
+        Instant now = Instant.now();
+        for (UUID languageId : jobRepository.findLanguagesWithDueJobs(now)) {
+            AtomicInteger running = inFlight.computeIfAbsent(languageId, id -> new AtomicInteger());
+            int free = properties.concurrencyFor(languageCode(languageId)) - running.get();
+            if (free <= 0) {
+                continue;
+            }
+
+            List<TranslationJob> claimed = transactionTemplate.execute(status -> claim(languageId, free * maxBatchSize));
+            if (claimed == null || claimed.isEmpty()) {
+                continue;
+            }
+
+            // Un lote por hueco libre: lotes llenos con cola larga, más paralelismo con poca
+            int chunkSize = (claimed.size() + free - 1) / free;
+            for (int from = 0; from < claimed.size(); from += chunkSize) {
+                List<TranslationJob> batch = List.copyOf(claimed.subList(from, Math.min(from + chunkSize, claimed.size())));
+                running.incrementAndGet();
+                totalInFlight.addAndGet(batch.size());
+                executor.execute(() -> {
+                    try {
+                        processBatch(batch);
+                    } finally {
+                        running.decrementAndGet();
+                        totalInFlight.addAndGet(-batch.size());
+                    }
+                });
+            }
+        }
+    }
+
+    @Override
+    public void destroy() {
+        // Los trabajos interrumpidos vuelven a la cola al vencer su timeout de visibilidad
+        executor.shutdownNow();
+    }
+
+    private List<TranslationJob> claim(UUID languageId, int limit) {
+        Instant now = Instant.now();
+        List<TranslationJob> jobs = jobRepository.lockDueJobs(languageId, now, limit);
+        Instant visibleAgainAt = now.plusSeconds(properties.getVisibilityTimeoutSeconds());
+        jobs.forEach(job -> job.claim(visibleAgainAt));
+        return jobs;
+    }
+
+    private void processBatch(List<TranslationJob> jobs) {
+        long startedAt = System.nanoTime();
+        try {
+            List<PendingJob> pending = new ArrayList<>(jobs.size());
+            for (TranslationJob job : jobs) {
+                PendingJob started = start(job, startedAt);
+                if (started != null) {
+                    pending.add(started);
+                }
+            }
+            for (List<PendingJob> call : splitByChars(pending)) {
+                translate(call, startedAt);
+            }
+        } finally {
+            long elapsed = System.nanoTime() - startedAt;
+            jobs.forEach(job -> jobTime.record(elapsed, TimeUnit.NANOSECONDS));
+        }
+    }
+
+    /**
+     * Marca la traducción como PROCESSING; null si ya no hay nada que traducir o no se pudo arrancar
+     */
+    private PendingJob start(TranslationJob job, long startedAt) {
+        UUID translationId = job.getTranslationId();
+        try {
+            Optional<TranslationService.MachineTranslationInput> input = translationService.startMachineTranslation(translationId);
+            if (input.isEmpty()) {
+                log.info("Translation {} no longer awaits machine translation, dropping job {}", translationId, job.getId());
+                transactionTemplate.executeWithoutResult(status -> jobRepository.deleteJob(job.getId()));
+                return null;
+            }
+
+            TranslationService.MachineTranslationInput work = input.get();
+            return new PendingJob(job, new TranslationTask(translationId, work.sourceCode(), work.sourceLanguage(), work.targetLanguage()));
+        } catch (Exception e) {
+            handleFailure(job, messageOf(e), e, elapsedMs(startedAt));
+            return null;
+        }
+    }
+
+    /**
+     * Parte el lote para que ninguna llamada supere max-batch-chars (un snippet mayor va solo)
+     */
+    private List<List<PendingJob>> splitByChars(List<PendingJob> pending) {
+        int maxChars = engineGateway.maxBatchChars();
+        List<List<PendingJob>> calls = new ArrayList<>();
+        List<PendingJob> current = new ArrayList<>();
+        long chars = 0;
+        for (PendingJob job : pending) {
+            int length = job.task().sourceCode().length();
+            if (!current.isEmpty() && chars + length > maxChars) {
+                calls.add(current);
+                current = new ArrayList<>();
+                chars = 0;
+            }
+            current.add(job);
+            chars += length;
+        }
+        if (!current.isEmpty()) {
+            calls.add(current);
+        }
+        return calls;
+    }
+
+    private void translate(List<PendingJob> call, long startedAt) {
+        List<TranslationResult> results;
+        try {
+            results = engineGateway.translateBatch(call.stream().map(PendingJob::task).toList());
+        } catch (ServiceUnavailableException e) {
+            call.forEach(pending -> defer(pending.job(), e, elapsedMs(startedAt)));
+            return;
+        } catch (Exception e) {
+            long elapsedMs = elapsedMs(startedAt);
+            call.forEach(pending -> handleFailure(pending.job(), messageOf(e), e, elapsedMs));
+            return;
+        }
+
+        long elapsedMs = elapsedMs(startedAt);
+        for (int i = 0; i < call.size(); i++) {
+            TranslationJob job = call.get(i).job();
+            TranslationResult result = results.get(i);
+            if (!result.isSuccess()) {
+                handleFailure(job, result.error(), null, elapsedMs);
+                continue;
+            }
+            try {
+                // Solo quien borra el trabajo guarda el resultado: con un trabajo reclamado dos veces
+                // (timeout de visibilidad vencido) el segundo worker no duplica la versión inicial
+                Boolean applied = transactionTemplate.execute(status ->
+                        jobRepository.deleteJob(job.getId()) == 1
+                                && translationService.completeMachineTranslation(job.getTranslationId(), result.translatedCode(), elapsedMs));
+                if (Boolean.TRUE.equals(applied)) {
+                    completed.increment();
+                } else {
+                    discarded.increment();
+                    log.info("Translation job {} already finished elsewhere, discarding result", job.getId());
+                }
+            } catch (Exception e) {
+                handleFailure(job, messageOf(e), e, elapsedMs);
+            }
+        }
+    }
+
+    private void defer(TranslationJob job, ServiceUnavailableException rejection, long elapsedMs) {
+        int claimedAttempts = job.getAttempts();
+        job.defer(Instant.now().plusSeconds(rejection.getRetryAfterSeconds()), rejection.getMessage());
+        if (recordOutcome(job, claimedAttempts, rejection.getMessage(), elapsedMs, false)) {
+            deferred.increment();
+            log.debug("Translation {} deferred {}s: {}", job.getTranslationId(), rejection.getRetryAfterSeconds(), rejection.getMessage());
+        }
+    }
+
+    private void handleFailure(TranslationJob job, String message, Exception error, long elapsedMs) {
+        int claimedAttempts = job.getAttempts();
+        boolean finalAttempt = claimedAttempts >= properties.getMaxAttempts();
+
+        if (finalAttempt) {
+            job.fail(message);
+            if (recordOutcome(job, claimedAttempts, message, elapsedMs, true)) {
+                failed.increment();
+                log.error("Translation {} failed permanently after {} attempts: {}", job.getTranslationId(), claimedAttempts, message, error);
+            }
+        } else {
+            long backoff = Math.min(properties.getMaxBackoffSeconds(),
+                    properties.getInitialBackoffSeconds() << Math.min(claimedAttempts - 1, 20));
+            job.retryAt(Instant.now().plusSeconds(backoff), message);
+            if (recordOutcome(job, claimedAttempts, message, elapsedMs, false)) {
+                retried.increment();
+                log.warn("Translation {} failed (attempt {}), retrying in {}s: {}",
+                        job.getTranslationId(), claimedAttempts, backoff, message);
+            }
+        }
+    }
+
+    /**
+     * Guarda el trabajo y el intento fallido en la traducción, solo si este worker sigue siendo
+     * el dueño del trabajo (UPDATE condicional, nunca save()); false si no se guardó nada
+     */
+    private boolean recordOutcome(TranslationJob job, int claimedAttempts, String message, long elapsedMs, boolean finalAttempt) {
+        try {
+            Boolean recorded = transactionTemplate.execute(status -> {
+                if (jobRepository.recordAttemptIfClaimed(job, claimedAttempts) == 0) {
+                    return false;
+                }
+                translationService.failMachineTranslation(job.getTranslationId(), message, elapsedMs, finalAttempt);
+                return true;
+            });
+            if (!Boolean.TRUE.equals(recorded)) {
+                discarded.increment();
+                log.info("Translation job {} no longer held by attempt {}, ignoring its failure: {}", job.getId(), claimedAttempts, message);
+                return false;
+            }
+            return true;
+        } catch (Exception e) {
+            // El trabajo sigue RUNNING: se retomará al vencer el timeout de visibilidad
+            log.error("Error recording failure of translation job {}", job.getId(), e);
+            return false;
+        }
+    }
+
+    private String languageCode(UUID languageId) {
+        return languageCodes.computeIfAbsent(languageId, id -> languageRepository.findById(id)
+                .map(Language::getCode)
+                .orElse(null));
+    }
+
+    private static String messageOf(Exception error) {
+        return error.getMessage() != null ? error.getMessage() : error.getClass().getSimpleName();
+    }
+
+    private static long elapsedMs(long startedAt) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt);
+    }
+
+    private static Counter outcomeCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("translation.jobs")
+                .description("Translation jobs processed by outcome")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
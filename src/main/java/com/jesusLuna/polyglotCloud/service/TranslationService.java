@@ -1,8 +1,13 @@
 package com.jesusLuna.polyglotCloud.service;
 
+import java.time.Instant;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -18,15 +23,19 @@ import com.jesusLuna.polyglotCloud.mapper.TranslationMapper;
 import com.jesusLuna.polyglotCloud.models.Language;
 import com.jesusLuna.polyglotCloud.models.Snippet;
 import com.jesusLuna.polyglotCloud.models.Translations.Translation;
+import com.jesusLuna.polyglotCloud.models.Translations.TranslationJob;
 import com.jesusLuna.polyglotCloud.models.Translations.TranslationVersion;
 import com.jesusLuna.polyglotCloud.models.User;
 import com.jesusLuna.polyglotCloud.models.enums.Role;
+import com.jesusLuna.polyglotCloud.models.enums.TranslationJobPriority;
 import com.jesusLuna.polyglotCloud.models.enums.TranslationStatus;
 import com.jesusLuna.polyglotCloud.repository.LanguageRepository;
 import com.jesusLuna.polyglotCloud.repository.SnippetRepository;
+import com.jesusLuna.polyglotCloud.repository.TranslationJobRepository;
 import com.jesusLuna.polyglotCloud.repository.TranslationRepository;
 import com.jesusLuna.polyglotCloud.repository.TranslationVersionRepository;
 import com.jesusLuna.polyglotCloud.repository.UserRepository;
+import com.jesusLuna.polyglotCloud.service.engine.TranslationEngineGateway;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -45,6 +54,10 @@ public class TranslationService {
     private final TranslationMapper translationMapper;
     private final UserRepository userRepository;
     private final TranslationDeduplicationService deduplicationService;
+    private final LeaderboardService leaderboardService;
+    private final TranslationJobRepository translationJobRepository;
+    private final CacheManager cacheManager;
+    private final TranslationEngineGateway engineGateway;
 
 
     @Transactional
@@ -64,16 +77,31 @@ public class TranslationService {
             throw new BusinessRuleException("Cannot translate to the same language");
         }
 
-        // ✅ VALIDAR QUE SE PROPORCIONE TRADUCCIÓN MANUAL
-        if (request.manualTranslation() == null || request.manualTranslation().trim().isEmpty()) {
+        // Generar hash del contenido (y huella para el índice de duplicados)
+        TranslationDeduplicationService.ContentKey contentKey = deduplicationService.computeContentKey(
+            sourceSnippet.getLanguage().getId(),
+            targetLanguage.getId(),
+            sourceSnippet.getContent()
+        );
+        String contentHash = contentKey.contentHash();
+
+        boolean machineTranslation = request.manualTranslation() == null || request.manualTranslation().isBlank();
+        if (machineTranslation && !engineGateway.acceptsMachineTranslations()) {
+            // Con el motor simulado por defecto no hay traducción automática real
             throw new BusinessRuleException("Manual translation is required");
         }
-                
+        if (machineTranslation) {
+            // Single-flight: peticiones idénticas simultáneas (en cualquier nodo) se serializan aquí,
+            // así que la comprobación de duplicados y la elección de líder no compiten entre sí
+            translationRepository.lockContentHash(contentHashLockKey(contentHash));
+        }
+
         // 🔍 VERIFICAR SI EXISTE TRADUCCIÓN DUPLICADA
         Optional<Translation> existingTranslation = deduplicationService.findExistingTranslation(
             sourceSnippet.getLanguage().getId(),
             targetLanguage.getId(),
-            sourceSnippet.getContent()
+            sourceSnippet.getContent(),
+            contentKey
         );
 
         if (existingTranslation.isPresent()) {
@@ -81,12 +109,29 @@ public class TranslationService {
             return deduplicationService.reuseTranslation(existingTranslation.get(), requestedBy.getId());
         }
 
-        // Generar hash para nueva traducción
-        String contentHash = deduplicationService.generateContentHash(
-            sourceSnippet.getLanguage().getId(),
-            targetLanguage.getId(),
-            sourceSnippet.getContent()
-        );
+        // Sin traducción manual: traducción automática a través de la cola persistente
+        if (machineTranslation) {
+            Optional<Translation> inFlight = translationRepository.findInFlightByContentHash(contentHash);
+            Translation pending = translationRepository.save(Translation.builder()
+                    .sourceSnippet(sourceSnippet)
+                    .sourceLanguage(sourceSnippet.getLanguage())
+                    .targetLanguage(targetLanguage)
+                    .requestedBy(requestedBy)
+                    .translationNotes(request.translationNotes())
+                    .status(TranslationStatus.PENDING)
+                    .contentHash(contentHash)
+                    .coalescedWith(inFlight.map(Translation::getId).orElse(null))
+                    .currentVersionNumber(1)
+                    .build());
+
+            if (inFlight.isPresent()) {
+                // Ya hay una traducción idéntica en curso: esperar su resultado en lugar de llamar al motor
+                log.info("Translation {} coalesced with in-flight translation {}", pending.getId(), inFlight.get().getId());
+                return pending;
+            }
+            enqueueMachineTranslation(pending, TranslationJobPriority.forRole(requestedBy.getRole()));
+            return pending;
+        }
 
         // Crear nueva traducción
         Translation translation = Translation.builder()
@@ -103,10 +148,8 @@ public class TranslationService {
 
         Translation saved = translationRepository.save(translation);
 
-        // Procesar asíncronamente solo si es nueva
-        //TODO: Revisar esta Logica bien
         createInitialVersion(saved, request.manualTranslation());
-        //processTranslationAsync(saved.getId());
+        deduplicationService.indexCompleted(saved, contentKey);
 
         return saved;
     }
@@ -137,79 +180,146 @@ public class TranslationService {
         return translationRepository.findByRequestedByIdOrderByCreatedAtDesc(userId, pageable);
     }
 
+    // ======================================
+    // TRADUCCIÓN AUTOMÁTICA (cola persistente, ver TranslationJobWorker)
+    // ======================================
+
     /**
-     * @Async("translationExecutor")
+     * Datos que necesita el motor para traducir
+     */
+    public record MachineTranslationInput(String sourceCode, String sourceLanguage, String targetLanguage) {}
+
+    /**
+     * Encola la traducción en la misma transacción que la crea: si no confirma, no hay trabajo
+     */
     @Transactional
-    public void processTranslationAsync(UUID translationId) {
-        log.info("Starting async processing for translation: {}", translationId);
-        
-        Instant startTime = Instant.now();
-        
-        try {
-            Translation translation = translationRepository.findById(translationId)
-                    .orElseThrow(() -> new ResourceNotFoundException("Translation", "id", translationId));
+    public void enqueueMachineTranslation(Translation translation, TranslationJobPriority priority) {
+        translationJobRepository.save(TranslationJob.builder()
+                .translationId(translation.getId())
+                .targetLanguageId(translation.getTargetLanguage().getId())
+                .priority(priority.getLane())
+                .build());
+        log.info("Translation {} queued for machine translation ({} priority)", translation.getId(), priority);
+    }
+
+    /**
+     * Marca la traducción como PROCESSING y devuelve lo que necesita el motor.
+     * Vacío si la traducción ya no existe o ya no espera una traducción automática.
+     */
+    @Transactional
+    @CacheEvict(value = "translation", key = "#translationId")
+    public Optional<MachineTranslationInput> startMachineTranslation(UUID translationId) {
+        Translation translation = translationRepository.findById(translationId).orElse(null);
+        if (translation == null
+                || (translation.getStatus() != TranslationStatus.PENDING && translation.getStatus() != TranslationStatus.PROCESSING)
+                || translation.getCoalescedWith() != null) {
+            return Optional.empty();
+        }
 
-            String sourceCode = translation.getSourceSnippet().getContent();
-            String sourceLanguage = translation.getSourceLanguage().getName();
-            String targetLanguage = translation.getTargetLanguage().getName();
+        String sourceCode = translation.getSourceSnippet().getContent();
+        if (sourceCode == null || sourceCode.trim().isEmpty()) {
+            throw new BusinessRuleException("Source snippet content is empty or null");
+        }
 
-            if (sourceCode == null || sourceCode.trim().isEmpty()) {
-                throw new BusinessRuleException("Source snippet content is empty or null");
-            }
+        // Marcar como procesando
+        translation.setStatus(TranslationStatus.PROCESSING);
+        return Optional.of(new MachineTranslationInput(
+                sourceCode,
+                translation.getSourceLanguage().getName(),
+                translation.getTargetLanguage().getName()));
+    }
 
-            // Marcar como procesando
-            translation.setStatus(TranslationStatus.PROCESSING);
-            translationRepository.save(translation);
-
-            // Simular traducción (aquí irías con OpenAI/Claude/etc)
-            String translatedCode = performTranslation(
-                    sourceCode,
-                    sourceLanguage,
-                    targetLanguage
-            );
-
-            // Calcular tiempo de procesamiento
-            long processingTime = Instant.now().toEpochMilli() - startTime.toEpochMilli();
-
-            // Actualizar como completado
-            translation.setTranslatedCode(translatedCode);
-            translation.setStatus(TranslationStatus.COMPLETED);
-            translation.setProcessingTimeMs(processingTime);
-            translation.setCompletedAt(Instant.now());
-
-            Translation savedTranslation = translationRepository.save(translation);
-
-            // Crear versión inicial automáticamente
-            createInitialVersion(savedTranslation, translatedCode);
-
-            // Limpiar cache
-            cacheService.delete("translation::" + translationId);
-
-            log.info("Translation {} completed successfully in {}ms", translationId, processingTime);
-
-        } catch (Exception e) {
-            log.error("Translation {} failed", translationId, e);
-            
-            // Marcar como fallido
-            Translation translation = translationRepository.findById(translationId).orElse(null);
-            if (translation != null) {
-                translation.setStatus(TranslationStatus.FAILED);
-                translation.setErrorMessage(e.getMessage());
-                translation.setCompletedAt(Instant.now());
-                
-                long processingTime = Instant.now().toEpochMilli() - startTime.toEpochMilli();
-                translation.setProcessingTimeMs(processingTime);
-                
-                translationRepository.save(translation);
-
-                // Limpiar cache
-                cacheService.delete("translation::" + translationId);
+    /**
+     * Guarda el resultado del motor y crea la versión inicial.
+     * Solo si la traducción sigue PROCESSING: false si otro worker ya la completó (trabajo
+     * reclamado dos veces) o dejó de esperar una traducción automática, y no se toca nada.
+     */
+    @Transactional
+    @CacheEvict(value = "translation", key = "#translationId")
+    public boolean completeMachineTranslation(UUID translationId, String translatedCode, long processingTimeMs) {
+        boolean simulated = engineGateway.isSimulated();
+        if (translationRepository.completeIfProcessing(translationId, translatedCode, processingTimeMs, simulated, Instant.now()) == 0) {
+            log.info("Translation {} is no longer processing, discarding engine result", translationId);
+            return false;
+        }
+        Translation translation = translationRepository.findById(translationId)
+                .orElseThrow(() -> new ResourceNotFoundException("Translation", "id", translationId));
+
+        // Crear versión inicial automáticamente
+        createInitialVersion(translation, translatedCode);
+
+        log.info("Translation {} completed successfully in {}ms", translationId, processingTimeMs);
+        if (!simulated) {
+            // La salida de un motor simulado nunca se ofrece como duplicado
+            deduplicationService.indexCompleted(translation, translation.getSourceSnippet().getContent());
+        }
+        resolveFollowers(translation, TranslationStatus.COMPLETED, translatedCode, null);
+        return true;
+    }
+
+    /**
+     * Registra un intento fallido: vuelve a PENDING si se reintentará, FAILED si era el último.
+     * No hace nada si la traducción ya terminó (una COMPLETED nunca vuelve a PENDING).
+     */
+    @Transactional
+    @CacheEvict(value = "translation", key = "#translationId")
+    public void failMachineTranslation(UUID translationId, String error, long processingTimeMs, boolean finalAttempt) {
+        String message = error != null && error.length() > 1000 ? error.substring(0, 1000) : error;
+        Instant now = Instant.now();
+        int updated = translationRepository.recordFailureIfInProgress(translationId,
+                finalAttempt ? TranslationStatus.FAILED : TranslationStatus.PENDING,
+                message, processingTimeMs, finalAttempt ? now : null, now);
+        if (updated == 0) {
+            log.info("Translation {} already finished, ignoring failed attempt: {}", translationId, message);
+            return;
+        }
+        if (finalAttempt) {
+            translationRepository.findById(translationId)
+                    .ifPresent(translation -> resolveFollowers(translation, TranslationStatus.FAILED, null, message));
+        }
+    }
+
+    /**
+     * Traslada el resultado de una traducción líder a las peticiones idénticas que esperaban por ella.
+     * Toma el mismo lock que requestTranslation: ninguna seguidora puede enlazarse a la líder
+     * después de este punto sin ver ya su estado final.
+     */
+    private void resolveFollowers(Translation leader, TranslationStatus outcome, String translatedCode, String error) {
+        translationRepository.lockContentHash(contentHashLockKey(leader.getContentHash()));
+
+        List<Translation> followers = translationRepository.findWaitingFollowers(leader.getId());
+        if (followers.isEmpty()) {
+            return;
+        }
+
+        Cache translationCache = cacheManager.getCache("translation");
+        Instant now = Instant.now();
+        for (Translation follower : followers) {
+            follower.setStatus(outcome);
+            follower.setTranslatedCode(translatedCode);
+            follower.setErrorMessage(error);
+            follower.setProcessingTimeMs(0L);
+            follower.setSimulated(leader.isSimulated());
+            follower.setCompletedAt(now);
+            if (translationCache != null) {
+                translationCache.evict(follower.getId());
             }
         }
+        translationRepository.saveAll(followers);
+        log.info("Translation {} {}: resolved {} coalesced requests", leader.getId(), outcome, followers.size());
     }
-     * @param translation
-     * @param translatedCode
+
+    /**
+     * Clave del advisory lock de Postgres: los primeros 64 bits del SHA-256 en hexadecimal
+     * (los hashes 'legacy-' de V0009 no son hexadecimales)
      */
+    private static long contentHashLockKey(String contentHash) {
+        try {
+            return Long.parseUnsignedLong(contentHash.substring(0, 16), 16);
+        } catch (RuntimeException e) {
+            return contentHash.hashCode();
+        }
+    }
 
     private void createInitialVersion(Translation translation, String translatedCode) {
         log.debug("Creating initial version for translation {}", translation.getId());
@@ -223,26 +333,10 @@ public class TranslationService {
                 .isCurrentVersion(true)
                 .build();
 
-        versionRepository.save(initialVersion);
+        leaderboardService.recordNewVersion(versionRepository.save(initialVersion));
     }
         
 
-    private String performTranslation(String sourceCode, String fromLanguage, String toLanguage) {
-        log.debug("Translating from {} to {}", fromLanguage, toLanguage);
-        
-        // Simular tiempo de procesamiento
-        try {
-            Thread.sleep(2000 + (long)(Math.random() * 3000)); // 2-5 segundos
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            throw new RuntimeException("Translation interrupted", e);
-        }
-
-        // Aquí implementarías la integración real con OpenAI, Claude, etc.
-        // Por ahora retornamos una traducción simulada
-        return generateMockTranslation(sourceCode, toLanguage);
-    }
-
     @Transactional
     
     public TranslationDTO.TranslationResponse submitForReview(UUID translationId, UUID userId) {
@@ -255,6 +349,8 @@ public class TranslationService {
         
         // Cambiar estado
         translation.changeStatus(TranslationStatus.UNDER_REVIEW, null, null);
+        // Ya no es COMPLETED: deja de ser reutilizable como duplicado
+        deduplicationService.evictFromIndex(translation);
         
         return translationMapper.toResponse(translationRepository.save(translation));
     }
@@ -279,18 +375,8 @@ public class TranslationService {
             .orElseThrow(() -> new ResourceNotFoundException("Reviewer not found"));
         
         translation.changeStatus(TranslationStatus.REJECTED, reviewer, notes);
+        deduplicationService.evictFromIndex(translation);
         
         return translationMapper.toResponse(translationRepository.save(translation));
     }
-
-    private String generateMockTranslation(String sourceCode, String targetLanguage) {
-        // Mock translation basado en el lenguaje objetivo
-        return switch (targetLanguage.toLowerCase()) {
-            case "python" -> "# Python equivalent\nprint(\"Hello, World!\")";
-            case "javascript" -> "// JavaScript equivalent\nconsole.log(\"Hello, World!\");";
-            case "java" -> "// Java equivalent\nSystem.out.println(\"Hello, World!\");";
-            case "go" -> "// Go equivalent\nfmt.Println(\"Hello, World!\")";
-            default -> "// " + targetLanguage + " equivalent\n// Translation not available for this language";
-        };
-    }
 }
\ No newline at end of file
@@ -34,6 +34,7 @@ public class TranslationVersionService {
     private final UserRepository userRepository;
     private final TranslationVersionMapper versionMapper;
     private final CacheService cacheService;
+    private final LeaderboardService leaderboardService;
 
     @Transactional
     public TranslationVersionDTO.VersionResponse createVersion(
@@ -81,6 +82,7 @@ public class TranslationVersionService {
                 .build();
 
         TranslationVersion savedVersion = versionRepository.save(newVersion);
+        leaderboardService.recordNewVersion(savedVersion);
 
         // Actualizar traducción
         translation.setTranslatedCode(request.translatedCode());
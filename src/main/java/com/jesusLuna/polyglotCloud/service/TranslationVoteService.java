@@ -1,7 +1,13 @@
 package com.jesusLuna.polyglotCloud.service;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
@@ -36,6 +42,12 @@ public class TranslationVoteService {
     private final UserRepository userRepository;
     private final TranslationVoteMapper voteMapper;
     private final CacheService cacheService;
+    private final VoteDeltaBuffer voteDeltaBuffer;
+    private final LeaderboardService leaderboardService;
+
+    private static final int TOP_VERSIONS_LIMIT = 5;
+    private static final int MAX_LEADERBOARD_LIMIT = 50;
+    private static final int TRANSLATORS_OVERFETCH = 2;
 
     @Transactional
     public TranslationVoteDTO.VoteResponse vote(
@@ -58,9 +70,10 @@ public class TranslationVoteService {
             throw new BusinessRuleException("Cannot vote on your own translation version");
         }
 
-        // Buscar voto existente
-        var existingVote = voteRepository.findByTranslationVersionIdAndUserId(versionId, userId);
+        // Buscar voto existente (bloqueado para que el cambio de tipo se cuente una sola vez)
+        var existingVote = voteRepository.findForUpdate(versionId, userId);
         TranslationVote vote;
+        VoteType previousType = null;
 
         if (existingVote.isPresent()) {
             // Cambiar voto existente
@@ -72,6 +85,7 @@ public class TranslationVoteService {
             
             log.info("Changing vote from {} to {} for version {}", 
                     vote.getVoteType(), request.voteType(), versionId);
+            previousType = vote.getVoteType();
             vote.changeVoteType(request.voteType());
         } else {
             // Crear nuevo voto
@@ -84,14 +98,16 @@ public class TranslationVoteService {
 
         TranslationVote savedVote = voteRepository.save(vote);
 
-        // Recalcular puntuaciones de la versión
-        updateVersionScores(version);
+        // Actualizar contadores de la versión de forma incremental
+        int upvoteDelta = upvoteDelta(previousType, request.voteType());
+        int downvoteDelta = downvoteDelta(previousType, request.voteType());
+        applyVoteDelta(version, upvoteDelta, downvoteDelta);
 
         // Limpiar cache relacionado
         clearVersionCaches(version);
 
         // Verificar si esta versión debería ser auto-aprobada
-        checkForAutoApproval(version);
+        checkForAutoApproval(version, upvoteDelta, downvoteDelta);
 
         return voteMapper.toResponse(savedVote);
     }
@@ -100,15 +116,17 @@ public class TranslationVoteService {
     public void removeVote(UUID versionId, UUID userId) {
         log.info("User {} removing vote from version {}", userId, versionId);
 
-        TranslationVote vote = voteRepository.findByTranslationVersionIdAndUserId(versionId, userId)
+        TranslationVote vote = voteRepository.findForUpdate(versionId, userId)
                 .orElseThrow(() -> new ResourceNotFoundException("Vote not found for this user and version"));
 
         TranslationVersion version = vote.getTranslationVersion();
         
         voteRepository.delete(vote);
 
-        // Recalcular puntuaciones
-        updateVersionScores(version);
+        // Descontar el voto eliminado
+        applyVoteDelta(version,
+                upvoteDelta(vote.getVoteType(), null),
+                downvoteDelta(vote.getVoteType(), null));
         clearVersionCaches(version);
     }
 
@@ -117,21 +135,13 @@ public class TranslationVoteService {
                 .orElseThrow(() -> new ResourceNotFoundException("Translation version", "id", versionId));
 
         // Obtener voto del usuario actual si existe
-        var userVote = currentUserId != null ? 
-                voteRepository.findByTranslationVersionIdAndUserId(versionId, currentUserId) : 
+        VoteType userVoteType = currentUserId != null ?
+                voteRepository.findByTranslationVersionIdAndUserId(versionId, currentUserId)
+                        .map(TranslationVote::getVoteType)
+                        .orElse(null) :
                 null;
 
-        // Usar constructor del record
-        return new TranslationVoteDTO.VoteStats(
-            versionId,
-            version.getUpvotesCount(),
-            version.getDownvotesCount(),
-            version.getTotalScore(),
-            version.getTotalVotes(),
-            version.getApprovalRate(),
-            userVote.isPresent(),
-            userVote.map(TranslationVote::getVoteType).orElse(null)
-        );
+        return buildVoteStats(version, userVoteType);
     }
 
     public Page<TranslationVoteDTO.VoteResponse> getVersionVotes(UUID versionId, Pageable pageable) {
@@ -159,13 +169,35 @@ public class TranslationVoteService {
     }
 
     /**
-     * Obtiene versiones ordenadas por puntuación para una traducción
+     * Obtiene versiones ordenadas por puntuación para una traducción.
+     * Los ids salen de los rankings en Redis; solo se cargan de BD las versiones a devolver.
+     * Si Redis no está disponible se calcula como antes, cargando todas las versiones.
      */
     public TranslationVoteDTO.TopVersions getTopVersions(UUID translationId, UUID currentUserId) {
-        List<TranslationVersion> allVersions = versionRepository
-                .findByTranslationIdOrderByVersionNumberAsc(translationId);
+        List<UUID> topIds;
+        List<UUID> recentIds;
+        try {
+            topIds = leaderboardService.topVersionsByScore(translationId, TOP_VERSIONS_LIMIT);
+            recentIds = leaderboardService.mostRecentVersions(translationId, 1);
+        } catch (Exception e) {
+            log.warn("Leaderboards unavailable for translation {}, ranking from the database", translationId, e);
+            return getTopVersionsFromDatabase(translationId, currentUserId);
+        }
+        TranslationVersion current = versionRepository.findByTranslationIdAndIsCurrentVersionTrue(translationId)
+                .orElse(null);
 
-        if (allVersions.isEmpty()) {
+        Set<UUID> idsToLoad = new LinkedHashSet<>(topIds);
+        idsToLoad.addAll(recentIds);
+
+        Map<UUID, TranslationVersion> versionsById = new HashMap<>();
+        if (!idsToLoad.isEmpty()) {
+            versionRepository.findByIdIn(idsToLoad).forEach(v -> versionsById.put(v.getId(), v));
+        }
+        if (current != null) {
+            versionsById.put(current.getId(), current);
+        }
+
+        if (versionsById.isEmpty()) {
             return new TranslationVoteDTO.TopVersions(
                 translationId,
                 null,        // bestRated
@@ -176,82 +208,196 @@ public class TranslationVoteService {
         }
 
         // Obtener votos del usuario actual para estas versiones si está logueado
-        Map<UUID, VoteType> userVotes = Map.of();
-        if (currentUserId != null) {
-            List<UUID> versionIds = allVersions.stream()
-                    .map(TranslationVersion::getId)
-                    .collect(Collectors.toList());
-            
-            userVotes = voteRepository.findByVersionIdsAndUserId(versionIds, currentUserId)
-                    .stream()
-                    .collect(Collectors.toMap(
-                        vote -> vote.getTranslationVersion().getId(),
-                        TranslationVote::getVoteType
-                    ));
+        Map<UUID, VoteType> userVotes = findUserVotes(versionsById.keySet(), currentUserId);
+
+        // Top por puntuación (mejores primero), en el orden del ranking
+        List<TranslationVoteDTO.VersionWithVotes> topByScore = topIds.stream()
+                .map(versionsById::get)
+                .filter(Objects::nonNull)
+                .map(version -> mapVersionWithVotes(version, userVotes))
+                .collect(Collectors.toList());
+
+        TranslationVoteDTO.VersionWithVotes mostRecent = recentIds.stream()
+                .map(versionsById::get)
+                .filter(Objects::nonNull)
+                .map(version -> mapVersionWithVotes(version, userVotes))
+                .findFirst()
+                .orElse(null);
+
+        return new TranslationVoteDTO.TopVersions(
+            translationId,
+            topByScore.isEmpty() ? null : topByScore.get(0),                  // bestRated (el mejor de la lista)
+            mostRecent,                                                       // mostRecent (el más reciente)
+            current != null ? mapVersionWithVotes(current, userVotes) : null, // currentVersion
+            topByScore                                                        // topVersions (lista completa)
+        );
+    }
+
+    /**
+     * Ranking sin Redis: todas las versiones de la traducción ordenadas en memoria
+     */
+    private TranslationVoteDTO.TopVersions getTopVersionsFromDatabase(UUID translationId, UUID currentUserId) {
+        List<TranslationVersion> allVersions = versionRepository
+                .findByTranslationIdOrderByVersionNumberAsc(translationId);
+
+        if (allVersions.isEmpty()) {
+            return new TranslationVoteDTO.TopVersions(translationId, null, null, null, List.of());
         }
 
-        final Map<UUID, VoteType> finalUserVotes = userVotes;
+        Map<UUID, VoteType> userVotes = findUserVotes(
+                allVersions.stream().map(TranslationVersion::getId).toList(), currentUserId);
 
-        // Convertir a DTO con estadísticas de votación
         List<TranslationVoteDTO.VersionWithVotes> versionsWithVotes = allVersions.stream()
-                .map(version -> mapVersionWithVotes(version, finalUserVotes))
+                .map(version -> mapVersionWithVotes(version, userVotes))
                 .collect(Collectors.toList());
 
         // Top por puntuación (mejores primero)
         List<TranslationVoteDTO.VersionWithVotes> topByScore = versionsWithVotes.stream()
                 .sorted((v1, v2) -> Integer.compare(
-                    v2.voteStats().totalScore(), 
+                    v2.voteStats().totalScore(),
                     v1.voteStats().totalScore()
                 ))
-                .limit(5)
+                .limit(TOP_VERSIONS_LIMIT)
                 .collect(Collectors.toList());
 
-        // Recientes (últimas primero)
-        List<TranslationVoteDTO.VersionWithVotes> recent = versionsWithVotes.stream()
-                .sorted((v1, v2) -> v2.createdAt().compareTo(v1.createdAt()))
-                .limit(5)
-                .collect(Collectors.toList());
+        // La más reciente
+        TranslationVoteDTO.VersionWithVotes mostRecent = versionsWithVotes.stream()
+                .max((v1, v2) -> v1.createdAt().compareTo(v2.createdAt()))
+                .orElse(null);
 
         return new TranslationVoteDTO.TopVersions(
             translationId,
-            topByScore.isEmpty() ? null : topByScore.get(0),  // bestRated (el mejor de la lista)
-            recent.isEmpty() ? null : recent.get(0),          // mostRecent (el más reciente)
-            versionsWithVotes.stream()                        // currentVersion
-                .filter(v -> v.isCurrentVersion())
+            topByScore.isEmpty() ? null : topByScore.get(0),
+            mostRecent,
+            versionsWithVotes.stream()
+                .filter(v -> Boolean.TRUE.equals(v.isCurrentVersion()))
                 .findFirst()
                 .orElse(null),
-            topByScore                                        // topVersions (lista completa)
+            topByScore
         );
     }
 
-    @Transactional
-    protected void updateVersionScores(TranslationVersion version) {
-        // Refrescar la versión con sus votos
-        version = versionRepository.findById(version.getId()).orElseThrow();
-        
-        // Recalcular puntuaciones
-        version.recalculateScores();
-        
-        versionRepository.save(version);
-        
-        log.debug("Updated scores for version {}: {} upvotes, {} downvotes, {} total score",
-                version.getId(), version.getUpvotesCount(), version.getDownvotesCount(), version.getTotalScore());
+    /**
+     * Mejores versiones de todas las traducciones entre dos lenguajes
+     */
+    public List<TranslationVoteDTO.VersionWithVotes> getTopVersionsByLanguagePair(
+            UUID sourceLanguageId, UUID targetLanguageId, int limit, UUID currentUserId) {
+
+        List<UUID> ids = leaderboardService.topVersionsByLanguagePair(
+                sourceLanguageId, targetLanguageId, clampLimit(limit));
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+
+        Map<UUID, TranslationVersion> versionsById = versionRepository.findByIdIn(ids).stream()
+                .collect(Collectors.toMap(TranslationVersion::getId, v -> v));
+        Map<UUID, VoteType> userVotes = findUserVotes(versionsById.keySet(), currentUserId);
+
+        return ids.stream()
+                .map(versionsById::get)
+                .filter(Objects::nonNull)
+                .map(version -> mapVersionWithVotes(version, userVotes))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Autores con mayor puntuación acumulada en sus versiones.
+     * El ZSET conserva a los usuarios borrados: se piden el doble de entradas para que, tras
+     * descartarlos, sigan quedando limit autores
+     */
+    public List<TranslationVoteDTO.TranslatorRanking> getTopTranslators(int limit) {
+        int clampedLimit = clampLimit(limit);
+        List<LeaderboardService.Entry> entries = leaderboardService.topTranslators(clampedLimit * TRANSLATORS_OVERFETCH);
+        if (entries.isEmpty()) {
+            return List.of();
+        }
+
+        Map<UUID, User> usersById = userRepository.findAllById(
+                entries.stream().map(LeaderboardService.Entry::id).toList()).stream()
+                .collect(Collectors.toMap(User::getId, u -> u));
+
+        List<TranslationVoteDTO.TranslatorRanking> ranking = new ArrayList<>();
+        for (LeaderboardService.Entry entry : entries) {
+            if (ranking.size() == clampedLimit) {
+                break;
+            }
+            User user = usersById.get(entry.id());
+            if (user == null || user.getDeletedAt() != null) {
+                continue;
+            }
+            ranking.add(new TranslationVoteDTO.TranslatorRanking(
+                ranking.size() + 1,
+                user.getId(),
+                user.getUsername(),
+                entry.score()
+            ));
+        }
+        return ranking;
+    }
+
+    private Map<UUID, VoteType> findUserVotes(Collection<UUID> versionIds, UUID currentUserId) {
+        if (currentUserId == null || versionIds.isEmpty()) {
+            return Map.of();
+        }
+        return voteRepository.findByVersionIdsAndUserId(new ArrayList<>(versionIds), currentUserId)
+                .stream()
+                .collect(Collectors.toMap(
+                    vote -> vote.getTranslationVersion().getId(),
+                    TranslationVote::getVoteType
+                ));
+    }
+
+    private static int clampLimit(int limit) {
+        return Math.max(1, Math.min(limit, MAX_LEADERBOARD_LIMIT));
+    }
+
+    /**
+     * UPDATE atómico sobre los contadores: coste constante sin importar cuántos votos tenga la versión.
+     * La entidad cargada no se modifica para que Hibernate no sobrescriba los incrementos de otros votos.
+     * En modo write-behind el incremento se acumula en {@link VoteDeltaBuffer} y se aplica por lotes.
+     */
+    private void applyVoteDelta(TranslationVersion version, int upvoteDelta, int downvoteDelta) {
+        if (upvoteDelta == 0 && downvoteDelta == 0) {
+            return;
+        }
+        leaderboardService.recordScoreDelta(version, upvoteDelta - downvoteDelta);
+        if (voteDeltaBuffer.isEnabled()) {
+            voteDeltaBuffer.add(version.getId(), upvoteDelta, downvoteDelta);
+        } else {
+            versionRepository.applyVoteDelta(version.getId(), upvoteDelta, downvoteDelta);
+        }
+
+        log.debug("Applied vote delta to version {}: upvotes {}, downvotes {}",
+                version.getId(), upvoteDelta, downvoteDelta);
+    }
+
+    private static int upvoteDelta(VoteType removed, VoteType added) {
+        return (added != null && added.isUpvote() ? 1 : 0) - (removed != null && removed.isUpvote() ? 1 : 0);
+    }
+
+    private static int downvoteDelta(VoteType removed, VoteType added) {
+        return (added != null && added.isDownvote() ? 1 : 0) - (removed != null && removed.isDownvote() ? 1 : 0);
     }
 
     private void clearVersionCaches(TranslationVersion version) {
         // Limpiar caches relacionados
+        // Solo la traducción se cachea (translation::{id}); borrado exacto, sin recorrer Redis en cada voto
         cacheService.delete("translation::" + version.getTranslation().getId());
-        cacheService.deletePattern("version::*");
-        cacheService.deletePattern("vote::*");
     }
 
-    private void checkForAutoApproval(TranslationVersion version) {
+    private void checkForAutoApproval(TranslationVersion version, int upvoteDelta, int downvoteDelta) {
         // Configuración de auto-aprobación
         final int AUTO_APPROVAL_THRESHOLD = 5; // Puntuación mínima para auto-aprobación
-        
-        if (version.hasHighEnoughScoreForAutoApproval(AUTO_APPROVAL_THRESHOLD)) {
+
+        // Contadores leídos al inicio del voto + lo pendiente en el buffer + este voto
+        VoteDeltaBuffer.VoteDelta delta = voteDeltaBuffer.pendingFor(version.getId())
+                .plus(new VoteDeltaBuffer.VoteDelta(upvoteDelta, downvoteDelta));
+        int upvotes = version.getUpvotesCount() + delta.upvotes();
+        int totalScore = version.getTotalScore() + delta.score();
+
+        if (TranslationVersion.meetsAutoApprovalThreshold(totalScore, upvotes, AUTO_APPROVAL_THRESHOLD)) {
             log.info("Version {} has reached auto-approval threshold with score {}", 
-                    version.getId(), version.getTotalScore());
+                    version.getId(), totalScore);
             
             // Aquí puedes disparar eventos o notificaciones para moderadores
             // O directamente auto-aprobar si es la política de tu aplicación
@@ -262,19 +408,7 @@ public class TranslationVoteService {
             TranslationVersion version, 
             Map<UUID, VoteType> userVotes) {
         
-        VoteType userVoteType = userVotes.get(version.getId());
-        
-        // Usa el constructor del record directamente
-        TranslationVoteDTO.VoteStats voteStats = new TranslationVoteDTO.VoteStats(
-            version.getId(),           // versionId
-            version.getUpvotesCount(), // upvotesCount
-            version.getDownvotesCount(), // downvotesCount
-            version.getTotalScore(),   // totalScore
-            version.getTotalVotes(),   // totalVotes
-            version.getApprovalRate(), // approvalRate
-            userVoteType != null,      // userHasVoted
-            userVoteType               // userVoteType
-        );
+        TranslationVoteDTO.VoteStats voteStats = buildVoteStats(version, userVotes.get(version.getId()));
 
         // Usar constructor del record
         return new TranslationVoteDTO.VersionWithVotes(
@@ -289,4 +423,26 @@ public class TranslationVoteService {
             version.getCreatedAt()
         );
     }
-}
\ No newline at end of file
+
+    /**
+     * Estadísticas de la versión sumando los incrementos que el buffer aún no ha escrito
+     */
+    private TranslationVoteDTO.VoteStats buildVoteStats(TranslationVersion version, VoteType userVoteType) {
+        VoteDeltaBuffer.VoteDelta pending = voteDeltaBuffer.pendingFor(version.getId());
+        int upvotes = version.getUpvotesCount() + pending.upvotes();
+        int downvotes = version.getDownvotesCount() + pending.downvotes();
+        int totalVotes = upvotes + downvotes;
+
+        // Usa el constructor del record directamente
+        return new TranslationVoteDTO.VoteStats(
+            version.getId(),                                          // versionId
+            upvotes,                                                  // upvotesCount
+            downvotes,                                                // downvotesCount
+            version.getTotalScore() + pending.score(),                // totalScore
+            totalVotes,                                               // totalVotes
+            totalVotes == 0 ? 0.0 : (double) upvotes / totalVotes * 100, // approvalRate
+            userVoteType != null,                                     // userHasVoted
+            userVoteType                                              // userVoteType
+        );
+    }
+}
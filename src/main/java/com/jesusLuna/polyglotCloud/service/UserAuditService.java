@@ -1,17 +1,20 @@
 package com.jesusLuna.polyglotCloud.service;
 
+import java.time.Duration;
 import java.time.Instant;
 import java.util.UUID;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Propagation;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import com.jesusLuna.polyglotCloud.config.SecurityProperties;
-import com.jesusLuna.polyglotCloud.models.LoginAttempt;
 import com.jesusLuna.polyglotCloud.models.User;
-import com.jesusLuna.polyglotCloud.repository.LoginAttemptRepository;
 import com.jesusLuna.polyglotCloud.repository.UserRepository;
+import com.jesusLuna.polyglotCloud.security.PrincipalCache;
 
 import lombok.extern.slf4j.Slf4j;
 
@@ -19,148 +22,130 @@ import lombok.extern.slf4j.Slf4j;
 @Service
 public class UserAuditService {
 
+    private static final BatchPurgeService.PurgeTarget LOGIN_ATTEMPTS_PURGE = new BatchPurgeService.PurgeTarget(
+            "login-attempts", "login_attempts", "attempt_timestamp < ?");
+
     private final UserRepository userRepository;
-    private final LoginAttemptRepository loginAttemptRepository;
     private final SecurityProperties securityProperties;
+    private final PrincipalCache principalCache;
+    private final LoginAuditPipeline loginAuditPipeline;
+    private final LoginLockoutService loginLockoutService;
+    private final BatchPurgeService batchPurgeService;
+    private final TransactionTemplate requiresNewTransaction;
+
+    @Value("${app.maintenance.purge.login-attempts.retention-days:90}")
+    private int loginAttemptsRetentionDays;
 
     public UserAuditService(UserRepository userRepository, 
-                           LoginAttemptRepository loginAttemptRepository,
-                           SecurityProperties securityProperties) {
+                           SecurityProperties securityProperties,
+                           PrincipalCache principalCache,
+                           LoginAuditPipeline loginAuditPipeline,
+                           LoginLockoutService loginLockoutService,
+                           BatchPurgeService batchPurgeService,
+                           PlatformTransactionManager transactionManager) {
         this.userRepository = userRepository;
-        this.loginAttemptRepository = loginAttemptRepository;
         this.securityProperties = securityProperties;
+        this.principalCache = principalCache;
+        this.loginAuditPipeline = loginAuditPipeline;
+        this.loginLockoutService = loginLockoutService;
+        this.batchPurgeService = batchPurgeService;
+        this.requiresNewTransaction = new TransactionTemplate(transactionManager);
+        this.requiresNewTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
     }
 
     /**
-     * Registra intento fallido en transacción separada e independiente
-     * No se revierte aunque falle la transacción principal
+     * Records a failed login attempt with full details (IP address, user agent, failure reason)
+     * The audit row goes through the asynchronous pipeline; only the lockout counter update
+     * stays synchronous: in Redis, or in the users row (separate transaction) if Redis is unavailable
+     * @return Lockout state after counting the attempt, or null if the counter was not touched
      */
-    @Transactional(propagation = Propagation.REQUIRES_NEW)
-    public void recordFailedLoginAttempt(UUID userId) {
-        try {
-            User user = userRepository.findById(userId).orElse(null);
-            
-            if (user != null) {
-                user.recordFailedLogin(
-                    securityProperties.getMaxFailedAttemptsTemp(),
-                    securityProperties.getMaxFailedAttemptsPerm(),
-                    securityProperties.getLockoutDurationMinutes(),
-                    securityProperties.getLockoutDurationDays()
-                );
-                userRepository.saveAndFlush(user);
-                
-                log.info("Failed login attempt recorded for user: {} (attempts: {})",
-                        user.getUsername(), user.getFailedLoginAttempts());
-
-                // Verificar si se bloqueó
-                if (!user.isAccountNonLocked()) {
-                    log.warn("User account locked: {} (attempts: {})", 
-                            user.getUsername(), user.getFailedLoginAttempts());
-                }
-                
-                if (!user.isActive()) {
-                    log.warn("User account disabled: {} (attempts: {})", 
-                            user.getUsername(), user.getFailedLoginAttempts());
-                }
+    public LoginLockoutService.LockoutState recordFailedLoginAttempt(UUID userId, String ipAddress, String userAgent, String failureReason) {
+        loginAuditPipeline.record(LoginAuditPipeline.Event.failure(userId, ipAddress, userAgent, failureReason));
+
+        if (userId == null) {
+            log.info("Failed login attempt recorded for unknown user - Reason: {}", failureReason);
+            return null;
+        }
+
+        // Only increment user failed login counter for invalid password attempts.
+        // Do NOT increment for "Account is locked" or "Account is disabled" - otherwise
+        // trying while locked would push count to 10 and permanently block.
+        // Pattern: 5 wrong passwords → 30 min lock → after unlock, 6th–9th wrong → 10th → 1 day + deactivate.
+        if (!"Invalid password".equals(failureReason)) {
+            log.info("Failed login attempt recorded for user: {} - Reason: {}", userId, failureReason);
+            return null;
+        }
+
+        LoginLockoutService.LockoutState state = loginLockoutService.recordFailure(userId);
+        if (state != null) {
+            log.info("Failed login attempt recorded for user: {} (attempts: {}) - Reason: {}",
+                    userId, state.failedAttempts(), failureReason);
+            if (state.isLocked()) {
+                log.warn("User account locked: {} until {} (attempts: {})",
+                        userId, state.lockedUntil(), state.failedAttempts());
             }
-        } catch (Exception ex) {
-            log.error("Error recording failed login attempt for user: {}", userId, ex);
+            return state;
         }
-    }
 
-    /**
-     * Records a failed login attempt with full details (IP address, user agent, failure reason)
-     * Uses a separate transaction that won't rollback even if the main transaction fails
-     * @return Updated user with incremented failed login attempts, or null if user doesn't exist
-     */
-    @Transactional(propagation = Propagation.REQUIRES_NEW)
-    public User recordFailedLoginAttempt(UUID userId, String ipAddress, String userAgent, String failureReason) {
+        // Redis no disponible: contador en la fila del usuario
         try {
-            User user = userId != null ? userRepository.findById(userId).orElse(null) : null;
-            
-            // Record login attempt in database
-            LoginAttempt loginAttempt = LoginAttempt.builder()
-                    .user(user)
-                    .attemptTimestamp(Instant.now())
-                    .ipAddress(ipAddress)
-                    .userAgent(userAgent)
-                    .success(false)
-                    .failureReason(failureReason)
-                    .build();
-            
-            loginAttemptRepository.saveAndFlush(loginAttempt);
-            
-            // Only increment user failed login counter for invalid password attempts.
-            // Do NOT increment for "Account is locked" or "Account is disabled" - otherwise
-            // trying while locked would push count to 10 and permanently block.
-            // Pattern: 5 wrong passwords → 30 min lock → after unlock, 6th–9th wrong → 10th → 1 day + deactivate.
-            if (user == null) {
-                log.info("Failed login attempt recorded for unknown user - Reason: {}", failureReason);
-                return null;
-            }
-            
-            boolean shouldIncrementCounter = "Invalid password".equals(failureReason);
-            
-            if (shouldIncrementCounter) {
-                user.recordFailedLogin(
-                    securityProperties.getMaxFailedAttemptsTemp(),
-                    securityProperties.getMaxFailedAttemptsPerm(),
-                    securityProperties.getLockoutDurationMinutes(),
-                    securityProperties.getLockoutDurationDays()
-                );
-                user = userRepository.saveAndFlush(user);
-                
-                log.info("Failed login attempt recorded for user: {} (attempts: {}) - Reason: {}",
-                        user.getUsername(), user.getFailedLoginAttempts(), failureReason);
-
-                if (!user.isAccountNonLocked()) {
-                    log.warn("User account locked: {} (attempts: {})", 
-                            user.getUsername(), user.getFailedLoginAttempts());
-                }
-                if (!user.isActive()) {
-                    log.warn("User account disabled: {} (attempts: {})", 
-                            user.getUsername(), user.getFailedLoginAttempts());
-                }
-            } else {
-                log.info("Failed login attempt recorded for user: {} (attempts: {}) - Reason: {}",
-                        user.getUsername(), user.getFailedLoginAttempts(), failureReason);
-            }
-            
-            return user;
+            User user = requiresNewTransaction.execute(status -> incrementFailedAttempts(userId, failureReason));
+            return user != null
+                    ? new LoginLockoutService.LockoutState(user.getFailedLoginAttempts(), user.getLockedUntil(), !user.isActive())
+                    : null;
         } catch (Exception ex) {
             log.error("Error recording failed login attempt for user: {}", userId, ex);
             return null;
         }
     }
 
+    private User incrementFailedAttempts(UUID userId, String failureReason) {
+        User user = userRepository.findById(userId).orElse(null);
+        if (user == null) {
+            return null;
+        }
+
+        user.recordFailedLogin(
+            securityProperties.getMaxFailedAttemptsTemp(),
+            securityProperties.getMaxFailedAttemptsPerm(),
+            securityProperties.getLockoutDurationMinutes(),
+            securityProperties.getLockoutDurationDays()
+        );
+        user = userRepository.saveAndFlush(user);
+        if (!user.isAccountNonLocked() || !user.isActive()) {
+            principalCache.evict(userId);
+        }
+        
+        log.info("Failed login attempt recorded for user: {} (attempts: {}) - Reason: {}",
+                user.getUsername(), user.getFailedLoginAttempts(), failureReason);
+
+        if (!user.isAccountNonLocked()) {
+            log.warn("User account locked: {} (attempts: {})", 
+                    user.getUsername(), user.getFailedLoginAttempts());
+        }
+        if (!user.isActive()) {
+            log.warn("User account disabled: {} (attempts: {})", 
+                    user.getUsername(), user.getFailedLoginAttempts());
+        }
+        return user;
+    }
+
     /**
      * Records a successful login attempt with full details (IP address, user agent)
-     * Uses a separate transaction that won't rollback even if the main transaction fails
+     * Asynchronous: the row is inserted in batches by the audit pipeline
      */
-    @Transactional(propagation = Propagation.REQUIRES_NEW)
     public void recordSuccessfulLoginAttempt(UUID userId, String ipAddress, String userAgent) {
-        try {
-            User user = userRepository.findById(userId).orElse(null);
-            
-            if (user != null) {
-                // Record login attempt in database
-                LoginAttempt loginAttempt = LoginAttempt.builder()
-                        .user(user)
-                        .attemptTimestamp(Instant.now())
-                        .ipAddress(ipAddress)
-                        .userAgent(userAgent)
-                        .success(true)
-                        .failureReason(null)
-                        .build();
-                
-                loginAttemptRepository.saveAndFlush(loginAttempt);
-                
-                log.info("Successful login attempt recorded for user: {}", user.getUsername());
-            } else {
-                log.warn("Attempted to record successful login for non-existent user: {}", userId);
-            }
-        } catch (Exception ex) {
-            log.error("Error recording successful login attempt for user: {}", userId, ex);
-        }
+        loginAuditPipeline.record(LoginAuditPipeline.Event.success(userId, ipAddress, userAgent));
+        log.debug("Successful login attempt queued for user: {}", userId);
+    }
+
+    /**
+     * Retención de login_attempts: borra por lotes los intentos más antiguos que retention-days
+     */
+    @Scheduled(cron = "${app.maintenance.purge.login-attempts.cron:0 30 2 * * *}")
+    public void purgeOldLoginAttempts() {
+        Instant cutoff = Instant.now().minus(Duration.ofDays(loginAttemptsRetentionDays));
+        var result = batchPurgeService.purge(LOGIN_ATTEMPTS_PURGE, cutoff);
+        log.info("Login attempts older than {} days purged: {} rows", loginAttemptsRetentionDays, result.deleted());
     }
-}
\ No newline at end of file
+}
@@ -1,11 +1,17 @@
 package com.jesusLuna.polyglotCloud.service;
 
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.CachePut;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -18,7 +24,8 @@ import com.jesusLuna.polyglotCloud.config.SecurityProperties;
 import com.jesusLuna.polyglotCloud.models.User;
 import com.jesusLuna.polyglotCloud.models.enums.Role;
 import com.jesusLuna.polyglotCloud.repository.UserRepository;
-import com.jesusLuna.polyglotCloud.security.PostQuantumPasswordEncoder;
+import com.jesusLuna.polyglotCloud.security.PasswordHashingService;
+import com.jesusLuna.polyglotCloud.security.PrincipalCache;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -30,8 +37,10 @@ import lombok.extern.slf4j.Slf4j;
 public class UserService {
 
     private final UserRepository userRepository;
-    private final PostQuantumPasswordEncoder passwordEncoder;
+    private final PasswordHashingService passwordHashingService;
     private final SecurityProperties securityProperties;
+    private final PrincipalCache principalCache;
+    private final LoginLockoutService loginLockoutService;
 
     @Transactional
     public User createUser(UserDTO.UserRegistrationRequest request, UUID creatorId) {
@@ -54,7 +63,7 @@ public class UserService {
                 .emailVerified(false)
                 .build();
 
-        user.changePassword(passwordEncoder.encode(request.password()));
+        user.changePassword(passwordHashingService.encode(request.password()));
 
         User saved = userRepository.save(user);
         log.info("User created successfully with id: {} by admin: {}", saved.getId(), creatorId);
@@ -112,8 +121,9 @@ public class UserService {
         }
 
         // Update fields if provided
-        if (request.username() != null) {
+        if (request.username() != null && !request.username().equals(user.getUsername())) {
             user.setUsername(request.username());
+            principalCache.evict(userId); // Los controladores buscan al usuario por el username del principal
         }
 
         if (request.email() != null && !request.email().equals(user.getEmail())) {
@@ -124,6 +134,7 @@ public class UserService {
             user.setEmail(request.email());
             user.setEmailVerified(false); // Require re-verification
             log.info("User {} email changed, verification required", userId);
+            principalCache.evict(userId);
         }
 
         User updated = userRepository.save(user);
@@ -144,12 +155,12 @@ public class UserService {
         }
 
         // Validate current password
-        if (!passwordEncoder.matches(request.currentPassword(), user.getPasswordHash())) {
+        if (!passwordHashingService.matches(request.currentPassword(), user.getPasswordHash())) {
             throw new BusinessRuleException("Current password is incorrect");
         }
 
         // Change password
-        user.changePassword(passwordEncoder.encode(request.newPassword()));
+        user.changePassword(passwordHashingService.encode(request.newPassword()));
         userRepository.save(user);
         log.info("Password changed successfully for user: {}", userId);
     }
@@ -182,6 +193,7 @@ public class UserService {
         user.setRole(newRole);
 
         User updated = userRepository.save(user);
+        principalCache.evict(userId);
         log.info("User {} role changed from {} to {} by admin {}", userId, oldRole, newRole, adminId);
         return updated;
     }
@@ -199,6 +211,7 @@ public class UserService {
         user.setActive(active);
 
         User updated = userRepository.save(user);
+        principalCache.evict(userId);
         log.info("User {} status changed to {} by admin {}", userId, active, adminId);
         return updated;
     }
@@ -237,6 +250,7 @@ public class UserService {
         user.softDelete();
         
         userRepository.save(user);
+        principalCache.evict(userId);
         log.info("User {} soft deleted successfully by admin {}", userId, adminId);
     }
 
@@ -261,6 +275,7 @@ public class UserService {
         user.restore();
         
         User restored = userRepository.save(user);
+        principalCache.evict(userId);
         log.info("User {} restored successfully by admin {}", userId, adminId);
         return restored;
     }
@@ -280,11 +295,45 @@ public class UserService {
 
     /**
      * Get users with failed login attempts for security monitoring
-     * Returns paginated list of users who have failed login attempts
+     * The live counters come from Redis (most attempts first); profile data from the users table
      */
-    public Page<User> getUsersWithFailedLoginAttempts(Pageable pageable) {
+    public Page<UserDTO.SecurityAlertResponse> getSecurityAlerts(Pageable pageable) {
         log.debug("Fetching users with failed login attempts");
-        return userRepository.findUsersWithFailedLoginAttempts(pageable);
+        Page<LoginLockoutService.FailureEntry> failures = loginLockoutService.findUsersWithFailures(pageable);
+
+        List<UUID> ids = failures.getContent().stream().map(LoginLockoutService.FailureEntry::userId).toList();
+        Map<UUID, User> users = userRepository.findAllById(ids).stream()
+                .filter(user -> !user.isDeleted())
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+
+        List<UserDTO.SecurityAlertResponse> alerts = failures.getContent().stream()
+                .filter(entry -> users.containsKey(entry.userId()))
+                .map(entry -> toSecurityAlert(users.get(entry.userId()), entry.state()))
+                .toList();
+        return new PageImpl<>(alerts, pageable, failures.getTotalElements());
+    }
+
+    /**
+     * Respuesta de alerta de seguridad combinando la fila del usuario con su estado de bloqueo
+     * (state null = solo la fila de users)
+     */
+    public UserDTO.SecurityAlertResponse toSecurityAlert(User user, LoginLockoutService.LockoutState state) {
+        int attempts = state != null ? Math.max(state.failedAttempts(), user.getFailedLoginAttempts()) : user.getFailedLoginAttempts();
+        Instant lockedUntil = state != null && state.isLocked() ? state.lockedUntil() : user.getLockedUntil();
+        boolean isLocked = lockedUntil != null && lockedUntil.isAfter(Instant.now());
+
+        return new UserDTO.SecurityAlertResponse(
+                user.getId(),
+                user.getUsername(),
+                user.getEmail(),
+                attempts,
+                lockedUntil,
+                user.getLastLoginAt(),
+                user.getLastLoginIp(),
+                isLocked,
+                user.isActive() && (state == null || !state.disabled()),
+                user.getCreatedAt()
+        );
     }
 
     /**
@@ -304,8 +353,11 @@ public class UserService {
         User user = getUserById(userId);
         
         // Store previous values for logging
-        int previousAttempts = user.getFailedLoginAttempts();
-        boolean wasLocked = user.getLockedUntil() != null;
+        LoginLockoutService.LockoutState lockout = loginLockoutService.currentState(userId);
+        int previousAttempts = lockout != null
+                ? Math.max(user.getFailedLoginAttempts(), lockout.failedAttempts())
+                : user.getFailedLoginAttempts();
+        boolean wasLocked = user.getLockedUntil() != null || (lockout != null && lockout.isLocked());
         boolean wasInactive = !user.isActive();
         
         // Reset failed login attempts counter
@@ -329,6 +381,8 @@ public class UserService {
         }
 
         User updated = userRepository.save(user);
+        loginLockoutService.clear(userId);
+        principalCache.evict(userId);
         log.info("Failed login attempts reset for user {} by admin {} (previous attempts: {}, was locked: {}, was inactive: {})", 
                 userId, adminId, previousAttempts, wasLocked, wasInactive);
         return updated;
@@ -0,0 +1,90 @@
+package com.jesusLuna.polyglotCloud.service;
+
+import java.util.List;
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.jesusLuna.polyglotCloud.repository.TranslationVersionRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Conciliación periódica de los contadores de votos.
+ * Los votos actualizan upvotes/downvotes de forma incremental; este job vuelve a contarlos
+ * desde translation_votes, informa de cualquier desviación y la corrige.
+ * Cada recuento avanza la época de la versión (vote_epoch), así los incrementos write-behind que
+ * otros nodos tengan en memoria o a medio escribir no se suman encima del recuento.
+ * Las puntuaciones corregidas se llevan también a los rankings de Redis.
+ */
+@Slf4j
+@Service
+public class VoteCountReconciliationService {
+
+    private final TranslationVersionRepository versionRepository;
+    private final VoteDeltaBuffer voteDeltaBuffer;
+    private final LeaderboardService leaderboardService;
+    private final TransactionTemplate transactionTemplate;
+    private final Counter driftedVersions;
+
+    @Value("${app.votes.reconciliation.batch-size:500}")
+    private int batchSize;
+
+    public VoteCountReconciliationService(TranslationVersionRepository versionRepository,
+                                          VoteDeltaBuffer voteDeltaBuffer,
+                                          LeaderboardService leaderboardService,
+                                          TransactionTemplate transactionTemplate,
+                                          MeterRegistry meterRegistry) {
+        this.versionRepository = versionRepository;
+        this.voteDeltaBuffer = voteDeltaBuffer;
+        this.leaderboardService = leaderboardService;
+        this.transactionTemplate = transactionTemplate;
+        this.driftedVersions = Counter.builder("votes.reconciliation.drift")
+                .description("Translation versions whose vote counters had drifted from translation_votes")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(cron = "${app.votes.reconciliation.cron:0 15 * * * *}")
+    public void reconcileVoteCounts() {
+        // En modo write-behind los contadores van por detrás hasta el flush: vaciar el buffer local
+        // reduce falsos positivos; los incrementos de otros nodos los descarta la época.
+        // Fuera de la transacción del recuento: el flush confirma (o devuelve los incrementos al
+        // buffer) por su cuenta y nunca deja la transacción del recuento marcada para rollback
+        voteDeltaBuffer.flush();
+        transactionTemplate.executeWithoutResult(status -> recountDrifted());
+    }
+
+    private void recountDrifted() {
+        List<Object[]> drift = versionRepository.findVoteCountDrift(batchSize);
+        if (drift.isEmpty()) {
+            log.debug("Vote counters reconciled: no drift detected");
+            return;
+        }
+
+        List<UUID> versionIds = drift.stream()
+                .map(row -> (UUID) row[0])
+                .toList();
+
+        for (Object[] row : drift) {
+            log.warn("Vote counter drift on version {}: stored {}/{} (score {}), actual {}/{}",
+                    row[0], row[1], row[2], row[3], row[4], row[5]);
+        }
+
+        // Bloquear primero: espera a los votos que ya leyeron la época (FOR KEY SHARE), así el recuento
+        // los incluye y sus incrementos quedan obsoletos al avanzar la época
+        versionRepository.lockForVoteRecount(versionIds);
+        int fixed = versionRepository.recountVotes(versionIds);
+        driftedVersions.increment(drift.size());
+        // Los rankings se actualizan con el recuento al confirmar; los incrementos en memoria
+        // de la época anterior ya están contados
+        leaderboardService.refreshScores(versionIds, versionId -> 0);
+
+        log.warn("Vote counters reconciled: {} versions had drifted, {} corrected{}",
+                drift.size(), fixed, drift.size() == batchSize ? " (batch limit reached, more may remain)" : "");
+    }
+}
@@ -0,0 +1,196 @@
+package com.jesusLuna.polyglotCloud.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.jesusLuna.polyglotCloud.repository.TranslationVersionRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Buffer write-behind de los contadores de votos.
+ * Los votos se guardan al momento, pero los incrementos sobre translation_versions se acumulan
+ * en memoria (ConcurrentHashMap, bloqueo por bucket) y se aplican por lotes cada pocos ms,
+ * de modo que cientos de votos a la misma versión no compiten por su bloqueo de fila.
+ * Cada incremento lleva la época de la versión en la que se votó; si la conciliación recuenta
+ * entre medias (desde cualquier nodo), la época cambia y el incremento ya contado se descarta.
+ * Tras cada flush se vuelve a fijar la puntuación de esas versiones en los rankings: una
+ * reconstrucción que leyó la BD antes del flush no deja fuera los votos acumulados.
+ * Si el proceso cae antes del flush, la conciliación periódica corrige los contadores.
+ */
+@Slf4j
+@Service
+public class VoteDeltaBuffer {
+
+    private final TranslationVersionRepository versionRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final LeaderboardService leaderboardService;
+    private final Map<UUID, EpochDelta> pending = new ConcurrentHashMap<>();
+    private final Counter flushedVersions;
+    private final Counter staleDeltas;
+
+    @Value("${app.votes.write-behind.enabled:false}")
+    private boolean enabled;
+
+    public VoteDeltaBuffer(TranslationVersionRepository versionRepository,
+                           TransactionTemplate transactionTemplate,
+                           LeaderboardService leaderboardService,
+                           MeterRegistry meterRegistry) {
+        this.versionRepository = versionRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.leaderboardService = leaderboardService;
+        this.flushedVersions = Counter.builder("votes.write-behind.flushed")
+                .description("Version counter updates applied by the write-behind flush")
+                .register(meterRegistry);
+        this.staleDeltas = Counter.builder("votes.write-behind.stale")
+                .description("Buffered vote deltas discarded because a recount already included them")
+                .register(meterRegistry);
+        Gauge.builder("votes.write-behind.pending", pending, Map::size)
+                .description("Translation versions with vote deltas waiting to be flushed")
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Incremento pendiente de aplicar sobre los contadores de una versión
+     */
+    public record VoteDelta(int upvotes, int downvotes) {
+
+        public static final VoteDelta NONE = new VoteDelta(0, 0);
+
+        public VoteDelta plus(VoteDelta other) {
+            return new VoteDelta(upvotes + other.upvotes, downvotes + other.downvotes);
+        }
+
+        public int score() {
+            return upvotes - downvotes;
+        }
+
+        public boolean isEmpty() {
+            return upvotes == 0 && downvotes == 0;
+        }
+    }
+
+    /**
+     * Incremento acumulado dentro de una época de la versión
+     */
+    record EpochDelta(long epoch, VoteDelta delta) {
+
+        /**
+         * Misma época: se suman. Época más nueva: el recuento ya incluyó la antigua, se descarta.
+         */
+        EpochDelta merge(EpochDelta other) {
+            if (other.epoch == epoch) {
+                return new EpochDelta(epoch, delta.plus(other.delta));
+            }
+            return other.epoch > epoch ? other : this;
+        }
+    }
+
+    /**
+     * Acumula el incremento cuando la transacción del voto confirma (si hace rollback no se cuenta).
+     * Debe llamarse dentro de la transacción del voto: lee la época con bloqueo compartido para que
+     * un recuento no pueda colarse entre el voto y su incremento.
+     */
+    public void add(UUID versionId, int upvoteDelta, int downvoteDelta) {
+        VoteDelta delta = new VoteDelta(upvoteDelta, downvoteDelta);
+        if (delta.isEmpty()) {
+            return;
+        }
+        EpochDelta entry = new EpochDelta(versionRepository.lockVoteEpoch(versionId), delta);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    pending.merge(versionId, entry, EpochDelta::merge);
+                }
+            });
+        } else {
+            pending.merge(versionId, entry, EpochDelta::merge);
+        }
+    }
+
+    /**
+     * Incremento todavía no aplicado en base de datos (lo ya guardado + esto = valor real)
+     */
+    public VoteDelta pendingFor(UUID versionId) {
+        EpochDelta entry = pending.get(versionId);
+        return entry != null ? entry.delta() : VoteDelta.NONE;
+    }
+
+    @Scheduled(fixedDelayString = "${app.votes.write-behind.flush-interval-ms:200}")
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        // remove() es atómico: los votos que lleguen durante el flush crean una entrada nueva.
+        // Orden por id para que dos nodos no se bloqueen mutuamente.
+        Map<UUID, EpochDelta> batch = new TreeMap<>();
+        for (UUID versionId : new ArrayList<>(pending.keySet())) {
+            EpochDelta entry = pending.remove(versionId);
+            if (entry != null && !entry.delta().isEmpty()) {
+                batch.put(versionId, entry);
+            }
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        try {
+            int applied = transactionTemplate.execute(status -> {
+                int updated = 0;
+                for (Map.Entry<UUID, EpochDelta> e : batch.entrySet()) {
+                    VoteDelta delta = e.getValue().delta();
+                    updated += versionRepository.applyBufferedVoteDelta(
+                            e.getKey(), e.getValue().epoch(), delta.upvotes(), delta.downvotes());
+                }
+                return updated;
+            });
+            flushedVersions.increment(applied);
+            staleDeltas.increment(batch.size() - applied);
+            log.debug("Flushed vote deltas for {} versions ({} already recounted)", applied, batch.size() - applied);
+        } catch (Exception e) {
+            // Devolver los incrementos al buffer para el siguiente intento
+            batch.forEach((versionId, entry) -> pending.merge(versionId, entry, EpochDelta::merge));
+            log.error("Error flushing vote deltas for {} versions, will retry", batch.size(), e);
+            return;
+        }
+
+        try {
+            // Lo que siga en el buffer (votos llegados durante el flush) aún no está en la BD
+            leaderboardService.refreshScores(batch.keySet(), versionId -> pendingFor(versionId).score());
+        } catch (Exception e) {
+            log.warn("Error refreshing leaderboards after flushing {} versions, they will be rebuilt after expiring",
+                    batch.size(), e);
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+        if (!pending.isEmpty()) {
+            List<UUID> lost = new ArrayList<>(pending.keySet());
+            log.warn("{} versions still had pending vote deltas at shutdown; reconciliation will correct them: {}",
+                    lost.size(), lost);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.jesusLuna.polyglotCloud.service.engine;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Circuit breaker por motor basado en fallos consecutivos.
+ * CLOSED deja pasar todo; al llegar a failureThreshold fallos pasa a OPEN y rechaza las llamadas
+ * durante openDuration; después HALF_OPEN deja pasar una única llamada de prueba que cierra o
+ * vuelve a abrir el circuito.
+ */
+final class EngineCircuitBreaker {
+
+    enum State { CLOSED, HALF_OPEN, OPEN }
+
+    private final int failureThreshold;
+    private final Duration openDuration;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private Instant openUntil = Instant.EPOCH;
+    private boolean probeInFlight;
+
+    EngineCircuitBreaker(int failureThreshold, Duration openDuration) {
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.openDuration = openDuration;
+    }
+
+    /**
+     * Reserva el paso de una llamada; con true el llamador debe notificar onSuccess, onFailure o release
+     */
+    synchronized boolean tryAcquire() {
+        switch (state) {
+            case CLOSED:
+                return true;
+            case OPEN:
+                if (Instant.now().isBefore(openUntil)) {
+                    return false;
+                }
+                state = State.HALF_OPEN;
+                probeInFlight = true;
+                return true;
+            default:
+                if (probeInFlight) {
+                    return false;
+                }
+                probeInFlight = true;
+                return true;
+        }
+    }
+
+    /**
+     * La llamada reservada no llegó a hacerse (sin hueco o sin token): no cuenta como resultado
+     */
+    synchronized void release() {
+        probeInFlight = false;
+    }
+
+    synchronized void onSuccess() {
+        state = State.CLOSED;
+        consecutiveFailures = 0;
+        probeInFlight = false;
+    }
+
+    synchronized void onFailure() {
+        probeInFlight = false;
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+            state = State.OPEN;
+            openUntil = Instant.now().plus(openDuration);
+        }
+    }
+
+    /**
+     * Indica si merece la pena reclamar trabajo: false mientras el circuito está abierto
+     */
+    synchronized boolean isCallPermitted() {
+        return state != State.OPEN || !Instant.now().isBefore(openUntil);
+    }
+
+    synchronized long retryAfterSeconds() {
+        long remaining = Duration.between(Instant.now(), openUntil).toSeconds();
+        return Math.max(1, remaining);
+    }
+
+    synchronized State state() {
+        return state;
+    }
+}
@@ -0,0 +1,97 @@
+package com.jesusLuna.polyglotCloud.service.engine;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Motor local y determinista para pruebas: la misma entrada produce siempre la misma salida
+ * (cabecera + código original comentado con la sintaxis del lenguaje destino).
+ * Modela el coste de un motor real con una latencia fija por llamada más otra por snippet, de
+ * modo que se aprecia la ganancia del envío por lotes. Un snippet que contiene fail-marker
+ * falla de forma individual, sin tumbar el resto del lote.
+ */
+@Slf4j
+@Component
+public class FakeTranslationEngine implements TranslationEngine {
+
+    @Value("${app.translation.engine.fake.call-overhead-ms:0}")
+    private long callOverheadMs;
+
+    @Value("${app.translation.engine.fake.per-snippet-ms:0}")
+    private long perSnippetMs;
+
+    @Value("${app.translation.engine.fake.fail-marker:FAKE_ENGINE_FAIL}")
+    private String failMarker;
+
+    @Override
+    public String name() {
+        return "fake";
+    }
+
+    @Override
+    public boolean simulated() {
+        return true;
+    }
+
+    @Override
+    public String translate(String sourceCode, String sourceLanguage, String targetLanguage) {
+        simulateLatency(1);
+        if (shouldFail(sourceCode)) {
+            throw new IllegalArgumentException("Fake engine failure requested by the source snippet");
+        }
+        return render(sourceCode, sourceLanguage, targetLanguage);
+    }
+
+    @Override
+    public List<TranslationResult> translateBatch(List<TranslationTask> tasks) {
+        log.debug("Fake engine translating batch of {} snippets", tasks.size());
+        simulateLatency(tasks.size());
+
+        List<TranslationResult> results = new ArrayList<>(tasks.size());
+        for (TranslationTask task : tasks) {
+            results.add(shouldFail(task.sourceCode())
+                    ? TranslationResult.failure(task.id(), "Fake engine failure requested by the source snippet")
+                    : TranslationResult.success(task.id(), render(task.sourceCode(), task.sourceLanguage(), task.targetLanguage())));
+        }
+        return results;
+    }
+
+    private boolean shouldFail(String sourceCode) {
+        return failMarker != null && !failMarker.isEmpty() && sourceCode.contains(failMarker);
+    }
+
+    private void simulateLatency(int snippets) {
+        long latencyMs = callOverheadMs + perSnippetMs * snippets;
+        if (latencyMs <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(latencyMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Translation interrupted", e);
+        }
+    }
+
+    private static String render(String sourceCode, String sourceLanguage, String targetLanguage) {
+        String comment = commentPrefix(targetLanguage);
+        StringBuilder out = new StringBuilder(sourceCode.length() + 64)
+                .append(comment).append(" Fake translation from ").append(sourceLanguage)
+                .append(" to ").append(targetLanguage).append('\n');
+        sourceCode.lines().forEach(line -> out.append(comment).append(' ').append(line).append('\n'));
+        return out.toString();
+    }
+
+    private static String commentPrefix(String language) {
+        return switch (language.toLowerCase()) {
+            case "python", "ruby", "shell", "bash", "r", "perl" -> "#";
+            case "sql", "lua", "haskell" -> "--";
+            default -> "//";
+        };
+    }
+}
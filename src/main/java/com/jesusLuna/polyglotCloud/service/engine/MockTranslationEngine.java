@@ -0,0 +1,60 @@
+package com.jesusLuna.polyglotCloud.service.engine;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Motor simulado: espera una latencia aleatoria y devuelve un "Hello, World!" del lenguaje destino.
+ * Sirve para ejecutar la cola de extremo a extremo (y medir su throughput) sin un motor real.
+ */
+@Slf4j
+@Component
+public class MockTranslationEngine implements TranslationEngine {
+
+    @Value("${app.translation.engine.mock.min-latency-ms:2000}")
+    private long minLatencyMs;
+
+    @Value("${app.translation.engine.mock.max-latency-ms:5000}")
+    private long maxLatencyMs;
+
+    @Override
+    public String name() {
+        return "mock";
+    }
+
+    @Override
+    public boolean simulated() {
+        return true;
+    }
+
+    @Override
+    public String translate(String sourceCode, String sourceLanguage, String targetLanguage) {
+        log.debug("Translating from {} to {}", sourceLanguage, targetLanguage);
+
+        // Simular tiempo de procesamiento
+        try {
+            Thread.sleep(minLatencyMs + ThreadLocalRandom.current().nextLong(Math.max(1, maxLatencyMs - minLatencyMs)));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Translation interrupted", e);
+        }
+
+        // Aquí implementarías la integración real con OpenAI, Claude, etc.
+        return generateMockTranslation(targetLanguage);
+    }
+
+    private String generateMockTranslation(String targetLanguage) {
+        // Mock translation basado en el lenguaje objetivo
+        return switch (targetLanguage.toLowerCase()) {
+            case "python" -> "# Python equivalent\nprint(\"Hello, World!\")";
+            case "javascript" -> "// JavaScript equivalent\nconsole.log(\"Hello, World!\");";
+            case "java" -> "// Java equivalent\nSystem.out.println(\"Hello, World!\");";
+            case "go" -> "// Go equivalent\nfmt.Println(\"Hello, World!\")";
+            default -> "// " + targetLanguage + " equivalent\n// Translation not available for this language";
+        };
+    }
+}
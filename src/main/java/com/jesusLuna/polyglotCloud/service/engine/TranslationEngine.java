@@ -0,0 +1,77 @@
+package com.jesusLuna.polyglotCloud.service.engine;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * SPI de los motores de traducción automática de código.
+ * Las implementaciones pueden bloquear (llamadas HTTP, modelos locales): se invocan siempre a
+ * través de {@link TranslationEngineGateway}, que aplica concurrencia, rate limit, timeout y
+ * circuit breaker por motor, desde los workers de la cola (nunca desde el hilo de la petición).
+ */
+public interface TranslationEngine {
+
+    /**
+     * Un snippet a traducir dentro de un lote
+     */
+    record TranslationTask(UUID id, String sourceCode, String sourceLanguage, String targetLanguage) {}
+
+    /**
+     * Resultado de una tarea del lote: translatedCode o error (fallo solo de ese snippet)
+     */
+    record TranslationResult(UUID id, String translatedCode, String error) {
+
+        public static TranslationResult success(UUID id, String translatedCode) {
+            return new TranslationResult(id, translatedCode, null);
+        }
+
+        public static TranslationResult failure(UUID id, String error) {
+            return new TranslationResult(id, null, error);
+        }
+
+        public boolean isSuccess() {
+            return error == null;
+        }
+    }
+
+    /**
+     * Nombre con el que se selecciona y configura el motor (app.translation.engine.*)
+     */
+    String name();
+
+    /**
+     * true si el motor no traduce de verdad (pruebas, carga): su salida nunca se reutiliza como
+     * duplicado y solo acepta peticiones sin traducción manual con app.translation.engine.allow-simulated
+     */
+    default boolean simulated() {
+        return false;
+    }
+
+    /**
+     * Traduce el código fuente entre dos lenguajes
+     *
+     * @param sourceCode     código original
+     * @param sourceLanguage nombre del lenguaje de origen
+     * @param targetLanguage nombre del lenguaje destino
+     * @return código traducido
+     */
+    String translate(String sourceCode, String sourceLanguage, String targetLanguage);
+
+    /**
+     * Traduce varios snippets en una sola llamada. Los motores con API por lotes deben
+     * sobrescribirlo: el coste fijo por llamada domina con snippets pequeños.
+     * Una excepción indica que falló la llamada completa; los fallos de un snippet concreto
+     * se devuelven como {@link TranslationResult#failure}.
+     *
+     * @return un resultado por tarea, en el mismo orden
+     */
+    default List<TranslationResult> translateBatch(List<TranslationTask> tasks) {
+        List<TranslationResult> results = new ArrayList<>(tasks.size());
+        for (TranslationTask task : tasks) {
+            results.add(TranslationResult.success(task.id(),
+                    translate(task.sourceCode(), task.sourceLanguage(), task.targetLanguage())));
+        }
+        return results;
+    }
+}
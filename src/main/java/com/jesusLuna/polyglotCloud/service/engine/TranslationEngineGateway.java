@@ -0,0 +1,271 @@
+package com.jesusLuna.polyglotCloud.service.engine;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.jesusLuna.polyglotCloud.config.TranslationEngineProperties;
+import com.jesusLuna.polyglotCloud.exception.ServiceUnavailableException;
+import com.jesusLuna.polyglotCloud.service.engine.TranslationEngine.TranslationResult;
+import com.jesusLuna.polyglotCloud.service.engine.TranslationEngine.TranslationTask;
+
+import io.github.bucket4j.Bucket;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Punto único de acceso al motor de traducción activo (app.translation.engine.active).
+ * Cada llamada (un lote completo) pasa por el circuit breaker, un semáforo de concurrencia y un
+ * bucket local de llamadas por segundo, y se ejecuta con timeout en un hilo propio. Si no hay
+ * hueco, token o el circuito está abierto lanza {@link ServiceUnavailableException}: la llamada no
+ * se hizo y el trabajo puede reintentarse sin consumir un intento.
+ */
+@Slf4j
+@Service
+public class TranslationEngineGateway implements DisposableBean {
+
+    private final TranslationEngine engine;
+    private final TranslationEngineProperties.Limits limits;
+    private final boolean acceptsMachineTranslations;
+    private final EngineCircuitBreaker circuitBreaker;
+    private final Semaphore permits;
+    private final Bucket rateLimit;
+    private final ExecutorService callExecutor;
+
+    private final Counter succeeded;
+    private final Counter errored;
+    private final Counter timedOut;
+    private final Counter rejected;
+    private final Timer callTime;
+    private final DistributionSummary batchSize;
+
+    public TranslationEngineGateway(List<TranslationEngine> engines,
+                                    TranslationEngineProperties properties,
+                                    MeterRegistry meterRegistry,
+                                    @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        Map<String, TranslationEngine> byName = new HashMap<>();
+        engines.forEach(candidate -> byName.put(candidate.name(), candidate));
+        this.engine = byName.get(properties.getActive());
+        if (engine == null) {
+            throw new IllegalStateException("Unknown translation engine '" + properties.getActive()
+                    + "', available: " + byName.keySet());
+        }
+
+        this.limits = properties.limitsFor(engine.name());
+        this.acceptsMachineTranslations = !engine.simulated() || properties.isAllowSimulated();
+        this.circuitBreaker = new EngineCircuitBreaker(limits.getFailureThreshold(), Duration.ofSeconds(limits.getOpenSeconds()));
+        this.permits = new Semaphore(Math.max(1, limits.getMaxConcurrency()), true);
+        this.rateLimit = limits.getRequestsPerSecond() > 0
+                ? Bucket.builder()
+                        .addLimit(limit -> limit.capacity(limits.getRequestsPerSecond())
+                                .refillGreedy(limits.getRequestsPerSecond(), Duration.ofSeconds(1)))
+                        .build()
+                : null;
+
+        // Hilo aparte para poder abandonar una llamada que supera el timeout
+        AtomicInteger threadCount = new AtomicInteger();
+        this.callExecutor = virtualThreads
+                ? Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("translation-engine-", 1).factory())
+                : Executors.newCachedThreadPool(runnable -> {
+                    Thread thread = new Thread(runnable, "translation-engine-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+
+        String engineTag = engine.name();
+        this.succeeded = outcomeCounter(meterRegistry, engineTag, "success");
+        this.errored = outcomeCounter(meterRegistry, engineTag, "error");
+        this.timedOut = outcomeCounter(meterRegistry, engineTag, "timeout");
+        this.rejected = outcomeCounter(meterRegistry, engineTag, "rejected");
+        this.callTime = Timer.builder("translation.engine.call.duration")
+                .description("Duration of a translation engine call (one batch)")
+                .tag("engine", engineTag)
+                .register(meterRegistry);
+        this.batchSize = DistributionSummary.builder("translation.engine.batch.size")
+                .description("Snippets sent per translation engine call")
+                .tag("engine", engineTag)
+                .register(meterRegistry);
+        Gauge.builder("translation.engine.circuit.state", circuitBreaker, breaker -> breaker.state().ordinal())
+                .description("Circuit state of the translation engine: 0 closed, 1 half-open, 2 open")
+                .tag("engine", engineTag)
+                .register(meterRegistry);
+
+        log.info("Translation engine '{}': maxConcurrency={}, requestsPerSecond={}, timeout={}ms, maxBatchSize={}",
+                engineTag, limits.getMaxConcurrency(), limits.getRequestsPerSecond(), limits.getTimeoutMs(), limits.getMaxBatchSize());
+    }
+
+    public String engineName() {
+        return engine.name();
+    }
+
+    /**
+     * true si el motor activo es simulado: su salida no es una traducción reutilizable
+     */
+    public boolean isSimulated() {
+        return engine.simulated();
+    }
+
+    /**
+     * false con un motor simulado salvo app.translation.engine.allow-simulated: las peticiones
+     * necesitan entonces una traducción manual
+     */
+    public boolean acceptsMachineTranslations() {
+        return acceptsMachineTranslations;
+    }
+
+    public int maxBatchSize() {
+        return Math.max(1, limits.getMaxBatchSize());
+    }
+
+    public int maxBatchChars() {
+        return limits.getMaxBatchChars();
+    }
+
+    /**
+     * false mientras el circuito está abierto: los workers no deberían reclamar trabajo
+     */
+    public boolean isAvailable() {
+        return circuitBreaker.isCallPermitted();
+    }
+
+    /**
+     * Traduce un lote en una sola llamada al motor
+     *
+     * @return un resultado por tarea, en el mismo orden
+     * @throws ServiceUnavailableException si la llamada no llegó a hacerse (circuito abierto, sin hueco o sin token)
+     */
+    public List<TranslationResult> translateBatch(List<TranslationTask> tasks) {
+        if (tasks.isEmpty()) {
+            return List.of();
+        }
+        if (!circuitBreaker.tryAcquire()) {
+            rejected.increment();
+            throw new ServiceUnavailableException("Translation engine '" + engine.name() + "' circuit is open",
+                    circuitBreaker.retryAfterSeconds());
+        }
+        if (!acquirePermit()) {
+            circuitBreaker.release();
+            rejected.increment();
+            throw new ServiceUnavailableException("Translation engine '" + engine.name() + "' is saturated");
+        }
+
+        batchSize.record(tasks.size());
+        Timer.Sample sample = Timer.start();
+        Future<List<TranslationResult>> call;
+        try {
+            call = callExecutor.submit(() -> {
+                try {
+                    return engine.translateBatch(tasks);
+                } finally {
+                    // El hueco se libera cuando el motor termina de verdad, no al vencer el timeout
+                    permits.release();
+                }
+            });
+        } catch (RuntimeException e) {
+            permits.release();
+            circuitBreaker.release();
+            throw e;
+        }
+
+        try {
+            List<TranslationResult> results = call.get(limits.getTimeoutMs(), TimeUnit.MILLISECONDS);
+            circuitBreaker.onSuccess();
+            succeeded.increment();
+            return alignResults(tasks, results);
+        } catch (TimeoutException e) {
+            call.cancel(true);
+            circuitBreaker.onFailure();
+            timedOut.increment();
+            throw new IllegalStateException("Translation engine '" + engine.name() + "' timed out after "
+                    + limits.getTimeoutMs() + "ms", e);
+        } catch (ExecutionException e) {
+            circuitBreaker.onFailure();
+            errored.increment();
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            throw new IllegalStateException("Translation engine '" + engine.name() + "' failed: " + cause.getMessage(), cause);
+        } catch (InterruptedException e) {
+            call.cancel(true);
+            circuitBreaker.release();
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted waiting for translation engine '" + engine.name() + "'", e);
+        } finally {
+            sample.stop(callTime);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        callExecutor.shutdownNow();
+    }
+
+    private boolean acquirePermit() {
+        long maxWaitMs = limits.getMaxWaitMs();
+        long startedAt = System.nanoTime();
+        boolean acquired = false;
+        try {
+            acquired = permits.tryAcquire(maxWaitMs, TimeUnit.MILLISECONDS);
+            if (acquired && rateLimit != null) {
+                long remainingMs = maxWaitMs - TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt);
+                // Bucket4j no admite una espera bloqueante de 0: sin margen solo se prueba sin esperar
+                boolean consumed = remainingMs > 0
+                        ? rateLimit.asBlocking().tryConsume(1, Duration.ofMillis(remainingMs))
+                        : rateLimit.tryConsume(1);
+                if (!consumed) {
+                    permits.release();
+                    acquired = false;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            if (acquired) {
+                permits.release();
+                acquired = false;
+            }
+        }
+        return acquired;
+    }
+
+    /**
+     * Ordena los resultados como las tareas; una tarea sin resultado del motor cuenta como fallida
+     */
+    private static List<TranslationResult> alignResults(List<TranslationTask> tasks, List<TranslationResult> results) {
+        Map<UUID, TranslationResult> byId = results == null ? Map.of() : results.stream()
+                .collect(Collectors.toMap(TranslationResult::id, Function.identity(), (first, second) -> first));
+
+        List<TranslationResult> aligned = new ArrayList<>(tasks.size());
+        for (TranslationTask task : tasks) {
+            TranslationResult result = byId.get(task.id());
+            aligned.add(result != null ? result : TranslationResult.failure(task.id(), "No result returned by the engine"));
+        }
+        return aligned;
+    }
+
+    private static Counter outcomeCounter(MeterRegistry meterRegistry, String engine, String outcome) {
+        return Counter.builder("translation.engine.calls")
+                .description("Translation engine calls by outcome")
+                .tag("engine", engine)
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,202 @@
+package com.jesusLuna.polyglotCloud.util;
+
+/**
+ * Normalizador de código en una sola pasada, sin crear cadenas intermedias.
+ * Produce exactamente lo mismo que la cadena de regex original (los content_hash ya guardados siguen valiendo):
+ * <ol>
+ *   <li>\r\n y \r → \n</li>
+ *   <li>espacios y tabuladores al final de línea eliminados ([ \t]+\n → \n)</li>
+ *   <li>tres o más saltos de línea seguidos (con blancos entre ellos) → una sola línea vacía (\n\s*\n\s*\n → \n\n)</li>
+ *   <li>strip() del resultado</li>
+ * </ol>
+ * Los caracteres se entregan a un {@link CharSink}. No es thread-safe: una instancia por hilo.
+ */
+public final class CodeNormalizer {
+
+    /**
+     * Destino de los caracteres normalizados; devolver false detiene la normalización
+     */
+    @FunctionalInterface
+    public interface CharSink {
+        boolean accept(char c);
+    }
+
+    /**
+     * Buffers mayores que esto no se conservan entre usos
+     */
+    private static final int MAX_RETAINED_CAPACITY = 64 * 1024;
+
+    // Racha actual de blancos de regex (\s = [ \t\n\x0B\f\r]); se resuelve al terminar
+    private StringBuilder whitespaceRun = new StringBuilder();
+    // Blancos (Character.isWhitespace) emitidos tras el último carácter visible: solo salen si llega otro
+    private StringBuilder pendingTrailing = new StringBuilder();
+    // Copia normalizada para normalizedEquals
+    private StringBuilder reference = new StringBuilder();
+
+    private CharSink sink;
+    private boolean started;
+    private boolean stopped;
+
+    /**
+     * Normaliza code entregando cada carácter a sink (null se trata como cadena vacía)
+     *
+     * @return false si el sink detuvo la normalización
+     */
+    public boolean normalize(CharSequence code, CharSink sink) {
+        this.sink = sink;
+        this.started = false;
+        this.stopped = false;
+        whitespaceRun.setLength(0);
+        pendingTrailing.setLength(0);
+
+        try {
+            if (code == null) {
+                return true;
+            }
+
+            boolean afterCarriageReturn = false;
+            for (int i = 0, length = code.length(); i < length && !stopped; i++) {
+                char c = code.charAt(i);
+                if (c == '\r') {
+                    c = '\n';
+                    afterCarriageReturn = true;
+                } else if (c == '\n' && afterCarriageReturn) {
+                    afterCarriageReturn = false;
+                    continue;
+                } else {
+                    afterCarriageReturn = false;
+                }
+
+                if (isRegexWhitespace(c)) {
+                    whitespaceRun.append(c);
+                } else {
+                    flushWhitespaceRun();
+                    emit(c);
+                }
+            }
+            // Los blancos finales se descartan (strip)
+            return !stopped;
+        } finally {
+            this.sink = null;
+            whitespaceRun = trim(whitespaceRun);
+            pendingTrailing = trim(pendingTrailing);
+        }
+    }
+
+    /**
+     * Compara dos códigos tras normalizarlos, parando en la primera diferencia
+     */
+    public boolean normalizedEquals(String first, String second) {
+        if (first != null && first.equals(second)) {
+            return true;
+        }
+
+        reference.setLength(0);
+        try {
+            normalize(first, c -> {
+                reference.append(c);
+                return true;
+            });
+
+            int[] position = {0};
+            boolean matched = normalize(second, c -> position[0] < reference.length() && reference.charAt(position[0]++) == c);
+            return matched && position[0] == reference.length();
+        } finally {
+            reference = trim(reference);
+        }
+    }
+
+    /**
+     * Resuelve una racha de blancos aplicando las reglas 2 y 3 dentro de ella
+     * (ninguna de las dos regex puede cruzar un carácter que no sea blanco)
+     */
+    private void flushWhitespaceRun() {
+        int length = whitespaceRun.length();
+        if (length == 0) {
+            return;
+        }
+
+        // Regla 2: quitar [ \t]+ justo antes de cada \n, compactando en el mismo buffer
+        int written = 0;
+        int newlines = 0;
+        for (int i = 0; i < length; i++) {
+            char c = whitespaceRun.charAt(i);
+            if (c == '\n') {
+                while (written > 0 && isSpaceOrTab(whitespaceRun.charAt(written - 1))) {
+                    written--;
+                }
+                newlines++;
+            }
+            whitespaceRun.setCharAt(written++, c);
+        }
+
+        if (newlines < 3) {
+            for (int i = 0; i < written && !stopped; i++) {
+                emit(whitespaceRun.charAt(i));
+            }
+        } else {
+            // Regla 3: del primer al último \n de la racha → "\n\n"; lo de antes y después se conserva
+            int firstNewline = 0;
+            while (whitespaceRun.charAt(firstNewline) != '\n') {
+                firstNewline++;
+            }
+            int lastNewline = written - 1;
+            while (whitespaceRun.charAt(lastNewline) != '\n') {
+                lastNewline--;
+            }
+
+            for (int i = 0; i < firstNewline && !stopped; i++) {
+                emit(whitespaceRun.charAt(i));
+            }
+            emit('\n');
+            emit('\n');
+            for (int i = lastNewline + 1; i < written && !stopped; i++) {
+                emit(whitespaceRun.charAt(i));
+            }
+        }
+        whitespaceRun.setLength(0);
+    }
+
+    /**
+     * Regla 4 (strip): los blancos iniciales se descartan y los demás se retienen hasta ver un carácter visible
+     */
+    private void emit(char c) {
+        if (stopped) {
+            return;
+        }
+        if (Character.isWhitespace(c)) {
+            if (started) {
+                pendingTrailing.append(c);
+            }
+            return;
+        }
+
+        for (int i = 0, length = pendingTrailing.length(); i < length; i++) {
+            if (!sink.accept(pendingTrailing.charAt(i))) {
+                stopped = true;
+                return;
+            }
+        }
+        pendingTrailing.setLength(0);
+        started = true;
+        if (!sink.accept(c)) {
+            stopped = true;
+        }
+    }
+
+    private static boolean isRegexWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
+    private static boolean isSpaceOrTab(char c) {
+        return c == ' ' || c == '\t';
+    }
+
+    private static StringBuilder trim(StringBuilder buffer) {
+        if (buffer.capacity() > MAX_RETAINED_CAPACITY) {
+            return new StringBuilder();
+        }
+        buffer.setLength(0);
+        return buffer;
+    }
+}
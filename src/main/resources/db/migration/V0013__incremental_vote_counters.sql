@@ -0,0 +1,9 @@
+-- Los contadores de votos se mantienen ahora desde la aplicación con UPDATEs incrementales
+-- (upvotes_count = upvotes_count + 1). El trigger anterior recontaba todos los votos de la
+-- versión en cada INSERT/UPDATE/DELETE, O(votos) por voto.
+DROP TRIGGER IF EXISTS trigger_update_version_vote_counts ON translation_votes;
+DROP FUNCTION IF EXISTS update_version_vote_counts();
+
+-- Índice para la conciliación periódica (recuento por versión y tipo)
+CREATE INDEX IF NOT EXISTS idx_translation_votes_version_type
+    ON translation_votes(translation_version_id, vote_type);
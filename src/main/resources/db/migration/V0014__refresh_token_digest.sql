@@ -0,0 +1,17 @@
+-- Los refresh tokens se indexan por su SHA-256 (64 caracteres hex) en lugar del JWT completo:
+-- índice único estrecho y el token en claro deja de guardarse en la base de datos.
+ALTER TABLE refresh_tokens ADD COLUMN token_hash VARCHAR(64);
+
+UPDATE refresh_tokens
+SET token_hash = encode(sha256(convert_to(token, 'UTF8')), 'hex');
+
+ALTER TABLE refresh_tokens ALTER COLUMN token_hash SET NOT NULL;
+CREATE UNIQUE INDEX idx_refresh_tokens_token_hash ON refresh_tokens(token_hash);
+
+DROP INDEX IF EXISTS idx_refresh_tokens_token;
+ALTER TABLE refresh_tokens DROP COLUMN token;
+
+-- Sesiones activas por usuario (límite por usuario cuando Redis no está disponible)
+CREATE INDEX idx_refresh_tokens_user_active
+    ON refresh_tokens(user_id, created_at)
+    WHERE is_revoked = false;
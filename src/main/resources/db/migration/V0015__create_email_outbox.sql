@@ -0,0 +1,23 @@
+-- Outbox transaccional de emails: el email se inserta en la misma transacción que el cambio
+-- que lo provoca y un dispatcher en segundo plano lo envía por SMTP con reintentos.
+CREATE TABLE email_outbox (
+    id UUID PRIMARY KEY DEFAULT uuid_generate_v4(),
+    recipient VARCHAR(255) NOT NULL,
+    subject VARCHAR(255) NOT NULL,
+    html_body TEXT NOT NULL,
+    template VARCHAR(100) NOT NULL,
+    status VARCHAR(20) NOT NULL DEFAULT 'PENDING' CHECK (status IN ('PENDING', 'SENDING', 'SENT', 'FAILED')),
+    attempts INTEGER NOT NULL DEFAULT 0,
+    next_attempt_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    last_error TEXT,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    sent_at TIMESTAMP
+);
+
+-- Cola del dispatcher: solo los mensajes pendientes o con el envío en curso caducado
+CREATE INDEX idx_email_outbox_due
+    ON email_outbox(next_attempt_at)
+    WHERE status IN ('PENDING', 'SENDING');
+
+-- Purga de enviados
+CREATE INDEX idx_email_outbox_sent_at ON email_outbox(sent_at) WHERE status = 'SENT';
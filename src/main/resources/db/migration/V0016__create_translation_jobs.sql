@@ -0,0 +1,20 @@
+-- Cola persistente de traducciones automáticas. Los workers reclaman trabajos con
+-- FOR UPDATE SKIP LOCKED por idioma destino y prioridad; un trabajo RUNNING cuyo
+-- next_attempt_at (timeout de visibilidad) ha pasado vuelve a estar disponible.
+CREATE TABLE translation_jobs (
+    id UUID PRIMARY KEY DEFAULT uuid_generate_v4(),
+    translation_id UUID NOT NULL UNIQUE REFERENCES translations(id) ON DELETE CASCADE,
+    target_language_id UUID NOT NULL REFERENCES languages(id),
+    priority SMALLINT NOT NULL DEFAULT 1,  -- 0 = alta, 1 = normal, 2 = baja
+    status VARCHAR(20) NOT NULL DEFAULT 'QUEUED' CHECK (status IN ('QUEUED', 'RUNNING', 'FAILED')),
+    attempts INTEGER NOT NULL DEFAULT 0,
+    next_attempt_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    last_error VARCHAR(1000),
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+-- Reclamación por idioma en orden de prioridad; solo trabajos vivos
+CREATE INDEX idx_translation_jobs_due
+    ON translation_jobs(target_language_id, priority, next_attempt_at)
+    WHERE status IN ('QUEUED', 'RUNNING');
@@ -0,0 +1,26 @@
+-- Single-flight de traducciones automáticas: una sola traducción "líder" en curso por
+-- content_hash; las peticiones idénticas concurrentes se enlazan a ella (coalesced_with)
+-- y reciben su resultado al completarse, sin crear trabajos propios para el motor.
+ALTER TABLE translations
+ADD COLUMN coalesced_with UUID REFERENCES translations(id) ON DELETE SET NULL;
+
+CREATE INDEX idx_translations_coalesced_with ON translations(coalesced_with)
+WHERE coalesced_with IS NOT NULL;
+
+-- Duplicados en curso anteriores a esta migración: se enlazan a la más antigua
+-- (sus trabajos en cola se descartan al ejecutarse)
+UPDATE translations t
+SET coalesced_with = leader.id
+FROM (
+    SELECT DISTINCT ON (content_hash) id, content_hash
+    FROM translations
+    WHERE status IN ('PENDING', 'PROCESSING')
+    ORDER BY content_hash, created_at, id
+) leader
+WHERE t.content_hash = leader.content_hash
+  AND t.status IN ('PENDING', 'PROCESSING')
+  AND t.id <> leader.id;
+
+-- Garantía entre nodos: como mucho un líder en curso por hash
+CREATE UNIQUE INDEX idx_translations_inflight_hash ON translations(content_hash)
+WHERE status IN ('PENDING', 'PROCESSING') AND coalesced_with IS NULL;
@@ -0,0 +1,5 @@
+-- Época de los contadores de votos. Cada recuento de la conciliación la incrementa y los
+-- incrementos write-behind solo se aplican sobre la época en la que se votó, de modo que un
+-- incremento que el recuento ya contó (en cualquier nodo) no se suma dos veces.
+ALTER TABLE translation_versions
+    ADD COLUMN IF NOT EXISTS vote_epoch BIGINT NOT NULL DEFAULT 0;
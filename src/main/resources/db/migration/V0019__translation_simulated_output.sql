@@ -0,0 +1,4 @@
+-- Traducciones producidas por un motor simulado (mock/fake). Su código no es una traducción real:
+-- nunca se reutilizan como duplicado (ni por content_hash ni desde el índice de duplicados).
+ALTER TABLE translations
+    ADD COLUMN IF NOT EXISTS simulated BOOLEAN NOT NULL DEFAULT FALSE;
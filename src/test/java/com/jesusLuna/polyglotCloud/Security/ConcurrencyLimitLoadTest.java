@@ -0,0 +1,186 @@
+package com.jesusLuna.polyglotCloud.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.catalina.Context;
+import org.apache.catalina.startup.Tomcat;
+import org.apache.coyote.AbstractProtocol;
+import org.apache.tomcat.util.descriptor.web.FilterDef;
+import org.apache.tomcat.util.descriptor.web.FilterMap;
+import org.apache.tomcat.util.threads.VirtualThreadExecutor;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * 1.000 conexiones simultáneas contra un Tomcat embebido cuyo endpoint simula una consulta con un
+ * pool de 20 conexiones (como Hikari): pool de hilos de plataforma (200, el de Tomcat) frente a hilos
+ * virtuales sin límite y con ConcurrencyLimitFilter. Imprime throughput, p50/p99 y códigos de
+ * respuesta de cada modo; con el filtro ninguna petición debe agotar la espera del pool.
+ */
+@Tag("load")
+class ConcurrencyLimitLoadTest {
+
+    private static final int CONNECTIONS = 1_000;
+    private static final int REQUESTS_PER_CONNECTION = 20;
+    private static final int DB_POOL_SIZE = 20;
+    private static final long DB_POOL_TIMEOUT_MS = 1_000;
+    private static final long QUERY_MS = 10;
+
+    @TempDir
+    Path baseDir;
+
+    private enum Mode { PLATFORM_THREADS, VIRTUAL_THREADS, VIRTUAL_THREADS_WITH_LIMIT }
+
+    private record Result(long[] latencies, long wallNanos, int ok, int poolTimeouts, int rejected) {
+    }
+
+    @Test
+    void compareThreadModelsUnderOneThousandConnections() throws Exception {
+        Result platform = run(Mode.PLATFORM_THREADS);
+        Result virtual = run(Mode.VIRTUAL_THREADS);
+        Result limited = run(Mode.VIRTUAL_THREADS_WITH_LIMIT);
+
+        report(Mode.PLATFORM_THREADS, platform);
+        report(Mode.VIRTUAL_THREADS, virtual);
+        report(Mode.VIRTUAL_THREADS_WITH_LIMIT, limited);
+
+        int total = CONNECTIONS * REQUESTS_PER_CONNECTION;
+        for (Result result : List.of(platform, virtual, limited)) {
+            assertThat(result.ok() + result.poolTimeouts() + result.rejected()).isEqualTo(total);
+        }
+        // Con el filtro la cola se forma delante (503 rápido como mucho), nunca dentro del pool de BD
+        assertThat(limited.poolTimeouts()).isZero();
+    }
+
+    private Result run(Mode mode) throws Exception {
+        Semaphore dbPool = new Semaphore(DB_POOL_SIZE, true);
+        AtomicInteger poolTimeouts = new AtomicInteger();
+
+        Tomcat tomcat = new Tomcat();
+        tomcat.setBaseDir(baseDir.resolve(mode.name()).toString());
+        tomcat.setPort(0);
+        AbstractProtocol<?> protocol = (AbstractProtocol<?>) tomcat.getConnector().getProtocolHandler();
+        protocol.setMaxConnections(CONNECTIONS * 2);
+        protocol.setAcceptCount(CONNECTIONS);
+        if (mode != Mode.PLATFORM_THREADS) {
+            protocol.setExecutor(new VirtualThreadExecutor("tomcat-virtual-"));
+        }
+
+        Context context = tomcat.addContext("", baseDir.toString());
+        Tomcat.addServlet(context, "query", new HttpServlet() {
+            @Override
+            protected void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+                try {
+                    if (!dbPool.tryAcquire(DB_POOL_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                        poolTimeouts.incrementAndGet();
+                        response.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR, "Connection is not available");
+                        return;
+                    }
+                    try {
+                        Thread.sleep(QUERY_MS);
+                    } finally {
+                        dbPool.release();
+                    }
+                    response.getWriter().write("ok");
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+                }
+            }
+        });
+        context.addServletMappingDecoded("/api/query", "query");
+
+        if (mode == Mode.VIRTUAL_THREADS_WITH_LIMIT) {
+            FilterDef filterDef = new FilterDef();
+            filterDef.setFilterName("concurrencyLimit");
+            filterDef.setFilter(new ConcurrencyLimitFilter(new SimpleMeterRegistry(), true, 40, 2_000));
+            context.addFilterDef(filterDef);
+            FilterMap filterMap = new FilterMap();
+            filterMap.setFilterName("concurrencyLimit");
+            filterMap.addURLPattern("/*");
+            context.addFilterMap(filterMap);
+        }
+
+        tomcat.start();
+        try {
+            return load(tomcat.getConnector().getLocalPort(), poolTimeouts);
+        } finally {
+            tomcat.stop();
+            tomcat.destroy();
+        }
+    }
+
+    private Result load(int port, AtomicInteger poolTimeouts) throws Exception {
+        URI uri = URI.create("http://localhost:" + port + "/api/query");
+        AtomicInteger ok = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor();
+             HttpClient httpClient = HttpClient.newBuilder()
+                     .version(HttpClient.Version.HTTP_1_1)
+                     .connectTimeout(Duration.ofSeconds(30))
+                     .executor(clients)
+                     .build()) {
+            HttpRequest request = HttpRequest.newBuilder(uri).timeout(Duration.ofMinutes(2)).GET().build();
+
+            long wallStart = System.nanoTime();
+            List<Future<long[]>> futures = new ArrayList<>();
+            for (int c = 0; c < CONNECTIONS; c++) {
+                futures.add(clients.submit(() -> {
+                    long[] latencies = new long[REQUESTS_PER_CONNECTION];
+                    for (int i = 0; i < REQUESTS_PER_CONNECTION; i++) {
+                        long start = System.nanoTime();
+                        int status = httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                        latencies[i] = System.nanoTime() - start;
+                        if (status == 200) {
+                            ok.incrementAndGet();
+                        } else if (status == 503) {
+                            rejected.incrementAndGet();
+                        }
+                    }
+                    return latencies;
+                }));
+            }
+
+            long[] all = new long[CONNECTIONS * REQUESTS_PER_CONNECTION];
+            for (int c = 0; c < CONNECTIONS; c++) {
+                System.arraycopy(futures.get(c).get(10, TimeUnit.MINUTES), 0, all,
+                        c * REQUESTS_PER_CONNECTION, REQUESTS_PER_CONNECTION);
+            }
+            return new Result(all, System.nanoTime() - wallStart, ok.get(), poolTimeouts.get(), rejected.get());
+        }
+    }
+
+    private static void report(Mode mode, Result result) {
+        long[] sorted = result.latencies().clone();
+        Arrays.sort(sorted);
+        long p50 = sorted[sorted.length / 2];
+        long p99 = sorted[(int) Math.ceil(sorted.length * 0.99) - 1];
+        System.out.printf("%-27s %.0f ok/s, p50=%.1fms p99=%.1fms, ok=%d poolTimeouts=%d rejected=%d%n",
+                mode, result.ok() / (result.wallNanos() / 1e9), p50 / 1e6, p99 / 1e6,
+                result.ok(), result.poolTimeouts(), result.rejected());
+    }
+}
@@ -0,0 +1,171 @@
+package com.jesusLuna.polyglotCloud.security;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetailsService;
+
+import com.jesusLuna.polyglotCloud.models.CustomUserPrincipal;
+import com.jesusLuna.polyglotCloud.models.User;
+import com.jesusLuna.polyglotCloud.models.enums.Role;
+import com.jesusLuna.polyglotCloud.repository.UserRepository;
+
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+
+/**
+ * Coste de autenticación por petición en JwtAuthenticationFilter con un token Bearer válido:
+ * <ul>
+ *   <li>statelessAuth: token verificado y estado de la cuenta cacheados (camino por defecto)</li>
+ *   <li>databaseLookup: modo anterior, loadUserByUsername en cada petición; la BD se simula con
+ *       {@code dbLatencyMicros} de espera, con 0 solo queda el coste en proceso</li>
+ *   <li>verifySignature: parse completo con verificación HMAC, lo que evita la caché de tokens</li>
+ * </ul>
+ *
+ * mvn test-compile exec:java -Dexec.classpathScope=test
+ *     -Dexec.mainClass=com.jesusLuna.polyglotCloud.security.JwtAuthenticationFilterBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtAuthenticationFilterBenchmark {
+
+    private static final int USERS = 1_000;
+    private static final String SECRET = "benchmark-secret-benchmark-secret-benchmark-secret-0123456789";
+    private static final String ISSUER = "polyglotCloud";
+    private static final FilterChain NO_OP_CHAIN = (request, response) -> { };
+
+    @Param({"0", "250"})
+    public long dbLatencyMicros;
+
+    private JwtAuthenticationFilter statelessFilter;
+    private JwtAuthenticationFilter databaseFilter;
+    private JwtParser rawParser;
+    private MockHttpServletRequest[] requests;
+    private String[] tokens;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        JwtTokenProvider tokenProvider = new JwtTokenProvider(SECRET, 900_000, 604_800_000, ISSUER, 50_000,
+                new SimpleMeterRegistry());
+        rawParser = Jwts.parser()
+                .verifyWith(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8)))
+                .requireIssuer(ISSUER)
+                .build();
+
+        UserRepository userRepository = mock(UserRepository.class);
+        when(userRepository.findByIdAndDeletedAtIsNull(any()))
+                .thenAnswer(inv -> Optional.of(user(inv.getArgument(0))));
+
+        PrincipalCache enabledCache = new PrincipalCache(userRepository, mock(StringRedisTemplate.class),
+                new SimpleMeterRegistry(), true, 30, 100_000, "auth:principal:evict");
+        PrincipalCache disabledCache = new PrincipalCache(userRepository, mock(StringRedisTemplate.class),
+                new SimpleMeterRegistry(), false, 30, 100_000, "auth:principal:evict");
+
+        // Equivalente a CustomUserDetailsService: una consulta por petición
+        UserDetailsService databaseLookup = userId -> {
+            if (dbLatencyMicros > 0) {
+                LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(dbLatencyMicros));
+            }
+            return new CustomUserPrincipal(user(UUID.fromString(userId)));
+        };
+
+        statelessFilter = new JwtAuthenticationFilter(tokenProvider, databaseLookup, enabledCache);
+        databaseFilter = new JwtAuthenticationFilter(tokenProvider, databaseLookup, disabledCache);
+
+        requests = new MockHttpServletRequest[USERS];
+        tokens = new String[USERS];
+        for (int i = 0; i < USERS; i++) {
+            UUID userId = UUID.randomUUID();
+            tokens[i] = tokenProvider.generateToken(userId, "user" + i, "user" + i + "@example.com", Role.USER);
+            requests[i] = new MockHttpServletRequest("GET", "/api/snippets");
+            requests[i].addHeader("Authorization", "Bearer " + tokens[i]);
+        }
+
+        // Calienta ambas cachés: se mide el estado estable, no el primer acceso de cada usuario
+        for (int i = 0; i < USERS; i++) {
+            authenticate(statelessFilter);
+        }
+    }
+
+    private int nextIndex() {
+        int index = next;
+        next = next + 1 == USERS ? 0 : next + 1;
+        return index;
+    }
+
+    private Object authenticate(JwtAuthenticationFilter filter) throws ServletException, IOException {
+        SecurityContextHolder.clearContext();
+        filter.doFilter(requests[nextIndex()], new MockHttpServletResponse(), NO_OP_CHAIN);
+        return SecurityContextHolder.getContext().getAuthentication();
+    }
+
+    @Benchmark
+    public Object statelessAuth() throws Exception {
+        return authenticate(statelessFilter);
+    }
+
+    @Benchmark
+    public Object databaseLookup() throws Exception {
+        return authenticate(databaseFilter);
+    }
+
+    @Benchmark
+    public Object verifySignature() {
+        return rawParser.parseSignedClaims(tokens[nextIndex()]).getPayload();
+    }
+
+    private static User user(UUID userId) {
+        return User.builder()
+                .id(userId)
+                .username("user-" + userId)
+                .email(userId + "@example.com")
+                .role(Role.USER)
+                .active(true)
+                .emailVerified(true)
+                .build();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(JwtAuthenticationFilterBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
@@ -0,0 +1,77 @@
+package com.jesusLuna.polyglotCloud.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Date;
+import java.util.UUID;
+
+import javax.crypto.SecretKey;
+
+import org.junit.jupiter.api.Test;
+
+import com.jesusLuna.polyglotCloud.models.enums.Role;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Un token bien firmado al que le falta un claim obligatorio se rechaza como inválido
+ */
+class JwtTokenProviderTest {
+
+    private static final String SECRET = "test-secret-key-that-is-long-enough-for-hs256-signing";
+    private static final String ISSUER = "polyglot-cloud-test";
+
+    private final SecretKey key = Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8));
+    private final JwtTokenProvider tokenProvider = new JwtTokenProvider(SECRET, 900_000, 604_800_000, ISSUER, 1_000,
+            new SimpleMeterRegistry());
+
+    @Test
+    void issuedTokenIsParsed() {
+        UUID userId = UUID.randomUUID();
+        String token = tokenProvider.generateToken(userId, "ana", "ana@example.com", Role.USER);
+
+        assertThat(tokenProvider.parseToken(token))
+                .hasValueSatisfying(claims -> assertThat(claims.userId()).isEqualTo(userId));
+    }
+
+    @Test
+    void tokenWithoutUserIdIsInvalid() {
+        String token = Jwts.builder()
+                .claim("type", "access")
+                .issuer(ISSUER)
+                .expiration(Date.from(Instant.now().plusSeconds(60)))
+                .signWith(key)
+                .compact();
+
+        assertThat(tokenProvider.parseToken(token)).isEmpty();
+        assertThat(tokenProvider.validateToken(token)).isFalse();
+    }
+
+    @Test
+    void tokenWithoutExpirationIsInvalid() {
+        String token = Jwts.builder()
+                .claim("userId", UUID.randomUUID().toString())
+                .claim("type", "access")
+                .issuer(ISSUER)
+                .signWith(key)
+                .compact();
+
+        assertThat(tokenProvider.parseToken(token)).isEmpty();
+    }
+
+    @Test
+    void tokenWithMalformedUserIdIsInvalid() {
+        String token = Jwts.builder()
+                .claim("userId", "not-a-uuid")
+                .issuer(ISSUER)
+                .expiration(Date.from(Instant.now().plusSeconds(60)))
+                .signWith(key)
+                .compact();
+
+        assertThat(tokenProvider.parseToken(token)).isEmpty();
+    }
+}
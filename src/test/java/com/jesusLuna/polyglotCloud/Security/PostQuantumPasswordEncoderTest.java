@@ -0,0 +1,57 @@
+package com.jesusLuna.polyglotCloud.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Base64;
+
+import org.junit.jupiter.api.Test;
+
+class PostQuantumPasswordEncoderTest {
+
+    // Parámetros mínimos para que el test sea rápido; sin calibración
+    private static PostQuantumPasswordEncoder encoder(int memoryKb, int iterations, int parallelism) {
+        return new PostQuantumPasswordEncoder(memoryKb, iterations, iterations, parallelism, false, 250);
+    }
+
+    @Test
+    void hashWithCurrentParametersIsNotRehashed() {
+        PostQuantumPasswordEncoder encoder = encoder(1024, 2, 1);
+        String hash = encoder.encode("secret");
+
+        assertThat(encoder.matches("secret", hash)).isTrue();
+        assertThat(encoder.needsRehash(hash)).isFalse();
+    }
+
+    @Test
+    void strongerOrDifferentlyParallelHashIsNotRehashed() {
+        PostQuantumPasswordEncoder encoder = encoder(1024, 2, 1);
+
+        // Otro nodo con más iteraciones, más memoria o más carriles
+        assertThat(encoder.needsRehash(encoder(1024, 4, 1).encode("secret"))).isFalse();
+        assertThat(encoder.needsRehash(encoder(2048, 2, 1).encode("secret"))).isFalse();
+        assertThat(encoder.needsRehash(encoder(1024, 2, 4).encode("secret"))).isFalse();
+    }
+
+    @Test
+    void weakerHashIsRehashed() {
+        PostQuantumPasswordEncoder encoder = encoder(2048, 2, 1);
+
+        assertThat(encoder.needsRehash(encoder(2048, 1, 1).encode("secret"))).isTrue();
+        assertThat(encoder.needsRehash(encoder(1024, 2, 1).encode("secret"))).isTrue();
+    }
+
+    @Test
+    void legacyHashIsRehashedIntoTheVersionedFormat() {
+        // Formato antiguo: Base64(salt de 32 bytes + hash), aunque sus parámetros fijos igualen el mínimo
+        String legacy = Base64.getEncoder().encodeToString(new byte[64]);
+        PostQuantumPasswordEncoder encoder = encoder(1024, 1, 1);
+
+        assertThat(encoder.needsRehash(legacy)).isTrue();
+        assertThat(encoder.needsRehash(encoder.encode("secret"))).isFalse();
+    }
+
+    @Test
+    void unreadableHashIsNotRehashed() {
+        assertThat(encoder(1024, 1, 1).needsRehash("not-a-hash")).isFalse();
+    }
+}
@@ -0,0 +1,78 @@
+package com.jesusLuna.polyglotCloud.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Optional;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import com.jesusLuna.polyglotCloud.models.User;
+import com.jesusLuna.polyglotCloud.models.enums.Role;
+import com.jesusLuna.polyglotCloud.repository.UserRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class PrincipalCacheTest {
+
+    private final UUID userId = UUID.randomUUID();
+    private UserRepository userRepository;
+    private PrincipalCache principalCache;
+
+    @BeforeEach
+    void setUp() {
+        userRepository = mock(UserRepository.class);
+        principalCache = new PrincipalCache(userRepository, mock(StringRedisTemplate.class), new SimpleMeterRegistry(),
+                true, 30, 1_000, "auth:principal:evict");
+    }
+
+    @Test
+    void usernameComesFromTheAccountNotFromTheToken() {
+        when(userRepository.findByIdAndDeletedAtIsNull(userId)).thenReturn(Optional.of(user("renamed")));
+
+        var principal = principalCache.resolve(userId, "old-name-in-token");
+
+        assertThat(principal).isPresent();
+        assertThat(principal.get().getUsername()).isEqualTo("renamed");
+    }
+
+    @Test
+    void evictionReloadsTheNewUsername() {
+        when(userRepository.findByIdAndDeletedAtIsNull(userId))
+                .thenReturn(Optional.of(user("before")))
+                .thenReturn(Optional.of(user("after")));
+
+        assertThat(principalCache.resolve(userId, "before").get().getUsername()).isEqualTo("before");
+        assertThat(principalCache.resolve(userId, "before").get().getUsername()).isEqualTo("before");
+
+        principalCache.evict(userId);
+
+        assertThat(principalCache.resolve(userId, "before").get().getUsername()).isEqualTo("after");
+        verify(userRepository, times(2)).findByIdAndDeletedAtIsNull(userId);
+    }
+
+    @Test
+    void refreshTokensAndMissingAccountsAreRejected() {
+        when(userRepository.findByIdAndDeletedAtIsNull(userId)).thenReturn(Optional.empty());
+
+        assertThat(principalCache.resolve(userId, null)).isEmpty();
+        assertThat(principalCache.resolve(userId, "ghost")).isEmpty();
+    }
+
+    private User user(String username) {
+        return User.builder()
+                .id(userId)
+                .username(username)
+                .email(username + "@example.com")
+                .role(Role.USER)
+                .active(true)
+                .emailVerified(true)
+                .build();
+    }
+}
@@ -0,0 +1,106 @@
+package com.jesusLuna.polyglotCloud.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Dos nodos contra el mismo Redis: una IP bloqueada en uno se rechaza en el otro en un
+ * tiempo acotado, aunque el filtro de Bloom de ese nodo ya estuviera cargado sin ella.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class BlocklistClusterTest {
+
+    private static final int THRESHOLD = 3;
+    private static final Duration MAX_PROPAGATION = Duration.ofSeconds(2);
+
+    @Container
+    static final GenericContainer<?> REDIS = new GenericContainer<>("redis:7-alpine").withExposedPorts(6379);
+
+    private final List<Runnable> cleanups = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        cleanups.forEach(Runnable::run);
+    }
+
+    @Test
+    void freshlyBlockedIpIsRejectedOnEveryNode() throws Exception {
+        AbuseDetectionService nodeA = startNode();
+        AbuseDetectionService nodeB = startNode();
+        String ip = "203.0.113.7";
+
+        // El filtro de B ya responde "no bloqueada" sin preguntar a Redis
+        assertThat(nodeB.isIpBlocked(ip)).isFalse();
+
+        for (int i = 0; i < THRESHOLD; i++) {
+            nodeA.recordAbuse(ip, "IP_RATE_LIMIT", "general");
+        }
+        assertThat(nodeA.isIpBlocked(ip)).isTrue();
+
+        long deadline = System.nanoTime() + MAX_PROPAGATION.toNanos();
+        while (!nodeB.isIpBlocked(ip) && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(nodeB.isIpBlocked(ip))
+                .as("block must reach the other node within %s", MAX_PROPAGATION)
+                .isTrue();
+    }
+
+    private AbuseDetectionService startNode() throws Exception {
+        LettuceConnectionFactory connectionFactory = new LettuceConnectionFactory(
+                new RedisStandaloneConfiguration(REDIS.getHost(), REDIS.getMappedPort(6379)));
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+
+        StringRedisTemplate stringRedisTemplate = new StringRedisTemplate(connectionFactory);
+        RedisTemplate<String, Object> redisTemplate = new RedisTemplate<>();
+        redisTemplate.setConnectionFactory(connectionFactory);
+        redisTemplate.setKeySerializer(new StringRedisSerializer());
+        redisTemplate.afterPropertiesSet();
+
+        BlocklistFilterService filter = new BlocklistFilterService(
+                stringRedisTemplate, new SimpleMeterRegistry(), 10_000, 0.001, "abuse:blocked");
+        filter.rebuild();
+
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(filter, new ChannelTopic(filter.getChannel()));
+        container.afterPropertiesSet();
+        container.start();
+
+        AbuseDetectionService abuseDetection = new AbuseDetectionService(redisTemplate, stringRedisTemplate, filter);
+        ReflectionTestUtils.setField(abuseDetection, "enabled", true);
+        ReflectionTestUtils.setField(abuseDetection, "abuseThreshold", THRESHOLD);
+        ReflectionTestUtils.setField(abuseDetection, "abuseWindowHours", 1L);
+        ReflectionTestUtils.setField(abuseDetection, "blockDurationHours", 1L);
+
+        cleanups.add(() -> {
+            try {
+                container.destroy();
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+            connectionFactory.destroy();
+        });
+        return abuseDetection;
+    }
+}
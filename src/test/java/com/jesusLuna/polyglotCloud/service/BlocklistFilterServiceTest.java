@@ -0,0 +1,115 @@
+package com.jesusLuna.polyglotCloud.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class BlocklistFilterServiceTest {
+
+    private StringRedisTemplate redisTemplate;
+    private BlocklistFilterService service;
+    // Claves "blocked:*" en Redis: AbuseDetectionService las escribe antes de anunciarlas
+    private final List<String> redisBlocks = new CopyOnWriteArrayList<>();
+    private Runnable duringScan = () -> { };
+
+    @BeforeEach
+    void setUp() {
+        redisTemplate = mock(StringRedisTemplate.class);
+        when(redisTemplate.scan(any(ScanOptions.class))).thenAnswer(inv -> cursor(List.copyOf(redisBlocks)));
+        service = new BlocklistFilterService(redisTemplate, new SimpleMeterRegistry(), 10_000, 0.001, "abuse:blocked");
+    }
+
+    @Test
+    void answersTrueUntilTheFirstLoad() {
+        assertThat(service.mightBeBlocked("blocked:ip:1.2.3.4")).isTrue();
+
+        service.rebuild();
+
+        assertThat(service.mightBeBlocked("blocked:ip:1.2.3.4")).isFalse();
+    }
+
+    @Test
+    void rebuildLoadsExistingBlocks() {
+        redisBlocks.add("blocked:ip:1.2.3.4");
+
+        service.rebuild();
+
+        assertThat(service.mightBeBlocked("blocked:ip:1.2.3.4")).isTrue();
+        assertThat(service.mightBeBlocked("blocked:ip:5.6.7.8")).isFalse();
+    }
+
+    @Test
+    void blockAnnouncedDuringTheScanSurvivesTheSwap() {
+        service.rebuild();
+        // Llega por pub/sub mientras el SCAN ya ha pasado por su posición
+        duringScan = () -> service.onMessage(message("blocked:ip:9.9.9.9"), null);
+
+        service.rebuild();
+
+        assertThat(service.mightBeBlocked("blocked:ip:9.9.9.9")).isTrue();
+    }
+
+    @Test
+    void noBlockIsLostWhileRebuildsRunConcurrently() throws Exception {
+        service.rebuild();
+        AtomicBoolean running = new AtomicBoolean(true);
+        Thread rebuilder = new Thread(() -> {
+            while (running.get()) {
+                service.rebuild();
+            }
+        });
+        rebuilder.start();
+
+        List<String> published = new ArrayList<>();
+        try {
+            for (int i = 0; i < 20_000; i++) {
+                String key = "blocked:ip:10.1." + (i >> 8) + "." + (i & 0xff);
+                redisBlocks.add(key);
+                service.onMessage(message(key), null);
+                published.add(key);
+            }
+        } finally {
+            running.set(false);
+            rebuilder.join();
+        }
+
+        // Los que el SCAN en curso no vio solo siguen presentes si add() no cayó en el filtro descartado
+        assertThat(published).allMatch(service::mightBeBlocked);
+    }
+
+    private Cursor<String> cursor(List<String> keys) {
+        Iterator<String> iterator = keys.iterator();
+        @SuppressWarnings("unchecked")
+        Cursor<String> cursor = mock(Cursor.class);
+        when(cursor.hasNext()).thenAnswer(inv -> {
+            if (iterator.hasNext()) {
+                return true;
+            }
+            duringScan.run();
+            return false;
+        });
+        when(cursor.next()).thenAnswer(inv -> iterator.next());
+        return cursor;
+    }
+
+    private static DefaultMessage message(String body) {
+        return new DefaultMessage("abuse:blocked".getBytes(StandardCharsets.UTF_8), body.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,155 @@
+package com.jesusLuna.polyglotCloud.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import com.jesusLuna.polyglotCloud.config.NearCacheProperties;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Tormenta de votos contra un Redis real: cada voto invalida su traducción igual que
+ * TranslationVoteService.clearVersionCaches. La latencia de las lecturas concurrentes
+ * debe mantenerse plana aunque el keyspace sea grande (antes cada voto hacía KEYS).
+ */
+@Tag("load")
+@Testcontainers(disabledWithoutDocker = true)
+class CacheInvalidationLoadTest {
+
+    private static final int KEYSPACE = 200_000;
+    private static final int TRANSLATIONS = 5_000;
+    private static final int VOTERS = 16;
+    private static final int VOTES_PER_VOTER = 5_000;
+    private static final int PROBES = 5_000;
+
+    @Container
+    static final GenericContainer<?> REDIS = new GenericContainer<>("redis:7-alpine").withExposedPorts(6379);
+
+    private static LettuceConnectionFactory connectionFactory;
+    private static CacheService cacheService;
+    private static RedisTemplate<String, Object> redisTemplate;
+    private static final List<UUID> translationIds = new ArrayList<>();
+
+    @BeforeAll
+    static void setUp() {
+        connectionFactory = new LettuceConnectionFactory(
+                new RedisStandaloneConfiguration(REDIS.getHost(), REDIS.getMappedPort(6379)));
+        connectionFactory.afterPropertiesSet();
+
+        redisTemplate = new RedisTemplate<>();
+        redisTemplate.setConnectionFactory(connectionFactory);
+        redisTemplate.setKeySerializer(new StringRedisSerializer());
+        GenericJackson2JsonRedisSerializer valueSerializer = new GenericJackson2JsonRedisSerializer();
+        redisTemplate.setValueSerializer(valueSerializer);
+        redisTemplate.afterPropertiesSet();
+
+        StringRedisTemplate stringRedisTemplate = new StringRedisTemplate(connectionFactory);
+        NearCacheProperties nearCacheProperties = new NearCacheProperties();
+        nearCacheProperties.setEnabled(false); // Medimos Redis, no L1
+        NearCacheService nearCacheService = new NearCacheService(nearCacheProperties, stringRedisTemplate, valueSerializer,
+                new SimpleMeterRegistry());
+        cacheService = new CacheService(redisTemplate, nearCacheService);
+
+        // Keyspace grande con claves ajenas a la caché (lo que KEYS/SCAN tendría que recorrer)
+        stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (int i = 0; i < KEYSPACE; i++) {
+                connection.stringCommands().set(("filler:" + i).getBytes(), "x".getBytes());
+            }
+            return null;
+        });
+        for (int i = 0; i < TRANSLATIONS; i++) {
+            UUID id = UUID.randomUUID();
+            translationIds.add(id);
+            cacheService.save("translation::" + id, new HashMap<>(Map.of("id", id.toString())), 10, TimeUnit.MINUTES);
+        }
+    }
+
+    @AfterAll
+    static void tearDown() {
+        if (connectionFactory != null) {
+            connectionFactory.destroy();
+        }
+    }
+
+    @Test
+    void readLatencyStaysFlatDuringVoteStorm() throws Exception {
+        long[] idle = probeReads();
+
+        AtomicBoolean storming = new AtomicBoolean(true);
+        ExecutorService voters = Executors.newFixedThreadPool(VOTERS);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int v = 0; v < VOTERS; v++) {
+            futures.add(voters.submit(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < VOTES_PER_VOTER && storming.get(); i++) {
+                    UUID id = translationIds.get(random.nextInt(TRANSLATIONS));
+                    cacheService.delete("translation::" + id);
+                }
+            }));
+        }
+
+        long[] storm;
+        try {
+            storm = probeReads();
+        } finally {
+            storming.set(false);
+            for (Future<?> future : futures) {
+                future.get(2, TimeUnit.MINUTES);
+            }
+            voters.shutdown();
+        }
+
+        long idleP99 = percentile(idle, 0.99);
+        long stormP99 = percentile(storm, 0.99);
+        System.out.printf("GET p99 idle=%dus storm=%dus (keyspace=%d)%n",
+                idleP99 / 1_000, stormP99 / 1_000, KEYSPACE);
+
+        // Plana: la tormenta solo añade DEL O(1) en cola, nunca un recorrido del keyspace
+        assertThat(stormP99).isLessThan(Math.max(idleP99 * 10, TimeUnit.MILLISECONDS.toNanos(5)));
+    }
+
+    private static long[] probeReads() {
+        long[] samples = new long[PROBES];
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < PROBES; i++) {
+            String key = "filler:" + random.nextInt(KEYSPACE);
+            long start = System.nanoTime();
+            redisTemplate.hasKey(key);
+            samples[i] = System.nanoTime() - start;
+        }
+        return samples;
+    }
+
+    private static long percentile(long[] samples, double p) {
+        long[] sorted = samples.clone();
+        Arrays.sort(sorted);
+        return sorted[(int) Math.min(sorted.length - 1, Math.ceil(p * sorted.length) - 1)];
+    }
+}
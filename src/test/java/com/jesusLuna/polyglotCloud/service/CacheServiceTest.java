@@ -0,0 +1,133 @@
+package com.jesusLuna.polyglotCloud.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.endsWith;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+
+import com.jesusLuna.polyglotCloud.config.NearCacheProperties;
+import com.jesusLuna.polyglotCloud.exception.BusinessRuleException;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class CacheServiceTest {
+
+    private StringRedisTemplate stringRedisTemplate;
+    private ValueOperations<String, Object> valueOperations;
+    private NearCacheService nearCacheService;
+    private CacheService cacheService;
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        RedisTemplate<String, Object> redisTemplate = mock(RedisTemplate.class);
+        valueOperations = mock(ValueOperations.class);
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        stringRedisTemplate = mock(StringRedisTemplate.class);
+
+        nearCacheService = new NearCacheService(new NearCacheProperties(), stringRedisTemplate,
+                new GenericJackson2JsonRedisSerializer(), meterRegistry);
+        cacheService = new CacheService(redisTemplate, nearCacheService);
+    }
+
+    @Test
+    void saveInvalidatesOtherNodesAndKeepsLocalCopy() {
+        Map<String, Object> value = new HashMap<>(Map.of("title", "hello"));
+        cacheService.save("snippets:1", value, 5, TimeUnit.MINUTES);
+
+        verify(valueOperations).set(eq("snippets:1"), eq(value), eq(5L), eq(TimeUnit.MINUTES));
+        verify(stringRedisTemplate).convertAndSend(eq("cache:invalidation"), endsWith("|K|snippets:1"));
+        assertThat(nearCacheService.get("snippets:1")).isEqualTo(value);
+    }
+
+    @Test
+    void purgesAreLimitedToCachePrefixes() {
+        assertThat(CacheService.isPurgeable("translation::*")).isTrue();
+        assertThat(CacheService.isPurgeable("users::42")).isTrue();
+        assertThat(CacheService.isPurgeable("snippet:*")).isTrue();
+
+        assertThat(CacheService.isPurgeable("*")).isFalse();
+        assertThat(CacheService.isPurgeable("*:*")).isFalse();
+        assertThat(CacheService.isPurgeable("login:lockout:*")).isFalse();
+        assertThat(CacheService.isPurgeable("*translation::*")).isFalse();
+        assertThatThrownBy(() -> cacheService.deletePattern("rate-limit:*"))
+                .isInstanceOf(BusinessRuleException.class);
+    }
+
+    @Test
+    void nearCacheReturnsIndependentCopies() {
+        nearCacheService.put("k", new ArrayList<>(List.of("a")));
+
+        @SuppressWarnings("unchecked")
+        List<String> first = (List<String>) nearCacheService.get("k");
+        first.add("b");
+
+        assertThat(nearCacheService.get("k")).isEqualTo(List.of("a"));
+    }
+
+    @Test
+    void invalidationDuringRedisReadIsNotUndoneByTheLocalCopy() {
+        when(valueOperations.get("snippets:1")).thenAnswer(inv -> {
+            // Otro nodo actualiza la clave mientras esta lectura está en vuelo
+            nearCacheService.onMessage(remoteInvalidation("snippets:1"), null);
+            return new HashMap<>(Map.of("title", "stale"));
+        });
+
+        assertThat(cacheService.get("snippets:1")).isEqualTo(Map.of("title", "stale"));
+        assertThat(nearCacheService.get("snippets:1")).isNull();
+
+        when(valueOperations.get("snippets:1")).thenReturn(new HashMap<>(Map.of("title", "fresh")));
+        assertThat(cacheService.get("snippets:1")).isEqualTo(Map.of("title", "fresh"));
+        assertThat(nearCacheService.get("snippets:1")).isEqualTo(Map.of("title", "fresh"));
+    }
+
+    @Test
+    void prefixInvalidationDuringRedisReadIsNotUndoneByTheLocalCopy() {
+        when(valueOperations.get("snippets:1")).thenAnswer(inv -> {
+            nearCacheService.invalidatePrefix("snippets:");
+            return new HashMap<>(Map.of("title", "stale"));
+        });
+
+        cacheService.get("snippets:1");
+
+        assertThat(nearCacheService.get("snippets:1")).isNull();
+    }
+
+    @Test
+    void unserializableValueIsCountedAndLeftOutOfTheNearCache() {
+        nearCacheService.put("k", new Unserializable());
+
+        assertThat(nearCacheService.get("k")).isNull();
+        assertThat(meterRegistry.counter("cache.near.unserializable").count()).isEqualTo(1);
+    }
+
+    static class Unserializable {
+        public String getValue() {
+            throw new IllegalStateException("not serializable");
+        }
+    }
+
+    private static DefaultMessage remoteInvalidation(String key) {
+        return new DefaultMessage("cache:invalidation".getBytes(StandardCharsets.UTF_8),
+                ("other-node|K|" + key).getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,120 @@
+package com.jesusLuna.polyglotCloud.service;
+
+import static org.mockito.Mockito.mock;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.cache.CacheManager;
+
+import com.jesusLuna.polyglotCloud.repository.TranslationRepository;
+
+/**
+ * Coste de generateContentHash (tiempo y bytes asignados, con -prof gc) frente a la cadena de
+ * replaceAll + concatenación + getBytes anterior, con snippets de 1 KB, 10 KB y 100 KB
+ * (CRLF, espacios al final de línea y rachas de líneas vacías, como llega el código pegado).
+ *
+ * mvn test-compile exec:java -Dexec.classpathScope=test
+ *     -Dexec.mainClass=com.jesusLuna.polyglotCloud.service.ContentHashBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ContentHashBenchmark {
+
+    private static final String BLOCK = """
+            public int sum(int[] values) {  \r
+            \tint total = 0;\t\r
+            \r
+            \r
+            \r
+            \tfor (int value : values) {\r
+            \t\ttotal += value; // acumulado   \r
+            \t}\r
+            \treturn total;\r
+            }\r
+            \r
+            """;
+
+    @Param({"1024", "10240", "102400"})
+    private int size;
+
+    private TranslationDeduplicationService deduplicationService;
+    private UUID sourceLanguageId;
+    private UUID targetLanguageId;
+    private String code;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        deduplicationService = new TranslationDeduplicationService(
+                mock(TranslationRepository.class), mock(CacheManager.class));
+        sourceLanguageId = UUID.randomUUID();
+        targetLanguageId = UUID.randomUUID();
+
+        StringBuilder snippet = new StringBuilder(size + BLOCK.length());
+        while (snippet.length() < size) {
+            snippet.append(BLOCK);
+        }
+        snippet.setLength(size);
+        code = snippet.toString();
+
+        if (!generateContentHash().equals(regexContentHash())) {
+            throw new IllegalStateException("Los dos hashes no coinciden");
+        }
+    }
+
+    @Benchmark
+    public String generateContentHash() {
+        return deduplicationService.generateContentHash(sourceLanguageId, targetLanguageId, code);
+    }
+
+    /**
+     * Implementación anterior: cuatro replaceAll, strip, concatenación y getBytes antes del digest
+     */
+    @Benchmark
+    public String regexContentHash() {
+        String normalizedCode = code
+                .replaceAll("\\r\\n", "\n")
+                .replaceAll("\\r", "\n")
+                .replaceAll("[ \\t]+\\n", "\n")
+                .replaceAll("\\n\\s*\\n\\s*\\n", "\n\n")
+                .strip();
+        String combined = sourceLanguageId.toString() + "|" + targetLanguageId.toString() + "|" + normalizedCode;
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(combined.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ContentHashBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
@@ -0,0 +1,165 @@
+package com.jesusLuna.polyglotCloud.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.EnableTransactionManagement;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.thymeleaf.TemplateEngine;
+import org.thymeleaf.context.IContext;
+import org.thymeleaf.spring6.SpringTemplateEngine;
+import org.thymeleaf.templatemode.TemplateMode;
+import org.thymeleaf.templateresolver.ClassLoaderTemplateResolver;
+
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.GreenMailUtil;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import com.jesusLuna.polyglotCloud.models.EmailOutboxMessage;
+import com.jesusLuna.polyglotCloud.models.enums.EmailStatus;
+import com.jesusLuna.polyglotCloud.repository.EmailOutboxRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.mail.internet.MimeMessage;
+
+class EmailServiceTest {
+
+    @RegisterExtension
+    static final GreenMailExtension GREEN_MAIL = new GreenMailExtension(ServerSetupTest.SMTP);
+
+    private final List<EmailOutboxMessage> outbox = new ArrayList<>();
+    private EmailOutboxRepository emailOutboxRepository;
+    private JavaMailSenderImpl mailSender;
+
+    @BeforeEach
+    void setUp() {
+        emailOutboxRepository = mock(EmailOutboxRepository.class);
+        when(emailOutboxRepository.save(any(EmailOutboxMessage.class))).thenAnswer(inv -> {
+            outbox.add(inv.getArgument(0));
+            return inv.getArgument(0);
+        });
+        when(emailOutboxRepository.lockDueMessages(any(), anyInt())).thenAnswer(inv -> new ArrayList<>(outbox));
+
+        mailSender = new JavaMailSenderImpl();
+        mailSender.setHost("127.0.0.1");
+        mailSender.setPort(ServerSetupTest.SMTP.getPort());
+    }
+
+    @Test
+    void verificationEmailIsQueuedAndDeliveredOverSmtp() throws Exception {
+        EmailService emailService = emailService(templateEngine());
+        emailService.sendEmailVerification("ana@example.com", "ana", "token-123");
+
+        assertThat(outbox).singleElement().satisfies(email -> {
+            assertThat(email.getRecipient()).isEqualTo("ana@example.com");
+            assertThat(email.getHtmlBody()).contains("https://polyglot.test/verify?token=token-123");
+        });
+
+        dispatcher(emailService).dispatch();
+
+        assertThat(GREEN_MAIL.waitForIncomingEmail(5_000, 1)).isTrue();
+        MimeMessage received = GREEN_MAIL.getReceivedMessages()[0];
+        assertThat(received.getAllRecipients()[0].toString()).isEqualTo("ana@example.com");
+        assertThat(received.getSubject()).isEqualTo("Verifica tu cuenta en PolyglotCloud");
+        assertThat(GreenMailUtil.getBody(received)).contains("token-123");
+        assertThat(outbox.get(0).getStatus()).isEqualTo(EmailStatus.SENT);
+    }
+
+    /**
+     * Como AuthService.register: el llamador captura el fallo del email y su transacción debe
+     * confirmar igualmente (antes acababa en UnexpectedRollbackException)
+     */
+    @Test
+    void renderingFailureDoesNotRollBackCallerTransaction() throws Exception {
+        TemplateEngine failingEngine = mock(TemplateEngine.class);
+        when(failingEngine.process(anyString(), any(IContext.class))).thenThrow(new IllegalStateException("template broken"));
+
+        Connection connection = mock(Connection.class);
+        DataSource dataSource = mock(DataSource.class);
+        when(dataSource.getConnection()).thenReturn(connection);
+
+        try (AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext()) {
+            context.registerBean(DataSource.class, () -> dataSource);
+            context.registerBean(EmailService.class, () -> emailService(failingEngine));
+            context.register(TransactionConfig.class);
+            context.refresh();
+
+            EmailService emailService = context.getBean(EmailService.class);
+            TransactionTemplate registration = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+
+            assertThatCode(() -> registration.executeWithoutResult(status -> {
+                try {
+                    emailService.sendEmailVerification("ana@example.com", "ana", "token-123");
+                } catch (Exception e) {
+                    // No fallar el registro por un email
+                }
+            })).doesNotThrowAnyException();
+        }
+
+        verify(connection).commit();
+        verify(emailOutboxRepository, never()).save(any());
+    }
+
+    @Configuration
+    @EnableTransactionManagement
+    static class TransactionConfig {
+
+        @Bean
+        PlatformTransactionManager transactionManager(DataSource dataSource) {
+            return new DataSourceTransactionManager(dataSource);
+        }
+    }
+
+    private EmailService emailService(TemplateEngine templateEngine) {
+        EmailService emailService = new EmailService(mailSender, templateEngine, emailOutboxRepository);
+        ReflectionTestUtils.setField(emailService, "fromEmail", "noreply@polyglot.test");
+        ReflectionTestUtils.setField(emailService, "verificationBaseUrl", "https://polyglot.test/verify");
+        ReflectionTestUtils.setField(emailService, "supportEmail", "support@polyglot.test");
+        return emailService;
+    }
+
+    private EmailOutboxDispatcher dispatcher(EmailService emailService) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(mock(PlatformTransactionManager.class));
+        EmailOutboxDispatcher dispatcher = new EmailOutboxDispatcher(emailOutboxRepository, emailService, mailSender,
+                transactionTemplate, mock(BatchPurgeService.class), new SimpleMeterRegistry(), 1);
+        ReflectionTestUtils.setField(dispatcher, "batchSize", 50);
+        ReflectionTestUtils.setField(dispatcher, "maxAttempts", 3);
+        ReflectionTestUtils.setField(dispatcher, "initialBackoffSeconds", 30L);
+        ReflectionTestUtils.setField(dispatcher, "maxBackoffSeconds", 3600L);
+        ReflectionTestUtils.setField(dispatcher, "leaseSeconds", 300L);
+        return dispatcher;
+    }
+
+    private static TemplateEngine templateEngine() {
+        ClassLoaderTemplateResolver resolver = new ClassLoaderTemplateResolver();
+        resolver.setPrefix("templates/");
+        resolver.setSuffix(".html");
+        resolver.setTemplateMode(TemplateMode.HTML);
+        resolver.setCharacterEncoding("UTF-8");
+        SpringTemplateEngine templateEngine = new SpringTemplateEngine();
+        templateEngine.setTemplateResolver(resolver);
+        return templateEngine;
+    }
+}
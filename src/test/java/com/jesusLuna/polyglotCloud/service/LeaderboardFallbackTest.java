@@ -0,0 +1,119 @@
+package com.jesusLuna.polyglotCloud.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import com.jesusLuna.polyglotCloud.dto.TranslationVoteDTO;
+import com.jesusLuna.polyglotCloud.mapper.TranslationVoteMapper;
+import com.jesusLuna.polyglotCloud.models.Translations.TranslationVersion;
+import com.jesusLuna.polyglotCloud.models.User;
+import com.jesusLuna.polyglotCloud.repository.TranslationVersionRepository;
+import com.jesusLuna.polyglotCloud.repository.TranslationVoteRepository;
+import com.jesusLuna.polyglotCloud.repository.UserRepository;
+
+/**
+ * Con Redis caído los rankings se siguen sirviendo desde la base de datos
+ */
+class LeaderboardFallbackTest {
+
+    private TranslationVersionRepository versionRepository;
+    private UserRepository userRepository;
+    private LeaderboardService leaderboardService;
+    private TranslationVoteService voteService;
+
+    @BeforeEach
+    void setUp() {
+        StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+        when(redisTemplate.hasKey(any())).thenThrow(new RedisConnectionFailureException("Redis down"));
+
+        versionRepository = mock(TranslationVersionRepository.class);
+        userRepository = mock(UserRepository.class);
+        leaderboardService = new LeaderboardService(redisTemplate, versionRepository);
+
+        VoteDeltaBuffer voteDeltaBuffer = mock(VoteDeltaBuffer.class);
+        when(voteDeltaBuffer.pendingFor(any())).thenReturn(VoteDeltaBuffer.VoteDelta.NONE);
+        voteService = new TranslationVoteService(
+                mock(TranslationVoteRepository.class), versionRepository, userRepository,
+                mock(TranslationVoteMapper.class), mock(CacheService.class), voteDeltaBuffer, leaderboardService);
+    }
+
+    @Test
+    void topTranslatorsAreRankedFromTheDatabase() {
+        UUID low = UUID.randomUUID();
+        UUID high = UUID.randomUUID();
+        when(versionRepository.sumScoresByAuthor()).thenReturn(List.of(
+                new Object[] {low, 3L}, new Object[] {high, 10L}, new Object[] {UUID.randomUUID(), null}));
+
+        assertThat(leaderboardService.topTranslators(2)).containsExactly(
+                new LeaderboardService.Entry(high, 10), new LeaderboardService.Entry(low, 3));
+    }
+
+    @Test
+    void deletedTranslatorsDoNotShortenTheRanking() {
+        User deleted = User.builder().id(UUID.randomUUID()).username("gone").deletedAt(Instant.now()).build();
+        User first = User.builder().id(UUID.randomUUID()).username("ana").build();
+        User second = User.builder().id(UUID.randomUUID()).username("luis").build();
+        User third = User.builder().id(UUID.randomUUID()).username("eva").build();
+        when(versionRepository.sumScoresByAuthor()).thenReturn(List.of(
+                new Object[] {deleted.getId(), 50L}, new Object[] {first.getId(), 20L},
+                new Object[] {second.getId(), 10L}, new Object[] {third.getId(), 5L}));
+        when(userRepository.findAllById(any())).thenReturn(List.of(deleted, first, second, third));
+
+        assertThat(voteService.getTopTranslators(2))
+                .extracting(TranslationVoteDTO.TranslatorRanking::username)
+                .containsExactly("ana", "luis");
+    }
+
+    @Test
+    void languagePairRankingIsComputedFromTheDatabase() {
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        when(versionRepository.findScoresByLanguagePair(any(), any())).thenReturn(List.of(
+                new Object[] {second, 1}, new Object[] {first, 7}));
+
+        assertThat(leaderboardService.topVersionsByLanguagePair(UUID.randomUUID(), UUID.randomUUID(), 5))
+                .containsExactly(first, second);
+    }
+
+    @Test
+    void topVersionsFallBackToLoadingAllVersions() {
+        UUID translationId = UUID.randomUUID();
+        User author = User.builder().id(UUID.randomUUID()).username("ana").build();
+        TranslationVersion old = version(author, 1, 9, Instant.parse("2026-01-01T00:00:00Z"), false);
+        TranslationVersion latest = version(author, 2, 4, Instant.parse("2026-02-01T00:00:00Z"), true);
+        when(versionRepository.findByTranslationIdOrderByVersionNumberAsc(translationId))
+                .thenReturn(List.of(old, latest));
+
+        TranslationVoteDTO.TopVersions top = voteService.getTopVersions(translationId, null);
+
+        assertThat(top.bestRated().id()).isEqualTo(old.getId());
+        assertThat(top.mostRecent().id()).isEqualTo(latest.getId());
+        assertThat(top.currentVersion().id()).isEqualTo(latest.getId());
+        assertThat(top.topVersions()).extracting(TranslationVoteDTO.VersionWithVotes::id)
+                .containsExactly(old.getId(), latest.getId());
+    }
+
+    private static TranslationVersion version(User author, int number, int score, Instant createdAt, boolean current) {
+        return TranslationVersion.builder()
+                .id(UUID.randomUUID())
+                .versionNumber(number)
+                .author(author)
+                .totalScore(score)
+                .upvotesCount(score)
+                .isCurrentVersion(current)
+                .createdAt(createdAt)
+                .build();
+    }
+}
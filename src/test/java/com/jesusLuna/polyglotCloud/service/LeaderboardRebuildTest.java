@@ -0,0 +1,211 @@
+package com.jesusLuna.polyglotCloud.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import com.jesusLuna.polyglotCloud.models.Language;
+import com.jesusLuna.polyglotCloud.models.User;
+import com.jesusLuna.polyglotCloud.models.Translations.Translation;
+import com.jesusLuna.polyglotCloud.models.Translations.TranslationVersion;
+import com.jesusLuna.polyglotCloud.repository.TranslationVersionRepository;
+
+/**
+ * Reconstrucción de los rankings contra un Redis real: una sola consulta por nodo ante lecturas
+ * simultáneas, ningún voto perdido bajo una foto antigua (tampoco con los contadores write-behind
+ * atrasados hasta el flush), TTL siempre puesto y rankings vacíos que no vuelven a la base de datos.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class LeaderboardRebuildTest {
+
+    private static final Instant CREATED_AT = Instant.parse("2026-01-01T00:00:00Z");
+
+    @Container
+    static final GenericContainer<?> REDIS = new GenericContainer<>("redis:7-alpine").withExposedPorts(6379);
+
+    private LettuceConnectionFactory connectionFactory;
+    private StringRedisTemplate redisTemplate;
+    private TranslationVersionRepository versionRepository;
+    private LeaderboardService leaderboardService;
+    private UUID translationId;
+
+    @BeforeEach
+    void setUp() {
+        connectionFactory = new LettuceConnectionFactory(
+                new RedisStandaloneConfiguration(REDIS.getHost(), REDIS.getMappedPort(6379)));
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+        redisTemplate = new StringRedisTemplate(connectionFactory);
+
+        versionRepository = mock(TranslationVersionRepository.class);
+        leaderboardService = new LeaderboardService(redisTemplate, versionRepository);
+        ReflectionTestUtils.setField(leaderboardService, "ttlMinutes", 60L);
+        translationId = UUID.randomUUID();
+    }
+
+    @AfterEach
+    void tearDown() {
+        connectionFactory.destroy();
+    }
+
+    @Test
+    void voteCommittedDuringRebuildIsNotLost() {
+        TranslationVersion low = version(1);
+        TranslationVersion high = version(5);
+        AtomicInteger snapshots = new AtomicInteger();
+        when(versionRepository.findRankingRowsByTranslationId(translationId)).thenAnswer(inv -> {
+            if (snapshots.incrementAndGet() == 1) {
+                // El voto confirma justo después de leer la BD: la foto ya no lo incluye
+                leaderboardService.recordScoreDelta(low, 10);
+                return List.of(row(low, 1), row(high, 5));
+            }
+            return List.of(row(low, 11), row(high, 5));
+        });
+
+        assertThat(leaderboardService.topVersionsByScore(translationId, 10)).containsExactly(low.getId(), high.getId());
+        assertThat(redisTemplate.opsForZSet().score(scoreKey(), low.getId().toString())).isEqualTo(11.0);
+        verify(versionRepository, times(2)).findRankingRowsByTranslationId(translationId);
+    }
+
+    @Test
+    void flushRefreshCorrectsARebuildFromStaleCounters() {
+        TranslationVersion voted = version(1);
+        TranslationVersion other = version(5);
+        // Write-behind: el voto ya confirmó pero la BD aún no tiene el incremento (+10)
+        when(versionRepository.findRankingRowsByTranslationId(translationId))
+                .thenReturn(List.of(row(voted, 1), row(other, 5)));
+        assertThat(leaderboardService.topVersionsByScore(translationId, 10)).containsExactly(other.getId(), voted.getId());
+
+        // Flush: la BD ya suma +10 y en memoria quedan +2 de votos posteriores
+        when(versionRepository.findRankingKeysByIds(List.of(voted.getId()))).thenReturn(List.<Object[]>of(rankingKeys(voted, 11)));
+        when(versionRepository.sumScoresByAuthorIds(Set.of(voted.getAuthor().getId())))
+                .thenReturn(List.<Object[]>of(new Object[] {voted.getAuthor().getId(), 11L}));
+        leaderboardService.refreshScores(List.of(voted.getId()), versionId -> 2);
+
+        assertThat(redisTemplate.opsForZSet().score(scoreKey(), voted.getId().toString())).isEqualTo(13.0);
+        assertThat(leaderboardService.topVersionsByScore(translationId, 10)).containsExactly(voted.getId(), other.getId());
+    }
+
+    @Test
+    void rebuildOverlappingAFlushIsNotInstalled() {
+        TranslationVersion voted = version(1);
+        AtomicInteger snapshots = new AtomicInteger();
+        when(versionRepository.findRankingKeysByIds(List.of(voted.getId()))).thenReturn(List.<Object[]>of(rankingKeys(voted, 11)));
+        when(versionRepository.findRankingRowsByTranslationId(translationId)).thenAnswer(inv -> {
+            if (snapshots.incrementAndGet() == 1) {
+                // El flush confirma y refresca justo después de esta lectura atrasada
+                leaderboardService.refreshScores(List.of(voted.getId()), versionId -> 0);
+                return List.<Object[]>of(row(voted, 1));
+            }
+            return List.<Object[]>of(row(voted, 11));
+        });
+
+        leaderboardService.topVersionsByScore(translationId, 10);
+
+        assertThat(redisTemplate.opsForZSet().score(scoreKey(), voted.getId().toString())).isEqualTo(11.0);
+        verify(versionRepository, times(2)).findRankingRowsByTranslationId(translationId);
+    }
+
+    @Test
+    void concurrentReadersShareOneRebuild() throws Exception {
+        TranslationVersion only = version(3);
+        CountDownLatch queried = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(versionRepository.findRankingRowsByTranslationId(translationId)).thenAnswer(inv -> {
+            queried.countDown();
+            release.await();
+            return List.<Object[]>of(row(only, 3));
+        });
+
+        List<Future<List<UUID>>> readers = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < 50; i++) {
+                readers.add(executor.submit(() -> leaderboardService.topVersionsByScore(translationId, 10)));
+            }
+            assertThat(queried.await(10, TimeUnit.SECONDS)).isTrue();
+            Thread.sleep(200); // El resto de lectores llega mientras la reconstrucción sigue en curso
+            release.countDown();
+
+            for (Future<List<UUID>> reader : readers) {
+                assertThat(reader.get(10, TimeUnit.SECONDS)).containsExactly(only.getId());
+            }
+        }
+        verify(versionRepository, times(1)).findRankingRowsByTranslationId(translationId);
+    }
+
+    @Test
+    void translationWithoutVersionsIsNotRebuiltOnEveryRead() {
+        when(versionRepository.findRankingRowsByTranslationId(translationId)).thenReturn(List.of());
+
+        assertThat(leaderboardService.topVersionsByScore(translationId, 10)).isEmpty();
+        assertThat(leaderboardService.topVersionsByScore(translationId, 10)).isEmpty();
+        assertThat(leaderboardService.mostRecentVersions(translationId, 1)).isEmpty();
+
+        verify(versionRepository, times(1)).findRankingRowsByTranslationId(translationId);
+    }
+
+    @Test
+    void rebuiltLeaderboardsAlwaysExpire() {
+        TranslationVersion only = version(2);
+        when(versionRepository.findRankingRowsByTranslationId(translationId)).thenReturn(List.<Object[]>of(row(only, 2)));
+
+        leaderboardService.topVersionsByScore(translationId, 10);
+
+        assertThat(redisTemplate.getExpire(scoreKey())).isPositive();
+        assertThat(redisTemplate.getExpire("leaderboard:translation:" + translationId + ":recent")).isPositive();
+    }
+
+    private TranslationVersion version(int score) {
+        Translation translation = Translation.builder()
+                .id(translationId)
+                .sourceLanguage(Language.builder().id(UUID.randomUUID()).build())
+                .targetLanguage(Language.builder().id(UUID.randomUUID()).build())
+                .build();
+        return TranslationVersion.builder()
+                .id(UUID.randomUUID())
+                .translation(translation)
+                .author(User.builder().id(UUID.randomUUID()).username("ana").build())
+                .totalScore(score)
+                .createdAt(CREATED_AT)
+                .build();
+    }
+
+    private static Object[] row(TranslationVersion version, int score) {
+        return new Object[] {version.getId(), score, version.getCreatedAt()};
+    }
+
+    private static Object[] rankingKeys(TranslationVersion version, long totalScore) {
+        Translation translation = version.getTranslation();
+        return new Object[] {version.getId(), translation.getId(), translation.getSourceLanguage().getId(),
+                translation.getTargetLanguage().getId(), version.getAuthor().getId(), totalScore};
+    }
+
+    private String scoreKey() {
+        return "leaderboard:translation:" + translationId + ":score";
+    }
+}
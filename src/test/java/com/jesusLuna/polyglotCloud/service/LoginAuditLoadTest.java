@@ -0,0 +1,163 @@
+package com.jesusLuna.polyglotCloud.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Credential stuffing contra el pipeline de auditoría con PostgreSQL real: cientos de hilos
+ * registrando intentos fallidos a la vez, con spool síncrono (group commit) y sin spool.
+ * record() no debe serializar los logins detrás de la E/S del fichero, y todos los intentos
+ * deben acabar en login_attempts sin dejar segmentos en disco.
+ */
+@Tag("load")
+@Testcontainers(disabledWithoutDocker = true)
+class LoginAuditLoadTest {
+
+    private static final int ATTACKERS = 500;
+    private static final int ATTEMPTS_PER_ATTACKER = 200;
+
+    @Container
+    static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    private static HikariDataSource dataSource;
+    private static JdbcTemplate jdbcTemplate;
+    private static TransactionTemplate transactionTemplate;
+
+    @TempDir
+    Path spoolDirectory;
+
+    @BeforeAll
+    static void setUp() {
+        dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl(POSTGRES.getJdbcUrl());
+        dataSource.setUsername(POSTGRES.getUsername());
+        dataSource.setPassword(POSTGRES.getPassword());
+        dataSource.setMaximumPoolSize(4);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+
+        jdbcTemplate.execute("""
+            CREATE TABLE login_attempts (
+                id UUID PRIMARY KEY,
+                user_id UUID,
+                attempt_timestamp TIMESTAMPTZ NOT NULL,
+                ip_address VARCHAR(45),
+                user_agent TEXT,
+                success BOOLEAN NOT NULL,
+                failure_reason VARCHAR(100),
+                created_at TIMESTAMPTZ NOT NULL
+            )
+        """);
+    }
+
+    @AfterAll
+    static void tearDown() {
+        if (dataSource != null) {
+            dataSource.close();
+        }
+    }
+
+    @BeforeEach
+    void truncate() {
+        jdbcTemplate.execute("TRUNCATE login_attempts");
+    }
+
+    @Test
+    void stuffingWithoutSpool() throws Exception {
+        Run run = stuff(false, false);
+        report("no spool", run);
+        assertThat(storedAttempts()).isEqualTo((long) ATTACKERS * ATTEMPTS_PER_ATTACKER);
+    }
+
+    @Test
+    void stuffingWithSyncSpoolUsesGroupCommit() throws Exception {
+        Run run = stuff(true, true);
+        report("sync spool", run);
+
+        assertThat(storedAttempts()).isEqualTo((long) ATTACKERS * ATTEMPTS_PER_ATTACKER);
+        try (Stream<Path> segments = Files.list(spoolDirectory)) {
+            assertThat(segments).isEmpty();
+        }
+        // Un force por grupo: la espera de cada login es del orden de un fsync, no de la cola de todos
+        assertThat(percentile(run.latencies(), 0.99)).isLessThan(TimeUnit.MILLISECONDS.toNanos(50));
+    }
+
+    private record Run(long[] latencies, long wallNanos) {
+    }
+
+    private Run stuff(boolean spool, boolean syncWrites) throws Exception {
+        LoginAuditPipeline pipeline = new LoginAuditPipeline(jdbcTemplate, transactionTemplate, new SimpleMeterRegistry(),
+                ATTACKERS * ATTEMPTS_PER_ATTACKER, 500, 200, spool, spoolDirectory.toString(), syncWrites);
+        pipeline.start();
+
+        ExecutorService attackers = Executors.newFixedThreadPool(ATTACKERS);
+        long wallStart = System.nanoTime();
+        List<Future<long[]>> futures = new ArrayList<>();
+        for (int a = 0; a < ATTACKERS; a++) {
+            String ip = "203.0.113." + (a % 250);
+            futures.add(attackers.submit(() -> {
+                long[] latencies = new long[ATTEMPTS_PER_ATTACKER];
+                for (int i = 0; i < ATTEMPTS_PER_ATTACKER; i++) {
+                    UUID victim = UUID.randomUUID();
+                    long start = System.nanoTime();
+                    pipeline.record(LoginAuditPipeline.Event.failure(victim, ip, "python-requests/2.31", "Invalid credentials"));
+                    latencies[i] = System.nanoTime() - start;
+                }
+                return latencies;
+            }));
+        }
+
+        long[] all = new long[ATTACKERS * ATTEMPTS_PER_ATTACKER];
+        for (int a = 0; a < ATTACKERS; a++) {
+            System.arraycopy(futures.get(a).get(5, TimeUnit.MINUTES), 0, all, a * ATTEMPTS_PER_ATTACKER, ATTEMPTS_PER_ATTACKER);
+        }
+        long wallNanos = System.nanoTime() - wallStart;
+        attackers.shutdown();
+        pipeline.stop();
+        return new Run(all, wallNanos);
+    }
+
+    private static long percentile(long[] latencies, double percentile) {
+        long[] sorted = latencies.clone();
+        Arrays.sort(sorted);
+        return sorted[(int) Math.ceil(sorted.length * percentile) - 1];
+    }
+
+    private static void report(String mode, Run run) {
+        System.out.printf("%-10s %d attempts, %.0f attempts/s, p50=%.3fms p99=%.3fms%n",
+                mode, run.latencies().length, run.latencies().length / (run.wallNanos() / 1e9),
+                percentile(run.latencies(), 0.5) / 1e6, percentile(run.latencies(), 0.99) / 1e6);
+    }
+
+    private long storedAttempts() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM login_attempts", Long.class);
+    }
+}
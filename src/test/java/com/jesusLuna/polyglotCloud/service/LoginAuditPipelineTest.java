@@ -0,0 +1,140 @@
+package com.jesusLuna.polyglotCloud.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class LoginAuditPipelineTest {
+
+    @TempDir
+    Path spoolDirectory;
+
+    private final Set<UUID> inserted = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean databaseDown = new AtomicBoolean();
+    private volatile boolean insertAttempted;
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private LoginAuditPipeline pipeline;
+
+    @AfterEach
+    void tearDown() throws Exception {
+        if (pipeline != null) {
+            pipeline.stop();
+        }
+    }
+
+    @Test
+    void concurrentAttemptsAreInsertedOnceAndSpoolIsCleaned() throws Exception {
+        pipeline = pipeline(true);
+        ExecutorService attackers = Executors.newFixedThreadPool(16);
+        Set<UUID> recorded = ConcurrentHashMap.newKeySet();
+        for (int t = 0; t < 16; t++) {
+            attackers.submit(() -> {
+                for (int i = 0; i < 200; i++) {
+                    LoginAuditPipeline.Event event = LoginAuditPipeline.Event.failure(null, "10.0.0.1", "curl\t8", "bad\npassword");
+                    recorded.add(event.id());
+                    pipeline.record(event);
+                }
+            });
+        }
+        attackers.shutdown();
+        assertThat(attackers.awaitTermination(30, TimeUnit.SECONDS)).isTrue();
+
+        pipeline.stop();
+        pipeline = null;
+
+        assertThat(inserted).isEqualTo(recorded);
+        assertThat(spoolFiles()).isEmpty();
+    }
+
+    @Test
+    void batchFailingWhileDatabaseIsDownIsReplayedFromSpool() throws Exception {
+        databaseDown.set(true);
+        pipeline = pipeline(true);
+        LoginAuditPipeline.Event event = LoginAuditPipeline.Event.success(UUID.randomUUID(), "10.0.0.2", null);
+        pipeline.record(event);
+
+        // El lote falla y queda en el spool
+        waitUntil(() -> insertAttempted && !spoolFiles().isEmpty());
+        assertThat(inserted).isEmpty();
+
+        databaseDown.set(false);
+        waitUntil(() -> inserted.contains(event.id()) && spoolFiles().isEmpty());
+    }
+
+    @Test
+    void eventsThatNeverReachedTheSpoolAreCountedAsDroppedWhenTheInsertFails() throws Exception {
+        databaseDown.set(true);
+        pipeline = pipeline(false);
+        // El directorio del spool deja de ser utilizable: el append falla al abrir el segmento
+        Files.delete(spoolDirectory);
+        Files.createFile(spoolDirectory);
+
+        pipeline.record(LoginAuditPipeline.Event.failure(null, "10.0.0.3", "curl", "Invalid password"));
+
+        waitUntil(() -> meterRegistry.counter("login.audit.dropped").count() == 1);
+        assertThat(inserted).isEmpty();
+    }
+
+    @SuppressWarnings("unchecked")
+    private LoginAuditPipeline pipeline(boolean syncWrites) throws IOException {
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        when(jdbcTemplate.batchUpdate(anyString(), any(Collection.class), anyInt(), any())).thenAnswer(inv -> {
+            insertAttempted = true;
+            if (databaseDown.get()) {
+                throw new IllegalStateException("database down");
+            }
+            Collection<LoginAuditPipeline.Event> events = inv.getArgument(1);
+            events.forEach(event -> inserted.add(event.id()));
+            return new int[0][];
+        });
+        TransactionTemplate transactionTemplate = new TransactionTemplate(mock(PlatformTransactionManager.class));
+
+        LoginAuditPipeline created = new LoginAuditPipeline(jdbcTemplate, transactionTemplate, meterRegistry,
+                10_000, 100, 50, true, spoolDirectory.toString(), syncWrites);
+        created.start();
+        return created;
+    }
+
+    private List<Path> spoolFiles() {
+        try (Stream<Path> files = Files.list(spoolDirectory)) {
+            return files.toList();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("condition not met in time").isLessThan(deadline);
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.jesusLuna.polyglotCloud.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Optional;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.SetOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.jesusLuna.polyglotCloud.config.SecurityProperties;
+import com.jesusLuna.polyglotCloud.models.User;
+import com.jesusLuna.polyglotCloud.repository.UserRepository;
+import com.jesusLuna.polyglotCloud.security.PrincipalCache;
+
+/**
+ * Con Redis caído el contador de logins fallidos vuelve a la fila de users
+ */
+class LoginLockoutFallbackTest {
+
+    private UserRepository userRepository;
+    private SecurityProperties securityProperties;
+    private LoginLockoutService lockoutService;
+    private UserAuditService userAuditService;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        RedisConnectionFailureException down = new RedisConnectionFailureException("Redis down");
+        StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+        ValueOperations<String, String> valueOperations = mock(ValueOperations.class);
+        SetOperations<String, String> setOperations = mock(SetOperations.class);
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class))).thenThrow(down);
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(redisTemplate.opsForSet()).thenReturn(setOperations);
+        when(valueOperations.multiGet(any())).thenThrow(down);
+        when(setOperations.pop(any(), anyInt())).thenThrow(down);
+
+        userRepository = mock(UserRepository.class);
+        securityProperties = new SecurityProperties();
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        lockoutService = new LoginLockoutService(redisTemplate, userRepository, securityProperties,
+                mock(PrincipalCache.class), new TransactionTemplate(transactionManager));
+        userAuditService = new UserAuditService(userRepository, securityProperties, mock(PrincipalCache.class),
+                mock(LoginAuditPipeline.class), lockoutService, mock(BatchPurgeService.class), transactionManager);
+    }
+
+    @Test
+    void lockoutServiceReportsRedisUnavailable() {
+        UUID userId = UUID.randomUUID();
+
+        assertThat(lockoutService.recordFailure(userId)).isNull();
+        assertThat(lockoutService.currentState(userId)).isNull();
+
+        lockoutService.persistLockState();
+        verify(userRepository, never()).persistLockState(any(), anyInt(), any(), anyBoolean());
+    }
+
+    @Test
+    void failedPasswordsAreCountedOnTheUserRow() {
+        User user = User.builder().id(UUID.randomUUID()).username("ana").build();
+        when(userRepository.findById(user.getId())).thenReturn(Optional.of(user));
+        when(userRepository.saveAndFlush(user)).thenReturn(user);
+
+        LoginLockoutService.LockoutState state = null;
+        for (int i = 0; i < securityProperties.getMaxFailedAttemptsTemp(); i++) {
+            state = userAuditService.recordFailedLoginAttempt(user.getId(), "10.0.0.1", "curl", "Invalid password");
+        }
+
+        assertThat(state).isNotNull();
+        assertThat(state.failedAttempts()).isEqualTo(securityProperties.getMaxFailedAttemptsTemp());
+        assertThat(state.isLocked()).isTrue();
+        assertThat(user.getFailedLoginAttempts()).isEqualTo(securityProperties.getMaxFailedAttemptsTemp());
+    }
+}
@@ -0,0 +1,162 @@
+package com.jesusLuna.polyglotCloud.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import com.jesusLuna.polyglotCloud.config.SecurityProperties;
+import com.jesusLuna.polyglotCloud.repository.UserRepository;
+import com.jesusLuna.polyglotCloud.security.PrincipalCache;
+
+/**
+ * Umbrales del script de bloqueo, copia a users e índice de alertas contra un Redis real
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class LoginLockoutServiceTest {
+
+    @Container
+    static final GenericContainer<?> REDIS = new GenericContainer<>("redis:7-alpine").withExposedPorts(6379);
+
+    private LettuceConnectionFactory connectionFactory;
+    private StringRedisTemplate redisTemplate;
+    private UserRepository userRepository;
+    private PrincipalCache principalCache;
+    private SecurityProperties securityProperties;
+    private LoginLockoutService lockoutService;
+
+    @BeforeEach
+    void setUp() {
+        connectionFactory = new LettuceConnectionFactory(
+                new RedisStandaloneConfiguration(REDIS.getHost(), REDIS.getMappedPort(6379)));
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+        redisTemplate = new StringRedisTemplate(connectionFactory);
+        redisTemplate.getConnectionFactory().getConnection().serverCommands().flushAll();
+
+        userRepository = mock(UserRepository.class);
+        principalCache = mock(PrincipalCache.class);
+        securityProperties = new SecurityProperties();
+        lockoutService = new LoginLockoutService(redisTemplate, userRepository, securityProperties, principalCache,
+                new TransactionTemplate(mock(PlatformTransactionManager.class)));
+    }
+
+    @AfterEach
+    void tearDown() {
+        connectionFactory.destroy();
+    }
+
+    @Test
+    void temporaryThresholdLocksForTheConfiguredMinutes() {
+        UUID userId = UUID.randomUUID();
+        for (int i = 1; i < securityProperties.getMaxFailedAttemptsTemp(); i++) {
+            LoginLockoutService.LockoutState state = lockoutService.recordFailure(userId);
+            assertThat(state.failedAttempts()).isEqualTo(i);
+            assertThat(state.isLocked()).isFalse();
+        }
+
+        LoginLockoutService.LockoutState locked = lockoutService.recordFailure(userId);
+
+        assertThat(locked.isLocked()).isTrue();
+        assertThat(locked.disabled()).isFalse();
+        assertThat(locked.lockedUntil()).isBetween(
+                Instant.now().plus(Duration.ofMinutes(securityProperties.getLockoutDurationMinutes() - 1)),
+                Instant.now().plus(Duration.ofMinutes(securityProperties.getLockoutDurationMinutes())));
+        assertThat(redisTemplate.getExpire("login:failures:" + userId)).isPositive();
+        assertThat(lockoutService.currentState(userId)).isEqualTo(locked);
+    }
+
+    @Test
+    void permanentThresholdDisablesAndKeepsTheCounter() {
+        UUID userId = UUID.randomUUID();
+        LoginLockoutService.LockoutState state = null;
+        for (int i = 0; i < securityProperties.getMaxFailedAttemptsPerm(); i++) {
+            state = lockoutService.recordFailure(userId);
+        }
+
+        assertThat(state.failedAttempts()).isEqualTo(securityProperties.getMaxFailedAttemptsPerm());
+        assertThat(state.disabled()).isTrue();
+        assertThat(state.lockedUntil()).isAfter(
+                Instant.now().plus(Duration.ofDays(securityProperties.getLockoutDurationDays())).minusSeconds(60));
+        // El contador ya no caduca: el bloqueo permanente solo lo levanta un administrador
+        assertThat(redisTemplate.getExpire("login:failures:" + userId)).isEqualTo(-1);
+    }
+
+    @Test
+    void persistLockStateCopiesLocksToUsersOnce() {
+        UUID locked = UUID.randomUUID();
+        UUID belowThreshold = UUID.randomUUID();
+        for (int i = 0; i < securityProperties.getMaxFailedAttemptsTemp(); i++) {
+            lockoutService.recordFailure(locked);
+        }
+        lockoutService.recordFailure(belowThreshold);
+        LoginLockoutService.LockoutState state = lockoutService.currentState(locked);
+
+        lockoutService.persistLockState();
+        lockoutService.persistLockState();
+
+        verify(userRepository).persistLockState(locked, state.failedAttempts(), state.lockedUntil(), false);
+        verify(userRepository, never()).persistLockState(eq(belowThreshold), anyInt(), any(), anyBoolean());
+        verify(principalCache).evict(locked);
+    }
+
+    @Test
+    void indexIsTrimmedOnceTheCounterWindowHasPassed() {
+        UUID stale = UUID.randomUUID();
+        UUID recent = UUID.randomUUID();
+        UUID disabled = UUID.randomUUID();
+        lockoutService.recordFailure(stale);
+        lockoutService.recordFailure(recent);
+        for (int i = 0; i < securityProperties.getMaxFailedAttemptsPerm(); i++) {
+            lockoutService.recordFailure(disabled);
+        }
+        // Último fallo fuera de la ventana: su contador ya habría caducado
+        long outsideWindow = System.currentTimeMillis()
+                - Duration.ofHours(securityProperties.getFailedAttemptsWindowHours() + 1L).toMillis();
+        redisTemplate.opsForZSet().add("login:failures:last", stale.toString(), outsideWindow);
+
+        lockoutService.persistLockState();
+
+        assertThat(redisTemplate.opsForZSet().score("login:failures:index", stale.toString())).isNull();
+        assertThat(redisTemplate.opsForZSet().score("login:failures:index", recent.toString())).isNotNull();
+        assertThat(redisTemplate.opsForZSet().score("login:failures:index", disabled.toString())).isNotNull();
+        assertThat(lockoutService.findUsersWithFailures(PageRequest.of(0, 10)).getContent())
+                .extracting(LoginLockoutService.FailureEntry::userId)
+                .containsExactly(disabled, recent);
+    }
+
+    @Test
+    void clearRemovesCounterLockAndIndexEntries() {
+        UUID userId = UUID.randomUUID();
+        for (int i = 0; i < securityProperties.getMaxFailedAttemptsTemp(); i++) {
+            lockoutService.recordFailure(userId);
+        }
+
+        lockoutService.clear(userId);
+
+        assertThat(lockoutService.currentState(userId)).isEqualTo(LoginLockoutService.LockoutState.NONE);
+        assertThat(redisTemplate.opsForZSet().zCard("login:failures:index")).isZero();
+        assertThat(redisTemplate.opsForZSet().zCard("login:failures:last")).isZero();
+    }
+}
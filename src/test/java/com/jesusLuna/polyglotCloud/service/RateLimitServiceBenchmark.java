@@ -0,0 +1,108 @@
+package com.jesusLuna.polyglotCloud.service;
+
+import static org.mockito.Mockito.mock;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.jesusLuna.polyglotCloud.config.BucketProxyManagers;
+import com.jesusLuna.polyglotCloud.config.RateLimitConfig;
+import com.jesusLuna.polyglotCloud.support.InMemoryProxyManager;
+
+import io.github.bucket4j.Bucket;
+import io.github.bucket4j.BucketConfiguration;
+
+/**
+ * Coste por petición de checkGeneralUserRateLimit (tiempo y bytes asignados, con -prof gc)
+ * frente a construir configuración, clave y proxy en cada llamada como se hacía antes.
+ * El ProxyManager es en memoria para medir solo el lado del cliente, sin red.
+ *
+ * mvn test-compile exec:java -Dexec.classpathScope=test
+ *     -Dexec.mainClass=com.jesusLuna.polyglotCloud.service.RateLimitServiceBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RateLimitServiceBenchmark {
+
+    private static final int USERS = 1_000;
+
+    private RateLimitService rateLimitService;
+    private BucketProxyManagers proxyManagers;
+    private RateLimitConfig rateLimitConfig;
+    private UUID[] users;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        rateLimitConfig = new RateLimitConfig();
+        // Capacidad enorme: se mide el camino feliz, nunca se lanza la excepción
+        for (String limit : new String[] {"globalRequestsPerMinute", "translationRequestsPerMinute",
+                "translationRequestsPerHour", "authRequestsPerMinute", "authRequestsPerHour", "anonymousRequestsPerMinute"}) {
+            ReflectionTestUtils.setField(rateLimitConfig, limit, Integer.MAX_VALUE);
+        }
+        proxyManagers = InMemoryProxyManager.proxyManagers();
+
+        rateLimitService = new RateLimitService(proxyManagers, rateLimitConfig, mock(AbuseDetectionService.class));
+        rateLimitService.buildProfiles();
+
+        users = new UUID[USERS];
+        for (int i = 0; i < USERS; i++) {
+            users[i] = UUID.randomUUID();
+        }
+    }
+
+    private UUID nextUser() {
+        UUID user = users[next];
+        next = next + 1 == USERS ? 0 : next + 1;
+        return user;
+    }
+
+    @Benchmark
+    public void checkGeneralUserRateLimit() {
+        rateLimitService.checkGeneralUserRateLimit(nextUser());
+    }
+
+    /**
+     * Implementación anterior: configuración, clave y proxy nuevos en cada petición
+     */
+    @Benchmark
+    public boolean rebuildPerRequest() {
+        BucketConfiguration configuration = BucketConfiguration.builder()
+                .addLimit(limit -> limit
+                    .capacity(rateLimitConfig.getGlobalRequestsPerMinute())
+                    .refillGreedy(rateLimitConfig.getGlobalRequestsPerMinute(), Duration.ofMinutes(1)))
+                .build();
+        String bucketKey = "rate_limit:user:" + nextUser() + ":general";
+        Bucket bucket = proxyManagers.forKey(bucketKey).builder().build(bucketKey, () -> configuration);
+        return bucket.tryConsume(1);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(RateLimitServiceBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
@@ -0,0 +1,191 @@
+package com.jesusLuna.polyglotCloud.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import com.jesusLuna.polyglotCloud.exception.BusinessRuleException;
+import com.jesusLuna.polyglotCloud.models.RefreshToken;
+import com.jesusLuna.polyglotCloud.repository.specification.RefreshTokenRepository;
+import com.jesusLuna.polyglotCloud.security.JwtTokenProvider;
+
+/**
+ * Límite de sesiones por usuario contra un Redis real: expulsión de las más antiguas, alta deshecha
+ * si la transacción hace rollback y rotaciones concurrentes del mismo token.
+ * La BD se simula con un mapa; revokeByTokenHash es condicional como la UPDATE real.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class RefreshTokenSessionLimitTest {
+
+    private static final int MAX_SESSIONS = 5;
+
+    @Container
+    static final GenericContainer<?> REDIS = new GenericContainer<>("redis:7-alpine").withExposedPorts(6379);
+
+    private final Map<String, RefreshToken> tokensByHash = new ConcurrentHashMap<>();
+    private LettuceConnectionFactory connectionFactory;
+    private StringRedisTemplate redisTemplate;
+    private RefreshTokenRepository refreshTokenRepository;
+    private RefreshTokenService refreshTokenService;
+    private UUID userId;
+
+    @BeforeEach
+    void setUp() {
+        connectionFactory = new LettuceConnectionFactory(
+                new RedisStandaloneConfiguration(REDIS.getHost(), REDIS.getMappedPort(6379)));
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+        redisTemplate = new StringRedisTemplate(connectionFactory);
+
+        JwtTokenProvider jwtTokenProvider = mock(JwtTokenProvider.class);
+        when(jwtTokenProvider.generateRefreshToken(any())).thenAnswer(inv -> "refresh-" + UUID.randomUUID());
+        when(jwtTokenProvider.getRefreshExpirationMs()).thenReturn(Duration.ofDays(7).toMillis());
+
+        refreshTokenRepository = mock(RefreshTokenRepository.class);
+        when(refreshTokenRepository.save(any())).thenAnswer(inv -> {
+            RefreshToken token = inv.getArgument(0);
+            tokensByHash.put(token.getTokenHash(), token);
+            return token;
+        });
+        when(refreshTokenRepository.findByTokenHash(anyString()))
+                .thenAnswer(inv -> Optional.ofNullable(tokensByHash.get(inv.<String>getArgument(0))));
+        when(refreshTokenRepository.revokeByTokenHash(anyString())).thenAnswer(inv -> {
+            RefreshToken token = tokensByHash.get(inv.<String>getArgument(0));
+            synchronized (token) {
+                if (token.isRevoked()) {
+                    return 0;
+                }
+                token.revoke();
+                return 1;
+            }
+        });
+
+        refreshTokenService = new RefreshTokenService(refreshTokenRepository, jwtTokenProvider,
+                new RefreshSessionStore(redisTemplate, true), mock(BatchPurgeService.class));
+        ReflectionTestUtils.setField(refreshTokenService, "maxTokensPerUser", MAX_SESSIONS);
+        userId = UUID.randomUUID();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        connectionFactory.destroy();
+    }
+
+    @Test
+    void sessionsBeyondTheLimitRevokeTheOldest() throws Exception {
+        List<RefreshToken> created = createSessions(MAX_SESSIONS + 1);
+
+        verify(refreshTokenRepository).revokeAllByTokenHashIn(List.of(created.getFirst().getTokenHash()));
+        assertThat(activeSessions()).hasSize(MAX_SESSIONS)
+                .doesNotContain(created.getFirst().getTokenHash())
+                .contains(created.getLast().getTokenHash());
+    }
+
+    @Test
+    void rolledBackLoginGivesBackTheEvictedSession() throws Exception {
+        List<RefreshToken> created = createSessions(MAX_SESSIONS);
+
+        TransactionSynchronizationManager.initSynchronization();
+        RefreshToken rolledBack = refreshTokenService.createRefreshToken(userId, "10.0.0.1", "test");
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        synchronizations.forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+        assertThat(activeSessions()).hasSize(MAX_SESSIONS)
+                .contains(created.getFirst().getTokenHash())
+                .doesNotContain(rolledBack.getTokenHash());
+    }
+
+    @Test
+    void revocationRolledBackKeepsTheSessionTracked() {
+        RefreshToken token = refreshTokenService.createRefreshToken(userId, "10.0.0.1", "test");
+
+        TransactionSynchronizationManager.initSynchronization();
+        refreshTokenService.revokeRefreshToken(token.getToken());
+        TransactionSynchronizationManager.clearSynchronization(); // rollback: afterCommit nunca llega
+
+        assertThat(activeSessions()).containsExactly(token.getTokenHash());
+    }
+
+    @Test
+    void concurrentRotationsOfOneTokenLeaveASingleSession() throws Exception {
+        RefreshToken original = refreshTokenService.createRefreshToken(userId, "10.0.0.1", "test");
+        int clients = 16;
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<RefreshToken>> rotations = new ArrayList<>();
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < clients; i++) {
+                rotations.add(executor.submit(() -> {
+                    start.await();
+                    return refreshTokenService.rotateRefreshToken(original.getToken(), "10.0.0.1", "test");
+                }));
+            }
+            start.countDown();
+
+            List<RefreshToken> rotated = new ArrayList<>();
+            int rejected = 0;
+            for (Future<RefreshToken> rotation : rotations) {
+                try {
+                    rotated.add(rotation.get(10, TimeUnit.SECONDS));
+                } catch (ExecutionException e) {
+                    assertThat(e.getCause()).isInstanceOf(BusinessRuleException.class);
+                    rejected++;
+                }
+            }
+
+            assertThat(rotated).hasSize(1);
+            assertThat(rejected).isEqualTo(clients - 1);
+            assertThat(activeSessions()).containsExactly(rotated.getFirst().getTokenHash());
+        }
+        verify(refreshTokenRepository, never()).revokeAllByTokenHashIn(any());
+    }
+
+    private List<RefreshToken> createSessions(int count) throws InterruptedException {
+        List<RefreshToken> created = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            created.add(refreshTokenService.createRefreshToken(userId, "10.0.0.1", "test"));
+            Thread.sleep(2); // Momentos de emisión distintos: "la más antigua" no depende del hash
+        }
+        return created;
+    }
+
+    private Set<String> activeSessions() {
+        return redisTemplate.opsForZSet().range("auth:sessions:" + userId, 0, -1);
+    }
+}
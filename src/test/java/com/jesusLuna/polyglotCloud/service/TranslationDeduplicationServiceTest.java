@@ -0,0 +1,216 @@
+package com.jesusLuna.polyglotCloud.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+
+import com.jesusLuna.polyglotCloud.dto.TranslationDTO;
+import com.jesusLuna.polyglotCloud.exception.BusinessRuleException;
+import com.jesusLuna.polyglotCloud.mapper.TranslationMapper;
+import com.jesusLuna.polyglotCloud.models.Language;
+import com.jesusLuna.polyglotCloud.models.Snippet;
+import com.jesusLuna.polyglotCloud.models.User;
+import com.jesusLuna.polyglotCloud.models.Translations.Translation;
+import com.jesusLuna.polyglotCloud.models.enums.Role;
+import com.jesusLuna.polyglotCloud.models.enums.TranslationStatus;
+import com.jesusLuna.polyglotCloud.repository.LanguageRepository;
+import com.jesusLuna.polyglotCloud.repository.SnippetRepository;
+import com.jesusLuna.polyglotCloud.repository.TranslationJobRepository;
+import com.jesusLuna.polyglotCloud.repository.TranslationRepository;
+import com.jesusLuna.polyglotCloud.repository.TranslationVersionRepository;
+import com.jesusLuna.polyglotCloud.repository.UserRepository;
+import com.jesusLuna.polyglotCloud.service.engine.TranslationEngineGateway;
+
+/**
+ * Índice de duplicados de findExistingTranslation: un acierto evita la consulta por hash, una entrada
+ * de otros idiomas u otro código cuenta como colisión, una entrada obsoleta se quita y se vuelve a la BD,
+ * revisión y rechazo sacan la traducción del índice, y la salida de un motor simulado nunca entra.
+ */
+class TranslationDeduplicationServiceTest {
+
+    private static final String CODE = "def f():\r\n    return 1   \r\n";
+
+    private TranslationRepository translationRepository;
+    private CacheManager cacheManager;
+    private UserRepository userRepository;
+    private SnippetRepository snippetRepository;
+    private LanguageRepository languageRepository;
+    private TranslationEngineGateway engineGateway;
+    private TranslationDeduplicationService deduplicationService;
+    private UUID sourceLanguageId;
+    private UUID targetLanguageId;
+    private Translation completed;
+    private TranslationDeduplicationService.ContentKey contentKey;
+
+    @BeforeEach
+    void setUp() {
+        translationRepository = mock(TranslationRepository.class);
+        cacheManager = new ConcurrentMapCacheManager(TranslationDeduplicationService.DEDUP_CACHE);
+        deduplicationService = new TranslationDeduplicationService(translationRepository, cacheManager);
+
+        sourceLanguageId = UUID.randomUUID();
+        targetLanguageId = UUID.randomUUID();
+        contentKey = deduplicationService.computeContentKey(sourceLanguageId, targetLanguageId, CODE);
+        completed = Translation.builder()
+                .id(UUID.randomUUID())
+                .sourceLanguage(Language.builder().id(sourceLanguageId).build())
+                .targetLanguage(Language.builder().id(targetLanguageId).build())
+                .sourceSnippet(Snippet.builder().content(CODE).build())
+                .requestedBy(User.builder().id(UUID.randomUUID()).username("ana").role(Role.TRANSLATOR).build())
+                .status(TranslationStatus.COMPLETED)
+                .contentHash(contentKey.contentHash())
+                .build();
+    }
+
+    @Test
+    void indexHitSkipsTheContentHashQuery() {
+        when(translationRepository.findCompletedByContentHash(contentKey.contentHash())).thenReturn(Optional.of(completed));
+        when(translationRepository.findCompletedById(completed.getId())).thenReturn(Optional.of(completed));
+
+        // Primera petición: BD y alta en el índice; la segunda (mismo código con otros finales de línea) sale del índice
+        assertThat(deduplicationService.findExistingTranslation(sourceLanguageId, targetLanguageId, CODE))
+                .contains(completed);
+        assertThat(deduplicationService.findExistingTranslation(sourceLanguageId, targetLanguageId,
+                "def f():\n    return 1\n")).contains(completed);
+
+        verify(translationRepository, times(1)).findCompletedByContentHash(anyString());
+        verify(translationRepository, times(1)).findCompletedById(completed.getId());
+    }
+
+    @Test
+    void indexEntryForOtherLanguagesIsACollision() {
+        index(new TranslationDeduplicationService.DedupEntry(
+                completed.getId(), sourceLanguageId, UUID.randomUUID(), contentKey.fingerprint()));
+
+        assertThat(deduplicationService.findExistingTranslation(sourceLanguageId, targetLanguageId, CODE)).isEmpty();
+
+        verify(translationRepository, never()).findCompletedById(any());
+        verify(translationRepository, never()).findCompletedByContentHash(anyString());
+    }
+
+    @Test
+    void indexEntryWithOtherFingerprintIsACollision() {
+        index(new TranslationDeduplicationService.DedupEntry(
+                completed.getId(), sourceLanguageId, targetLanguageId, "12:0"));
+
+        assertThat(deduplicationService.findExistingTranslation(sourceLanguageId, targetLanguageId, CODE)).isEmpty();
+
+        verify(translationRepository, never()).findCompletedById(any());
+        verify(translationRepository, never()).findCompletedByContentHash(anyString());
+    }
+
+    @Test
+    void staleIndexEntryIsEvictedAndTheDatabaseDecides() {
+        index(new TranslationDeduplicationService.DedupEntry(
+                completed.getId(), sourceLanguageId, targetLanguageId, contentKey.fingerprint()));
+        // La traducción indexada ya no está COMPLETED
+        when(translationRepository.findCompletedById(completed.getId())).thenReturn(Optional.empty());
+        when(translationRepository.findCompletedByContentHash(contentKey.contentHash())).thenReturn(Optional.empty());
+
+        assertThat(deduplicationService.findExistingTranslation(sourceLanguageId, targetLanguageId, CODE)).isEmpty();
+
+        verify(translationRepository).findCompletedByContentHash(contentKey.contentHash());
+        assertThat(indexed()).isNull();
+    }
+
+    @Test
+    void submitForReviewRemovesTheTranslationFromTheIndex() {
+        TranslationService translationService = translationService();
+        deduplicationService.indexCompleted(completed, CODE);
+        assertThat(indexed()).isNotNull();
+
+        translationService.submitForReview(completed.getId(), completed.getRequestedBy().getId());
+
+        assertThat(completed.getStatus()).isEqualTo(TranslationStatus.UNDER_REVIEW);
+        assertThat(indexed()).isNull();
+    }
+
+    @Test
+    void rejectTranslationRemovesTheTranslationFromTheIndex() {
+        TranslationService translationService = translationService();
+        completed.changeStatus(TranslationStatus.UNDER_REVIEW, null, null);
+        deduplicationService.indexCompleted(completed, CODE);
+        assertThat(indexed()).isNotNull();
+        User reviewer = User.builder().id(UUID.randomUUID()).username("mod").role(Role.MODERATOR).build();
+        when(userRepository.findById(reviewer.getId())).thenReturn(Optional.of(reviewer));
+
+        translationService.rejectTranslation(completed.getId(), reviewer.getId(), "wrong");
+
+        assertThat(completed.getStatus()).isEqualTo(TranslationStatus.REJECTED);
+        assertThat(indexed()).isNull();
+    }
+
+    @Test
+    void simulatedEngineOutputIsNeverIndexed() {
+        TranslationService translationService = translationService();
+        when(engineGateway.isSimulated()).thenReturn(true);
+        when(translationRepository.completeIfProcessing(eq(completed.getId()), anyString(), anyLong(), anyBoolean(), any()))
+                .thenReturn(1);
+        when(translationRepository.findWaitingFollowers(completed.getId())).thenReturn(List.of());
+
+        assertThat(translationService.completeMachineTranslation(completed.getId(), "print('Hello, World!')", 5)).isTrue();
+
+        verify(translationRepository).completeIfProcessing(eq(completed.getId()), anyString(), anyLong(), eq(true), any());
+        assertThat(indexed()).isNull();
+    }
+
+    @Test
+    void machineTranslationNeedsAnEngineThatAcceptsIt() {
+        TranslationService translationService = translationService();
+        Snippet snippet = Snippet.builder().id(UUID.randomUUID()).content(CODE).language(completed.getSourceLanguage()).build();
+        when(snippetRepository.findById(snippet.getId())).thenReturn(Optional.of(snippet));
+        when(engineGateway.acceptsMachineTranslations()).thenReturn(false);
+        TranslationDTO.TranslationRequest request = new TranslationDTO.TranslationRequest(
+                snippet.getId(), targetLanguageId, null, null);
+        when(languageRepository.findById(targetLanguageId)).thenReturn(Optional.of(completed.getTargetLanguage()));
+
+        assertThatThrownBy(() -> translationService.requestTranslation(request, completed.getRequestedBy()))
+                .isInstanceOf(BusinessRuleException.class)
+                .hasMessage("Manual translation is required");
+        verify(translationRepository, never()).findCompletedByContentHash(anyString());
+    }
+
+    private TranslationService translationService() {
+        userRepository = mock(UserRepository.class);
+        snippetRepository = mock(SnippetRepository.class);
+        languageRepository = mock(LanguageRepository.class);
+        engineGateway = mock(TranslationEngineGateway.class);
+        when(translationRepository.findById(completed.getId())).thenReturn(Optional.of(completed));
+        when(translationRepository.save(completed)).thenReturn(completed);
+        return new TranslationService(translationRepository, snippetRepository,
+                languageRepository, mock(TranslationVersionRepository.class), mock(CacheService.class),
+                mock(TranslationMapper.class), userRepository, deduplicationService, mock(LeaderboardService.class),
+                mock(TranslationJobRepository.class), cacheManager, engineGateway);
+    }
+
+    private void index(TranslationDeduplicationService.DedupEntry entry) {
+        cache().put(contentKey.contentHash(), entry);
+    }
+
+    private TranslationDeduplicationService.DedupEntry indexed() {
+        return cache().get(contentKey.contentHash(), TranslationDeduplicationService.DedupEntry.class);
+    }
+
+    private Cache cache() {
+        return cacheManager.getCache(TranslationDeduplicationService.DEDUP_CACHE);
+    }
+}
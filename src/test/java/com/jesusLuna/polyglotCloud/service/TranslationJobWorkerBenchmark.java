@@ -0,0 +1,147 @@
+package com.jesusLuna.polyglotCloud.service;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.jesusLuna.polyglotCloud.config.TranslationEngineProperties;
+import com.jesusLuna.polyglotCloud.config.TranslationQueueProperties;
+import com.jesusLuna.polyglotCloud.models.Translations.TranslationJob;
+import com.jesusLuna.polyglotCloud.repository.LanguageRepository;
+import com.jesusLuna.polyglotCloud.repository.TranslationJobRepository;
+import com.jesusLuna.polyglotCloud.support.TranslationEngineFixtures;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Trabajos por segundo del TranslationJobWorker contra FakeTranslationEngine, que cobra
+ * {@code callOverheadMs} por llamada: con maxBatchSize 1 cada trabajo paga la latencia de red
+ * simulada, con lotes se reparte. La cola vive en memoria; el coste de PostgreSQL queda fuera.
+ *
+ * mvn test-compile exec:java -Dexec.classpathScope=test
+ *     -Dexec.mainClass=com.jesusLuna.polyglotCloud.service.TranslationJobWorkerBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TranslationJobWorkerBenchmark {
+
+    private static final int JOBS = 256;
+    private static final int CONCURRENCY = 4;
+
+    @Param({"1", "16"})
+    public int maxBatchSize;
+
+    @Param({"5"})
+    public long callOverheadMs;
+
+    private final UUID languageId = UUID.randomUUID();
+    private final Queue<TranslationJob> queue = new ConcurrentLinkedQueue<>();
+    private volatile CountDownLatch done;
+    private TranslationJobWorker worker;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        TranslationJobRepository jobRepository = mock(TranslationJobRepository.class);
+        when(jobRepository.findLanguagesWithDueJobs(any())).thenAnswer(inv ->
+                queue.isEmpty() ? List.of() : List.of(languageId));
+        when(jobRepository.lockDueJobs(eq(languageId), any(), anyInt())).thenAnswer(inv -> {
+            int limit = inv.getArgument(2);
+            List<TranslationJob> claimed = new ArrayList<>(limit);
+            TranslationJob job;
+            while (claimed.size() < limit && (job = queue.poll()) != null) {
+                claimed.add(job);
+            }
+            return claimed;
+        });
+        when(jobRepository.deleteJob(any())).thenReturn(1);
+
+        TranslationService translationService = mock(TranslationService.class);
+        when(translationService.startMachineTranslation(any())).thenReturn(Optional.of(
+                new TranslationService.MachineTranslationInput("print('hola')", "Python", "JavaScript")));
+        when(translationService.completeMachineTranslation(any(), anyString(), anyLong())).thenAnswer(inv -> {
+            done.countDown();
+            return true;
+        });
+
+        LanguageRepository languageRepository = mock(LanguageRepository.class);
+        when(languageRepository.findById(any())).thenReturn(Optional.empty());
+
+        TranslationEngineProperties.Limits limits = new TranslationEngineProperties.Limits();
+        limits.setMaxConcurrency(CONCURRENCY);
+        limits.setMaxBatchSize(maxBatchSize);
+        TranslationQueueProperties properties = new TranslationQueueProperties();
+        properties.setDefaultConcurrency(CONCURRENCY);
+
+        var gateway = TranslationEngineFixtures.gateway(TranslationEngineFixtures.fakeEngine(callOverheadMs, 0),
+                limits, new SimpleMeterRegistry());
+        worker = new TranslationJobWorker(jobRepository, languageRepository, translationService, gateway, properties,
+                new TransactionTemplate(mock(PlatformTransactionManager.class)), new SimpleMeterRegistry(), true);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        worker.destroy();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(JOBS)
+    public void drainQueue() throws InterruptedException {
+        done = new CountDownLatch(JOBS);
+        for (int i = 0; i < JOBS; i++) {
+            queue.add(TranslationJob.builder()
+                    .id(UUID.randomUUID())
+                    .translationId(UUID.randomUUID())
+                    .targetLanguageId(languageId)
+                    .build());
+        }
+        // Sondeo agresivo en lugar del fixed-delay de 500 ms, para medir el worker y no el scheduler
+        while (!done.await(1, TimeUnit.MILLISECONDS)) {
+            worker.poll();
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(TranslationJobWorkerBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
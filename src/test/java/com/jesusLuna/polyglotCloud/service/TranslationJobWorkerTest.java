@@ -0,0 +1,126 @@
+package com.jesusLuna.polyglotCloud.service;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.jesusLuna.polyglotCloud.config.TranslationEngineProperties;
+import com.jesusLuna.polyglotCloud.config.TranslationQueueProperties;
+import com.jesusLuna.polyglotCloud.models.Translations.TranslationJob;
+import com.jesusLuna.polyglotCloud.repository.LanguageRepository;
+import com.jesusLuna.polyglotCloud.repository.TranslationJobRepository;
+import com.jesusLuna.polyglotCloud.support.TranslationEngineFixtures;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Un trabajo reclamado dos veces (timeout de visibilidad vencido) no debe escribir nada desde el
+ * worker que ya no es su dueño: ni completar otra vez, ni devolver la traducción a PENDING, ni
+ * reinsertar con save() una fila ya borrada
+ */
+class TranslationJobWorkerTest {
+
+    private final UUID languageId = UUID.randomUUID();
+    private TranslationJobRepository jobRepository;
+    private TranslationService translationService;
+    private TranslationJobWorker worker;
+    private TranslationJob job;
+
+    @BeforeEach
+    void setUp() {
+        jobRepository = mock(TranslationJobRepository.class);
+        translationService = mock(TranslationService.class);
+        LanguageRepository languageRepository = mock(LanguageRepository.class);
+        when(languageRepository.findById(any())).thenReturn(Optional.empty());
+
+        TranslationQueueProperties properties = new TranslationQueueProperties();
+        properties.setMaxAttempts(3);
+
+        var gateway = TranslationEngineFixtures.gateway(TranslationEngineFixtures.fakeEngine(0, 0),
+                new TranslationEngineProperties.Limits(), new SimpleMeterRegistry());
+        worker = new TranslationJobWorker(jobRepository, languageRepository, translationService, gateway, properties,
+                new TransactionTemplate(mock(PlatformTransactionManager.class)), new SimpleMeterRegistry(), false);
+
+        job = TranslationJob.builder()
+                .id(UUID.randomUUID())
+                .translationId(UUID.randomUUID())
+                .targetLanguageId(languageId)
+                .build();
+        when(jobRepository.findLanguagesWithDueJobs(any())).thenReturn(List.of(languageId));
+        when(jobRepository.lockDueJobs(eq(languageId), any(), anyInt())).thenReturn(List.of(job));
+    }
+
+    @AfterEach
+    void tearDown() {
+        worker.destroy();
+    }
+
+    @Test
+    void resultIsDiscardedWhenAnotherWorkerAlreadyDeletedTheJob() {
+        startsWith("print('hola')");
+        when(jobRepository.deleteJob(job.getId())).thenReturn(0);
+
+        worker.poll();
+
+        verify(jobRepository, timeout(5_000)).deleteJob(job.getId());
+        verify(translationService, never()).completeMachineTranslation(any(), anyString(), anyLong());
+        verify(jobRepository, never()).save(any());
+    }
+
+    @Test
+    void resultIsAppliedByTheWorkerThatDeletesTheJob() {
+        startsWith("print('hola')");
+        when(jobRepository.deleteJob(job.getId())).thenReturn(1);
+        when(translationService.completeMachineTranslation(eq(job.getTranslationId()), anyString(), anyLong())).thenReturn(true);
+
+        worker.poll();
+
+        verify(translationService, timeout(5_000)).completeMachineTranslation(eq(job.getTranslationId()), anyString(), anyLong());
+    }
+
+    @Test
+    void failureOfAJobNoLongerHeldIsIgnored() {
+        startsWith(TranslationEngineFixtures.FAIL_MARKER);
+        when(jobRepository.recordAttemptIfClaimed(any(TranslationJob.class), anyInt())).thenReturn(0);
+
+        worker.poll();
+
+        verify(jobRepository, timeout(5_000)).recordAttemptIfClaimed(any(TranslationJob.class), eq(1));
+        verify(translationService, never()).failMachineTranslation(any(), any(), anyLong(), anyBoolean());
+        verify(jobRepository, never()).save(any());
+    }
+
+    @Test
+    void failureIsRecordedByTheClaimingAttempt() {
+        startsWith(TranslationEngineFixtures.FAIL_MARKER);
+        when(jobRepository.recordAttemptIfClaimed(any(TranslationJob.class), anyInt())).thenReturn(1);
+
+        worker.poll();
+
+        verify(translationService, timeout(5_000)).failMachineTranslation(eq(job.getTranslationId()), anyString(), anyLong(), eq(false));
+        verify(jobRepository, never()).save(any());
+    }
+
+    private void startsWith(String sourceCode) {
+        when(translationService.startMachineTranslation(job.getTranslationId())).thenReturn(
+                Optional.of(new TranslationService.MachineTranslationInput(sourceCode, "Python", "JavaScript")));
+    }
+}
@@ -0,0 +1,220 @@
+package com.jesusLuna.polyglotCloud.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.boot.jdbc.test.autoconfigure.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import com.jesusLuna.polyglotCloud.dto.TranslationDTO;
+import com.jesusLuna.polyglotCloud.mapper.TranslationMapper;
+import com.jesusLuna.polyglotCloud.models.User;
+import com.jesusLuna.polyglotCloud.models.Translations.Translation;
+import com.jesusLuna.polyglotCloud.repository.UserRepository;
+import com.jesusLuna.polyglotCloud.service.engine.TranslationEngineGateway;
+
+/**
+ * Single-flight de requestTranslation contra PostgreSQL real con el esquema de Flyway
+ * (advisory lock por content_hash e índice único parcial de V0017): cientos de peticiones
+ * idénticas simultáneas crean un solo líder y un solo trabajo para el motor, y ninguna se queda
+ * esperando aunque la líder termine en mitad de la ráfaga.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.hibernate.ddl-auto=none",
+        "spring.datasource.hikari.maximum-pool-size=50",
+        "spring.datasource.hikari.connection-timeout=60000"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({TranslationService.class, TranslationDeduplicationService.class, TranslationSingleFlightTest.Caches.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Testcontainers(disabledWithoutDocker = true)
+class TranslationSingleFlightTest {
+
+    private static final int REQUESTS = 300;
+
+    @Container
+    @ServiceConnection
+    static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @MockitoBean
+    private CacheService cacheService;
+
+    @MockitoBean
+    private LeaderboardService leaderboardService;
+
+    @MockitoBean
+    private TranslationMapper translationMapper;
+
+    @MockitoBean
+    private TranslationEngineGateway engineGateway;
+
+    @Autowired
+    private TranslationService translationService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private DataSource dataSource;
+
+    private JdbcTemplate jdbc;
+    private User requester;
+    private UUID snippetId;
+    private UUID targetLanguageId;
+
+    @TestConfiguration
+    static class Caches {
+
+        @Bean
+        CacheManager cacheManager() {
+            return new ConcurrentMapCacheManager();
+        }
+    }
+
+    @BeforeAll
+    static void migrate() {
+        // V0010 usa un solo guion bajo: con el separador por defecto Flyway la ignoraría y V0011 fallaría
+        Flyway.configure()
+                .dataSource(POSTGRES.getJdbcUrl(), POSTGRES.getUsername(), POSTGRES.getPassword())
+                .locations("classpath:db/migration")
+                .sqlMigrationSeparator("_")
+                .load()
+                .migrate();
+    }
+
+    @BeforeEach
+    void createSnippet() {
+        jdbc = new JdbcTemplate(dataSource);
+        String suffix = UUID.randomUUID().toString().substring(0, 8);
+
+        UUID userId = jdbc.queryForObject(
+                "INSERT INTO users (email, username, password_hash) VALUES (?, ?, 'x') RETURNING id",
+                UUID.class, "single-flight-" + suffix + "@example.com", "sf-" + suffix);
+        UUID sourceLanguageId = jdbc.queryForObject(
+                "INSERT INTO languages (name, code) VALUES (?, ?) RETURNING id", UUID.class, "Source " + suffix, "src-" + suffix);
+        targetLanguageId = jdbc.queryForObject(
+                "INSERT INTO languages (name, code) VALUES (?, ?) RETURNING id", UUID.class, "Target " + suffix, "dst-" + suffix);
+        snippetId = jdbc.queryForObject(
+                "INSERT INTO snippets (title, content, user_id, language_id) VALUES (?, ?, ?, ?) RETURNING id",
+                UUID.class, "Single flight " + suffix, "print('" + suffix + "')", userId, sourceLanguageId);
+        requester = userRepository.findById(userId).orElseThrow();
+        // Motor real: acepta peticiones sin traducción manual y su salida es reutilizable
+        when(engineGateway.acceptsMachineTranslations()).thenReturn(true);
+    }
+
+    @Test
+    void simultaneousIdenticalRequestsShareOneLeaderAndOneJob() throws Exception {
+        List<Translation> created = requestConcurrently(REQUESTS, null);
+
+        assertThat(created).hasSize(REQUESTS);
+        List<Map<String, Object>> leaders = jdbc.queryForList(
+                "SELECT id FROM translations WHERE snippet_id = ? AND coalesced_with IS NULL", snippetId);
+        assertThat(leaders).hasSize(1);
+        UUID leaderId = (UUID) leaders.getFirst().get("id");
+
+        assertThat(count("SELECT COUNT(*) FROM translations WHERE snippet_id = ? AND coalesced_with = ?", snippetId, leaderId))
+                .isEqualTo(REQUESTS - 1);
+        assertThat(jobCount()).isEqualTo(1);
+
+        // La líder termina: todas las seguidoras reciben su resultado
+        assertThat(translationService.startMachineTranslation(leaderId)).isPresent();
+        assertThat(translationService.completeMachineTranslation(leaderId, "console.log('ok')", 5)).isTrue();
+
+        assertThat(count("SELECT COUNT(*) FROM translations WHERE snippet_id = ? AND status = 'COMPLETED' "
+                + "AND translated_code = 'console.log(''ok'')'", snippetId)).isEqualTo(REQUESTS);
+    }
+
+    @Test
+    void noRequestIsLeftWaitingWhenTheLeaderCompletesMidBurst() throws Exception {
+        Translation leader = requestConcurrently(1, null).getFirst();
+        assertThat(translationService.startMachineTranslation(leader.getId())).isPresent();
+
+        CountDownLatch halfway = new CountDownLatch(REQUESTS / 2);
+        ExecutorService completer = Executors.newSingleThreadExecutor();
+        Future<Boolean> completion = completer.submit(() -> {
+            halfway.await();
+            return translationService.completeMachineTranslation(leader.getId(), "console.log('ok')", 5);
+        });
+
+        requestConcurrently(REQUESTS, halfway);
+        assertThat(completion.get(1, TimeUnit.MINUTES)).isTrue();
+        completer.shutdown();
+
+        // Enlazadas antes del fin de la líder o reutilizadas después: ninguna sigue en curso
+        assertThat(count("SELECT COUNT(*) FROM translations WHERE snippet_id = ? "
+                + "AND status IN ('PENDING', 'PROCESSING')", snippetId)).isZero();
+        assertThat(count("SELECT COUNT(*) FROM translations WHERE snippet_id = ? AND status = 'COMPLETED'", snippetId))
+                .isEqualTo(REQUESTS + 1);
+        assertThat(jobCount()).isEqualTo(1);
+    }
+
+    /**
+     * Lanza las peticiones a la vez desde hilos virtuales; cualquier excepción (p. ej. violación
+     * del índice de líderes en curso) hace fallar el test
+     */
+    private List<Translation> requestConcurrently(int requests, CountDownLatch progress) throws Exception {
+        TranslationDTO.TranslationRequest request = new TranslationDTO.TranslationRequest(snippetId, targetLanguageId, null, null);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Translation>> futures = new ArrayList<>(requests);
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < requests; i++) {
+                futures.add(clients.submit(() -> {
+                    start.await();
+                    try {
+                        return translationService.requestTranslation(request, requester);
+                    } finally {
+                        if (progress != null) {
+                            progress.countDown();
+                        }
+                    }
+                }));
+            }
+            start.countDown();
+
+            List<Translation> created = new ArrayList<>(requests);
+            for (Future<Translation> future : futures) {
+                created.add(future.get(2, TimeUnit.MINUTES));
+            }
+            return created;
+        }
+    }
+
+    private long jobCount() {
+        return count("SELECT COUNT(*) FROM translation_jobs j JOIN translations t ON t.id = j.translation_id "
+                + "WHERE t.snippet_id = ?", snippetId);
+    }
+
+    private long count(String sql, Object... args) {
+        return jdbc.queryForObject(sql, Long.class, args);
+    }
+}
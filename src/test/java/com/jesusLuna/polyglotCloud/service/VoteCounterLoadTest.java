@@ -0,0 +1,285 @@
+package com.jesusLuna.polyglotCloud.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import com.jesusLuna.polyglotCloud.repository.TranslationVersionRepository;
+import com.zaxxer.hikari.HikariDataSource;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Contención de votos sobre una versión caliente en PostgreSQL real: UPDATE síncrono por voto
+ * frente al buffer write-behind, y exactitud de los contadores con dos nodos escribiendo
+ * mientras la conciliación recuenta en paralelo.
+ * Las consultas de {@link TranslationVersionRepository} se ejecutan con su SQL nativo real.
+ */
+@Tag("load")
+@Testcontainers(disabledWithoutDocker = true)
+class VoteCounterLoadTest {
+
+    private static final int VOTERS = 64;
+    private static final int VOTES_PER_VOTER = 200;
+
+    @Container
+    static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    private static HikariDataSource dataSource;
+    private static NamedParameterJdbcTemplate jdbc;
+    private static TransactionTemplate transactionTemplate;
+    private static TranslationVersionRepository versionRepository;
+
+    private UUID versionId;
+
+    @BeforeAll
+    static void setUp() throws Exception {
+        dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl(POSTGRES.getJdbcUrl());
+        dataSource.setUsername(POSTGRES.getUsername());
+        dataSource.setPassword(POSTGRES.getPassword());
+        dataSource.setMaximumPoolSize(VOTERS + 8);
+        jdbc = new NamedParameterJdbcTemplate(dataSource);
+        transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+
+        jdbc.getJdbcTemplate().execute("""
+            CREATE TABLE translation_versions (
+                id UUID PRIMARY KEY,
+                upvotes_count INTEGER NOT NULL DEFAULT 0,
+                downvotes_count INTEGER NOT NULL DEFAULT 0,
+                total_score INTEGER NOT NULL DEFAULT 0,
+                vote_epoch BIGINT NOT NULL DEFAULT 0
+            );
+            CREATE TABLE translation_votes (
+                id BIGSERIAL PRIMARY KEY,
+                translation_version_id UUID NOT NULL REFERENCES translation_versions(id),
+                vote_type VARCHAR(20) NOT NULL
+            );
+            CREATE INDEX idx_translation_votes_version_type ON translation_votes(translation_version_id, vote_type);
+        """);
+
+        versionRepository = jdbcBackedRepository();
+    }
+
+    @AfterAll
+    static void tearDown() {
+        if (dataSource != null) {
+            dataSource.close();
+        }
+    }
+
+    @BeforeEach
+    void createHotVersion() {
+        versionId = UUID.randomUUID();
+        jdbc.update("INSERT INTO translation_versions (id) VALUES (:id)", Map.of("id", versionId));
+    }
+
+    @Test
+    void writeBehindRelievesRowLockContention() throws Exception {
+        VoteDeltaBuffer buffer = buffer();
+
+        Run sync = castVotes(() -> versionRepository.applyVoteDelta(versionId, 1, 0));
+        Run buffered = castVotes(() -> buffer.add(versionId, 1, 0));
+        buffer.flush();
+
+        report("synchronous", sync);
+        report("write-behind", buffered);
+        assertThat(actualVotes()).isEqualTo(2L * VOTERS * VOTES_PER_VOTER);
+        assertThat(storedUpvotes()).isEqualTo(actualVotes());
+    }
+
+    @Test
+    void countersStayExactWhileTwoNodesFlushAndReconciliationRecounts() throws Exception {
+        VoteDeltaBuffer nodeA = buffer();
+        VoteDeltaBuffer nodeB = buffer();
+        VoteCountReconciliationService reconciliation =
+                new VoteCountReconciliationService(versionRepository, nodeA, mock(LeaderboardService.class),
+                        transactionTemplate, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(reconciliation, "batchSize", 500);
+
+        AtomicBoolean running = new AtomicBoolean(true);
+        ExecutorService background = Executors.newFixedThreadPool(3);
+        List<Future<?>> loops = List.of(
+                background.submit(() -> loop(running, 3, nodeA::flush)),
+                background.submit(() -> loop(running, 3, nodeB::flush)),
+                background.submit(() -> loop(running, 10, reconciliation::reconcileVoteCounts)));
+
+        try {
+            castVotes(() -> {
+                VoteDeltaBuffer node = ThreadLocalRandom.current().nextBoolean() ? nodeA : nodeB;
+                node.add(versionId, 1, 0);
+            });
+        } finally {
+            running.set(false);
+            for (Future<?> loop : loops) {
+                loop.get(1, TimeUnit.MINUTES);
+            }
+            background.shutdown();
+        }
+        nodeA.flush();
+        nodeB.flush();
+
+        Map<String, Object> row = jdbc.queryForMap(
+                "SELECT upvotes_count, total_score, vote_epoch FROM translation_versions WHERE id = :id",
+                Map.of("id", versionId));
+        System.out.printf("Counters after storm: %s, actual votes %d%n", row, actualVotes());
+
+        // Ni doble conteo por incrementos ya recontados ni votos perdidos
+        assertThat(storedUpvotes()).isEqualTo(actualVotes());
+        assertThat(((Number) row.get("total_score")).longValue()).isEqualTo(actualVotes());
+    }
+
+    private record Run(long[] latencies, long wallNanos) {
+    }
+
+    /**
+     * Cada voto es una transacción: INSERT del voto + actualización del contador
+     */
+    private Run castVotes(Runnable counterUpdate) throws Exception {
+        ExecutorService voters = Executors.newFixedThreadPool(VOTERS);
+        long wallStart = System.nanoTime();
+        List<Future<long[]>> futures = new ArrayList<>();
+        for (int v = 0; v < VOTERS; v++) {
+            futures.add(voters.submit(() -> {
+                long[] latencies = new long[VOTES_PER_VOTER];
+                for (int i = 0; i < VOTES_PER_VOTER; i++) {
+                    long start = System.nanoTime();
+                    transactionTemplate.executeWithoutResult(status -> {
+                        jdbc.update("INSERT INTO translation_votes (translation_version_id, vote_type) VALUES (:id, 'UPVOTE')",
+                                Map.of("id", versionId));
+                        counterUpdate.run();
+                    });
+                    latencies[i] = System.nanoTime() - start;
+                }
+                return latencies;
+            }));
+        }
+
+        long[] all = new long[VOTERS * VOTES_PER_VOTER];
+        for (int v = 0; v < VOTERS; v++) {
+            System.arraycopy(futures.get(v).get(5, TimeUnit.MINUTES), 0, all, v * VOTES_PER_VOTER, VOTES_PER_VOTER);
+        }
+        long wallNanos = System.nanoTime() - wallStart;
+        voters.shutdown();
+        return new Run(all, wallNanos);
+    }
+
+    private static void report(String mode, Run run) {
+        long[] sorted = run.latencies().clone();
+        Arrays.sort(sorted);
+        long p50 = sorted[sorted.length / 2];
+        long p99 = sorted[(int) Math.ceil(sorted.length * 0.99) - 1];
+        System.out.printf("%-13s %d votes, %.0f votes/s, p50=%.2fms p99=%.2fms%n",
+                mode, sorted.length, sorted.length / (run.wallNanos() / 1e9), p50 / 1e6, p99 / 1e6);
+    }
+
+    private static void loop(AtomicBoolean running, long periodMs, Runnable task) {
+        while (running.get()) {
+            task.run();
+            try {
+                Thread.sleep(periodMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private VoteDeltaBuffer buffer() {
+        VoteDeltaBuffer buffer = new VoteDeltaBuffer(versionRepository, transactionTemplate, mock(LeaderboardService.class),
+                new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(buffer, "enabled", true);
+        return buffer;
+    }
+
+    private long actualVotes() {
+        return jdbc.queryForObject("SELECT COUNT(*) FROM translation_votes WHERE translation_version_id = :id",
+                Map.of("id", versionId), Long.class);
+    }
+
+    private long storedUpvotes() {
+        return jdbc.queryForObject("SELECT upvotes_count FROM translation_versions WHERE id = :id",
+                Map.of("id", versionId), Long.class);
+    }
+
+    /**
+     * Repositorio respaldado por JDBC que ejecuta el SQL nativo de las anotaciones @Query
+     */
+    private static TranslationVersionRepository jdbcBackedRepository() throws Exception {
+        TranslationVersionRepository repository = mock(TranslationVersionRepository.class);
+
+        String lockEpoch = nativeSql("lockVoteEpoch", UUID.class);
+        when(repository.lockVoteEpoch(any())).thenAnswer(inv ->
+                jdbc.queryForObject(lockEpoch, Map.of("versionId", inv.getArgument(0)), Long.class));
+
+        String buffered = nativeSql("applyBufferedVoteDelta", UUID.class, long.class, int.class, int.class);
+        when(repository.applyBufferedVoteDelta(any(), anyLong(), anyInt(), anyInt())).thenAnswer(inv ->
+                jdbc.update(buffered, Map.of(
+                        "versionId", inv.getArgument(0),
+                        "epoch", inv.getArgument(1),
+                        "upvoteDelta", inv.getArgument(2),
+                        "downvoteDelta", inv.getArgument(3))));
+
+        // applyVoteDelta es JPQL: su equivalente en SQL
+        when(repository.applyVoteDelta(any(), anyInt(), anyInt())).thenAnswer(inv ->
+                jdbc.update("""
+                    UPDATE translation_versions
+                    SET upvotes_count = upvotes_count + :up,
+                        downvotes_count = downvotes_count + :down,
+                        total_score = total_score + :up - :down
+                    WHERE id = :id
+                """, Map.of("id", inv.getArgument(0), "up", inv.getArgument(1), "down", inv.getArgument(2))));
+
+        String drift = nativeSql("findVoteCountDrift", int.class);
+        when(repository.findVoteCountDrift(anyInt())).thenAnswer(inv ->
+                jdbc.query(drift, Map.of("limit", inv.getArgument(0)), (rs, i) -> new Object[] {
+                        rs.getObject(1, UUID.class), rs.getInt(2), rs.getInt(3), rs.getInt(4), rs.getLong(5), rs.getLong(6)
+                }));
+
+        String lock = nativeSql("lockForVoteRecount", List.class);
+        when(repository.lockForVoteRecount(anyList())).thenAnswer(inv ->
+                jdbc.queryForList(lock, Map.of("versionIds", inv.getArgument(0)), UUID.class));
+
+        String recount = nativeSql("recountVotes", List.class);
+        when(repository.recountVotes(anyList())).thenAnswer(inv ->
+                jdbc.update(recount, Map.of("versionIds", inv.getArgument(0))));
+
+        return repository;
+    }
+
+    private static String nativeSql(String method, Class<?>... parameterTypes) throws NoSuchMethodException {
+        Query query = TranslationVersionRepository.class.getMethod(method, parameterTypes).getAnnotation(Query.class);
+        assertThat(query.nativeQuery()).as("%s must be a native query", method).isTrue();
+        return query.value();
+    }
+}
@@ -0,0 +1,28 @@
+package com.jesusLuna.polyglotCloud.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+import com.jesusLuna.polyglotCloud.service.VoteDeltaBuffer.EpochDelta;
+import com.jesusLuna.polyglotCloud.service.VoteDeltaBuffer.VoteDelta;
+
+class VoteDeltaBufferTest {
+
+    @Test
+    void deltasOfTheSameEpochAreSummed() {
+        EpochDelta merged = new EpochDelta(3, new VoteDelta(2, 1)).merge(new EpochDelta(3, new VoteDelta(1, 0)));
+
+        assertThat(merged).isEqualTo(new EpochDelta(3, new VoteDelta(3, 1)));
+    }
+
+    @Test
+    void deltasFromBeforeARecountAreDropped() {
+        EpochDelta stale = new EpochDelta(3, new VoteDelta(5, 0));
+        EpochDelta fresh = new EpochDelta(4, new VoteDelta(1, 0));
+
+        // El recuento que avanzó a la época 4 ya contó los votos de la 3, en cualquier orden de llegada
+        assertThat(stale.merge(fresh)).isEqualTo(fresh);
+        assertThat(fresh.merge(stale)).isEqualTo(fresh);
+    }
+}
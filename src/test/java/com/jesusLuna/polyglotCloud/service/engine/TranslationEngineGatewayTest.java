@@ -0,0 +1,234 @@
+package com.jesusLuna.polyglotCloud.service.engine;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.jesusLuna.polyglotCloud.config.TranslationEngineProperties;
+import com.jesusLuna.polyglotCloud.exception.ServiceUnavailableException;
+import com.jesusLuna.polyglotCloud.service.engine.TranslationEngine.TranslationResult;
+import com.jesusLuna.polyglotCloud.service.engine.TranslationEngine.TranslationTask;
+import com.jesusLuna.polyglotCloud.support.TranslationEngineFixtures;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Protecciones del gateway sobre FakeTranslationEngine: circuit breaker, semáforo de
+ * concurrencia, rate limit y alineación de resultados con las tareas del lote
+ */
+class TranslationEngineGatewayTest {
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<TranslationEngineGateway> gateways = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        gateways.forEach(TranslationEngineGateway::destroy);
+    }
+
+    @Test
+    void breakerOpensAfterConsecutiveFailuresAndClosesAfterASuccessfulProbe() throws InterruptedException {
+        FakeTranslationEngine engine = TranslationEngineFixtures.fakeEngine(500, 0);
+        TranslationEngineProperties.Limits limits = limits();
+        limits.setTimeoutMs(50);
+        limits.setFailureThreshold(2);
+        limits.setOpenSeconds(1);
+        TranslationEngineGateway gateway = gateway(engine, limits);
+
+        // Los timeouts cuentan como fallo de la llamada completa
+        for (int i = 0; i < 2; i++) {
+            assertThatThrownBy(() -> gateway.translateBatch(tasks("print(1)")))
+                    .isInstanceOf(IllegalStateException.class)
+                    .hasMessageContaining("timed out");
+        }
+        assertThat(gateway.isAvailable()).isFalse();
+        assertThatThrownBy(() -> gateway.translateBatch(tasks("print(1)")))
+                .isInstanceOf(ServiceUnavailableException.class)
+                .hasMessageContaining("circuit is open");
+
+        // Pasado openSeconds el motor se recupera: la llamada de prueba cierra el circuito
+        ReflectionTestUtils.setField(engine, "callOverheadMs", 0L);
+        Thread.sleep(1_100);
+        assertThat(gateway.isAvailable()).isTrue();
+        assertThat(gateway.translateBatch(tasks("print(1)"))).allMatch(TranslationResult::isSuccess);
+        assertThat(gateway.translateBatch(tasks("print(2)"))).allMatch(TranslationResult::isSuccess);
+        assertThat(calls("timeout")).isEqualTo(2);
+        assertThat(calls("rejected")).isEqualTo(1);
+        assertThat(calls("success")).isEqualTo(2);
+    }
+
+    @Test
+    void halfOpenLetsASingleProbeThroughAndReopensWhenItFails() throws InterruptedException {
+        EngineCircuitBreaker breaker = new EngineCircuitBreaker(1, Duration.ofMillis(50));
+        assertThat(breaker.tryAcquire()).isTrue();
+        breaker.onFailure();
+        assertThat(breaker.state()).isEqualTo(EngineCircuitBreaker.State.OPEN);
+        assertThat(breaker.tryAcquire()).isFalse();
+
+        Thread.sleep(80);
+        assertThat(breaker.tryAcquire()).isTrue();
+        assertThat(breaker.state()).isEqualTo(EngineCircuitBreaker.State.HALF_OPEN);
+        // Solo una llamada de prueba a la vez
+        assertThat(breaker.tryAcquire()).isFalse();
+
+        breaker.onFailure();
+        assertThat(breaker.state()).isEqualTo(EngineCircuitBreaker.State.OPEN);
+        assertThat(breaker.isCallPermitted()).isFalse();
+
+        Thread.sleep(80);
+        assertThat(breaker.tryAcquire()).isTrue();
+        // Una prueba que no llegó a hacerse (sin hueco) deja pasar a la siguiente
+        breaker.release();
+        assertThat(breaker.tryAcquire()).isTrue();
+        breaker.onSuccess();
+        assertThat(breaker.state()).isEqualTo(EngineCircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void permitStaysHeldUntilTheEngineReallyFinishesAfterATimeout() {
+        CountDownLatch engineReleased = new CountDownLatch(1);
+        FakeTranslationEngine fake = TranslationEngineFixtures.fakeEngine(0, 0);
+        // Motor que ignora la interrupción del cancel(true), como un cliente HTTP bloqueado
+        TranslationEngine stubborn = new DelegatingEngine(fake) {
+            @Override
+            public List<TranslationResult> translateBatch(List<TranslationTask> tasks) {
+                boolean interrupted = false;
+                while (true) {
+                    try {
+                        engineReleased.await();
+                        break;
+                    } catch (InterruptedException e) {
+                        interrupted = true;
+                    }
+                }
+                if (interrupted) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.translateBatch(tasks);
+            }
+        };
+        TranslationEngineProperties.Limits limits = limits();
+        limits.setMaxConcurrency(1);
+        limits.setTimeoutMs(50);
+        limits.setMaxWaitMs(50);
+        TranslationEngineGateway gateway = gateway(stubborn, limits);
+
+        assertThatThrownBy(() -> gateway.translateBatch(tasks("print(1)")))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("timed out");
+        // El motor sigue ocupado: no se abre un segundo hueco por haber vencido el timeout
+        assertThatThrownBy(() -> gateway.translateBatch(tasks("print(2)")))
+                .isInstanceOf(ServiceUnavailableException.class)
+                .hasMessageContaining("saturated");
+
+        engineReleased.countDown();
+        limits.setMaxWaitMs(5_000);
+        assertThat(gateway.translateBatch(tasks("print(3)"))).allMatch(TranslationResult::isSuccess);
+    }
+
+    @Test
+    void callsBeyondTheRateLimitAreRejectedWithoutTrippingTheBreaker() {
+        TranslationEngineProperties.Limits limits = limits();
+        limits.setRequestsPerSecond(1);
+        limits.setMaxWaitMs(0);
+        limits.setFailureThreshold(1);
+        TranslationEngineGateway gateway = gateway(TranslationEngineFixtures.fakeEngine(0, 0), limits);
+
+        assertThat(gateway.translateBatch(tasks("print(1)"))).allMatch(TranslationResult::isSuccess);
+        assertThatThrownBy(() -> gateway.translateBatch(tasks("print(2)")))
+                .isInstanceOf(ServiceUnavailableException.class)
+                .hasMessageContaining("saturated");
+        assertThatThrownBy(() -> gateway.translateBatch(tasks("print(3)")))
+                .isInstanceOf(ServiceUnavailableException.class);
+
+        // Un rechazo no es un fallo del motor
+        assertThat(gateway.isAvailable()).isTrue();
+        assertThat(calls("rejected")).isEqualTo(2);
+        assertThat(calls("success")).isEqualTo(1);
+    }
+
+    @Test
+    void resultsAreAlignedWithTasksWhateverOrderTheEngineReturns() {
+        // Resultados desordenados, uno repetido y otro ausente
+        TranslationEngine shuffling = new DelegatingEngine(TranslationEngineFixtures.fakeEngine(0, 0)) {
+            @Override
+            public List<TranslationResult> translateBatch(List<TranslationTask> tasks) {
+                List<TranslationResult> results = new ArrayList<>(super.translateBatch(tasks));
+                results.removeLast();
+                results.add(results.getFirst());
+                Collections.reverse(results);
+                return results;
+            }
+        };
+        TranslationEngineGateway gateway = gateway(shuffling, limits());
+        List<TranslationTask> tasks = tasks("print('a')", TranslationEngineFixtures.FAIL_MARKER, "print('c')", "print('d')");
+
+        List<TranslationResult> results = gateway.translateBatch(tasks);
+
+        assertThat(results).extracting(TranslationResult::id).containsExactlyElementsOf(tasks.stream().map(TranslationTask::id).toList());
+        assertThat(results.get(0).translatedCode()).contains("print('a')");
+        assertThat(results.get(1).error()).contains("Fake engine failure");
+        assertThat(results.get(2).translatedCode()).contains("print('c')");
+        assertThat(results.get(3).error()).isEqualTo("No result returned by the engine");
+    }
+
+    private TranslationEngineGateway gateway(TranslationEngine engine, TranslationEngineProperties.Limits limits) {
+        TranslationEngineGateway gateway = TranslationEngineFixtures.gateway(engine, limits, meterRegistry);
+        gateways.add(gateway);
+        return gateway;
+    }
+
+    private static TranslationEngineProperties.Limits limits() {
+        TranslationEngineProperties.Limits limits = new TranslationEngineProperties.Limits();
+        limits.setMaxWaitMs(1_000);
+        limits.setTimeoutMs(5_000);
+        return limits;
+    }
+
+    private static List<TranslationTask> tasks(String... sources) {
+        List<TranslationTask> tasks = new ArrayList<>(sources.length);
+        for (String source : sources) {
+            tasks.add(new TranslationTask(UUID.randomUUID(), source, "Python", "JavaScript"));
+        }
+        return tasks;
+    }
+
+    private long calls(String outcome) {
+        return (long) meterRegistry.get("translation.engine.calls").tag("outcome", outcome).counter().count();
+    }
+
+    private static class DelegatingEngine implements TranslationEngine {
+
+        private final TranslationEngine delegate;
+
+        DelegatingEngine(TranslationEngine delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public String name() {
+            return delegate.name();
+        }
+
+        @Override
+        public String translate(String sourceCode, String sourceLanguage, String targetLanguage) {
+            return delegate.translate(sourceCode, sourceLanguage, targetLanguage);
+        }
+
+        @Override
+        public List<TranslationResult> translateBatch(List<TranslationTask> tasks) {
+            return delegate.translateBatch(tasks);
+        }
+    }
+}
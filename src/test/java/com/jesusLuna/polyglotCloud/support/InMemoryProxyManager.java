@@ -0,0 +1,92 @@
+package com.jesusLuna.polyglotCloud.support;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.jesusLuna.polyglotCloud.config.BucketProxyManagers;
+
+import io.github.bucket4j.distributed.proxy.ClientSideConfig;
+import io.github.bucket4j.distributed.proxy.generic.compare_and_swap.AbstractCompareAndSwapBasedProxyManager;
+import io.github.bucket4j.distributed.proxy.generic.compare_and_swap.AsyncCompareAndSwapOperation;
+import io.github.bucket4j.distributed.proxy.generic.compare_and_swap.CompareAndSwapOperation;
+import io.github.bucket4j.distributed.remote.RemoteBucketState;
+
+/**
+ * ProxyManager de Bucket4j en memoria (mismo protocolo CAS que el de Redis) para tests y benchmarks
+ */
+public class InMemoryProxyManager extends AbstractCompareAndSwapBasedProxyManager<String> {
+
+    private final Map<String, byte[]> states = new ConcurrentHashMap<>();
+
+    public InMemoryProxyManager() {
+        super(ClientSideConfig.getDefault());
+    }
+
+    /**
+     * BucketProxyManagers sin Redis: no se debe llamar a destroy()
+     */
+    public static BucketProxyManagers proxyManagers() {
+        return new BucketProxyManagers(null, null, List.of(), List.of(new InMemoryProxyManager()));
+    }
+
+    @Override
+    protected CompareAndSwapOperation beginCompareAndSwapOperation(String key) {
+        return new CompareAndSwapOperation() {
+            @Override
+            public Optional<byte[]> getStateData(Optional<Long> timeoutNanos) {
+                return Optional.ofNullable(states.get(key));
+            }
+
+            @Override
+            public boolean compareAndSwap(byte[] originalData, byte[] newData, RemoteBucketState newState,
+                                          Optional<Long> timeoutNanos) {
+                if (originalData == null) {
+                    return states.putIfAbsent(key, newData) == null;
+                }
+                boolean[] swapped = new boolean[1];
+                states.computeIfPresent(key, (k, current) -> {
+                    swapped[0] = Arrays.equals(current, originalData);
+                    return swapped[0] ? newData : current;
+                });
+                return swapped[0];
+            }
+        };
+    }
+
+    @Override
+    protected AsyncCompareAndSwapOperation beginAsyncCompareAndSwapOperation(String key) {
+        CompareAndSwapOperation sync = beginCompareAndSwapOperation(key);
+        return new AsyncCompareAndSwapOperation() {
+            @Override
+            public CompletableFuture<Optional<byte[]>> getStateData(Optional<Long> timeoutNanos) {
+                return CompletableFuture.completedFuture(sync.getStateData(timeoutNanos));
+            }
+
+            @Override
+            public CompletableFuture<Boolean> compareAndSwap(byte[] originalData, byte[] newData,
+                                                             RemoteBucketState newState, Optional<Long> timeoutNanos) {
+                return CompletableFuture.completedFuture(sync.compareAndSwap(originalData, newData, newState, timeoutNanos));
+            }
+        };
+    }
+
+    @Override
+    public void removeProxy(String key) {
+        states.remove(key);
+    }
+
+    @Override
+    protected CompletableFuture<Void> removeAsync(String key) {
+        states.remove(key);
+        return CompletableFuture.completedFuture(null);
+    }
+
+    @Override
+    public boolean isAsyncModeSupported() {
+        return true;
+    }
+}
@@ -0,0 +1,39 @@
+package com.jesusLuna.polyglotCloud.support;
+
+import java.util.List;
+
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.jesusLuna.polyglotCloud.config.TranslationEngineProperties;
+import com.jesusLuna.polyglotCloud.service.engine.FakeTranslationEngine;
+import com.jesusLuna.polyglotCloud.service.engine.TranslationEngine;
+import com.jesusLuna.polyglotCloud.service.engine.TranslationEngineGateway;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Motor falso y gateway construidos sin Spring (los @Value no se aplican fuera del contexto)
+ */
+public final class TranslationEngineFixtures {
+
+    public static final String FAIL_MARKER = "FAKE_ENGINE_FAIL";
+
+    private TranslationEngineFixtures() {
+    }
+
+    public static FakeTranslationEngine fakeEngine(long callOverheadMs, long perSnippetMs) {
+        FakeTranslationEngine engine = new FakeTranslationEngine();
+        ReflectionTestUtils.setField(engine, "callOverheadMs", callOverheadMs);
+        ReflectionTestUtils.setField(engine, "perSnippetMs", perSnippetMs);
+        ReflectionTestUtils.setField(engine, "failMarker", FAIL_MARKER);
+        return engine;
+    }
+
+    public static TranslationEngineGateway gateway(TranslationEngine engine, TranslationEngineProperties.Limits limits,
+                                                   MeterRegistry meterRegistry) {
+        TranslationEngineProperties properties = new TranslationEngineProperties();
+        properties.setActive(engine.name());
+        properties.setDefaults(limits);
+        return new TranslationEngineGateway(List.of(engine), properties, meterRegistry, false);
+    }
+}
@@ -0,0 +1,73 @@
+package com.jesusLuna.polyglotCloud.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+class BloomFilterTest {
+
+    private static final int INSERTIONS = 50_000;
+
+    @Test
+    void neverReportsAnAddedValueAsMissing() {
+        BloomFilter filter = new BloomFilter(INSERTIONS, 0.001);
+        for (int i = 0; i < INSERTIONS; i++) {
+            filter.put("blocked:ip:10.0." + (i >> 8) + "." + (i & 0xff));
+        }
+        for (int i = 0; i < INSERTIONS; i++) {
+            assertThat(filter.mightContain("blocked:ip:10.0." + (i >> 8) + "." + (i & 0xff))).isTrue();
+        }
+    }
+
+    @Test
+    void falsePositiveRateStaysNearTheTarget() {
+        double target = 0.01;
+        BloomFilter filter = new BloomFilter(INSERTIONS, target);
+        for (int i = 0; i < INSERTIONS; i++) {
+            filter.put("blocked:user:" + i);
+        }
+
+        int falsePositives = 0;
+        int probes = 200_000;
+        for (int i = 0; i < probes; i++) {
+            if (filter.mightContain("blocked:user:other-" + i)) {
+                falsePositives++;
+            }
+        }
+        assertThat((double) falsePositives / probes).isLessThan(target * 1.5);
+    }
+
+    @Test
+    void concurrentPutsAreNotLost() throws Exception {
+        BloomFilter filter = new BloomFilter(INSERTIONS, 0.001);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        for (int t = 0; t < 8; t++) {
+            int thread = t;
+            pool.submit(() -> {
+                for (int i = 0; i < INSERTIONS / 8; i++) {
+                    filter.put("blocked:ip:" + thread + ":" + i);
+                }
+            });
+        }
+        pool.shutdown();
+        assertThat(pool.awaitTermination(30, TimeUnit.SECONDS)).isTrue();
+
+        for (int t = 0; t < 8; t++) {
+            for (int i = 0; i < INSERTIONS / 8; i++) {
+                assertThat(filter.mightContain("blocked:ip:" + t + ":" + i)).isTrue();
+            }
+        }
+    }
+
+    @Test
+    void emptyFilterContainsNothing() {
+        BloomFilter filter = new BloomFilter(1_000, 0.01);
+
+        assertThat(filter.mightContain("blocked:ip:127.0.0.1")).isFalse();
+        assertThat(filter.mightContain("")).isFalse();
+    }
+}
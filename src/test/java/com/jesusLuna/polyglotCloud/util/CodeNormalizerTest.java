@@ -0,0 +1,165 @@
+package com.jesusLuna.polyglotCloud.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Random;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.cache.CacheManager;
+
+import com.jesusLuna.polyglotCloud.repository.TranslationRepository;
+import com.jesusLuna.polyglotCloud.service.TranslationDeduplicationService;
+
+/**
+ * Equivalencia del normalizador de una pasada con la cadena de replaceAll anterior:
+ * los content_hash ya guardados tienen que seguir coincidiendo.
+ */
+class CodeNormalizerTest {
+
+    private static final UUID SOURCE = UUID.fromString("3f1c2a9e-6b1d-4c47-9a0e-5d2f7b8c1e04");
+    private static final UUID TARGET = UUID.fromString("a07e4c15-0d3b-4f8a-b6c2-91e5d3f0a7b8");
+
+    private final CodeNormalizer normalizer = new CodeNormalizer();
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "",
+            "   ",
+            "\r\n\r\n",
+            "int a = 1;",
+            "a\r\nb\rc\nd",
+            "a\r\r\nb",
+            "a\n\rb",
+            "a \t \r\nb\t\t\rc \n",
+            "a\t\nb\t\t\nc",
+            "a\f\nb\u000B\nc",
+            "a\n\f\nb",
+            "a\n\u000B\n\u000B\nb",
+            "a\n\n\nb",
+            "a\n\n\n\n\n\nb",
+            "a\n  \n\t\n \nb",
+            "a \t\n \t\n \t\n \t b",
+            "a\r\n\r\n\r\n\r\nb",
+            "\n\n\n  leading and trailing  \n\n\n",
+            "\t\f\u000B code \u000B\f\t",
+            "\u2003indent\u2003",
+            "\u00A0nbsp\u00A0",
+            "x\u001C\n\n\ny",
+            "emoji 😀 ok",
+            "lonely high \uD83D",
+            "\uDE00 lonely low",
+            "swapped \uDE00\uD83D pair",
+            "\uD83D\n\n\n\uDE00",
+            "def f():\r\n    return 1   \r\n\r\n\r\n\r\nprint(f())\t\r\n"
+    })
+    void matchesTheRegexPipeline(String code) {
+        assertThat(normalize(code)).isEqualTo(legacyNormalize(code));
+    }
+
+    @Test
+    void nullIsNormalizedAsEmpty() {
+        assertThat(normalize(null)).isEmpty();
+        assertThat(normalizer.normalizedEquals(null, "  \n ")).isTrue();
+    }
+
+    @Test
+    void matchesTheRegexPipelineOnRandomInput() {
+        char[] alphabet = {' ', '\t', '\n', '\r', '\f', '\u000B', '\u001C', '\u00A0', '\u2003',
+                'a', 'z', '{', 'é', '中', '\uD83D', '\uDE00'};
+        Random random = new Random(42);
+        for (int i = 0; i < 20_000; i++) {
+            char[] code = new char[random.nextInt(40)];
+            for (int j = 0; j < code.length; j++) {
+                code[j] = alphabet[random.nextInt(alphabet.length)];
+            }
+            String input = new String(code);
+            assertThat(normalize(input)).as("input %s", escape(input)).isEqualTo(legacyNormalize(input));
+        }
+    }
+
+    @Test
+    void normalizedEqualsAgreesWithTheRegexPipeline() {
+        assertThat(normalizer.normalizedEquals("a\r\nb  \n\n\n\nc", "a\nb\n\nc")).isTrue();
+        assertThat(normalizer.normalizedEquals("  a\tb  ", "a\tb")).isTrue();
+        assertThat(normalizer.normalizedEquals("a\n\nb", "a\nb")).isFalse();
+        assertThat(normalizer.normalizedEquals("ab", "abc")).isFalse();
+        assertThat(normalizer.normalizedEquals("abc", "ab")).isFalse();
+        assertThat(normalizer.normalizedEquals("a\tb", "a b")).isFalse();
+    }
+
+    @Test
+    void contentHashMatchesTheStoredFormat() {
+        TranslationDeduplicationService service = new TranslationDeduplicationService(
+                mock(TranslationRepository.class), mock(CacheManager.class));
+        String[] inputs = {
+                "",
+                "print('hola')",
+                "def f():\r\n    return 1   \r\n\r\n\r\n\r\nprint(f())\t\r\n",
+                "emoji 😀 ñ 中\f\n\u000B\n\n x",
+                "lonely \uD83D high and \uDE00 low",
+                "x".repeat(20_000) + " \n\n\n " + "y".repeat(5_000)
+        };
+
+        for (String code : inputs) {
+            assertThat(service.generateContentHash(SOURCE, TARGET, code))
+                    .as("input %s", escape(code.length() > 40 ? code.substring(0, 40) : code))
+                    .isEqualTo(legacyHash(SOURCE, TARGET, code));
+        }
+        // Valores fijos: un cambio en el formato del hash invalidaría los ya guardados
+        assertThat(service.generateContentHash(SOURCE, TARGET, "print('hola')"))
+                .isEqualTo("1d2a64eebb975ce40c5b86dfb848f3c7d16ac292fcc7641d62bfdff45a482a22");
+        assertThat(service.generateContentHash(SOURCE, TARGET, "def f():\r\n    return 1   \r\n\r\n\r\n\r\nprint(f())\t\r\n"))
+                .isEqualTo("029fe77e95401f3147b1a284d31cec552451ea22c496165afec75866bf9f473b");
+    }
+
+    private String normalize(String code) {
+        StringBuilder out = new StringBuilder();
+        normalizer.normalize(code, c -> {
+            out.append(c);
+            return true;
+        });
+        return out.toString();
+    }
+
+    /**
+     * Implementación anterior de TranslationDeduplicationService.normalizecode
+     */
+    static String legacyNormalize(String code) {
+        if (code == null) {
+            return "";
+        }
+        return code
+                .replaceAll("\\r\\n", "\n")
+                .replaceAll("\\r", "\n")
+                .replaceAll("[ \\t]+\\n", "\n")
+                .replaceAll("\\n\\s*\\n\\s*\\n", "\n\n")
+                .strip();
+    }
+
+    /**
+     * Implementación anterior de generateContentHash
+     */
+    static String legacyHash(UUID sourceLanguageId, UUID targetLanguageId, String code) {
+        try {
+            String combined = sourceLanguageId + "|" + targetLanguageId + "|" + legacyNormalize(code);
+            return HexFormat.of().formatHex(
+                    MessageDigest.getInstance("SHA-256").digest(combined.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String escape(String code) {
+        StringBuilder escaped = new StringBuilder();
+        code.chars().forEach(c -> escaped.append(c < 0x20 || c > 0x7E ? String.format("\\u%04X", c) : String.valueOf((char) c)));
+        return escaped.toString();
+    }
+}